@@ -94,7 +94,8 @@ public class ImageProcessorFactory {
         /**
          * Reference to the Singleton instance of the ImageProcessorFactory.
          */
-        private static ImageProcessorFactory _instance = null;
+        private static final ImageProcessorFactory _instance = 
+                new ImageProcessorFactory();
     
         /**
          * Accessor method for the singleton instance of the 
@@ -103,9 +104,6 @@ public class ImageProcessorFactory {
          * @return The Singleton instance of the RoDProductFactory.
          */
         public static ImageProcessorFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new ImageProcessorFactory();
-            }
             return _instance;
         }
     }
@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +17,7 @@ import mil.nga.rod.model.QueryRequestAccelerator;
 import mil.nga.types.HashType;
 import mil.nga.util.FileUtils;
 import mil.nga.util.HashGenerator;
+import mil.nga.util.TreeHash;
 
 /**
  * Class containing the logic required to generate the key/value pair for the
@@ -69,7 +73,9 @@ public class AcceleratorRecordFactory {
     
     /**
      * Generate a <code>QueryRequestAccelerator</code> record for storage 
-     * in the target cache.
+     * in the target cache.  If a tree hash is configured 
+     * (<code>rod.hash.tree_type</code>) it is computed in parallel with 
+     * the MD5 hash and its chunk digests are added to the record.
      * 
      * @param prod The database record identifying an on-disk ISO file.
      * @return A QueryRequestAccelerator record to add to the cache.
@@ -88,15 +94,28 @@ public class AcceleratorRecordFactory {
                 try {
                     Path p = Paths.get(path);
                     if (Files.exists(p)) {
-                        String hash = generator.getHash(p, HASH_TYPE);
+                        Map<HashType, TreeHash> trees = 
+                                new EnumMap<HashType, TreeHash>(HashType.class);
+                        EnumSet<HashType>       types = EnumSet.of(HASH_TYPE);
+                        if (generator.getTreeType() != null) {
+                            types.add(generator.getTreeType());
+                        }
+                        String hash = generator.getHashes(p, types, trees)
+                                .get(HASH_TYPE);
                         if (hash != null) {
-                            record = new QueryRequestAccelerator
+                            QueryRequestAccelerator.QueryRequestAcceleratorBuilder 
+                                builder = new QueryRequestAccelerator
                                     .QueryRequestAcceleratorBuilder()
                                     	.product(prod)
                                         .fileDate(FileUtils.getActualFileDate(p))
                                         .hash(hash)
-                                        .size(FileUtils.getActualFileSize(p))
-                                        .build();
+                                        .size(FileUtils.getActualFileSize(p));
+                            for (TreeHash tree : trees.values()) {
+                                builder.chunkHashType(tree.getType().getText())
+                                        .chunkSize(tree.getChunkSize())
+                                        .chunkHashes(tree.getChunks());
+                            }
+                            record = builder.build();
                         }
                         else {
                             LOGGER.error("Unable to generate a hash for file [ "
@@ -147,7 +166,8 @@ public class AcceleratorRecordFactory {
         /**
          * Reference to the Singleton instance of the AcceleratorRecordFactory.
          */
-        private static AcceleratorRecordFactory _instance = null;
+        private static final AcceleratorRecordFactory _instance = 
+                new AcceleratorRecordFactory();
     
         /**
          * Accessor method for the singleton instance of the 
@@ -156,9 +176,6 @@ public class AcceleratorRecordFactory {
          * @return The Singleton instance of the AcceleratorRecordFactory.
          */
         public static AcceleratorRecordFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new AcceleratorRecordFactory();
-            }
             return _instance;
         }
         
@@ -452,13 +452,14 @@ public class AcceleratorJDBCRecordFactory
     
     /**
      * Construct a <code>java.sql.Connection</code> from the input database
-     * connection properties.
+     * connection properties.  Synchronized so that threads racing the 
+     * first query share a single connection.
      * 
      * @return A populated <code>java.sql.Connection</code> object.
      * @throws SQLException Thrown if problems were encountered establishing 
      * the database connection. 
      */
-    private Connection getConnection() throws SQLException {
+    private synchronized Connection getConnection() throws SQLException {
         
         if (connection == null) {
             connection = DriverManager.getConnection(
@@ -693,10 +694,12 @@ public class AcceleratorJDBCRecordFactory
     }
     
     /**
-     * Static inner class used to construct the Singleton object.  This class
-     * exploits the fact that classes are not loaded until they are referenced
-     * therefore enforcing thread safety without the performance hit imposed
-     * by the <code>synchronized</code> keyword.
+     * Static inner class used to construct the Singleton object.  The 
+     * constructor raises checked exceptions so the instance cannot be 
+     * created in a static initializer.  Double-checked locking on a 
+     * volatile reference ensures exactly one instance is created when 
+     * several threads race the first call, without synchronizing 
+     * subsequent calls.
      * 
      * @author L. Craig Carpenter
      */
@@ -705,7 +708,7 @@ public class AcceleratorJDBCRecordFactory
         /**
          * Reference to the Singleton instance of the RoDRecordFactory.
          */
-        private static AcceleratorJDBCRecordFactory _instance = null;
+        private static volatile AcceleratorJDBCRecordFactory _instance = null;
     
         /**
          * Accessor method for the singleton instance of the 
@@ -724,7 +727,11 @@ public class AcceleratorJDBCRecordFactory
                 	PropertiesNotLoadedException, 
                 	ClassNotFoundException {
             if (_instance == null) {
-                _instance = new AcceleratorJDBCRecordFactory();
+                synchronized (RoDRecordFactoryHolder.class) {
+                    if (_instance == null) {
+                        _instance = new AcceleratorJDBCRecordFactory();
+                    }
+                }
             }
             return _instance;
         }
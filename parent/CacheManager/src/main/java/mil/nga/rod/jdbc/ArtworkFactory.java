@@ -74,13 +74,14 @@ public class ArtworkFactory
 	
     /**
      * Construct a <code>java.sql.Connection</code> from the input database
-     * connection properties.
+     * connection properties.  Synchronized so that threads racing the 
+     * first query share a single connection.
      * 
      * @return A populated <code>java.sql.Connection</code> object.
      * @throws SQLException Thrown if problems were encountered establishing 
      * the database connection. 
      */
-    private Connection getConnection() throws SQLException {
+    private synchronized Connection getConnection() throws SQLException {
         
         if (connection == null) {
             connection = DriverManager.getConnection(
@@ -319,10 +320,12 @@ public class ArtworkFactory
     }
     
     /**
-     * Static inner class used to construct the Singleton object.  This class
-     * exploits the fact that classes are not loaded until they are referenced
-     * therefore enforcing thread safety without the performance hit imposed
-     * by the <code>synchronized</code> keyword.
+     * Static inner class used to construct the Singleton object.  The 
+     * constructor raises checked exceptions so the instance cannot be 
+     * created in a static initializer.  Double-checked locking on a 
+     * volatile reference ensures exactly one instance is created when 
+     * several threads race the first call, without synchronizing 
+     * subsequent calls.
      * 
      * @author L. Craig Carpenter
      */
@@ -331,7 +334,7 @@ public class ArtworkFactory
         /**
          * Reference to the Singleton instance of the ArtworkFactory.
          */
-        private static ArtworkFactory _instance = null;
+        private static volatile ArtworkFactory _instance = null;
     
         /**
          * Accessor method for the singleton instance of the 
@@ -348,7 +351,11 @@ public class ArtworkFactory
         public static ArtworkFactory getSingleton() 
                 throws PropertyNotFoundException, PropertiesNotLoadedException, ClassNotFoundException {
             if (_instance == null) {
-                _instance = new ArtworkFactory();
+                synchronized (ArtworkFactoryHolder.class) {
+                    if (_instance == null) {
+                        _instance = new ArtworkFactory();
+                    }
+                }
             }
             return _instance;
         }
@@ -42,10 +42,11 @@ public class ArtworkRowFactory implements AutoCloseable {
 	/**
 	 * Close the class-level EntityManager object.
 	 */
-	public void close() {
+	public synchronized void close() {
 		if (em != null) {
 			em.getEntityManagerFactory().close();
 			em.close();
+			em = null;
 		}
 	}
 	
@@ -56,9 +57,10 @@ public class ArtworkRowFactory implements AutoCloseable {
 	 * @param nsn The NSN String.
 	 * @return Single <code>ArtworkRow</code> matching the input NRN/NSN 
 	 * combination.  Null if the parameters are not supplied by the caller, 
-	 * or the matching object is not found in the database.
+	 * or the matching object is not found in the database.  Synchronized 
+	 * because the underlying <code>EntityManager</code> is not thread safe.
 	 */
-	public ArtworkRow getArtwork(String nrn, String nsn) throws NoResultException {
+	public synchronized ArtworkRow getArtwork(String nrn, String nsn) throws NoResultException {
 		long       start   = System.currentTimeMillis();
 		ArtworkRow artwork = null;
 		if ((nsn != null) && (!nsn.isEmpty())) {
@@ -118,7 +120,7 @@ public class ArtworkRowFactory implements AutoCloseable {
 	 * here.
 	 * @return A constructed EntityManager object.
 	 */
-	private EntityManager getEntityManager() {
+	private synchronized EntityManager getEntityManager() {
 		if (em == null) {
 	        EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
 			em = emf.createEntityManager();
@@ -151,16 +153,14 @@ public class ArtworkRowFactory implements AutoCloseable {
         /**
          * Reference to the Singleton instance of the ArtworkRowFactory.
          */
-        private static ArtworkRowFactory _instance = null;
+        private static final ArtworkRowFactory _instance = 
+                new ArtworkRowFactory();
     
         /**
          * Accessor method for the singleton instance of the 
          * ArtworkRowFactory.
          */
         public static ArtworkRowFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new ArtworkRowFactory();
-            }
             return _instance;
         }
         
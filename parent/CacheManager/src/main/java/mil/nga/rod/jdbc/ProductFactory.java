@@ -5,10 +5,14 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -501,6 +505,124 @@ public class ProductFactory extends ConnectionProperties
         
     }
     
+    /**
+     * Retrieve the unique keys of the products that were loaded or whose 
+     * file date changed after the input date.  Used by incremental 
+     * synchronization to avoid reading every key in the source table.
+     * 
+     * @param since Only rows with a <code>LOAD_DATE</code> or 
+     * <code>FILE_DATE</code> later than this date are considered.
+     * @return A list of unique keys.
+     */
+    public List<String> getUniqueKeysChangedSince(Date since) {
+    	
+    	Set<String> keys = new LinkedHashSet<String>();
+    	
+    	PreparedStatement stmt     = null;
+        ResultSet         rs       = null;
+        long              start    = System.currentTimeMillis();
+        String            sql      = "select distinct NSN, NRN from "
+                + TARGET_TABLE_NAME
+                + " where LOAD_DATE > ? or FILE_DATE > ?";
+        
+        if (since == null) {
+        	return getUniqueKeys();
+        }
+        try { 
+            if (getConnection() != null) {
+            	
+            	Timestamp sinceTS = new Timestamp(since.getTime());
+            	stmt = getConnection().prepareStatement(sql);
+            	stmt.setTimestamp(1, sinceTS);
+            	stmt.setTimestamp(2, sinceTS);
+                rs   = stmt.executeQuery();
+                
+                while (rs.next()) {
+                	keys.add(ProductUtils.getInstance().getKey(
+                    		rs.getString("NRN"), 
+                    		rs.getString("NSN")));
+                }
+                
+                if (LOGGER.isDebugEnabled()) {
+                	LOGGER.debug("Loaded [ "
+                			+ keys.size()
+                			+ " ] unique keys changed since [ "
+                			+ since
+                			+ " ] in [ "
+                			+ (System.currentTimeMillis() - start)
+                			+ " ] ms.");
+                }
+            }
+        }
+        catch (SQLException se) {
+            LOGGER.error("An unexpected SQLException was raised while "
+                    + "attempting to retrieve the list of changed products "
+                    + "from the target data source.  Error message => [ "
+                    + se.getMessage() 
+                    + " ].");
+        }
+        finally {
+            try { 
+                if (rs != null) { rs.close(); } 
+            } catch (Exception e) {}
+            try { 
+                if (stmt != null) { stmt.close(); } 
+            } catch (Exception e) {}
+        }
+        return new ArrayList<String>(keys);
+    }
+    
+    /**
+     * Retrieve the latest <code>LOAD_DATE</code> or <code>FILE_DATE</code> 
+     * in the source table.  This is the high-water mark used by incremental
+     * synchronization.
+     * 
+     * @return The latest date, or null if it could not be determined.
+     */
+    public Date getHighWaterMark() {
+    	
+    	Date              mark  = null;
+    	PreparedStatement stmt  = null;
+        ResultSet         rs    = null;
+        String            sql   = "select max(LOAD_DATE) as MAX_LOAD_DATE, "
+        		+ "max(FILE_DATE) as MAX_FILE_DATE from "
+                + TARGET_TABLE_NAME;
+        
+        try { 
+            if (getConnection() != null) {
+            	stmt = getConnection().prepareStatement(sql);
+                rs   = stmt.executeQuery();
+                if (rs.next()) {
+                	Timestamp loadDate = rs.getTimestamp("MAX_LOAD_DATE");
+                	Timestamp fileDate = rs.getTimestamp("MAX_FILE_DATE");
+                	if (loadDate != null) {
+                		mark = new Date(loadDate.getTime());
+                	}
+                	if ((fileDate != null) && 
+                			((mark == null) || (fileDate.getTime() > mark.getTime()))) {
+                		mark = new Date(fileDate.getTime());
+                	}
+                }
+            }
+        }
+        catch (SQLException se) {
+            LOGGER.error("An unexpected SQLException was raised while "
+                    + "attempting to retrieve the high-water mark "
+                    + "from the target data source.  Error message => [ "
+                    + se.getMessage() 
+                    + " ].");
+        }
+        finally {
+            try { 
+                if (rs != null) { rs.close(); } 
+            } catch (Exception e) {}
+            try { 
+                if (stmt != null) { stmt.close(); } 
+            } catch (Exception e) {}
+        }
+        return mark;
+    }
+    
     /**
      * Get a list of all unique NSN/NRN combinations but return the 
      * results as a Map (as opposed to a list).  The key will be in 
@@ -635,13 +757,14 @@ public class ProductFactory extends ConnectionProperties
     
     /**
      * Construct a <code>java.sql.Connection</code> from the input database
-     * connection properties.
+     * connection properties.  Synchronized so that concurrent callers 
+     * (e.g. the pipeline fetch threads) share a single connection.
      * 
      * @return A populated <code>java.sql.Connection</code> object.
      * @throws SQLException Thrown if problems were encountered establishing 
      * the database connection. 
      */
-    private Connection getConnection() throws SQLException {
+    private synchronized Connection getConnection() throws SQLException {
         
         if (rodConnection == null) {
             rodConnection = DriverManager.getConnection(
@@ -653,6 +776,35 @@ public class ProductFactory extends ConnectionProperties
     }
     
     
+    /**
+     * Verify that the cached database connection is still usable.  Long 
+     * running clients call this before each run so that a connection 
+     * dropped by the database or network is replaced rather than failing 
+     * every subsequent query.  An invalid connection is discarded and will
+     * be re-established on next use.
+     * 
+     * @param timeout Seconds to wait for the validation round trip.
+     * @return True if the connection is valid (or was re-established).
+     */
+    public synchronized boolean validateConnection(int timeout) {
+        boolean valid = false;
+        try {
+            if ((rodConnection != null) && (!rodConnection.isValid(timeout))) {
+                LOGGER.warn("Cached JDBC connection is no longer valid.  "
+                        + "The connection will be re-established.");
+                close();
+            }
+            valid = (getConnection() != null);
+        }
+        catch (SQLException se) {
+            LOGGER.error("Unable to re-establish the JDBC connection.  "
+                    + "Error message => [ "
+                    + se.getMessage()
+                    + " ].");
+        }
+        return valid;
+    }
+    
     /**
      * Get a list of countries from the back end data source.
      * 
@@ -785,6 +937,7 @@ public class ProductFactory extends ConnectionProperties
         if (rodConnection != null) {
             LOGGER.info("Closing JDBC connection.");
             try { rodConnection.close(); } catch (Exception e) {}
+            rodConnection = null;
         }
     }
     
@@ -802,10 +955,12 @@ public class ProductFactory extends ConnectionProperties
     }
     
     /**
-     * Static inner class used to construct the Singleton object.  This class
-     * exploits the fact that classes are not loaded until they are referenced
-     * therefore enforcing thread safety without the performance hit imposed
-     * by the <code>synchronized</code> keyword.
+     * Static inner class used to construct the Singleton object.  The 
+     * constructor raises checked exceptions so the instance cannot be 
+     * created in a static initializer.  Double-checked locking on a 
+     * volatile reference ensures exactly one instance is created when 
+     * several threads race the first call, without synchronizing 
+     * subsequent calls.
      * 
      * @author L. Craig Carpenter
      */
@@ -814,7 +969,7 @@ public class ProductFactory extends ConnectionProperties
         /**
          * Reference to the Singleton instance of the RoDRecordFactory.
          */
-        private static ProductFactory _instance = null;
+        private static volatile ProductFactory _instance = null;
     
         /**
          * Accessor method for the singleton instance of the 
@@ -831,7 +986,11 @@ public class ProductFactory extends ConnectionProperties
         public static ProductFactory getSingleton() 
                 throws PropertyNotFoundException, PropertiesNotLoadedException, ClassNotFoundException {
             if (_instance == null) {
-                _instance = new ProductFactory();
+                synchronized (RoDRecordFactoryHolder.class) {
+                    if (_instance == null) {
+                        _instance = new ProductFactory();
+                    }
+                }
             }
             return _instance;
         }
@@ -294,7 +294,8 @@ public class RoDProductFactory {
         /**
          * Reference to the Singleton instance of the RoDProductFactory.
          */
-        private static RoDProductFactory _instance = null;
+        private static final RoDProductFactory _instance = 
+                new RoDProductFactory();
     
         /**
          * Accessor method for the singleton instance of the 
@@ -303,9 +304,6 @@ public class RoDProductFactory {
          * @return The Singleton instance of the RoDProductFactory.
          */
         public static RoDProductFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new RoDProductFactory();
-            }
             return _instance;
         }
     }
@@ -1,7 +1,10 @@
 package mil.nga.rod.jdbc;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -41,9 +44,10 @@ public class RoDProductRecordFactory implements AutoCloseable {
 	private static final String PERSISTENCE_UNIT = "RoDProductPersistenceUnit";
 	
 	/**
-	 * Class-level handle to the EntityManager
+	 * Class-level handle to the EntityManager.  Volatile so that it is 
+	 * safely published to all threads once created.
 	 */
-	private EntityManager em = null;
+	private volatile EntityManager em = null;
 	
 	/**
 	 * Default constructor required by the persistence API.
@@ -53,15 +57,23 @@ public class RoDProductRecordFactory implements AutoCloseable {
 	/**
 	 * Accessor method for the class-level <code>EntityManager</code> object.
 	 * If the EntityManager object is not yet populated it will be created 
-	 * here.
+	 * here.  Creation is guarded so that concurrent first callers do not 
+	 * each construct (and leak) an EntityManagerFactory.
 	 * @return A constructed EntityManager object.
 	 */
 	private EntityManager getEntityManager() {
-		if (em == null) {
-	        EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
-			em = emf.createEntityManager();
+		EntityManager manager = em;
+		if (manager == null) {
+			synchronized (this) {
+				manager = em;
+				if (manager == null) {
+					EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+					manager = emf.createEntityManager();
+					em = manager;
+				}
+			}
 		}
-		return em;
+		return manager;
 	}
 	
     /**
@@ -183,6 +195,196 @@ public class RoDProductRecordFactory implements AutoCloseable {
 		return products;
 	}
 
+	/**
+	 * Maximum number of values in a single SQL <code>IN</code> list 
+	 * (an Oracle limit).
+	 */
+	private static final int MAX_IN_LIST_SIZE = 1000;
+	
+	/**
+	 * Determine which of the input keys already exist in the target 
+	 * persistence unit.  The keys are queried in groups so that only the 
+	 * requested keys are read.
+	 * 
+	 * @param candidates The keys to look up.
+	 * @return The subset of the input keys that exist.
+	 */
+	public List<String> getExistingKeys(Collection<String> candidates) {
+		long         start = System.currentTimeMillis();
+		List<String> keys  = new ArrayList<String>();
+		EntityManager em   = getEntityManager();
+		if ((em != null) && (candidates != null) && (!candidates.isEmpty())) {
+			List<String> input = new ArrayList<String>(candidates);
+			for (int i=0; i<input.size(); i+=MAX_IN_LIST_SIZE) {
+				List<String> chunk = input.subList(
+						i, Math.min(input.size(), i + MAX_IN_LIST_SIZE));
+				CriteriaBuilder cBuilder = em.getCriteriaBuilder();
+				CriteriaQuery<String> cQuery = 
+						cBuilder.createQuery(String.class);
+				Root<RoDProduct> root = cQuery.from(RoDProduct.class);
+				cQuery.select(root.<String>get("key"))
+					.where(root.get("key").in(chunk));
+				keys.addAll(em.createQuery(cQuery).getResultList());
+			}
+			if (LOG.isDebugEnabled()) {
+            	LOG.debug("[ "
+            			+ keys.size()
+            			+ " ] of [ "
+            			+ candidates.size()
+            			+ " ] keys exist.  Lookup completed in [ "
+            			+ (System.currentTimeMillis() - start)
+            			+ " ] ms.");
+            }
+		}
+		return keys;
+	}
+	
+	/**
+	 * Query hint requesting the JDBC fetch size used by bulk reads.
+	 */
+	private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+	
+	/**
+	 * Query hint marking the results of bulk reads as read-only so the 
+	 * provider does not keep snapshots for dirty checking.
+	 */
+	private static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+	
+	/**
+	 * Retrieve one page of <code>RoDProduct</code> records ordered by key.
+	 * Pages are read with keyset pagination: the next page is requested 
+	 * with the last key of the previous page, so every page is an index 
+	 * range scan regardless of how far into the table it is.  The 
+	 * persistence context is cleared after each page so that a full table
+	 * pass does not accumulate managed entities.
+	 * 
+	 * @param afterKey Key of the last record of the previous page (null 
+	 * for the first page).
+	 * @param pageSize Maximum number of records to return.
+	 * @return The page of records (empty once the table is exhausted).
+	 */
+	public List<RoDProduct> getProductPage(String afterKey, int pageSize) {
+		List<RoDProduct> products = new ArrayList<RoDProduct>();
+		EntityManager em = getEntityManager();
+		if (em != null) {
+			CriteriaBuilder cBuilder = em.getCriteriaBuilder();
+			CriteriaQuery<RoDProduct> cQuery = 
+					cBuilder.createQuery(RoDProduct.class);
+			Root<RoDProduct> root = cQuery.from(RoDProduct.class);
+			if (afterKey != null) {
+				cQuery.where(cBuilder.greaterThan(
+						root.<String>get("key"), afterKey));
+			}
+			cQuery.orderBy(cBuilder.asc(root.get("key")));
+			TypedQuery<RoDProduct> query = em.createQuery(cQuery);
+			query.setMaxResults(pageSize);
+			query.setHint(FETCH_SIZE_HINT, pageSize);
+			query.setHint(READ_ONLY_HINT, true);
+			products = query.getResultList();
+			em.clear();
+		}
+		else {
+			LOG.error("Unable to construct the EntityManager object.  "
+					+ "Resulting list will be empty.");
+		}
+		return products;
+	}
+	
+	/**
+	 * Retrieve the <code>RoDProduct</code> records matching the input keys.
+	 * The keys are queried in groups rather than one query per key.
+	 * 
+	 * @param keys The keys to retrieve.
+	 * @return The records found.  Keys that do not exist are not included.
+	 */
+	public List<RoDProduct> getProducts(Collection<String> keys) {
+		long             start    = System.currentTimeMillis();
+		List<RoDProduct> products = new ArrayList<RoDProduct>();
+		EntityManager    em       = getEntityManager();
+		if ((em != null) && (keys != null) && (!keys.isEmpty())) {
+			List<String> input = new ArrayList<String>(keys);
+			for (int i=0; i<input.size(); i+=MAX_IN_LIST_SIZE) {
+				List<String> chunk = input.subList(
+						i, Math.min(input.size(), i + MAX_IN_LIST_SIZE));
+				CriteriaBuilder cBuilder = em.getCriteriaBuilder();
+				CriteriaQuery<RoDProduct> cQuery = 
+						cBuilder.createQuery(RoDProduct.class);
+				Root<RoDProduct> root = cQuery.from(RoDProduct.class);
+				cQuery.where(root.get("key").in(chunk));
+				TypedQuery<RoDProduct> query = em.createQuery(cQuery);
+				query.setHint(FETCH_SIZE_HINT, MAX_IN_LIST_SIZE);
+				query.setHint(READ_ONLY_HINT, true);
+				products.addAll(query.getResultList());
+				em.clear();
+			}
+			if (LOG.isDebugEnabled()) {
+            	LOG.debug("[ "
+            			+ products.size()
+            			+ " ] of [ "
+            			+ keys.size()
+            			+ " ] RoDProducts retrieved in [ "
+            			+ (System.currentTimeMillis() - start)
+            			+ " ] ms.");
+            }
+		}
+		return products;
+	}
+	
+	/**
+	 * Retrieve the hash of every record, or of the input keys only.  Only 
+	 * the KEY and HASH columns are read, so this is far cheaper than 
+	 * loading the records when all that is needed is change detection.
+	 * 
+	 * @param keys The keys to look up.  If null, every record is returned.
+	 * @return A Map of key to hash.  Records with a null hash are included
+	 * with a null value.
+	 */
+	public Map<String, String> getHashes(Collection<String> keys) {
+		long                start  = System.currentTimeMillis();
+		Map<String, String> hashes = new HashMap<String, String>();
+		EntityManager       em     = getEntityManager();
+		if (em != null) {
+			List<List<String>> chunks = new ArrayList<List<String>>();
+			if (keys == null) {
+				chunks.add(null);
+			}
+			else {
+				List<String> input = new ArrayList<String>(keys);
+				for (int i=0; i<input.size(); i+=MAX_IN_LIST_SIZE) {
+					chunks.add(input.subList(
+							i, Math.min(input.size(), i + MAX_IN_LIST_SIZE)));
+				}
+			}
+			for (List<String> chunk : chunks) {
+				CriteriaBuilder cBuilder = em.getCriteriaBuilder();
+				CriteriaQuery<Object[]> cQuery = 
+						cBuilder.createQuery(Object[].class);
+				Root<RoDProduct> root = cQuery.from(RoDProduct.class);
+				cQuery.multiselect(root.get("key"), root.get("hash"));
+				if (chunk != null) {
+					cQuery.where(root.get("key").in(chunk));
+				}
+				TypedQuery<Object[]> query = em.createQuery(cQuery);
+				query.setHint(FETCH_SIZE_HINT, MAX_IN_LIST_SIZE);
+				for (Object[] row : query.getResultList()) {
+					hashes.put((String)row[0], (String)row[1]);
+				}
+			}
+			if (LOG.isDebugEnabled()) {
+            	LOG.debug("[ "
+            			+ hashes.size()
+            			+ " ] RoDProduct hashes retrieved in [ "
+            			+ (System.currentTimeMillis() - start)
+            			+ " ] ms.");
+            }
+		}
+		else {
+			LOG.error("Unable to construct the EntityManager object.  "
+					+ "Resulting map will be empty.");
+		}
+		return hashes;
+	}
+	
 	/**
 	 * Simple method to remove a single <code>RoDProduct</code> from the 
 	 * backing data store.  all products in the target persistence unit.
@@ -246,12 +448,16 @@ public class RoDProductRecordFactory implements AutoCloseable {
 	}
 	
 	/**
-	 * Close the class-level EntityManager object.
+	 * Close the class-level EntityManager object.  A subsequent call to any
+	 * of the data access methods will create a new EntityManager.
 	 */
-	public void close() {
-		if (em != null) {
-			em.getEntityManagerFactory().close();
-			em.close();
+	public synchronized void close() {
+		EntityManager manager = em;
+		if (manager != null) {
+			em = null;
+			EntityManagerFactory emf = manager.getEntityManagerFactory();
+			manager.close();
+			emf.close();
 		}
 	}
 	
@@ -268,16 +474,14 @@ public class RoDProductRecordFactory implements AutoCloseable {
         /**
          * Reference to the Singleton instance of the RoDRecordFactory.
          */
-        private static RoDProductRecordFactory _instance = null;
+        private static final RoDProductRecordFactory _instance = 
+                new RoDProductRecordFactory();
     
         /**
          * Accessor method for the singleton instance of the 
          * RoDProductRecordFactory.
          */
         public static RoDProductRecordFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new RoDProductRecordFactory();
-            }
             return _instance;
         }
         
@@ -0,0 +1,322 @@
+package mil.nga.rod.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.cache.CacheChangeEvent;
+import mil.nga.cache.CacheManagerI;
+import mil.nga.rod.JSONSerializer;
+import mil.nga.rod.jdbc.RoDProductRecordFactory;
+import mil.nga.rod.model.RoDProduct;
+import mil.nga.types.CacheOperation;
+import mil.nga.types.JournalResult;
+import mil.nga.util.ProgressJournal;
+
+/**
+ * Copies <code>RoDProduct</code> records from the backing data store into
+ * the cache in bulk.  Records are read in pages on the calling thread
+ * (the <code>EntityManager</code> is not thread safe) and each page is
+ * handed to a pool of worker threads that serialize the records and write
+ * them to the cache through a single pipelined <code>putAll</code> call.
+ * The content digest of each record is recorded alongside it so later
+ * runs can detect changes without reading the cached values.
+ * The number of pages in flight is bounded so that reading cannot run
+ * arbitrarily far ahead of writing.
+ *
+ * When a large fraction of the data store is requested (e.g. a cold cache
+ * rebuild) the table is read in one keyset-paginated pass and filtered to
+ * the requested keys.  Otherwise the requested keys are looked up in
+ * groups.  Either way the per-key query used previously is avoided.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CacheBulkLoader implements CacheBulkLoaderConstants {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+    		CacheBulkLoader.class);
+
+    // Private internal members
+    private int    pageSize  = DEFAULT_BULK_PAGE_SIZE;
+    private int    threads   = DEFAULT_BULK_THREADS;
+    private double scanRatio = DEFAULT_BULK_SCAN_RATIO;
+    private final CacheManagerI           cache;
+    private final RoDProductRecordFactory factory;
+    private final ProgressJournal         journal;
+    private final AtomicInteger           loaded = new AtomicInteger(0);
+    private final AtomicInteger           errors = new AtomicInteger(0);
+    private volatile boolean              publishEvents = true;
+
+    /**
+     * Constructor loading the configuration from the system properties.
+     *
+     * @param cache The target cache.
+     * @param factory Factory used to read the backing data store.
+     * @param journal Journal in which loaded keys are recorded (may be
+     * null).
+     */
+    public CacheBulkLoader(
+    		CacheManagerI cache,
+    		RoDProductRecordFactory factory,
+    		ProgressJournal journal) {
+    	this.cache   = cache;
+    	this.factory = factory;
+    	this.journal = journal;
+    	PropertyLoader pLoader = PropertyLoader.getInstance();
+		try {
+			pageSize = Integer.parseInt(
+					pLoader.getProperty(BULK_PAGE_SIZE_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			threads = Integer.parseInt(
+					pLoader.getProperty(BULK_THREADS_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			scanRatio = Double.parseDouble(
+					pLoader.getProperty(BULK_SCAN_RATIO_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		pageSize = Math.max(1, pageSize);
+		threads  = Math.max(1, threads);
+    }
+
+    /**
+     * Setter method controlling whether a change event is published for 
+     * each record written.  Disabled when loading a cache generation that
+     * readers cannot see yet.
+     *
+     * @param value True (the default) to publish change events.
+     */
+    public void setPublishEvents(boolean value) {
+    	publishEvents = value;
+    }
+
+    /**
+     * Getter method for the number of records that could not be loaded.
+     *
+     * @return The number of records that failed to serialize or write.
+     */
+    public int getErrorCount() {
+    	return errors.get();
+    }
+
+    /**
+     * Load the requested records into the cache.
+     *
+     * @param keys The keys of the records to load.
+     * @param total The number of records in the data store.  Used to
+     * decide between a full table pass and key lookups.
+     * @return The number of records written to the cache.
+     */
+    public int load(Collection<String> keys, int total) {
+
+    	long start = System.currentTimeMillis();
+    	loaded.set(0);
+    	errors.set(0);
+
+    	if ((keys == null) || (keys.isEmpty())) {
+    		return 0;
+    	}
+
+    	Set<String>     remaining = new HashSet<String>(keys);
+    	boolean         scan      = (keys.size() >= (total * scanRatio));
+    	ExecutorService executor  = Executors.newFixedThreadPool(
+    			threads,
+    			new ThreadFactory() {
+    				private final AtomicInteger counter = new AtomicInteger(0);
+    				@Override
+    				public Thread newThread(Runnable r) {
+    					Thread thread = new Thread(
+    							r,
+    							"rod-bulk-loader-" + counter.incrementAndGet());
+    					thread.setDaemon(true);
+    					return thread;
+    				}
+    			});
+    	Semaphore inFlight    = new Semaphore(threads * 2);
+    	boolean   interrupted = false;
+
+    	LOGGER.info("Bulk loading [ "
+    			+ keys.size()
+    			+ " ] records using a "
+    			+ (scan ? "full table pass." : "key lookup."));
+    	try {
+    		if (scan) {
+    			String last = null;
+    			List<RoDProduct> page;
+    			do {
+    				page = factory.getProductPage(last, pageSize);
+    				if (!page.isEmpty()) {
+    					last = page.get(page.size() - 1).getKey();
+    					List<RoDProduct> wanted = new ArrayList<RoDProduct>(
+    							page.size());
+    					for (RoDProduct product : page) {
+    						if (remaining.remove(product.getKey())) {
+    							wanted.add(product);
+    						}
+    					}
+    					submit(executor, inFlight, wanted);
+    				}
+    			} while ((page.size() == pageSize) && (!remaining.isEmpty()));
+    		}
+    		else {
+    			List<String> input = new ArrayList<String>(keys);
+    			for (int i=0; i<input.size(); i+=pageSize) {
+    				List<RoDProduct> page = factory.getProducts(input.subList(
+    						i, Math.min(input.size(), i + pageSize)));
+    				for (RoDProduct product : page) {
+    					remaining.remove(product.getKey());
+    				}
+    				submit(executor, inFlight, page);
+    			}
+    		}
+    	}
+    	catch (InterruptedException ie) {
+    		LOGGER.warn("Bulk load interrupted.  Records already written "
+    				+ "are retained.");
+    		interrupted = true;
+    		Thread.currentThread().interrupt();
+    	}
+    	finally {
+    		executor.shutdown();
+    		try {
+    			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    		}
+    		catch (InterruptedException ie) {
+    			Thread.currentThread().interrupt();
+    		}
+    	}
+
+    	// Keys not read before an interruption are not missing.
+    	if (!interrupted) {
+    		for (String key : remaining) {
+    			LOGGER.warn("No product found with NRN => [ "
+    					+ ProductUtils.getInstance().getNRNFromKey(key)
+    					+ " ] and NSN => [ "
+    					+ ProductUtils.getInstance().getNSNFromKey(key)
+    					+ " ].");
+    		}
+    		errors.addAndGet(remaining.size());
+    	}
+
+    	LOGGER.info("Bulk load complete.  [ "
+    			+ loaded.get()
+    			+ " ] records loaded with [ "
+    			+ errors.get()
+    			+ " ] errors in [ "
+    			+ (System.currentTimeMillis() - start)
+    			+ " ] ms.");
+    	return loaded.get();
+    }
+
+    /**
+     * Hand a page of records to the worker pool, blocking while the
+     * maximum number of pages are already in flight.
+     *
+     * @param executor The worker pool.
+     * @param inFlight Permits bounding the pages in flight.
+     * @param page The records to write.
+     * @throws InterruptedException Thrown if interrupted while waiting.
+     */
+    private void submit(
+    		ExecutorService executor,
+    		final Semaphore inFlight,
+    		final List<RoDProduct> page) throws InterruptedException {
+    	if (!page.isEmpty()) {
+    		inFlight.acquire();
+    		executor.execute(new Runnable() {
+    			@Override
+    			public void run() {
+    				try {
+    					write(page);
+    				}
+    				finally {
+    					inFlight.release();
+    				}
+    			}
+    		});
+    	}
+    }
+
+    /**
+     * Serialize a page of records and write them to the cache in a single
+     * bulk call.  The change events for the page are published once the
+     * write succeeds.
+     *
+     * @param page The records to write.
+     */
+    private void write(List<RoDProduct> page) {
+    	Map<String, String>    values = new LinkedHashMap<String, String>();
+    	Map<String, Double>    scores = new HashMap<String, Double>();
+    	Map<String, String>    hashes = new HashMap<String, String>();
+    	List<CacheChangeEvent> events = new ArrayList<CacheChangeEvent>(
+    			page.size());
+    	for (RoDProduct product : page) {
+    		String json = JSONSerializer.getInstance().serialize(product);
+    		if ((json != null) && (!json.equals("null"))) {
+    			values.put(product.getKey(), json);
+    			scores.put(product.getKey(), CacheManager.getScore(product));
+    			hashes.put(product.getKey(), product.getHash());
+    			events.add(new CacheChangeEvent(
+    					CacheOperation.ADD,
+    					product.getKey(),
+    					product.getHash()));
+    		}
+    		else {
+    			errors.incrementAndGet();
+    		}
+    	}
+    	if (!values.isEmpty()) {
+    		try {
+    			cache.putAll(values, scores);
+    			cache.putDigests(hashes);
+    			loaded.addAndGet(values.size());
+    			if (journal != null) {
+    				journal.recordAll(values.keySet(), JournalResult.ADDED);
+    			}
+    		}
+    		catch (RuntimeException re) {
+    			LOGGER.error("Unable to write [ "
+    					+ values.size()
+    					+ " ] records to the cache.  Error message => [ "
+    					+ re.getMessage()
+    					+ " ].");
+    			errors.addAndGet(values.size());
+    			return;
+    		}
+    		if (!publishEvents) {
+    			return;
+    		}
+    		try {
+    			cache.publish(events);
+    		}
+    		catch (RuntimeException re) {
+    			LOGGER.warn("Unable to publish [ "
+    					+ events.size()
+    					+ " ] cache change events.  Error message => [ "
+    					+ re.getMessage()
+    					+ " ].");
+    		}
+    	}
+    }
+}
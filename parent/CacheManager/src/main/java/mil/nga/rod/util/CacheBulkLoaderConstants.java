@@ -0,0 +1,46 @@
+package mil.nga.rod.util;
+
+/**
+ * Constants used to configure the bulk loader that copies
+ * <code>RoDProduct</code> records from the backing data store into the
+ * cache.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface CacheBulkLoaderConstants {
+
+	/**
+	 * Property defining the number of records read from the data store in
+	 * each page.
+	 */
+	public static final String BULK_PAGE_SIZE_PROPERTY = "rod.bulk.page_size";
+
+	/**
+	 * Property defining the number of threads serializing records and
+	 * writing them to the cache.  Each thread holds one cache connection
+	 * while writing, so this should not exceed the cache pool size.
+	 */
+	public static final String BULK_THREADS_PROPERTY = "rod.bulk.threads";
+
+	/**
+	 * Property defining the fraction of the data store that must be
+	 * requested before the loader reads the whole table in one pass rather
+	 * than looking up the requested keys.
+	 */
+	public static final String BULK_SCAN_RATIO_PROPERTY = "rod.bulk.scan_ratio";
+
+	/**
+	 * Default page size.
+	 */
+	public static final int DEFAULT_BULK_PAGE_SIZE = 1000;
+
+	/**
+	 * Default number of serializer/writer threads.
+	 */
+	public static final int DEFAULT_BULK_THREADS = 4;
+
+	/**
+	 * Default scan ratio.
+	 */
+	public static final double DEFAULT_BULK_SCAN_RATIO = 0.25;
+}
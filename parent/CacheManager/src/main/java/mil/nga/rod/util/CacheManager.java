@@ -1,17 +1,27 @@
 package mil.nga.rod.util;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-
-import javax.persistence.NoResultException;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.PropertyLoader;
+import mil.nga.cache.CacheChangeEvent;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
 import mil.nga.rod.JSONSerializer;
 import mil.nga.rod.jdbc.RoDProductRecordFactory;
 import mil.nga.rod.model.RoDProduct;
+import mil.nga.rod.util.KeyReconciliation;
 import mil.nga.rod.util.ProductUtils;
+import mil.nga.types.CacheOperation;
+import mil.nga.types.JournalResult;
+import mil.nga.util.ProgressJournal;
 
 /**
  * Updated version of the cache manager that ensures the cache is synchronized
@@ -27,6 +37,63 @@ public class CacheManager {
     static final Logger LOGGER = LoggerFactory.getLogger(
     		CacheManager.class);
     
+    /**
+     * Name of the progress journal used to resume interrupted runs.
+     */
+    public static final String JOURNAL_NAME = "cache-manager";
+    
+    /**
+     * Journal of completed keys for the update currently in progress.
+     */
+    private ProgressJournal journal = null;
+    
+	/**
+	 * Retrieve the cache implementation selected by the 
+	 * <code>cache.type</code> property.
+	 * 
+	 * @return The cache manager.
+	 */
+	private CacheManagerI getCache() {
+		return CacheManagerFactory.getInstance().getCacheManager();
+	}
+	
+	/**
+	 * Calculate the score used to order the cached records.  Records are 
+	 * ordered by file date so that "newest first" views can be served 
+	 * directly from the cache index.
+	 * 
+	 * @param product The product to be cached.
+	 * @return The file date in milliseconds, or 0 if the file date is not 
+	 * populated.
+	 */
+	static Double getScore(RoDProduct product) {
+		double score = 0;
+		if ((product != null) && (product.getFileDate() != null)) {
+			score = product.getFileDate().getTime();
+		}
+		return score;
+	}
+	
+	/**
+	 * Publish the change events associated with records that have just been
+	 * written to the cache.  Failure to publish is logged but does not 
+	 * abort the update; subscribers will still observe the version change.
+	 * 
+	 * @param events The change events to publish.
+	 */
+	private void publish(List<CacheChangeEvent> events) {
+		try {
+			getCache().publish(events);
+		}
+		catch (RuntimeException re) {
+			LOGGER.warn("Unable to publish [ "
+					+ events.size()
+					+ " ] cache change events.  Error message => [ "
+					+ re.getMessage()
+					+ " ].");
+		}
+	}
+	
 	/**
 	 * Remove orphaned cache records.  These are cache records 
 	 * that do not have anything associated in the data store.
@@ -38,26 +105,42 @@ public class CacheManager {
 	public int removeObsoleteCacheRecords(
 			List<String> datastore, 
 			List<String> cache) {
+		return removeCacheRecords(
+				ProductUtils.getInstance().defference(
+						cache,
+						datastore));
+	}
+	
+	/**
+	 * Remove the identified records from the cache.
+	 * 
+	 * @param cacheRecordsToRemove Keys of the records to remove.
+	 * @return The number of records removed.
+	 */
+	private int removeCacheRecords(List<String> cacheRecordsToRemove) {
 	
 		long start = System.currentTimeMillis();
 		int  count = 0;
-
-		List<String> cacheRecordsToRemove = 
-				ProductUtils.getInstance().defference(
-						cache,
-						datastore);
 		
 		if ((cacheRecordsToRemove != null) && (cacheRecordsToRemove.size() > 0)) {
 			LOGGER.info("Removing [ "
 					+ cacheRecordsToRemove.size()
 					+ " ] obsolete cache records.");
+			getCache().removeAll(cacheRecordsToRemove);
+			if (journal != null) {
+				journal.recordAll(cacheRecordsToRemove, JournalResult.REMOVED);
+			}
+			List<CacheChangeEvent> events = 
+					new ArrayList<CacheChangeEvent>(cacheRecordsToRemove.size());
 			for (String key : cacheRecordsToRemove) {
-				RedisCacheManager.getInstance().remove(key);
 				LOGGER.info("Removed cached RoDProduct with key => [ "
 						+ key
 						+ " ].");
+				events.add(new CacheChangeEvent(
+						CacheOperation.REMOVE, key, null));
 				count++;
 			}
+			publish(events);
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("A total of [ "
 						+ count 
@@ -82,13 +165,24 @@ public class CacheManager {
 			List<String> datastore, 
 			List<String> cache) {
 	
-		long start      = System.currentTimeMillis();
-		int  count      = 0;
-		int  errorCount = 0;
-
-		List<String> cacheRecordsToAdd = ProductUtils.getInstance().defference(
-				datastore,
-				cache);
+		return addCacheRecords(
+				ProductUtils.getInstance().defference(
+						datastore,
+						cache),
+				datastore.size());
+	}
+	
+	/**
+	 * Build and add the identified records to the cache.  The records are
+	 * read from the data store in bulk rather than one query per key.
+	 * 
+	 * @param cacheRecordsToAdd Keys of the records to add.
+	 * @param total The number of records in the data store.
+	 * @return The number of records added.
+	 */
+	private int addCacheRecords(List<String> cacheRecordsToAdd, int total) {
+		
+		int count = 0;
 		
 		if ((cacheRecordsToAdd != null) && (cacheRecordsToAdd.size() > 0)) {
 			
@@ -96,44 +190,11 @@ public class CacheManager {
 					+ cacheRecordsToAdd.size()
 					+ " ] new cache records records.");
 			
-			for (String key : cacheRecordsToAdd) {
-				try {
-					
-					RoDProduct prod = RoDProductRecordFactory.getInstance().getProduct(key);
-					if (key != null) {
-						RedisCacheManager.getInstance().put(
-								key,
-								JSONSerializer.getInstance().serialize(
-										prod));
-						count++;
-					}
-					else {
-						LOGGER.warn("No product found with NRN => [ "
-								+ ProductUtils.getInstance().getNRNFromKey(key)
-								+ " ] and NSN => [ "
-								+ ProductUtils.getInstance().getNSNFromKey(key)
-								+ " ].");
-						errorCount++;
-					}
-				}
-				catch (NoResultException nre) {
-					LOGGER.error("Unexpected NoResultsException "
-							+ "encountered.  Unable "
-							+ "to add new records.  Error message => [ "
-							+ nre.getMessage()
-							+ " ].");
-					errorCount++;
-				}
-			}
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("A total of [ "
-						+ count 
-						+ " ] cache records added with [ "
-						+ errorCount 
-						+ " ] errors encountered in [ "
-						+ (System.currentTimeMillis() - start)
-						+ " ] ms.");
-			}
+			CacheBulkLoader loader = new CacheBulkLoader(
+					getCache(), 
+					RoDProductRecordFactory.getInstance(), 
+					journal);
+			count = loader.load(cacheRecordsToAdd, total);
 		}
 		else {
 			LOGGER.info("No new RoDProduct records to add to the cache.");
@@ -151,83 +212,133 @@ public class CacheManager {
 			List<String> datastore, 
 			List<String> cache) {
 	
+		return updateCacheRecords(
+				ProductUtils.getInstance().intersection(
+						datastore,
+						cache),
+				true);
+	}
+	
+	/**
+	 * Compare the identified cache records with the data store and update
+	 * those that have changed.  Change detection compares the hash of each
+	 * data store record (a KEY/HASH projection) with the digest recorded in
+	 * the cache when the record was written, so neither the cached values 
+	 * nor the unchanged data store records are read.  Only the changed 
+	 * records are fetched and rewritten.  Records without a recorded 
+	 * digest (e.g. written before digests were introduced) are treated as
+	 * changed.
+	 * 
+	 * @param cacheRecordsToUpdate Keys of the records to check.
+	 * @param all True if the keys cover most of the data store, in which 
+	 * case every hash and digest is read in one pass rather than looked up
+	 * by key.
+	 * @return The number of records that were updated.
+	 */
+	private int updateCacheRecords(
+			List<String> cacheRecordsToUpdate, 
+			boolean all) {
+	
 		long start       = System.currentTimeMillis();
-		int  count       = 0;
 		int  errorCount  = 0;
 		int  updatedRecs = 0;
 		
-		List<String> cacheRecordsToUpdate = 
-				ProductUtils.getInstance().intersection(
-						datastore,
-						cache);
-		
 		if ((cacheRecordsToUpdate != null) && (cacheRecordsToUpdate.size() > 0)) {
-			LOGGER.info("Updating [ "
+			LOGGER.info("Checking [ "
 					+ cacheRecordsToUpdate.size()
-					+ " ] cache records.");
+					+ " ] cache records for changes.");
+			
+			RoDProductRecordFactory factory = 
+					RoDProductRecordFactory.getInstance();
+			Map<String, String> current = factory.getHashes(
+					all ? null : cacheRecordsToUpdate);
+			Map<String, String> digests = all ? 
+					getCache().getDigests() : 
+					getCache().getDigests(cacheRecordsToUpdate);
+			List<String> changed   = new ArrayList<String>();
+			List<String> unchanged = new ArrayList<String>();
+			int          missing   = 0;
+			
 			for (String key : cacheRecordsToUpdate) {
-				count++;
-				// Get the record from the cache and de-serialize it back 
-				// to an object.
-				String serializedProduct = RedisCacheManager.getInstance()
-													.get(key);
-				if ((serializedProduct != null) && 
-						(!serializedProduct.isEmpty())) {
-					
-					RoDProduct product = JSONSerializer.getInstance()
-							.deserializeToRoDProduct(serializedProduct);
-					
-					if (product != null) {
-						
-						RoDProduct productDS = 
-								RoDProductRecordFactory
-									.getInstance()
-									.getProduct(key);
-						
-						if (productDS != null) {
-							if ((productDS.getHash() != null) && 
-									(productDS.getHash().isEmpty())) {
-								if (!productDS.getHash()
-										.equalsIgnoreCase(product.getHash())) {
-									// Simply replace the existing cache record
-									// with a serialized version of the current 
-									// record from the datastore.
-									RedisCacheManager.getInstance().put(
-											key,
-											JSONSerializer.getInstance().serialize(
-													productDS));
-									updatedRecs++;
-								}
-							}
-							else {
-								LOGGER.warn("Hash for RoDProduct record with "
-										+ "key => [ "
-										+ productDS.getKey()
-										+ " ] is null or empty.");
-							}
-						}
-						else {
-							LOGGER.error("Unable to retrieve the "
-									+ "RoDProduct record from the "
-									+ "datastore for key [ "
-									+ key
-									+  " ].");
-						}
+				String hash = current.get(key);
+				if ((hash != null) && (!hash.isEmpty())) {
+					String digest = digests.get(key);
+					if (digest == null) {
+						missing++;
+						changed.add(key);
+					}
+					else if (hash.equalsIgnoreCase(digest)) {
+						unchanged.add(key);
 					}
 					else {
-						LOGGER.error("Error encountered deserializing " 
-								+ "value for key [ "
-								+ key
-								+ " ].  Output of deserialization process "
-								+ "is null.");
+						changed.add(key);
 					}
 				}
+				else if (current.containsKey(key)) {
+					LOGGER.warn("Hash for RoDProduct record with "
+							+ "key => [ "
+							+ key
+							+ " ] is null or empty.");
+				}
 				else {
-					LOGGER.warn("Unable to get value from cache for key [ "
+					LOGGER.error("Unable to retrieve the "
+							+ "RoDProduct record from the "
+							+ "datastore for key [ "
 							+ key
-							+ " ].");
+							+  " ].");
+					errorCount++;
+				}
+			}
+			if (journal != null) {
+				journal.recordAll(unchanged, JournalResult.UNCHANGED);
+			}
+			if (missing > 0) {
+				LOGGER.info("[ "
+						+ missing
+						+ " ] cache records have no recorded digest and "
+						+ "will be rewritten.");
+			}
+			
+			// Fetch and rewrite only the changed records.
+			int batchSize = getCache().getBatchSize();
+			for (int i=0; i<changed.size(); i+=batchSize) {
+				List<RoDProduct> products = factory.getProducts(
+						changed.subList(
+								i, 
+								Math.min(changed.size(), i + batchSize)));
+				Map<String, String> updates = new HashMap<String, String>();
+				Map<String, Double> scores  = new HashMap<String, Double>();
+				Map<String, String> hashes  = new HashMap<String, String>();
+				List<CacheChangeEvent> events = 
+						new ArrayList<CacheChangeEvent>();
+				for (RoDProduct productDS : products) {
+					// Simply replace the existing cache record with a 
+					// serialized version of the current record from the 
+					// datastore.
+					String key = productDS.getKey();
+					updates.put(
+							key,
+							JSONSerializer.getInstance().serialize(
+									productDS));
+					scores.put(key, getScore(productDS));
+					hashes.put(key, productDS.getHash());
+					events.add(new CacheChangeEvent(
+							CacheOperation.UPDATE, 
+							key, 
+							productDS.getHash()));
 				}
-			} //end for	
+				if (updates.size() > 0) {
+					getCache().putAll(updates, scores);
+					getCache().putDigests(hashes);
+					publish(events);
+					if (journal != null) {
+						journal.recordAll(
+								updates.keySet(), 
+								JournalResult.UPDATED);
+					}
+					updatedRecs += updates.size();
+				}
+			}
 		}
 		else {
 			LOGGER.info("There are no overlapping records to update.");
@@ -237,7 +348,8 @@ public class CacheManager {
 			LOGGER.debug("A total of [ "
 					+ updatedRecs 
 					+ " ] records updated out of [ "
-					+ count 
+					+ (cacheRecordsToUpdate == null ? 
+							0 : cacheRecordsToUpdate.size()) 
 					+ " ] candidates records with [ "
 					+ errorCount 
 					+ " ] errors encountered in [ "
@@ -248,20 +360,81 @@ public class CacheManager {
 	}
 	
     /**
-     * 
+     * Synchronize the cache with the RoDProduct table.  The factory is 
+     * closed once the update completes, so this method is intended for 
+     * one-shot invocations.  Long-running callers (i.e. 
+     * <code>SyncDaemon</code>) should call 
+     * {@link #synchronize(RoDProductRecordFactory)} directly so the 
+     * connection remains open between runs.
      */
     public void update() {
     	long start = System.currentTimeMillis();
 		
     	try (RoDProductRecordFactory prodFactory = 
 				RoDProductRecordFactory.getInstance()) {
-			
-			List<String> datastoreKeys = prodFactory.getKeys();
-			List<String> cacheKeys     = RedisCacheManager.getInstance().getKeysAsList();
-			
-			int removed = removeObsoleteCacheRecords(datastoreKeys, cacheKeys);
-			int added   = addNewCacheRecords(datastoreKeys, cacheKeys);
-			int updated = updateCacheRecords(datastoreKeys, cacheKeys);
+			synchronize(prodFactory);
+		}
+		
+		LOGGER.info("Cache update completed in [ "
+				+ (System.currentTimeMillis() - start)
+				+ " ] ms.");
+    	
+    }
+    
+	/**
+	 * Synchronize the cache with the RoDProduct table using the supplied 
+	 * factory.  The key lists are always diffed in full and every common 
+	 * record is compared with the cache.  The comparison reads only the 
+	 * KEY/HASH projection and the recorded digests, so it is not limited 
+	 * to records whose dates changed: a record re-hashed by 
+	 * RoDProductManager keeps its dates but not its hash.  The factory is
+	 * not closed.
+	 * 
+	 * @param prodFactory Factory used to access the RoDProduct table.
+	 */
+	public void synchronize(RoDProductRecordFactory prodFactory) {
+		
+		if (isGenerationsEnabled()) {
+			synchronizeGeneration(prodFactory);
+			return;
+		}
+		List<String> datastoreKeys = prodFactory.getKeys();
+		List<String> cacheKeys     = getCache().getKeysAsList();
+		
+		// Classify every key in one pass rather than recomputing the 
+		// set operations for each step.
+		KeyReconciliation plan = ProductUtils.getInstance().reconcile(
+				datastoreKeys, 
+				cacheKeys);
+		LOGGER.info(plan.toString());
+		
+		// Skip the keys completed by an interrupted previous run.
+		List<String> toRemove = plan.getRemoved();
+		List<String> toAdd    = plan.getAdded();
+		List<String> toCheck  = plan.getCommon();
+
+		try {
+			journal  = new ProgressJournal(JOURNAL_NAME);
+			toRemove = journal.filter(toRemove, JournalResult.REMOVED);
+			toAdd    = journal.filter(toAdd, JournalResult.ADDED);
+			toCheck  = journal.filter(toCheck, 
+					JournalResult.ADDED, 
+					JournalResult.UPDATED, 
+					JournalResult.UNCHANGED);
+		}
+		catch (IOException ioe) {
+			LOGGER.warn("Unable to open the progress journal.  This run "
+					+ "will not be resumable.  Error message => [ "
+					+ ioe.getMessage()
+					+ " ].");
+			journal = null;
+		}
+		
+		boolean finished = false;
+		try {
+			int removed = removeCacheRecords(toRemove);
+			int added   = addCacheRecords(toAdd, datastoreKeys.size());
+			int updated = updateCacheRecords(toCheck, true);
 			
 			LOGGER.info("Cache update complete.  Products added => [ "
 					+ added
@@ -270,15 +443,216 @@ public class CacheManager {
 					+ " ], product removed => [ "
 					+ removed 
 					+ " ].");
+			
+			// Signal consumers (e.g. near caches) that the contents 
+			// changed.  A resumed run always increments the version 
+			// because the interrupted run did not.
+			if (((added + updated + removed) > 0) || 
+					((journal != null) && (journal.getResumedCount() > 0))) {
+				long version = getCache().incrementVersion();
+				LOGGER.info("Cache version incremented to [ "
+						+ version
+						+ " ].");
+			}
+			finished = true;
 		}
-		
-		LOGGER.info("Cache update completed in [ "
-				+ (System.currentTimeMillis() - start)
-				+ " ] ms.");
-    	
-    }
-    
+		finally {
+			if (journal != null) {
+				if (finished) {
+					journal.complete();
+				}
+				else {
+					journal.close();
+				}
+				journal = null;
+			}
+		}
+	}
     
+	/**
+	 * Determine whether the cache should be refreshed by building a new 
+	 * generation and switching readers to it (see 
+	 * <code>cache.generations</code>).
+	 * 
+	 * @return True if generations are requested and the cache supports 
+	 * them.
+	 */
+	private boolean isGenerationsEnabled() {
+		boolean enabled = false;
+		try {
+			enabled = Boolean.parseBoolean(PropertyLoader.getInstance()
+					.getProperty(CacheManagerI.CACHE_GENERATIONS_PROPERTY)
+					.trim());
+		}
+		catch (Exception e) { }
+		if (enabled && (!getCache().supportsGenerations())) {
+			LOGGER.warn("Cache generations requested but not supported by "
+					+ "the configured cache.  Records will be updated in "
+					+ "place.");
+			enabled = false;
+		}
+		return enabled;
+	}
+	
+	/**
+	 * Retrieve the number of generations older than the current one that 
+	 * are kept so requests pinned to them can finish.
+	 * 
+	 * @return The number of old generations to retain.
+	 */
+	private int getGenerationsRetained() {
+		int retain = CacheManagerI.DEFAULT_CACHE_GENERATIONS_RETAIN;
+		try {
+			retain = Integer.parseInt(PropertyLoader.getInstance()
+					.getProperty(
+							CacheManagerI.CACHE_GENERATIONS_RETAIN_PROPERTY)
+					.trim());
+		}
+		catch (Exception e) { }
+		return Math.max(0, retain);
+	}
+	
+	/**
+	 * Retrieve how long (in ms) a retired generation is kept before it is 
+	 * reaped.
+	 * 
+	 * @return The grace period.
+	 */
+	private long getGenerationsGracePeriod() {
+		long grace = CacheManagerI.DEFAULT_CACHE_GENERATIONS_GRACE_PERIOD;
+		try {
+			grace = Long.parseLong(PropertyLoader.getInstance()
+					.getProperty(
+							CacheManagerI.CACHE_GENERATIONS_GRACE_PERIOD_PROPERTY)
+					.trim());
+		}
+		catch (Exception e) { }
+		return Math.max(0L, grace);
+	}
+	
+	/**
+	 * Delete the generations whose grace period has elapsed.  Failure is 
+	 * logged; the generations are reaped by a later run.
+	 */
+	private void reapGenerations() {
+		try {
+			int reaped = getCache().reapGenerations(
+					getGenerationsGracePeriod());
+			if (reaped > 0) {
+				LOGGER.info("Reaped [ "
+						+ reaped
+						+ " ] retired cache generations.");
+			}
+		}
+		catch (RuntimeException re) {
+			LOGGER.warn("Unable to reap retired cache generations.  Error "
+					+ "message => [ "
+					+ re.getMessage()
+					+ " ].");
+		}
+	}
+	
+	/**
+	 * Determine whether a cache generation already holds exactly the 
+	 * records in the data store.  Records without a hash have no digest, 
+	 * so only their presence can be compared.
+	 * 
+	 * @param hashes Map of data store key to hash.
+	 * @param cache The cache generation.
+	 * @return True if the generation does not need to be rebuilt.
+	 */
+	private boolean isCurrent(Map<String, String> hashes, CacheManagerI cache) {
+		Map<String, String> expected = new HashMap<String, String>();
+		for (Map.Entry<String, String> entry : hashes.entrySet()) {
+			if ((entry.getValue() != null) && (!entry.getValue().isEmpty())) {
+				expected.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return expected.equals(cache.getDigests()) && 
+				hashes.keySet().equals(cache.getKeys());
+	}
+	
+	/**
+	 * Synchronize the cache by writing the complete catalog to a new 
+	 * generation and then switching readers to it with a single SET.  
+	 * Readers pinned to the current generation are never exposed to a 
+	 * partially updated catalog.  The generation that falls outside the 
+	 * retention limit at the switch is retired, not deleted.  Retired 
+	 * generations are reaped at the start of a later run, once their 
+	 * grace period (<code>cache.generations.grace_period</code>) has 
+	 * elapsed, so requests pinned to them just before the switch can 
+	 * finish.  If the digests of the current generation already match the
+	 * data store no new generation is built.
+	 * 
+	 * A generation left behind by an interrupted run is never visible to 
+	 * readers and is discarded by the next run.
+	 * 
+	 * @param prodFactory Factory used to read the backing data store.
+	 */
+	private void synchronizeGeneration(RoDProductRecordFactory prodFactory) {
+		
+		reapGenerations();
+		
+		long          current = getCache().getMasterGeneration();
+		CacheManagerI live    = getCache().forGeneration(current);
+		
+		Map<String, String> hashes = prodFactory.getHashes(null);
+		if ((current > 0) && (isCurrent(hashes, live))) {
+			LOGGER.info("Cache generation [ "
+					+ current
+					+ " ] is up to date.");
+			return;
+		}
+		
+		long          next   = current + 1;
+		CacheManagerI target = getCache().forGeneration(next);
+		if (getCache().dropGeneration(next)) {
+			LOGGER.info("Removed incomplete cache generation [ "
+					+ next
+					+ " ].");
+		}
+		
+		// Readers are switched by the version change below; per-record 
+		// events would refer to a generation they cannot see yet.
+		CacheBulkLoader loader = new CacheBulkLoader(
+				target, 
+				prodFactory, 
+				null);
+		loader.setPublishEvents(false);
+		int loaded = loader.load(hashes.keySet(), hashes.size());
+		if (loader.getErrorCount() > 0) {
+			LOGGER.error("Cache generation [ "
+					+ next
+					+ " ] incomplete.  [ "
+					+ loader.getErrorCount()
+					+ " ] records could not be loaded.  Readers remain on "
+					+ "generation [ "
+					+ current
+					+ " ].");
+			return;
+		}
+		
+		getCache().setGeneration(next);
+		long version = getCache().incrementVersion();
+		publish(Collections.singletonList(new CacheChangeEvent(
+				CacheOperation.GENERATION, 
+				Long.toString(next), 
+				null)));
+		LOGGER.info("Cache generation [ "
+				+ next
+				+ " ] containing [ "
+				+ loaded
+				+ " ] records is now live.  Cache version incremented to [ "
+				+ version
+				+ " ].");
+		
+		long old = next - getGenerationsRetained() - 1;
+		if (old > 0) {
+			getCache().retireGeneration(old);
+		}
+		reapGenerations();
+	}
+	
 	/**
 	 * Main entry point for the execution of the code that will update the 
 	 * back-end data source.
@@ -2,7 +2,8 @@ package mil.nga.rod.util;
 
 import java.util.Set;
 
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
 
 /**
  * Simple application used to remove all of the key/value pairs from the 
@@ -19,7 +20,8 @@ public class ClearCache {
      */
     public static void main(String[] args) {
         int keysRemoved = 0;
-        try (RedisCacheManager manager = RedisCacheManager.getInstance()) { 
+        try (CacheManagerI manager = 
+                CacheManagerFactory.getInstance().getCacheManager()) { 
             Set<String> keySet = manager.getKeys();
             if (keySet.size() > 0) {
                 for (String key : keySet) {
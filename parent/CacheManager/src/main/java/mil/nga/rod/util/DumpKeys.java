@@ -1,8 +1,9 @@
 package mil.nga.rod.util;
 
-import java.util.Set;
+import java.util.Iterator;
 
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
 
 /**
  * Simple application used to output a list of all keys in the cache.
@@ -18,14 +19,18 @@ public class DumpKeys {
      */
     public static void main(String[] args) {
     	long start = System.currentTimeMillis();
-        try (RedisCacheManager manager = RedisCacheManager.getInstance()) { 
-            Set<String> keySet = manager.getKeys();
-            if (keySet.size() > 0) {
-                for (String key : keySet) {
-                    System.out.println(key);
-                }
+        try (CacheManagerI manager = 
+                CacheManagerFactory.getInstance().getCacheManager()) { 
+            // Stream the keys rather than materializing the full key set.
+            int              count = 0;
+            Iterator<String> iter  = manager.scan("*");
+            while (iter.hasNext()) {
+                System.out.println(iter.next());
+                count++;
+            }
+            if (count > 0) {
                 System.out.println("The cache contains [ "
-                        + keySet.size()
+                        + count
                         + " ] elements.");
             }
             else {
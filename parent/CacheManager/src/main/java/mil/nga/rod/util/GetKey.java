@@ -5,7 +5,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
 import mil.nga.rod.JSONSerializer;
 import mil.nga.rod.jdbc.ProductFactory;
 import mil.nga.rod.model.Product;
@@ -125,7 +126,8 @@ public class GetKey {
      * @param key The key to query for.
      */
     public void printKeyValue(String key, boolean deserialize) {
-        try (RedisCacheManager manager = RedisCacheManager.getInstance()) { 
+        try (CacheManagerI manager = 
+                CacheManagerFactory.getInstance().getCacheManager()) { 
             String value = manager.get(key);
             if ((value == null) || (value.isEmpty())) {
                 LOGGER.warn("Input key [ "
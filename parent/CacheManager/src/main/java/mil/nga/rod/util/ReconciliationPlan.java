@@ -0,0 +1,165 @@
+package mil.nga.rod.util;
+
+import java.util.List;
+
+/**
+ * Plan describing the work required to bring the <code>ROD_PRODUCT</code>
+ * table in line with the source <code>Product</code> table.  The plan is
+ * built in a single pass over the two key lists and classifies every key
+ * as one of:
+ *
+ * <ul>
+ * <li>add - the key exists in the source but not in the target.</li>
+ * <li>remove - the key exists in the target but not in the source.</li>
+ * <li>check - the key exists in both and the on-disk file must be checked
+ * for changes.</li>
+ * </ul>
+ *
+ * The plan also supplies a rough estimate of the cost of executing it,
+ * expressed as the number of database statements and file operations that
+ * will be issued.  The estimate for the check keys assumes none of the
+ * files changed; each file that did change costs the same as an add.
+ *
+ * @author L. Craig Carpenter
+ */
+public class ReconciliationPlan {
+
+	/**
+	 * Database statements issued for each key that is added (product
+	 * query, artwork query, and insert).
+	 */
+	public static final int DB_STATEMENTS_PER_ADD = 3;
+
+	/**
+	 * Database statements issued for each key that is removed.
+	 */
+	public static final int DB_STATEMENTS_PER_REMOVE = 1;
+
+	/**
+	 * Database statements issued for each key that is checked (retrieval
+	 * of the existing <code>RoDProduct</code> record).
+	 */
+	public static final int DB_STATEMENTS_PER_CHECK = 1;
+
+	// Private internal members
+	private final KeyReconciliation reconciliation;
+
+	/**
+	 * Constructor building the plan from the source and target key lists.
+	 *
+	 * @param productKeys Unique keys in the source <code>Product</code>
+	 * table.
+	 * @param rodProductKeys Keys in the target <code>ROD_PRODUCT</code>
+	 * table.
+	 */
+	public ReconciliationPlan(
+			List<String> productKeys,
+			List<String> rodProductKeys) {
+		reconciliation = ProductUtils.getInstance().reconcile(
+				productKeys,
+				rodProductKeys);
+	}
+
+	/**
+	 * Getter method for the keys that must be added to the target.
+	 *
+	 * @return Unmodifiable list of keys to add.
+	 */
+	public List<String> getKeysToAdd() {
+		return reconciliation.getAdded();
+	}
+
+	/**
+	 * Getter method for the keys that must be checked for changes.
+	 *
+	 * @return Unmodifiable list of keys to check.
+	 */
+	public List<String> getKeysToCheck() {
+		return reconciliation.getCommon();
+	}
+
+	/**
+	 * Getter method for the keys that must be removed from the target.
+	 *
+	 * @return Unmodifiable list of keys to remove.
+	 */
+	public List<String> getKeysToRemove() {
+		return reconciliation.getRemoved();
+	}
+
+	/**
+	 * Estimate the number of database statements required to execute the
+	 * plan assuming none of the checked files have changed.
+	 *
+	 * @return Estimated number of database statements.
+	 */
+	public long getEstimatedDatabaseStatements() {
+		return ((long)getKeysToAdd().size() * DB_STATEMENTS_PER_ADD)
+				+ ((long)getKeysToRemove().size() * DB_STATEMENTS_PER_REMOVE)
+				+ ((long)getKeysToCheck().size() * DB_STATEMENTS_PER_CHECK);
+	}
+
+	/**
+	 * Estimate the number of files that must be read in full in order to
+	 * calculate hashes (one per added key) assuming none of the checked
+	 * files have changed.
+	 *
+	 * @return Estimated number of files hashed.
+	 */
+	public long getEstimatedFilesHashed() {
+		return getKeysToAdd().size();
+	}
+
+	/**
+	 * Estimate the number of file system metadata lookups required (one
+	 * per checked key).
+	 *
+	 * @return Estimated number of file size lookups.
+	 */
+	public long getEstimatedFileLookups() {
+		return getKeysToCheck().size();
+	}
+
+	/**
+	 * Determine whether executing the plan could modify the target.
+	 *
+	 * @return True if there are no keys to add, remove, or check.
+	 */
+	public boolean isEmpty() {
+		return getKeysToAdd().isEmpty()
+				&& getKeysToRemove().isEmpty()
+				&& getKeysToCheck().isEmpty();
+	}
+
+	/**
+	 * Convert to a printable String.
+	 */
+	@Override
+	public String toString() {
+		String newLine = System.getProperty("line.separator");
+		StringBuilder sb = new StringBuilder();
+		sb.append("ReconciliationPlan : ");
+		sb.append(newLine);
+		sb.append("    Keys to add    => [ ");
+		sb.append(getKeysToAdd().size());
+		sb.append(" ]");
+		sb.append(newLine);
+		sb.append("    Keys to remove => [ ");
+		sb.append(getKeysToRemove().size());
+		sb.append(" ]");
+		sb.append(newLine);
+		sb.append("    Keys to check  => [ ");
+		sb.append(getKeysToCheck().size());
+		sb.append(" ]");
+		sb.append(newLine);
+		sb.append("    Estimated cost => [ ");
+		sb.append(getEstimatedDatabaseStatements());
+		sb.append(" ] database statements, [ ");
+		sb.append(getEstimatedFilesHashed());
+		sb.append(" ] files hashed, [ ");
+		sb.append(getEstimatedFileLookups());
+		sb.append(" ] file size lookups.");
+		sb.append(newLine);
+		return sb.toString();
+	}
+}
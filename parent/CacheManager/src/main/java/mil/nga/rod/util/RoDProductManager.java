@@ -1,7 +1,10 @@
 package mil.nga.rod.util;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -14,6 +17,11 @@ import mil.nga.cache.RedisCacheManager;
 import mil.nga.exceptions.PropertiesNotLoadedException;
 import mil.nga.exceptions.PropertyNotFoundException;
 import mil.nga.util.FileUtils;
+import mil.nga.util.HashCache;
+import mil.nga.util.Options;
+import mil.nga.util.Options.Multiplicity;
+import mil.nga.util.ProgressJournal;
+import mil.nga.types.JournalResult;
 import mil.nga.rod.cache.AcceleratorRecordFactory;
 import mil.nga.rod.jdbc.AcceleratorJDBCRecordFactory;
 import mil.nga.rod.jdbc.ArtworkRowFactory;
@@ -48,8 +56,84 @@ public class RoDProductManager {
     		RoDProductManager.class);
     
     /**
-     * See if the on-disk file changed in size since the last time the cache 
-     * was updated.  
+     * Usage String presented when the command line arguments do not make 
+     * sense.
+     */
+    public static final String USAGE_STRING = 
+            "Usage : java mil.nga.rod.util.RoDProductManager "
+            + "[ -dryRun ] [ -full ] [ -h ] [ -help ]";
+    
+    /**
+     * Name of the progress journal used to resume interrupted runs.
+     */
+    public static final String JOURNAL_NAME = "rod-product-manager";
+    
+    /**
+     * If true, the reconciliation plan is printed but not executed.
+     */
+    private final boolean dryRun;
+    
+    /**
+     * Journal of completed keys for the plan currently being executed.
+     */
+    private ProgressJournal journal = null;
+    
+    /**
+     * Per-run counts of checked files that were skipped or re-hashed.
+     */
+    private int filesSkipped  = 0;
+    private int filesRehashed = 0;
+    
+    /**
+     * Number of keys that failed during the most recent run.
+     */
+    private int errorCount = 0;
+    
+    /**
+     * If true, a full reconciliation is performed even if incremental 
+     * synchronization is enabled.
+     */
+    private final boolean forceFullSync;
+    
+    /**
+     * Default constructor.  The reconciliation plan will be executed.
+     */
+    public RoDProductManager() {
+    	this(false);
+    }
+    
+    /**
+     * Constructor allowing clients to request dry-run mode.
+     * 
+     * @param dryRun If true, print the reconciliation plan and its 
+     * estimated cost without modifying the backing data store.
+     */
+    public RoDProductManager(boolean dryRun) {
+    	this(dryRun, false);
+    }
+    
+    /**
+     * Constructor allowing clients to request dry-run mode and to force a
+     * full reconciliation.
+     * 
+     * @param dryRun If true, print the reconciliation plan and its 
+     * estimated cost without modifying the backing data store.
+     * @param forceFullSync If true, reconcile every key even if 
+     * incremental synchronization is enabled.
+     */
+    public RoDProductManager(boolean dryRun, boolean forceFullSync) {
+    	this.dryRun        = dryRun;
+    	this.forceFullSync = forceFullSync;
+    }
+    
+    /**
+     * See if the on-disk file changed since the last time the record was 
+     * built.  If the <code>HashCache</code> holds a hash for the current 
+     * fingerprint (size, modification time, file key and optional partial 
+     * hash) of the file, it is compared against the hash in the record.  
+     * If the cache holds hashes for an older version of the file, the 
+     * file has changed.  Otherwise (the file has never been hashed with the 
+     * cache enabled) only the file size is compared.
      * 
      * @param value The cached data.
      * @return True if the on-disk data has changed since the last update.
@@ -63,20 +147,71 @@ public class RoDProductManager {
         if ((record != null) && 
         		(record.getPath() != null) && 
         		(!record.getPath().isEmpty())) {          
-            long size = FileUtils.getActualFileSize(Paths.get(record.getPath()));
-            if (size != record.getSize()) {
+        	Path      path  = Paths.get(record.getPath());
+        	HashCache cache = HashCache.getInstance();
+        	String    hash  = null;
+        	if (cache.isEnabled()) {
+        		hash = cache.get(
+        				path, 
+        				cache.fingerprint(path), 
+        				AcceleratorRecordFactory.HASH_TYPE);
+        	}
+        	if (hash != null) {
+        		needsUpdate = !hash.equalsIgnoreCase(record.getHash());
+        	}
+        	else if (cache.getFingerprint(path) != null) {
+        		needsUpdate = true;
+        	}
+        	else {
+	            long size = FileUtils.getActualFileSize(path);
+	            needsUpdate = (size != record.getSize());
+        	}
+            if (needsUpdate) {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("File [ "
                             + record.getPath()
                             + " ] has changed.  RoDProduct "
                             + "record will be updated.");
                 }
-                needsUpdate = true;
+                filesRehashed++;
+            }
+            else {
+            	filesSkipped++;
             }
         }
         return needsUpdate;
     }
     
+    /**
+     * Getter method for the number of keys that failed during the most 
+     * recent execution of a plan.
+     * 
+     * @return The number of errors.
+     */
+    public int getErrorCount() {
+    	return errorCount;
+    }
+    
+    /**
+     * Getter method for the number of files whose fingerprint matched 
+     * during the most recent run (i.e. the re-hash was skipped).
+     * 
+     * @return The number of files skipped.
+     */
+    public int getFilesSkipped() {
+    	return filesSkipped;
+    }
+    
+    /**
+     * Getter method for the number of files whose fingerprint did not match
+     * during the most recent run (i.e. the file was re-hashed).
+     * 
+     * @return The number of files re-hashed.
+     */
+    public int getFilesRehashed() {
+    	return filesRehashed;
+    }
+    
 	/**
 	 * Remove orphaned <code>RoDProduct</code> records.  These are 
 	 * <code>RoDProduct</code> records that do not have an associated 
@@ -90,16 +225,26 @@ public class RoDProductManager {
 	public int removeObsoleteRoDProductRecords(
 			List<String> prodKeys, 
 			List<String> rodProdKeys) {
+		return removeRoDProductRecords(
+				ProductUtils.getInstance().defference(
+						rodProdKeys,
+						prodKeys));
+	}
+	
+	/**
+	 * Remove the identified <code>RoDProduct</code> records from the 
+	 * backing data store.
+	 * 
+	 * @param prodsToRemove Keys of the records to remove.
+	 * @return The number of records that were removed from the backing 
+	 * data store.
+	 */
+	private int removeRoDProductRecords(List<String> prodsToRemove) {
 	
 		long start      = System.currentTimeMillis();
 		int  count      = 0;
 		int  errorCount = 0;
 		
-		List<String> prodsToRemove = 
-				ProductUtils.getInstance().defference(
-						rodProdKeys,
-						prodKeys);
-		
 		if ((prodsToRemove != null) && (prodsToRemove.size() > 0)) {
 			
 			LOGGER.info("Removing [ "
@@ -108,6 +253,9 @@ public class RoDProductManager {
 			
 			for (String key : prodsToRemove) {
 				RoDProductRecordFactory.getInstance().remove(key);
+				if (journal != null) {
+					journal.record(key, JournalResult.REMOVED);
+				}
 				count++;
 			}
 			
@@ -139,14 +287,23 @@ public class RoDProductManager {
 	public int addNewRoDProductRecords(
 			List<String> prodKeys, 
 			List<String> rodProdKeys) {
-		
-		long start      = System.currentTimeMillis();
-		int  count      = 0;
-		int  errorCount = 0;
-		List<String> prodsToAdd = 
+		return addRoDProductRecords(
 				ProductUtils.getInstance().defference(
 						prodKeys,
-						rodProdKeys);
+						rodProdKeys));
+	}
+	
+	/**
+	 * Build and add the identified <code>RoDProduct</code> records to the 
+	 * backing data store.
+	 * 
+	 * @param prodsToAdd Keys of the records to add.
+	 * @return The number of products added to the backing data store.
+	 */
+	private int addRoDProductRecords(List<String> prodsToAdd) {
+		
+		long start = System.currentTimeMillis();
+		int  count = 0;
 		
 		if ((prodsToAdd != null) && (prodsToAdd.size() > 0)) {
 			
@@ -154,103 +311,15 @@ public class RoDProductManager {
 					+ prodsToAdd.size()
 					+ " ] new RoDRecords records.");
 			
+			RoDProductPipeline pipeline = new RoDProductPipeline(journal);
+			count = pipeline.process(prodsToAdd, false);
+			errorCount += pipeline.getErrorCount();
 			
-			for (String key : prodsToAdd) {
-				try {
-					List<Product> prods = ProductFactory.getInstance().getProducts(key);
-					if ((prods != null) && (prods.size() > 0)) {
-						
-						// Get the on-disk information (size, hash, etc.)
-						QueryRequestAccelerator accelerator = 
-								AcceleratorRecordFactory
-									.getInstance()	
-									.buildRecord(prods.get(0));
-						
-						// Get/process the artwork information
-						Artwork art = (new ArtworkBuilder())
-								.product(prods.get(0))
-								.build();
-						
-						// Construct the record that will be inserted in the 
-						// target data store.
-						RoDProduct rodProduct = new RoDProduct.RoDProductBuilder()
-								.product(prods.get(0))
-								.queryRequestAccelerator(accelerator)
-								.artwork(art)
-								.build();
-						
-						// Store the record.
-						RoDProductRecordFactory.getInstance().persist(rodProduct);
-						count++;
-					}
-					else {
-						LOGGER.warn("No product found with NRN => [ "
-								+ ProductUtils.getInstance().getNRNFromKey(key)
-								+ " ] and NSN => [ "
-								+ ProductUtils.getInstance().getNSNFromKey(key)
-								+ " ].");
-								
-					}
-				}
-				catch (IllegalStateException ise) {
-					LOGGER.error("IllegalStateException encountered while "
-							+ "building the RoDProduct record for key [ "
-							+ key
-							+ " ].  Error message => [ "
-							+ ise.getMessage()
-							+ " ].");
-					errorCount++;
-				}
-				catch (NoResultException nre) {
-					LOGGER.error("IllegalStateException encountered while "
-							+ "building the RoDProduct record for key [ "
-							+ key
-							+ " ].  Error message => [ "
-							+ nre.getMessage()
-							+ " ].");
-					errorCount++;
-				}
-				catch (IOException ioe) {
-					LOGGER.error("Unexpected IOException "
-							+ "encountered.  Unable "
-							+ "to add new records.  Error message => [ "
-							+ ioe.getMessage()
-							+ " ].");
-					errorCount += 1;
-				}
-				catch (PropertiesNotLoadedException pnle) {
-					LOGGER.error("Unexpected PropertiesNotLoadedException "
-							+ "encountered.  Please ensure that the "
-							+ "application is properly configured.  Unable "
-							+ "to add new records.  Error message => [ "
-							+ pnle.getMessage()
-							+ " ].");
-					errorCount += 1;
-				}
-				catch (PropertyNotFoundException pnfe) {
-					LOGGER.error("Unexpected PropertyNotFoundException encountered.  "
-							+ "Please ensure that the application is properly "
-							+ "configured.  Unable to add new records.  "
-							+ "Error message => [ "
-							+ pnfe.getMessage()
-							+ " ].");
-					errorCount += 1;
-				}
-				catch (ClassNotFoundException cnfe) {
-					LOGGER.error("Unexpected ClassNotFoundException "
-							+ "encountered.  Please ensure that the JDBC "
-							+ "drivers are available.  Unable to  "
-							+ "add new records.  Error message => [ "
-							+ cnfe.getMessage()
-							+ " ].");
-					errorCount += 1;
-				}
-			}
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("A total of [ "
 						+ count 
 						+ " ] records added with [ "
-						+ errorCount 
+						+ pipeline.getErrorCount() 
 						+ " ] errors encountered in [ "
 						+ (System.currentTimeMillis() - start)
 						+ " ] ms.");
@@ -272,24 +341,40 @@ public class RoDProductManager {
 	public int updateRodProductRecords(
 			List<String> prodKeys, 
 			List<String> rodProdKeys) {
+		
+		// Get the intersection of existing RoDProduct records and product 
+		// records.
+		return updateRodProductRecords(
+				ProductUtils.getInstance().intersection(
+						prodKeys,
+						rodProdKeys));
+	}
+	
+	/**
+	 * Check the identified <code>RoDProduct</code> records against the 
+	 * on-disk files and update those that have changed.
+	 * 
+	 * @param rodProdsToUpdate Keys of the records to check.
+	 * @return The number of products updated in the backing data store.
+	 */
+	private int updateRodProductRecords(List<String> rodProdsToUpdate) {
 	
 		long start       = System.currentTimeMillis();
 		int  count       = 0;
 		int  errorCount  = 0;
 		int  updatedRecs = 0;
 		
-		// Get the intersection of existing RoDProduct records and product 
-		// records.
-		List<String> rodProdsToUpdate = ProductUtils.getInstance().intersection(
-				prodKeys,
-				rodProdKeys);
-		
 		if ((rodProdsToUpdate != null) && (rodProdsToUpdate.size() > 0)) {
 			
 			LOGGER.info("Updating [ "
 					+ rodProdsToUpdate.size()
 					+ " ] new RoDProduct records.");
 			
+			// Identify the records whose on-disk files have changed.  This 
+			// is cheap relative to rebuilding a record so it is done on 
+			// the calling thread before the pipeline is started.
+			List<String> changed   = new ArrayList<String>();
+			List<String> unchanged = new ArrayList<String>();
 			for (String key : rodProdsToUpdate) {
 				count++;
 				try {
@@ -302,29 +387,10 @@ public class RoDProductManager {
 					
 					if (rProduct != null) {
 						if (isUpdateRequired(rProduct)) {	
-							Product product = ProductFactory.getInstance().getProduct(key);
-							// Get the on-disk information (size, hash, etc.)
-							QueryRequestAccelerator accelerator = 
-									AcceleratorRecordFactory
-										.getInstance()	
-										.buildRecord(product);
-							
-							// Get/process the artwork information
-							Artwork art = (new ArtworkBuilder())
-									.product(product)
-									.build();
-							
-							// Construct the record that will be inserted in the 
-							// target data store.
-							RoDProduct rodProduct = new RoDProduct.RoDProductBuilder()
-									.product(product)
-									.queryRequestAccelerator(accelerator)
-									.artwork(art)
-									.build();
-							
-							// Store the record.
-							RoDProductRecordFactory.getInstance().persist(rodProduct);
-							updatedRecs++;
+							changed.add(key);
+						}
+						else {
+							unchanged.add(key);
 						}
 					}
 					else {
@@ -334,18 +400,9 @@ public class RoDProductManager {
 						errorCount++;
 					}
 				}
-				catch (IllegalStateException ise) {
-					LOGGER.error("IllegalStateException encountered while "
-							+ "building the RoDProduct record for key [ "
-							+ key
-							+ " ].  Error message => [ "
-							+ ise.getMessage()
-							+ " ].");
-					errorCount++;
-				}
 				catch (NoResultException nre) {
-					LOGGER.error("IllegalStateException encountered while "
-							+ "building the RoDProduct record for key [ "
+					LOGGER.error("NoResultException encountered while "
+							+ "retrieving the RoDProduct record for key [ "
 							+ key
 							+ " ].  Error message => [ "
 							+ nre.getMessage()
@@ -355,39 +412,26 @@ public class RoDProductManager {
 				catch (IOException ioe) {
 					LOGGER.error("Unexpected IOException "
 							+ "encountered.  Unable "
-							+ "to add new records.  Error message => [ "
+							+ "to check record for key [ "
+							+ key
+							+ " ].  Error message => [ "
 							+ ioe.getMessage()
 							+ " ].");
 					errorCount++;
 				}
-				catch (PropertiesNotLoadedException pnle) {
-					LOGGER.error("Unexpected PropertiesNotLoadedException "
-							+ "encountered.  Please ensure that the "
-							+ "application is properly configured.  Unable "
-							+ "to add new records.  Error message => [ "
-							+ pnle.getMessage()
-							+ " ].");
-					errorCount++;
-				}
-				catch (PropertyNotFoundException pnfe) {
-					LOGGER.error("Unexpected PropertyNotFoundException encountered.  "
-							+ "Please ensure that the application is properly "
-							+ "configured.  Unable to add new records.  "
-							+ "Error message => [ "
-							+ pnfe.getMessage()
-							+ " ].");
-					errorCount++;
-				}
-				catch (ClassNotFoundException cnfe) {
-					LOGGER.error("Unexpected ClassNotFoundException "
-							+ "encountered.  Please ensure that the JDBC "
-							+ "drivers are available.  Unable to  "
-							+ "add new records.  Error message => [ "
-							+ cnfe.getMessage()
-							+ " ].");
-					errorCount++;
-				}
 			}
+			
+			if (journal != null) {
+				journal.recordAll(unchanged, JournalResult.UNCHANGED);
+			}
+			
+			if (changed.size() > 0) {
+				RoDProductPipeline pipeline = new RoDProductPipeline(journal);
+				updatedRecs = pipeline.process(changed, true);
+				errorCount += pipeline.getErrorCount();
+			}
+			this.errorCount += errorCount;
+			
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("A total of [ "
 						+ updatedRecs 
@@ -404,7 +448,84 @@ public class RoDProductManager {
 	}
 	
 	/**
-	 * Overall driver method for the update process.
+	 * Execute the supplied reconciliation plan against the backing data 
+	 * store.  Obsolete records are removed first, then new records are 
+	 * added, and finally the existing records are checked for changes.
+	 * 
+	 * Completed keys are recorded in a progress journal.  If a previous 
+	 * run was interrupted, the keys it completed are skipped.  The journal
+	 * is removed once the plan has been executed in full.
+	 * 
+	 * @param plan The plan to execute.
+	 */
+	public void execute(ReconciliationPlan plan) {
+		
+		List<String> toRemove = plan.getKeysToRemove();
+		List<String> toAdd    = plan.getKeysToAdd();
+		List<String> toCheck  = plan.getKeysToCheck();
+		boolean      finished = false;
+		
+		filesSkipped  = 0;
+		filesRehashed = 0;
+		errorCount    = 0;
+		
+		try {
+			journal = new ProgressJournal(JOURNAL_NAME);
+			toRemove = journal.filter(toRemove, JournalResult.REMOVED);
+			toAdd    = journal.filter(toAdd, JournalResult.ADDED);
+			toCheck  = journal.filter(toCheck, 
+					JournalResult.ADDED, 
+					JournalResult.UPDATED, 
+					JournalResult.UNCHANGED);
+		}
+		catch (IOException ioe) {
+			LOGGER.warn("Unable to open the progress journal.  This run "
+					+ "will not be resumable.  Error message => [ "
+					+ ioe.getMessage()
+					+ " ].");
+			journal = null;
+		}
+		
+		try {
+			int obsolete    = removeRoDProductRecords(toRemove);
+			int newProducts = addRoDProductRecords(toAdd);
+			int updated     = updateRodProductRecords(toCheck);
+			
+			LOGGER.info("RoDProduct table updated.  [ "
+					+ obsolete 
+					+ " ] records removed, [ "
+					+ newProducts 
+					+ " ] added, [ "
+					+ updated
+					+ " ] products updated.");
+			LOGGER.info("Change detection : [ "
+					+ filesSkipped
+					+ " ] files unchanged (re-hash skipped), [ "
+					+ filesRehashed
+					+ " ] files changed (re-hashed).");
+			LOGGER.info(HashCache.getInstance().toString());
+			finished = true;
+		}
+		finally {
+			if (journal != null) {
+				if (finished) {
+					journal.complete();
+				}
+				else {
+					journal.close();
+				}
+				journal = null;
+			}
+		}
+	}
+	
+	/**
+	 * Overall driver method for the update process.  The factories are 
+	 * closed once the update completes, so this method is intended for 
+	 * one-shot invocations.  Long-running callers (i.e. 
+	 * <code>SyncDaemon</code>) should call 
+	 * {@link #synchronize(ProductFactory, RoDProductRecordFactory)} 
+	 * directly so the connections remain open between runs.
 	 */
 	public void update() {
 		
@@ -417,28 +538,7 @@ public class RoDProductManager {
 					RoDProductRecordFactory.getInstance();
 		     ArtworkRowFactory       artFactory     = 
 						 ArtworkRowFactory.getInstance();) {
-			
-			List<String> productKeys    = prodFactory.getUniqueKeys();
-			List<String> rodProductKeys = rodProdFactory.getKeys();
-			
-			int obsolete    = removeObsoleteRoDProductRecords(
-								productKeys, 
-								rodProductKeys);
-			int newProducts = addNewRoDProductRecords(
-					  			productKeys, 
-					  			rodProductKeys);
-			int updated     = updateRodProductRecords(
-								productKeys, 
-								rodProductKeys);
-			
-			LOGGER.info("RoDProduct table updated.  [ "
-					+ obsolete 
-					+ " ] records removed, [ "
-					+ newProducts 
-					+ " ] added, [ "
-					+ updated
-					+ " ] products updated.");
-			
+			synchronize(prodFactory, rodProdFactory);
 		}
 		catch (PropertiesNotLoadedException pnle) {
 			LOGGER.error("Unable to construct the ProductFactory object.  "
@@ -466,12 +566,103 @@ public class RoDProductManager {
 				+ " ] ms.");
 	}
 	
+	/**
+	 * Synchronize the RoDProduct table with the source table using the 
+	 * supplied factories.  The keys from the source and target tables are
+	 * classified in a single pass.  If dry-run mode is enabled the 
+	 * resulting plan is printed and the backing data store is not 
+	 * modified.  The factories are not closed.
+	 * 
+	 * If incremental synchronization is enabled only the source rows 
+	 * loaded or changed since the last successful run are considered, and 
+	 * only those keys are looked up in the target table.  Obsolete records
+	 * can only be identified by a full reconciliation, which is performed 
+	 * on the schedule defined by <code>rod.sync.full_interval</code>.
+	 * 
+	 * @param prodFactory Factory used to access the source table.
+	 * @param rodProdFactory Factory used to access the RoDProduct table.
+	 */
+	public void synchronize(
+			ProductFactory prodFactory, 
+			RoDProductRecordFactory rodProdFactory) {
+			
+		SyncState    state = new SyncState(JOURNAL_NAME);
+		boolean      full  = forceFullSync || state.isFullSyncRequired();
+		List<String> productKeys;
+		List<String> rodProductKeys;
+		
+		// Read the high-water mark before the keys so that rows 
+		// loaded while this run is in progress are picked up next time.
+		Date mark = prodFactory.getHighWaterMark();
+		LOGGER.info(state.toString());
+		
+		if (full) {
+			productKeys    = prodFactory.getUniqueKeys();
+			rodProductKeys = rodProdFactory.getKeys();
+		}
+		else {
+			productKeys    = prodFactory.getUniqueKeysChangedSince(
+								state.getIncrementalStart());
+			rodProductKeys = rodProdFactory.getExistingKeys(productKeys);
+		}
+		
+		ReconciliationPlan plan = new ReconciliationPlan(
+				productKeys, 
+				rodProductKeys);
+		
+		if (dryRun) {
+			System.out.println((full ? "Full" : "Incremental") 
+					+ " synchronization.");
+			System.out.println(plan.toString());
+			LOGGER.info("Dry run requested.  The RoDProduct table was "
+					+ "not modified.");
+		}
+		else {
+			LOGGER.info((full ? "Full" : "Incremental") 
+					+ " synchronization.  "
+					+ plan.toString());
+			execute(plan);
+			// Keys that failed are retried by the next run only if the
+			// high-water mark is not advanced.
+			if (errorCount == 0) {
+				state.recordSync(mark, full);
+			}
+			else {
+				LOGGER.warn("[ "
+						+ errorCount
+						+ " ] errors encountered.  The synchronization "
+						+ "high-water mark was not advanced.");
+			}
+		}
+	}
+	
 	/**
 	 * Main entry point for the execution of the code that will update the 
 	 * back-end data source.
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		new RoDProductManager().update();
+		
+		// set up the command line options
+		Options opt = new Options(args, 0);
+		opt.getSet().addOption("dryRun", Multiplicity.ZERO_OR_MORE);
+		opt.getSet().addOption("full", Multiplicity.ZERO_OR_MORE);
+		opt.getSet().addOption("h", Multiplicity.ZERO_OR_MORE);
+		opt.getSet().addOption("help", Multiplicity.ZERO_OR_MORE);
+		
+		// Ensure the command line options presented make sense.
+		if (!opt.check(true, false)) {
+			System.err.println(USAGE_STRING);
+			System.exit(1);
+		}
+		
+		if ((opt.getSet().isSet("h")) || (opt.getSet().isSet("help"))) {
+			System.out.println(USAGE_STRING);
+			System.exit(0);
+		}
+		
+		new RoDProductManager(
+				opt.getSet().isSet("dryRun"),
+				opt.getSet().isSet("full")).update();
 	}
 }
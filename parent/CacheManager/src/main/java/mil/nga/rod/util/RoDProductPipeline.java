@@ -0,0 +1,447 @@
+package mil.nga.rod.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.artwork.ArtworkBuilder;
+import mil.nga.rod.cache.AcceleratorRecordFactory;
+import mil.nga.rod.jdbc.ProductFactory;
+import mil.nga.rod.jdbc.RoDProductRecordFactory;
+import mil.nga.rod.model.Artwork;
+import mil.nga.rod.model.Product;
+import mil.nga.rod.model.QueryRequestAccelerator;
+import mil.nga.rod.model.RoDProduct;
+import mil.nga.types.JournalResult;
+import mil.nga.util.ProgressJournal;
+
+/**
+ * Parallel pipeline used to construct and persist <code>RoDProduct</code>
+ * records.  Building a single record requires a JDBC query, a hash of the
+ * (potentially multi-GB) on-disk file, artwork processing, and a JPA
+ * merge.  Each of those steps runs in its own stage with its own thread
+ * pool:
+ *
+ * <ol>
+ * <li>fetch - retrieve the <code>Product</code> from the source table.</li>
+ * <li>hash - build the <code>QueryRequestAccelerator</code> (I/O bound).</li>
+ * <li>artwork - build the <code>Artwork</code> data (CPU bound).</li>
+ * <li>persist - build and store the <code>RoDProduct</code>.</li>
+ * </ol>
+ *
+ * The stages are connected by bounded queues so a slow stage applies
+ * backpressure to the stages in front of it rather than allowing work to
+ * accumulate in memory.  The persist stage always runs on a single thread
+ * because the underlying <code>EntityManager</code> is not thread safe.
+ *
+ * Errors are counted per key; a key that fails in any stage is dropped
+ * from the pipeline and processing continues with the remaining keys.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RoDProductPipeline implements RoDProductPipelineConstants {
+
+	/**
+	 * Set up the Log4j system for use throughout the class
+	 */
+	static final Logger LOGGER = LoggerFactory.getLogger(
+			RoDProductPipeline.class);
+
+	/**
+	 * Marker placed on a queue to signal that no further work will arrive.
+	 */
+	private static final WorkItem END_OF_WORK = new WorkItem(null);
+
+	// Private internal members
+	private int fetchThreads   = DEFAULT_PIPELINE_FETCH_THREADS;
+	private int hashThreads    = DEFAULT_PIPELINE_HASH_THREADS;
+	private int artworkThreads = DEFAULT_PIPELINE_ARTWORK_THREADS;
+	private int queueSize      = DEFAULT_PIPELINE_QUEUE_SIZE;
+	private final ProgressJournal journal;
+	private final AtomicInteger processed  = new AtomicInteger(0);
+	private final AtomicInteger errorCount = new AtomicInteger(0);
+
+	/**
+	 * Default constructor loading the stage sizes from the system
+	 * properties.  Missing or invalid properties fall back to the
+	 * defaults.
+	 */
+	public RoDProductPipeline() {
+		this(null);
+	}
+	
+	/**
+	 * Constructor accepting a journal in which each persisted key is 
+	 * recorded.
+	 * 
+	 * @param journal The progress journal (may be null).
+	 */
+	public RoDProductPipeline(ProgressJournal journal) {
+		this.journal = journal;
+		PropertyLoader pLoader = PropertyLoader.getInstance();
+		try {
+			fetchThreads = Integer.parseInt(
+					pLoader.getProperty(PIPELINE_FETCH_THREADS_PROPERTY));
+		}
+		catch (Exception e) { }
+		try {
+			hashThreads = Integer.parseInt(
+					pLoader.getProperty(PIPELINE_HASH_THREADS_PROPERTY));
+		}
+		catch (Exception e) { }
+		try {
+			artworkThreads = Integer.parseInt(
+					pLoader.getProperty(PIPELINE_ARTWORK_THREADS_PROPERTY));
+		}
+		catch (Exception e) { }
+		try {
+			queueSize = Integer.parseInt(
+					pLoader.getProperty(PIPELINE_QUEUE_SIZE_PROPERTY));
+		}
+		catch (Exception e) { }
+		fetchThreads   = Math.max(1, fetchThreads);
+		hashThreads    = Math.max(1, hashThreads);
+		artworkThreads = Math.max(1, artworkThreads);
+		queueSize      = Math.max(1, queueSize);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(toString());
+		}
+	}
+
+	/**
+	 * Getter method for the number of keys that failed in any stage of the
+	 * most recent run.
+	 *
+	 * @return The number of errors.
+	 */
+	public int getErrorCount() {
+		return errorCount.get();
+	}
+
+	/**
+	 * Build and persist the <code>RoDProduct</code> record for each of the
+	 * input keys.  The method blocks until every key has either been
+	 * persisted or dropped.
+	 *
+	 * @param keys The keys of the records to build.
+	 * @param merged If true the <code>Product</code> is the combination of
+	 * all source rows for the key (as used when updating existing records),
+	 * otherwise the first (most recent) source row is used.
+	 * @return The number of records persisted.
+	 */
+	public int process(List<String> keys, final boolean merged) {
+
+		long start = System.currentTimeMillis();
+		processed.set(0);
+		errorCount.set(0);
+
+		if ((keys == null) || (keys.isEmpty())) {
+			return 0;
+		}
+
+		BlockingQueue<WorkItem> fetchQueue   =
+				new ArrayBlockingQueue<WorkItem>(queueSize);
+		BlockingQueue<WorkItem> hashQueue    =
+				new ArrayBlockingQueue<WorkItem>(queueSize);
+		BlockingQueue<WorkItem> artworkQueue =
+				new ArrayBlockingQueue<WorkItem>(queueSize);
+		BlockingQueue<WorkItem> persistQueue =
+				new ArrayBlockingQueue<WorkItem>(queueSize);
+
+		List<ExecutorService> stages = new ArrayList<ExecutorService>();
+
+		stages.add(start(new Stage("fetch", fetchThreads, fetchQueue, hashQueue) {
+			@Override
+			protected boolean process(WorkItem item) throws Exception {
+				if (merged) {
+					item.product = ProductFactory.getInstance()
+							.getProduct(item.key);
+				}
+				else {
+					List<Product> prods = ProductFactory.getInstance()
+							.getProducts(item.key);
+					if ((prods != null) && (prods.size() > 0)) {
+						item.product = prods.get(0);
+					}
+				}
+				if (item.product == null) {
+					LOGGER.warn("No product found with NRN => [ "
+							+ ProductUtils.getInstance().getNRNFromKey(item.key)
+							+ " ] and NSN => [ "
+							+ ProductUtils.getInstance().getNSNFromKey(item.key)
+							+ " ].");
+				}
+				return (item.product != null);
+			}
+		}));
+
+		stages.add(start(new Stage("hash", hashThreads, hashQueue, artworkQueue) {
+			@Override
+			protected boolean process(WorkItem item) throws Exception {
+				// Get the on-disk information (size, hash, etc.)
+				item.accelerator = AcceleratorRecordFactory
+						.getInstance()
+						.buildRecord(item.product);
+				return true;
+			}
+		}));
+
+		stages.add(start(new Stage("artwork", artworkThreads, artworkQueue, persistQueue) {
+			@Override
+			protected boolean process(WorkItem item) throws Exception {
+				// Get/process the artwork information
+				item.artwork = (new ArtworkBuilder())
+						.product(item.product)
+						.build();
+				return true;
+			}
+		}));
+
+		stages.add(start(new Stage("persist", 1, persistQueue, null) {
+			@Override
+			protected boolean process(WorkItem item) throws Exception {
+				// Construct the record that will be inserted in the
+				// target data store.
+				RoDProduct rodProduct = new RoDProduct.RoDProductBuilder()
+						.product(item.product)
+						.queryRequestAccelerator(item.accelerator)
+						.artwork(item.artwork)
+						.build();
+				RoDProductRecordFactory.getInstance().persist(rodProduct);
+				if (journal != null) {
+					journal.record(
+							item.key, 
+							(merged ? JournalResult.UPDATED : JournalResult.ADDED));
+				}
+				processed.incrementAndGet();
+				return true;
+			}
+		}));
+
+		try {
+			// put() blocks while the fetch queue is full.
+			for (String key : keys) {
+				fetchQueue.put(new WorkItem(key));
+			}
+			fetchQueue.put(END_OF_WORK);
+			for (ExecutorService stage : stages) {
+				stage.shutdown();
+				while (!stage.awaitTermination(1, TimeUnit.MINUTES)) {
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("Waiting on pipeline.  [ "
+								+ processed.get()
+								+ " ] of [ "
+								+ keys.size()
+								+ " ] records persisted.");
+					}
+				}
+			}
+		}
+		catch (InterruptedException ie) {
+			LOGGER.error("Pipeline interrupted.  Processing of the remaining "
+					+ "keys was abandoned after [ "
+					+ processed.get()
+					+ " ] records were persisted.");
+			for (ExecutorService stage : stages) {
+				stage.shutdownNow();
+			}
+			Thread.currentThread().interrupt();
+		}
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Pipeline persisted [ "
+					+ processed.get()
+					+ " ] of [ "
+					+ keys.size()
+					+ " ] records with [ "
+					+ errorCount.get()
+					+ " ] errors encountered in [ "
+					+ (System.currentTimeMillis() - start)
+					+ " ] ms.");
+		}
+		return processed.get();
+	}
+
+	/**
+	 * Start the worker threads for a stage.
+	 *
+	 * @param stage The stage to start.
+	 * @return The executor running the stage workers.
+	 */
+	private ExecutorService start(final Stage stage) {
+		ExecutorService executor = Executors.newFixedThreadPool(
+				stage.threads,
+				new ThreadFactory() {
+					private final AtomicInteger counter = new AtomicInteger(0);
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(
+								r,
+								"rod-pipeline-"
+								+ stage.name
+								+ "-"
+								+ counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		for (int i=0; i<stage.threads; i++) {
+			executor.execute(stage);
+		}
+		return executor;
+	}
+
+	/**
+	 * Convert to a printable String.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("RoDProductPipeline : Fetch threads => [ ");
+		sb.append(fetchThreads);
+		sb.append(" ], Hash threads => [ ");
+		sb.append(hashThreads);
+		sb.append(" ], Artwork threads => [ ");
+		sb.append(artworkThreads);
+		sb.append(" ], Queue size => [ ");
+		sb.append(queueSize);
+		sb.append(" ].");
+		return sb.toString();
+	}
+
+	/**
+	 * Unit of work passed between the stages.
+	 */
+	private static class WorkItem {
+
+		private final String            key;
+		private Product                 product;
+		private QueryRequestAccelerator accelerator;
+		private Artwork                 artwork;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key The key of the record to build.
+		 */
+		private WorkItem(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * A single pipeline stage.  Each worker takes items from the input
+	 * queue, processes them, and hands them to the output queue.  When the
+	 * end of work marker is received it is returned to the input queue for
+	 * the sibling workers, and the last worker to finish forwards it to the
+	 * next stage.
+	 */
+	private abstract class Stage implements Runnable {
+
+		private final String                  name;
+		private final int                     threads;
+		private final BlockingQueue<WorkItem> input;
+		private final BlockingQueue<WorkItem> output;
+		private final AtomicInteger           active;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param name Name of the stage (used in log messages).
+		 * @param threads Number of worker threads.
+		 * @param input Queue supplying work to the stage.
+		 * @param output Queue receiving completed work (null for the
+		 * final stage).
+		 */
+		private Stage(
+				String name,
+				int threads,
+				BlockingQueue<WorkItem> input,
+				BlockingQueue<WorkItem> output) {
+			this.name    = name;
+			this.threads = threads;
+			this.input   = input;
+			this.output  = output;
+			this.active  = new AtomicInteger(threads);
+		}
+
+		/**
+		 * Process a single item.
+		 *
+		 * @param item The item to process.
+		 * @return True if the item should be passed to the next stage,
+		 * false if it should be dropped.
+		 * @throws Exception Any exception (or error) raised is logged and 
+		 * counted as an error against the item's key.
+		 */
+		protected abstract boolean process(WorkItem item) throws Exception;
+
+		/**
+		 * Worker loop.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					WorkItem item = input.take();
+					if (item == END_OF_WORK) {
+						input.put(END_OF_WORK);
+						break;
+					}
+					boolean forward = false;
+					try {
+						forward = process(item);
+					}
+					catch (Throwable t) {
+						// Errors (e.g. OutOfMemoryError while rendering 
+						// artwork) are caught too so that the worker 
+						// survives to drain its queue.
+						LOGGER.error("Unexpected "
+								+ t.getClass().getSimpleName()
+								+ " encountered in the [ "
+								+ name
+								+ " ] stage while building the RoDProduct "
+								+ "record for key [ "
+								+ item.key
+								+ " ].  Error message => [ "
+								+ t.getMessage()
+								+ " ].");
+						errorCount.incrementAndGet();
+					}
+					if (forward && (output != null)) {
+						// put() blocks while the next stage is saturated.
+						output.put(item);
+					}
+				}
+			}
+			catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				// However the worker exits, the last one out must pass the 
+				// end of work marker on or the downstream stages (and 
+				// process()) would wait forever.
+				if ((active.decrementAndGet() == 0) && (output != null)) {
+					try {
+						output.put(END_OF_WORK);
+					}
+					catch (InterruptedException ie) {
+						// Only interrupted by shutdownNow(), which also 
+						// stops the downstream stages.
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		}
+	}
+}
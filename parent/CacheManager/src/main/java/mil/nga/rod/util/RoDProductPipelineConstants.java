@@ -0,0 +1,63 @@
+package mil.nga.rod.util;
+
+/**
+ * Constants used to configure the parallel <code>RoDProduct</code>
+ * construction pipeline.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface RoDProductPipelineConstants {
+
+	/**
+	 * Property defining the number of threads retrieving
+	 * <code>Product</code> records from the source data store.
+	 */
+	public static final String PIPELINE_FETCH_THREADS_PROPERTY =
+			"rod.pipeline.fetch_threads";
+
+	/**
+	 * Property defining the number of threads calculating file hashes.
+	 * Hashing is I/O bound so this may exceed the number of processors.
+	 */
+	public static final String PIPELINE_HASH_THREADS_PROPERTY =
+			"rod.pipeline.hash_threads";
+
+	/**
+	 * Property defining the number of threads building the artwork data.
+	 * The artwork lookup itself is serialized by the (synchronized) 
+	 * <code>ArtworkRowFactory</code>; only the image processing runs in 
+	 * parallel.
+	 */
+	public static final String PIPELINE_ARTWORK_THREADS_PROPERTY =
+			"rod.pipeline.artwork_threads";
+
+	/**
+	 * Property defining the capacity of the queue in front of each stage.
+	 * When a queue is full the upstream stage blocks.
+	 */
+	public static final String PIPELINE_QUEUE_SIZE_PROPERTY =
+			"rod.pipeline.queue_size";
+
+	/**
+	 * Default number of fetch threads.  <code>ProductFactory</code> holds
+	 * a single JDBC connection, so additional fetch threads would only
+	 * contend for (and interleave statements on) the same connection.
+	 */
+	public static final int DEFAULT_PIPELINE_FETCH_THREADS = 1;
+
+	/**
+	 * Default number of hash threads.
+	 */
+	public static final int DEFAULT_PIPELINE_HASH_THREADS = 4;
+
+	/**
+	 * Default number of artwork threads (one per processor).
+	 */
+	public static final int DEFAULT_PIPELINE_ARTWORK_THREADS =
+			Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Default capacity of the queue in front of each stage.
+	 */
+	public static final int DEFAULT_PIPELINE_QUEUE_SIZE = 64;
+}
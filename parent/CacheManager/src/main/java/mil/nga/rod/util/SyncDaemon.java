@@ -0,0 +1,284 @@
+package mil.nga.rod.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.rod.jdbc.ArtworkRowFactory;
+import mil.nga.rod.jdbc.ProductFactory;
+import mil.nga.rod.jdbc.RoDProductRecordFactory;
+import mil.nga.util.Options;
+import mil.nga.util.Options.Multiplicity;
+
+/**
+ * Long-running alternative to launching <code>RoDProductManager</code> and
+ * <code>CacheManager</code> from cron.  The daemon keeps the JDBC
+ * connection and the JPA <code>EntityManager</code> objects open between
+ * runs, so the JVM start-up, Hibernate bootstrap and connection set-up
+ * costs are paid once rather than on every run.
+ *
+ * Two jobs are scheduled: the RoDProduct table synchronization
+ * (equivalent to <code>RoDProductManager</code>) and the cache
+ * synchronization (equivalent to <code>CacheManager</code>).  Both jobs
+ * execute on a single scheduler thread.  The factories share one JDBC
+ * connection and one <code>EntityManager</code>, neither of which is
+ * thread safe, so the jobs must never overlap.  A job is rescheduled only
+ * after its current cycle finishes.
+ *
+ * Run statistics for each job are registered with the platform MBean
+ * server under <code>mil.nga.rod:type=SyncDaemon,name=&lt;job&gt;</code>
+ * and can be viewed (and a cycle triggered) with <code>jconsole</code> or
+ * any other JMX client attached to the local process.
+ *
+ * An empty RoDProduct table is populated by the first synchronization, so
+ * the daemon also replaces <code>InitializeRoDProductTable</code>.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncDaemon implements SyncDaemonConstants {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+    		SyncDaemon.class);
+
+    /**
+     * Usage String presented when the command line arguments do not make
+     * sense.
+     */
+    public static final String USAGE_STRING =
+            "Usage : java mil.nga.rod.util.SyncDaemon [ -h ] [ -help ]";
+
+    /**
+     * Name of the RoDProduct table synchronization job.
+     */
+    public static final String DB_SYNC_JOB_NAME = "db-sync";
+
+    /**
+     * Name of the cache synchronization job.
+     */
+    public static final String CACHE_SYNC_JOB_NAME = "cache-sync";
+
+    // Private internal members
+    private long dbSyncInterval    = DEFAULT_DAEMON_DB_SYNC_INTERVAL;
+    private long cacheSyncInterval = DEFAULT_DAEMON_CACHE_SYNC_INTERVAL;
+    private long jitter            = DEFAULT_DAEMON_JITTER;
+    private long shutdownTimeout   = DEFAULT_DAEMON_SHUTDOWN_TIMEOUT;
+    private final List<SyncJob>                jobs = new ArrayList<SyncJob>();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Default constructor loading the schedule from the system properties.
+     */
+    public SyncDaemon() {
+    	PropertyLoader pLoader = PropertyLoader.getInstance();
+		try {
+			dbSyncInterval = Long.parseLong(pLoader.getProperty(
+					DAEMON_DB_SYNC_INTERVAL_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			cacheSyncInterval = Long.parseLong(pLoader.getProperty(
+					DAEMON_CACHE_SYNC_INTERVAL_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			jitter = Long.parseLong(pLoader.getProperty(
+					DAEMON_JITTER_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			shutdownTimeout = Long.parseLong(pLoader.getProperty(
+					DAEMON_SHUTDOWN_TIMEOUT_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+
+		// A single non-daemon thread keeps the JVM alive and guarantees
+		// the jobs never run concurrently.
+		scheduler = new ScheduledThreadPoolExecutor(
+				1,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						return new Thread(r, "rod-sync-daemon");
+					}
+				});
+		// Pending cycles are discarded on shutdown and when replaced.
+		scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		scheduler.setRemoveOnCancelPolicy(true);
+
+		jobs.add(new SyncJob(
+				DB_SYNC_JOB_NAME,
+				dbSyncInterval,
+				jitter,
+				scheduler) {
+			@Override
+			protected int cycle() throws Exception {
+				ProductFactory prodFactory = ProductFactory.getInstance();
+				prodFactory.validateConnection(CONNECTION_VALIDATION_TIMEOUT);
+				RoDProductManager manager = new RoDProductManager();
+				manager.synchronize(
+						prodFactory,
+						RoDProductRecordFactory.getInstance());
+				return manager.getErrorCount();
+			}
+			@Override
+			protected void reset() {
+				closeFactories();
+			}
+		});
+		jobs.add(new SyncJob(
+				CACHE_SYNC_JOB_NAME,
+				cacheSyncInterval,
+				jitter,
+				scheduler) {
+			@Override
+			protected int cycle() throws Exception {
+				new CacheManager().synchronize(
+						RoDProductRecordFactory.getInstance());
+				return 0;
+			}
+			@Override
+			protected void reset() {
+				RoDProductRecordFactory.getInstance().close();
+			}
+		});
+    }
+
+    /**
+     * Close the factories.  Each factory re-opens its connection on next
+     * use.
+     */
+    private void closeFactories() {
+    	try {
+    		ProductFactory.getInstance().close();
+    	}
+    	catch (Exception e) { }
+    	RoDProductRecordFactory.getInstance().close();
+    	ArtworkRowFactory.getInstance().close();
+    }
+
+    /**
+     * Register the statistics of each job with the platform MBean server.
+     * Failure to register is logged but does not prevent the daemon from
+     * running.
+     */
+    private void register() {
+    	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    	for (SyncJob job : jobs) {
+    		try {
+    			server.registerMBean(
+    					job,
+    					new ObjectName(JMX_OBJECT_NAME_PREFIX + job.getName()));
+    		}
+    		catch (Exception e) {
+    			LOGGER.warn("Unable to register JMX statistics for job [ "
+    					+ job.getName()
+    					+ " ].  Error message => [ "
+    					+ e.getMessage()
+    					+ " ].");
+    		}
+    	}
+    }
+
+    /**
+     * Start the daemon.  The RoDProduct table synchronization runs first;
+     * the first cache synchronization follows it on the scheduler thread.
+     * A shutdown hook stops the scheduler and closes the factories.
+     */
+    public void start() {
+    	LOGGER.info(toString());
+    	register();
+    	for (SyncJob job : jobs) {
+    		job.start(0);
+    	}
+    	Runtime.getRuntime().addShutdownHook(
+    			new Thread("rod-sync-daemon-shutdown") {
+    				@Override
+    				public void run() {
+    					shutdown();
+    				}
+    			});
+    }
+
+    /**
+     * Stop scheduling new cycles, wait for a running cycle to finish, then
+     * close the factories.  A cycle that does not finish within the
+     * shutdown timeout is abandoned; the progress journals allow the next
+     * run to resume it.
+     */
+    public void shutdown() {
+    	LOGGER.info("Shutting down the synchronization daemon.");
+    	scheduler.shutdown();
+    	try {
+    		if (!scheduler.awaitTermination(
+    				shutdownTimeout,
+    				TimeUnit.MILLISECONDS)) {
+    			scheduler.shutdownNow();
+    			LOGGER.warn("Synchronization cycle did not finish within [ "
+    					+ shutdownTimeout
+    					+ " ] ms.  It will be resumed by the next run.");
+    		}
+    	}
+    	catch (InterruptedException ie) {
+    		Thread.currentThread().interrupt();
+    	}
+    	closeFactories();
+    	for (SyncJob job : jobs) {
+    		LOGGER.info(job.toString());
+    	}
+    }
+
+	/**
+	 * Convert to a printable String.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("SyncDaemon : DB sync interval => [ ");
+		sb.append(dbSyncInterval);
+		sb.append(" ] ms, Cache sync interval => [ ");
+		sb.append(cacheSyncInterval);
+		sb.append(" ] ms, Jitter => [ ");
+		sb.append(jitter);
+		sb.append(" ] ms.");
+		return sb.toString();
+	}
+
+	/**
+	 * Main entry point for the synchronization daemon.  The process runs
+	 * until it is terminated.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+
+		// set up the command line options
+		Options opt = new Options(args, 0);
+		opt.getSet().addOption("h", Multiplicity.ZERO_OR_MORE);
+		opt.getSet().addOption("help", Multiplicity.ZERO_OR_MORE);
+
+		// Ensure the command line options presented make sense.
+		if (!opt.check(true, false)) {
+			System.err.println(USAGE_STRING);
+			System.exit(1);
+		}
+
+		if ((opt.getSet().isSet("h")) || (opt.getSet().isSet("help"))) {
+			System.out.println(USAGE_STRING);
+			System.exit(0);
+		}
+
+		new SyncDaemon().start();
+	}
+}
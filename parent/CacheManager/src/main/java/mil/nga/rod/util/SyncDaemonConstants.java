@@ -0,0 +1,70 @@
+package mil.nga.rod.util;
+
+/**
+ * Constants used to configure the long-running synchronization daemon.
+ * All intervals are in milliseconds.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface SyncDaemonConstants {
+
+	/**
+	 * Property defining the interval between synchronizations of the
+	 * RoDProduct table with the source table.
+	 */
+	public static final String DAEMON_DB_SYNC_INTERVAL_PROPERTY =
+			"rod.daemon.db_sync_interval";
+
+	/**
+	 * Property defining the interval between synchronizations of the
+	 * cache with the RoDProduct table.
+	 */
+	public static final String DAEMON_CACHE_SYNC_INTERVAL_PROPERTY =
+			"rod.daemon.cache_sync_interval";
+
+	/**
+	 * Property defining the maximum random offset applied to each interval.
+	 * Jitter keeps multiple daemons (or the two jobs in one daemon) from
+	 * hitting the database at the same moment.
+	 */
+	public static final String DAEMON_JITTER_PROPERTY = "rod.daemon.jitter";
+
+	/**
+	 * Property defining how long shutdown waits for a running cycle to
+	 * finish before the factories are closed.
+	 */
+	public static final String DAEMON_SHUTDOWN_TIMEOUT_PROPERTY =
+			"rod.daemon.shutdown_timeout";
+
+	/**
+	 * Default RoDProduct table synchronization interval (1 hour).
+	 */
+	public static final long DEFAULT_DAEMON_DB_SYNC_INTERVAL = 60L * 60L * 1000L;
+
+	/**
+	 * Default cache synchronization interval (10 minutes).
+	 */
+	public static final long DEFAULT_DAEMON_CACHE_SYNC_INTERVAL = 10L * 60L * 1000L;
+
+	/**
+	 * Default jitter (1 minute).
+	 */
+	public static final long DEFAULT_DAEMON_JITTER = 60L * 1000L;
+
+	/**
+	 * Default shutdown timeout (5 minutes).
+	 */
+	public static final long DEFAULT_DAEMON_SHUTDOWN_TIMEOUT = 5L * 60L * 1000L;
+
+	/**
+	 * Seconds allowed for the JDBC connection validation round trip.
+	 */
+	public static final int CONNECTION_VALIDATION_TIMEOUT = 5;
+
+	/**
+	 * Domain and type of the JMX object names under which the job
+	 * statistics are registered.
+	 */
+	public static final String JMX_OBJECT_NAME_PREFIX =
+			"mil.nga.rod:type=SyncDaemon,name=";
+}
@@ -0,0 +1,276 @@
+package mil.nga.rod.util;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A synchronization cycle executed repeatedly by the
+ * <code>SyncDaemon</code>.  Each cycle is scheduled once the previous one
+ * completes (i.e. fixed delay rather than fixed rate) with a random
+ * jitter added to the interval, so a slow cycle never causes runs to
+ * queue up behind it.  A cycle that is triggered while the job is still
+ * running is skipped.
+ *
+ * Subclasses implement {@link #cycle()}.  An exception thrown by a cycle
+ * is logged and counted, and {@link #reset()} is invoked so the next
+ * cycle starts with fresh connections.
+ *
+ * @author L. Craig Carpenter
+ */
+public abstract class SyncJob implements Runnable, SyncJobMXBean {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    static final Logger LOGGER = LoggerFactory.getLogger(
+    		SyncJob.class);
+
+    // Private internal members
+    private final String                   name;
+    private final long                     interval;
+    private final long                     jitter;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean            running      = new AtomicBoolean(false);
+    private ScheduledFuture<?>             next         = null;
+    private volatile long                  nextRunTime  = 0;
+    private volatile long                  runCount     = 0;
+    private volatile long                  failureCount = 0;
+    private volatile long                  skippedCount = 0;
+    private volatile long                  lastStart    = 0;
+    private volatile long                  lastDuration = 0;
+    private volatile int                   lastErrors   = 0;
+    private volatile String                lastResult   = "Not run";
+
+    /**
+     * Constructor.
+     *
+     * @param name The job name.
+     * @param interval Milliseconds between the end of one cycle and the
+     * start of the next.
+     * @param jitter Maximum random offset (in milliseconds) applied to the
+     * interval.
+     * @param scheduler The scheduler on which the cycles are executed.
+     */
+    public SyncJob(
+    		String name,
+    		long interval,
+    		long jitter,
+    		ScheduledExecutorService scheduler) {
+    	this.name      = name;
+    	this.interval  = Math.max(0, interval);
+    	this.jitter    = Math.max(0, jitter);
+    	this.scheduler = scheduler;
+    }
+
+    /**
+     * Execute a single synchronization cycle.
+     *
+     * @return The number of errors encountered.
+     * @throws Exception Thrown if the cycle could not be completed.
+     */
+    protected abstract int cycle() throws Exception;
+
+    /**
+     * Release the resources held between cycles.  Invoked after a failed
+     * cycle so that stale connections are not reused.
+     */
+    protected abstract void reset();
+
+    /**
+     * Schedule the first cycle of the job.
+     *
+     * @param initialDelay Delay (in milliseconds) before the first cycle.
+     */
+    public void start(long initialDelay) {
+    	schedule(initialDelay);
+    }
+
+    /**
+     * Schedule the next cycle, replacing any cycle already pending so
+     * that only one cycle is ever outstanding.
+     *
+     * @param delay Delay (in milliseconds) before the cycle.
+     */
+    private synchronized void schedule(long delay) {
+    	if (!scheduler.isShutdown()) {
+    		if (next != null) {
+    			next.cancel(false);
+    		}
+    		nextRunTime = System.currentTimeMillis() + delay;
+    		next = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+    		if (LOGGER.isDebugEnabled()) {
+    			LOGGER.debug("Next [ "
+    					+ name
+    					+ " ] cycle scheduled for [ "
+    					+ new Date(nextRunTime)
+    					+ " ].");
+    		}
+    	}
+    	else {
+    		nextRunTime = 0;
+    	}
+    }
+
+    /**
+     * Calculate the delay before the next cycle.
+     *
+     * @return The interval offset by a random value in the range
+     * [-jitter, jitter].
+     */
+    private long getNextDelay() {
+    	long offset = 0;
+    	if (jitter > 0) {
+    		offset = ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    	}
+    	return Math.max(0, interval + offset);
+    }
+
+    /**
+     * Execute a cycle, record its statistics, and schedule the next one.
+     */
+    @Override
+    public void run() {
+    	if (!running.compareAndSet(false, true)) {
+    		skippedCount++;
+    		LOGGER.warn("Synchronization job [ "
+    				+ name
+    				+ " ] is still running.  Cycle skipped.");
+    		return;
+    	}
+    	lastStart = System.currentTimeMillis();
+    	runCount++;
+    	LOGGER.info("Starting synchronization job [ "
+    			+ name
+    			+ " ] cycle [ "
+    			+ runCount
+    			+ " ].");
+    	try {
+    		lastErrors = cycle();
+    		if (lastErrors == 0) {
+    			lastResult = "Success";
+    		}
+    		else {
+    			failureCount++;
+    			lastResult = "Completed with errors";
+    		}
+    	}
+    	catch (Throwable t) {
+    		failureCount++;
+    		lastErrors = 1;
+    		lastResult = "Failed : " + t.getMessage();
+    		LOGGER.error("Synchronization job [ "
+    				+ name
+    				+ " ] failed.  Connections will be re-established "
+    				+ "on the next cycle.  Error message => [ "
+    				+ t.getMessage()
+    				+ " ].", t);
+    		try {
+    			reset();
+    		}
+    		catch (Exception e) { }
+    	}
+    	finally {
+    		lastDuration = System.currentTimeMillis() - lastStart;
+    		running.set(false);
+    		LOGGER.info("Synchronization job [ "
+    				+ name
+    				+ " ] finished in [ "
+    				+ lastDuration
+    				+ " ] ms.  Result => [ "
+    				+ lastResult
+    				+ " ].");
+    		schedule(getNextDelay());
+    	}
+    }
+
+    /**
+     * Request an immediate cycle.
+     */
+    @Override
+    public boolean runNow() {
+    	if (running.get() || scheduler.isShutdown()) {
+    		return false;
+    	}
+    	schedule(0);
+    	return true;
+    }
+
+    @Override
+    public String getName() {
+    	return name;
+    }
+
+    @Override
+    public boolean isRunning() {
+    	return running.get();
+    }
+
+    @Override
+    public long getRunCount() {
+    	return runCount;
+    }
+
+    @Override
+    public long getFailureCount() {
+    	return failureCount;
+    }
+
+    @Override
+    public long getSkippedCount() {
+    	return skippedCount;
+    }
+
+    @Override
+    public Date getLastStartTime() {
+    	return (lastStart > 0 ? new Date(lastStart) : null);
+    }
+
+    @Override
+    public long getLastDuration() {
+    	return lastDuration;
+    }
+
+    @Override
+    public int getLastErrorCount() {
+    	return lastErrors;
+    }
+
+    @Override
+    public String getLastResult() {
+    	return lastResult;
+    }
+
+    @Override
+    public Date getNextRunTime() {
+    	return (nextRunTime > 0 ? new Date(nextRunTime) : null);
+    }
+
+	/**
+	 * Convert to a printable String.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("SyncJob : Name => [ ");
+		sb.append(name);
+		sb.append(" ], Runs => [ ");
+		sb.append(runCount);
+		sb.append(" ], Failures => [ ");
+		sb.append(failureCount);
+		sb.append(" ], Last result => [ ");
+		sb.append(lastResult);
+		sb.append(" ], Last duration => [ ");
+		sb.append(lastDuration);
+		sb.append(" ] ms, Next run => [ ");
+		sb.append(getNextRunTime());
+		sb.append(" ].");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,71 @@
+package mil.nga.rod.util;
+
+import java.util.Date;
+
+/**
+ * Management interface exposing the statistics of a scheduled
+ * synchronization job over JMX (e.g. via <code>jconsole</code>).
+ *
+ * @author L. Craig Carpenter
+ */
+public interface SyncJobMXBean {
+
+	/**
+	 * @return The job name.
+	 */
+	public String getName();
+
+	/**
+	 * @return True if a cycle is currently executing.
+	 */
+	public boolean isRunning();
+
+	/**
+	 * @return The number of cycles started since the daemon was launched.
+	 */
+	public long getRunCount();
+
+	/**
+	 * @return The number of cycles that failed or reported errors.
+	 */
+	public long getFailureCount();
+
+	/**
+	 * @return The number of cycles skipped because the job was still
+	 * running.
+	 */
+	public long getSkippedCount();
+
+	/**
+	 * @return The start time of the most recent cycle (null if none).
+	 */
+	public Date getLastStartTime();
+
+	/**
+	 * @return The duration of the most recent completed cycle in
+	 * milliseconds.
+	 */
+	public long getLastDuration();
+
+	/**
+	 * @return The number of errors reported by the most recent cycle.
+	 */
+	public int getLastErrorCount();
+
+	/**
+	 * @return Description of the outcome of the most recent cycle.
+	 */
+	public String getLastResult();
+
+	/**
+	 * @return The time the next cycle is scheduled to start (null if none).
+	 */
+	public Date getNextRunTime();
+
+	/**
+	 * Request an immediate cycle.  Ignored if the job is already running.
+	 *
+	 * @return True if the cycle was scheduled.
+	 */
+	public boolean runNow();
+}
@@ -0,0 +1,236 @@
+package mil.nga.rod.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+
+/**
+ * Persistent state used to decide between an incremental and a full
+ * synchronization run.  The state records the high-water mark (the latest
+ * <code>LOAD_DATE</code>/<code>FILE_DATE</code> seen by the last successful
+ * run) and the time of the last full reconciliation.
+ *
+ * An incremental run only considers rows changed since the high-water mark
+ * (less a configurable overlap, to allow for rows committed late with an
+ * earlier date).  Incremental runs cannot detect deleted rows, so a full
+ * reconciliation is performed when incremental mode is disabled, when
+ * there is no recorded high-water mark, or when the last full run is older
+ * than <code>rod.sync.full_interval</code>.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SyncState {
+
+	/**
+	 * Set up the Log4j system for use throughout the class
+	 */
+	static final Logger LOGGER = LoggerFactory.getLogger(
+			SyncState.class);
+
+	/**
+	 * Property enabling incremental synchronization.
+	 */
+	public static final String SYNC_INCREMENTAL_PROPERTY = "rod.sync.incremental";
+
+	/**
+	 * Property defining the maximum time (in milliseconds) between full
+	 * reconciliations.
+	 */
+	public static final String SYNC_FULL_INTERVAL_PROPERTY = "rod.sync.full_interval";
+
+	/**
+	 * Property defining the overlap (in milliseconds) subtracted from the
+	 * high-water mark when querying for changed rows.
+	 */
+	public static final String SYNC_OVERLAP_PROPERTY = "rod.sync.overlap";
+
+	/**
+	 * Property defining the directory in which the state is stored.
+	 */
+	public static final String SYNC_DIR_PROPERTY = "rod.sync.dir";
+
+	/**
+	 * Default full reconciliation interval (24 hours).
+	 */
+	public static final long DEFAULT_SYNC_FULL_INTERVAL = 24L * 60L * 60L * 1000L;
+
+	/**
+	 * Default overlap (1 hour).
+	 */
+	public static final long DEFAULT_SYNC_OVERLAP = 60L * 60L * 1000L;
+
+	/**
+	 * File extension applied to the state files.
+	 */
+	public static final String SYNC_EXTENSION = ".sync";
+
+	// Keys used in the state file.
+	private static final String HIGH_WATER_MARK = "high_water_mark";
+	private static final String LAST_FULL_SYNC  = "last_full_sync";
+
+	// Private internal members
+	private final Path path;
+	private boolean    incremental   = false;
+	private long       fullInterval  = DEFAULT_SYNC_FULL_INTERVAL;
+	private long       overlap       = DEFAULT_SYNC_OVERLAP;
+	private long       highWaterMark = 0;
+	private long       lastFullSync  = 0;
+
+	/**
+	 * Constructor loading the configuration from the system properties and
+	 * the state of the named job from disk.
+	 *
+	 * @param name The job name (used as the state file name).
+	 */
+	public SyncState(String name) {
+		PropertyLoader pLoader = PropertyLoader.getInstance();
+		String dir = null;
+		try {
+			incremental = Boolean.parseBoolean(
+					pLoader.getProperty(SYNC_INCREMENTAL_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			fullInterval = Long.parseLong(
+					pLoader.getProperty(SYNC_FULL_INTERVAL_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			overlap = Long.parseLong(
+					pLoader.getProperty(SYNC_OVERLAP_PROPERTY).trim());
+		}
+		catch (Exception e) { }
+		try {
+			dir = pLoader.getProperty(SYNC_DIR_PROPERTY);
+		}
+		catch (Exception e) { }
+		if ((dir == null) || (dir.trim().isEmpty())) {
+			dir = System.getProperty("java.io.tmpdir");
+		}
+		path = Paths.get(dir.trim(), name + SYNC_EXTENSION);
+		load();
+	}
+
+	/**
+	 * Load the state from disk.  A missing or unreadable state file forces
+	 * a full reconciliation.
+	 */
+	private void load() {
+		if (Files.exists(path)) {
+			Properties props = new Properties();
+			try (InputStream is = Files.newInputStream(path)) {
+				props.load(is);
+				highWaterMark = Long.parseLong(
+						props.getProperty(HIGH_WATER_MARK, "0"));
+				lastFullSync  = Long.parseLong(
+						props.getProperty(LAST_FULL_SYNC, "0"));
+			}
+			catch (IOException | NumberFormatException e) {
+				LOGGER.warn("Unable to read the synchronization state [ "
+						+ path.toString()
+						+ " ].  A full reconciliation will be performed.  "
+						+ "Error message => [ "
+						+ e.getMessage()
+						+ " ].");
+				highWaterMark = 0;
+				lastFullSync  = 0;
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the next run must be a full reconciliation.
+	 *
+	 * @return True if a full reconciliation is required.
+	 */
+	public boolean isFullSyncRequired() {
+		return (!incremental)
+				|| (highWaterMark <= 0)
+				|| ((System.currentTimeMillis() - lastFullSync) > fullInterval);
+	}
+
+	/**
+	 * The time from which changed rows should be queried in an incremental
+	 * run (the high-water mark less the overlap).
+	 *
+	 * @return The start of the incremental window.
+	 */
+	public Date getIncrementalStart() {
+		return new Date(Math.max(0, highWaterMark - overlap));
+	}
+
+	/**
+	 * Getter method for the recorded high-water mark.
+	 *
+	 * @return The high-water mark (null if none is recorded).
+	 */
+	public Date getHighWaterMark() {
+		return (highWaterMark > 0 ? new Date(highWaterMark) : null);
+	}
+
+	/**
+	 * Record a successful run.  The state file is written to a temporary
+	 * file and moved into place.
+	 *
+	 * @param mark The high-water mark observed before the run started.  If
+	 * null the recorded high-water mark is left unchanged.
+	 * @param full True if the run was a full reconciliation.
+	 */
+	public void recordSync(Date mark, boolean full) {
+		if (mark != null) {
+			highWaterMark = Math.max(highWaterMark, mark.getTime());
+		}
+		if (full) {
+			lastFullSync = System.currentTimeMillis();
+		}
+		Properties props = new Properties();
+		props.setProperty(HIGH_WATER_MARK, Long.toString(highWaterMark));
+		props.setProperty(LAST_FULL_SYNC, Long.toString(lastFullSync));
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(tmp)) {
+				props.store(os, "Replication-on-Demand synchronization state");
+			}
+			Files.move(tmp, path,
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ioe) {
+			LOGGER.error("Unable to save the synchronization state [ "
+					+ path.toString()
+					+ " ].  The next run will repeat this work.  Error "
+					+ "message => [ "
+					+ ioe.getMessage()
+					+ " ].");
+		}
+	}
+
+	/**
+	 * Convert to a printable String.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("SyncState : Incremental => [ ");
+		sb.append(incremental);
+		sb.append(" ], High water mark => [ ");
+		sb.append(getHighWaterMark());
+		sb.append(" ], Last full sync => [ ");
+		sb.append(lastFullSync > 0 ? new Date(lastFullSync) : null);
+		sb.append(" ], Full sync required => [ ");
+		sb.append(isFullSyncRequired());
+		sb.append(" ].");
+		return sb.toString();
+	}
+}
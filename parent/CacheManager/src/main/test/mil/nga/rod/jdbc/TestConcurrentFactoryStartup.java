@@ -0,0 +1,294 @@
+package mil.nga.rod.jdbc;
+
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import mil.nga.PropertyLoader;
+
+/**
+ * Races 64 threads against the first call to each of the JDBC factory
+ * singletons, followed immediately by a query, and verifies that exactly
+ * one instance and exactly one database connection is created per
+ * factory.  The factories are pointed at a stub JDBC driver that counts
+ * connections and answers every query with an empty result set, so no
+ * database is required.  The stub takes <code>CONNECT_DELAY</code> ms to
+ * connect, as a real database would, so that unsynchronized callers 
+ * racing the first query reliably open more than one connection.  The 
+ * Redis-backed singleton is covered by 
+ * <code>mil.nga.cache.TestConcurrentStartup</code>.
+ */
+public class TestConcurrentFactoryStartup {
+
+    private static final int THREADS = 64;
+
+    private static final long CONNECT_DELAY = 100L;
+
+    private static final String PRODUCT_URL     = "jdbc:stub:product";
+    private static final String ARTWORK_URL     = "jdbc:stub:artwork";
+    private static final String ACCELERATOR_URL = "jdbc:stub:accelerator";
+
+    /**
+     * Point all three factories at the stub driver.  Must run before the
+     * first call to any of the <code>getInstance()</code> methods.
+     */
+    @BeforeClass
+    public static void configure() throws Exception {
+        Properties props = PropertyLoader.getInstance().getProperties();
+        configure(props, "db.", PRODUCT_URL);
+        configure(props, "artwork.db.", ARTWORK_URL);
+        configure(props, "accelerator.db.", ACCELERATOR_URL);
+    }
+
+    private static void configure(
+            Properties props,
+            String prefix,
+            String url) {
+        props.setProperty(prefix + "driver", StubDriver.class.getName());
+        props.setProperty(prefix + "connection_string", url);
+        props.setProperty(prefix + "user", "stub");
+        props.setProperty(prefix + "password", "stub");
+    }
+
+    /**
+     * Release all threads at once against the supplied accessor and
+     * collect the distinct (by identity) objects returned.
+     */
+    private <T> Set<T> race(final Callable<T> accessor) throws Exception {
+
+        final CountDownLatch ready = new CountDownLatch(THREADS);
+        final CountDownLatch go    = new CountDownLatch(1);
+        ExecutorService      exec  = Executors.newFixedThreadPool(THREADS);
+        List<Future<T>>      results = new ArrayList<Future<T>>();
+
+        try {
+            for (int i=0; i<THREADS; i++) {
+                results.add(exec.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        ready.countDown();
+                        go.await();
+                        return accessor.call();
+                    }
+                }));
+            }
+            ready.await();
+            go.countDown();
+
+            Set<T> distinct = Collections.newSetFromMap(
+                    new IdentityHashMap<T, Boolean>());
+            for (Future<T> result : results) {
+                distinct.add(result.get());
+            }
+            return distinct;
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testProductFactoryStartup() throws Exception {
+
+        Set<ProductFactory> factories = race(
+                new Callable<ProductFactory>() {
+                    @Override
+                    public ProductFactory call() throws Exception {
+                        ProductFactory factory = ProductFactory.getInstance();
+                        assertTrue(factory.validateConnection(1));
+                        return factory;
+                    }
+                });
+        assertEquals(1, factories.size());
+        assertEquals(1, StubDriver.getConnectionCount(PRODUCT_URL));
+    }
+
+    @Test
+    public void testArtworkFactoryStartup() throws Exception {
+
+        Set<ArtworkFactory> factories = race(
+                new Callable<ArtworkFactory>() {
+                    @Override
+                    public ArtworkFactory call() throws Exception {
+                        ArtworkFactory factory = ArtworkFactory.getInstance();
+                        factory.getUnique();
+                        return factory;
+                    }
+                });
+        assertEquals(1, factories.size());
+        assertEquals(1, StubDriver.getConnectionCount(ARTWORK_URL));
+    }
+
+    @Test
+    public void testAcceleratorJDBCRecordFactoryStartup() throws Exception {
+
+        Set<AcceleratorJDBCRecordFactory> factories = race(
+                new Callable<AcceleratorJDBCRecordFactory>() {
+                    @Override
+                    public AcceleratorJDBCRecordFactory call()
+                            throws Exception {
+                        AcceleratorJDBCRecordFactory factory =
+                                AcceleratorJDBCRecordFactory.getInstance();
+                        factory.getUniqueKeys();
+                        return factory;
+                    }
+                });
+        assertEquals(1, factories.size());
+        assertEquals(1, StubDriver.getConnectionCount(ACCELERATOR_URL));
+    }
+
+    /**
+     * JDBC driver accepting <code>jdbc:stub:</code> URLs.  Connections are
+     * dynamic proxies: every query returns an empty result set and every
+     * other call returns a default value.  The number of connections
+     * opened is recorded per URL.
+     */
+    public static class StubDriver implements Driver {
+
+        private static final ConcurrentHashMap<String, AtomicInteger>
+                CONNECTIONS = new ConcurrentHashMap<String, AtomicInteger>();
+
+        static {
+            try {
+                DriverManager.registerDriver(new StubDriver());
+            }
+            catch (SQLException se) {
+                throw new ExceptionInInitializerError(se);
+            }
+        }
+
+        public static int getConnectionCount(String url) {
+            AtomicInteger count = CONNECTIONS.get(url);
+            return (count == null ? 0 : count.get());
+        }
+
+        @Override
+        public Connection connect(String url, Properties info)
+                throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            try {
+                Thread.sleep(CONNECT_DELAY);
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(ie);
+            }
+            AtomicInteger count = CONNECTIONS.get(url);
+            if (count == null) {
+                CONNECTIONS.putIfAbsent(url, new AtomicInteger(0));
+                count = CONNECTIONS.get(url);
+            }
+            count.incrementAndGet();
+            return stub(Connection.class);
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return ((url != null) && url.startsWith("jdbc:stub:"));
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(
+                String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger()
+                throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        /**
+         * Create a proxy for the input JDBC interface.  Statements created
+         * by a stub connection are stubs, as are the result sets they
+         * return.
+         */
+        private static <T> T stub(final Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(
+                    StubDriver.class.getClassLoader(),
+                    new Class<?>[] { type },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(
+                                Object proxy,
+                                Method method,
+                                Object[] args) {
+                            String name = method.getName();
+                            if (name.equals("equals")) {
+                                return (proxy == args[0]);
+                            }
+                            if (name.equals("hashCode")) {
+                                return System.identityHashCode(proxy);
+                            }
+                            if (name.equals("toString")) {
+                                return "Stub " + type.getSimpleName();
+                            }
+                            if (name.equals("isValid")) {
+                                return true;
+                            }
+                            Class<?> ret = method.getReturnType();
+                            if (ret == PreparedStatement.class) {
+                                return stub(PreparedStatement.class);
+                            }
+                            if (ret == ResultSet.class) {
+                                return stub(ResultSet.class);
+                            }
+                            if (ret == boolean.class) {
+                                return false;
+                            }
+                            if (ret == int.class) {
+                                return 0;
+                            }
+                            if (ret == long.class) {
+                                return 0L;
+                            }
+                            return null;
+                        }
+                    }));
+        }
+    }
+}
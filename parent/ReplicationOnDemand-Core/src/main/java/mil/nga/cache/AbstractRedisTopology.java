@@ -0,0 +1,255 @@
+package mil.nga.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.util.Pool;
+
+/**
+ * Functionality shared by the topologies built around a single master:
+ * connection pool creation, and round-robin routing of reads across an
+ * optional set of read replicas.  Subclasses supply the master pool.
+ *
+ * @author L. Craig Carpenter
+ */
+public abstract class AbstractRedisTopology implements RedisTopology {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            AbstractRedisTopology.class);
+
+    // Settings applied to every pool created
+    protected final JedisPoolConfig poolConfig;
+    protected final int             connectTimeout;
+    protected final int             socketTimeout;
+
+    /**
+     * Pools connected to the read replicas.  Replaced (never modified) when
+     * the replica set changes.
+     */
+    private volatile List<JedisPool> replicas =
+            Collections.<JedisPool>emptyList();
+
+    /**
+     * The addresses of the current read replicas.
+     */
+    private List<HostAndPort> replicaNodes =
+            Collections.<HostAndPort>emptyList();
+
+    /**
+     * Counter used to spread reads across the replicas.
+     */
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    /**
+     * Constructor.
+     *
+     * @param poolConfig The configuration applied to every pool.
+     * @param connectTimeout The connect timeout (in ms).
+     * @param socketTimeout The socket read timeout (in ms).
+     */
+    protected AbstractRedisTopology(
+            JedisPoolConfig poolConfig,
+            int connectTimeout,
+            int socketTimeout) {
+        this.poolConfig     = poolConfig;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout  = socketTimeout;
+    }
+
+    /**
+     * Retrieve the pool connected to the master.
+     *
+     * @return The master pool.
+     */
+    protected abstract Pool<Jedis> getMaster();
+
+    /**
+     * Create a connection pool for a single Redis node.
+     *
+     * @param node The node to connect to.
+     * @return The new connection pool.
+     */
+    protected JedisPool createPool(HostAndPort node) {
+        return createPool(node, poolConfig, connectTimeout, socketTimeout);
+    }
+
+    /**
+     * Create a connection pool for a single Redis node.  Shared with the
+     * <code>ClusterTopology</code>, which has no single master.
+     *
+     * @param node The node to connect to.
+     * @param poolConfig The configuration applied to the pool.
+     * @param connectTimeout The connect timeout (in ms).
+     * @param socketTimeout The socket read timeout (in ms).
+     * @return The new connection pool.
+     */
+    static JedisPool createPool(
+            HostAndPort node,
+            JedisPoolConfig poolConfig,
+            int connectTimeout,
+            int socketTimeout) {
+        return new JedisPool(
+                poolConfig,
+                node.getHost(),
+                node.getPort(),
+                connectTimeout,
+                socketTimeout,
+                null,
+                Protocol.DEFAULT_DATABASE,
+                null,
+                false,
+                null,
+                null,
+                null);
+    }
+
+    /**
+     * All keys are owned by the master.
+     *
+     * @param key Ignored.
+     * @return The master pool.
+     */
+    @Override
+    public Pool<Jedis> getPool(String key) {
+        return getMaster();
+    }
+
+    /**
+     * Reads are spread round-robin across the replicas.  If no replicas are
+     * configured the master is used.
+     *
+     * @param key Ignored.
+     * @return A replica pool, or the master pool.
+     */
+    @Override
+    public Pool<Jedis> getReadPool(String key) {
+        List<JedisPool> current = replicas;
+        if (current.isEmpty()) {
+            return getMaster();
+        }
+        int index = (next.getAndIncrement() & Integer.MAX_VALUE)
+                % current.size();
+        return current.get(index);
+    }
+
+    /**
+     * There is a single master.
+     *
+     * @return List containing the master pool.
+     */
+    @Override
+    public List<Pool<Jedis>> getMasterPools() {
+        return Collections.singletonList(getMaster());
+    }
+
+    /**
+     * Retrieve the master and replica pools.
+     *
+     * @return All pools.
+     */
+    @Override
+    public List<Pool<Jedis>> getPools() {
+        List<Pool<Jedis>> pools = new ArrayList<Pool<Jedis>>();
+        pools.add(getMaster());
+        pools.addAll(replicas);
+        return pools;
+    }
+
+    /**
+     * The keyspace is not sharded.
+     *
+     * @return False.
+     */
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+
+    /**
+     * The default implementation has a fixed layout.
+     */
+    @Override
+    public void refresh() { }
+
+    /**
+     * Replace the set of read replicas.  Pools connected to the previous
+     * replicas are closed.  Nothing is done if the set is unchanged.
+     *
+     * @param nodes The read replicas (may be null or empty).
+     */
+    protected synchronized void setReplicas(List<HostAndPort> nodes) {
+        if (nodes == null) {
+            nodes = Collections.<HostAndPort>emptyList();
+        }
+        if (new HashSet<HostAndPort>(nodes).equals(
+                new HashSet<HostAndPort>(replicaNodes))) {
+            return;
+        }
+        List<JedisPool> pools = new ArrayList<JedisPool>();
+        for (HostAndPort node : nodes) {
+            pools.add(createPool(node));
+        }
+        List<JedisPool> previous = replicas;
+        replicas     = Collections.unmodifiableList(pools);
+        replicaNodes = new ArrayList<HostAndPort>(nodes);
+        for (JedisPool pool : previous) {
+            pool.destroy();
+        }
+        if (pools.size() > 0) {
+            LOGGER.info("Routing reads to [ "
+                    + pools.size()
+                    + " ] replicas [ "
+                    + nodes
+                    + " ].");
+        }
+    }
+
+    /**
+     * Close the replica pools.  Subclasses must also close the master.
+     */
+    @Override
+    public void close() {
+        setReplicas(null);
+    }
+
+    /**
+     * Parse a comma-separated list of <code>host:port</code> pairs.
+     * Malformed entries are logged and skipped.
+     *
+     * @param value The list of nodes.
+     * @return The parsed nodes.  May be empty, but will not be null.
+     */
+    public static List<HostAndPort> parseNodes(String value) {
+        List<HostAndPort> nodes = new ArrayList<HostAndPort>();
+        if ((value != null) && (!value.trim().isEmpty())) {
+            for (String token : value.split(",")) {
+                String node = token.trim();
+                if (!node.isEmpty()) {
+                    try {
+                        nodes.add(HostAndPort.parseString(node));
+                    }
+                    catch (Exception e) {
+                        LOGGER.error("Unable to parse Redis node [ "
+                                + node
+                                + " ].  Expected host:port.");
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,153 @@
+package mil.nga.cache;
+
+import java.io.Serializable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.exceptions.UnknownCacheOperationException;
+import mil.nga.types.CacheOperation;
+
+/**
+ * Simple immutable POJO describing a single change made to the cache.
+ * Events are published by the cache synchronization job so that consumers
+ * holding local copies of the data can refresh incrementally rather than
+ * reloading the entire catalog.
+ *
+ * On the wire an event is a compact tab-delimited String of the form:
+ * <pre>
+ * operation&lt;TAB&gt;key&lt;TAB&gt;hash
+ * </pre>
+ * The hash field is empty for <code>REMOVE</code> and 
+ * <code>GENERATION</code> operations.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CacheChangeEvent implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = -3390187745238614707L;
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CacheChangeEvent.class);
+
+    /**
+     * Delimiter separating the fields of the wire format.
+     */
+    private static final String DELIMITER = "\t";
+
+    // Private internal members
+    private final CacheOperation operation;
+    private final String         key;
+    private final String         hash;
+
+    /**
+     * Constructor.
+     *
+     * @param operation The type of change.
+     * @param key The key of the changed record.
+     * @param hash The hash of the new record value (may be null).
+     */
+    public CacheChangeEvent(
+            CacheOperation operation,
+            String key,
+            String hash) {
+        this.operation = operation;
+        this.key       = key;
+        this.hash      = hash;
+    }
+
+    /**
+     * Getter method for the hash of the new record value.
+     * @return The hash of the new record value.  Null for removals.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Getter method for the key of the changed record.
+     * @return The key of the changed record.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Getter method for the type of change.
+     * @return The type of change.
+     */
+    public CacheOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Convert a message received from the change channel back into a
+     * CacheChangeEvent.
+     *
+     * @param message The message in wire format.
+     * @return The decoded event, or null if the message is malformed.
+     */
+    public static CacheChangeEvent fromMessage(String message) {
+        CacheChangeEvent event = null;
+        if ((message != null) && (!message.isEmpty())) {
+            String[] fields = message.split(DELIMITER, -1);
+            if ((fields.length == 3) && (!fields[1].isEmpty())) {
+                try {
+                    event = new CacheChangeEvent(
+                            CacheOperation.fromString(fields[0]),
+                            fields[1],
+                            (fields[2].isEmpty() ? null : fields[2]));
+                }
+                catch (UnknownCacheOperationException ucoe) {
+                    LOGGER.warn(ucoe.getMessage());
+                }
+            }
+            else {
+                LOGGER.warn("Malformed cache change message [ "
+                        + message
+                        + " ].");
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Convert the event to the compact wire format published on the change
+     * channel.
+     *
+     * @return The event in wire format.
+     */
+    public String toMessage() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getOperation().getText());
+        sb.append(DELIMITER);
+        sb.append(getKey());
+        sb.append(DELIMITER);
+        if (getHash() != null) {
+            sb.append(getHash());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Cache change: operation => [ ");
+        sb.append(getOperation().getText());
+        sb.append(" ], key => [ ");
+        sb.append(getKey());
+        sb.append(" ], hash => [ ");
+        sb.append(getHash());
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package mil.nga.cache;
+
+/**
+ * Interface implemented by clients wishing to be notified of changes made
+ * to the cache.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface CacheChangeListener {
+
+    /**
+     * Invoked for each change event received.  Implementations should
+     * return quickly as events are delivered on the subscriber thread.
+     *
+     * @param event The change event.
+     */
+    public void onChange(CacheChangeEvent event);
+}
@@ -0,0 +1,104 @@
+package mil.nga.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.types.CacheType;
+
+/**
+ * Factory supplying the <code>CacheManagerI</code> implementation selected
+ * by the <code>cache.type</code> property.  Only the selected
+ * implementation is constructed, so no Redis connection pool is created
+ * when the in-memory cache is used.  If the property is not supplied (or
+ * is not recognized) the Redis implementation is used.
+ *
+ * @author L. Craig Carpenter
+ */
+public class CacheManagerFactory {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            CacheManagerFactory.class);
+
+    /**
+     * The selected cache implementation.
+     */
+    private final CacheType cacheType;
+
+    /**
+     * Hidden constructor enforcing the Singleton design pattern.
+     */
+    private CacheManagerFactory() {
+        CacheType type = CacheType.REDIS;
+        try {
+            type = CacheType.fromString(PropertyLoader.getInstance()
+                    .getProperty(CacheManagerI.CACHE_TYPE_PROPERTY));
+        }
+        catch (Exception e) { }
+        cacheType = type;
+        LOGGER.info("Cache implementation [ "
+                + cacheType.getText()
+                + " ].");
+    }
+
+    /**
+     * Accessor method for the singleton instance of the
+     * CacheManagerFactory class.
+     *
+     * @return The singleton instance of the CacheManagerFactory.
+     */
+    public static CacheManagerFactory getInstance() {
+        return CacheManagerFactoryHolder.getSingleton();
+    }
+
+    /**
+     * Retrieve the selected cache manager.
+     *
+     * @return The singleton instance of the selected cache manager.
+     */
+    public CacheManagerI getCacheManager() {
+        if (cacheType == CacheType.MEMORY) {
+            return MemoryCacheManager.getInstance();
+        }
+        return RedisCacheManager.getInstance();
+    }
+
+    /**
+     * Getter method for the selected cache implementation.
+     *
+     * @return The selected cache type.
+     */
+    public CacheType getCacheType() {
+        return cacheType;
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class CacheManagerFactoryHolder {
+
+        /**
+         * Reference to the Singleton instance of the CacheManagerFactory
+         */
+        private static final CacheManagerFactory _instance =
+                new CacheManagerFactory();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * CacheManagerFactory.
+         *
+         * @return The Singleton instance of the CacheManagerFactory.
+         */
+        public static CacheManagerFactory getSingleton() {
+            return _instance;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package mil.nga.cache;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -8,7 +12,30 @@ import java.util.Set;
  * 
  * @author L. Craig Carpenter
  */
-public interface CacheManagerI {
+public interface CacheManagerI extends AutoCloseable {
+
+    /**
+     * Property identifying which cache implementation is used.  Valid 
+     * values are "redis" (default) and "memory".
+     * @see mil.nga.types.CacheType
+     */
+    public static final String CACHE_TYPE_PROPERTY = "cache.type";
+    
+    /**
+     * Property identifying the file to which the in-memory cache is 
+     * saved on close and from which it is loaded on startup.  If not set 
+     * the in-memory cache is not persisted.
+     */
+    public static final String CACHE_SNAPSHOT_FILE_PROPERTY = 
+            "cache.snapshot_file";
+    
+    /**
+     * Property that can be set to periodically save the in-memory cache 
+     * (interval in ms).  If not set, or not positive, the cache is only 
+     * saved on close.
+     */
+    public static final String CACHE_SNAPSHOT_INTERVAL_PROPERTY = 
+            "cache.snapshot_interval";
 
     /**
      * The default Redis host
@@ -31,6 +58,295 @@ public interface CacheManagerI {
      */
     public static final String REDIS_PORT_PROPERTY = "redis.port";
     
+    /**
+     * The default number of keys sent to the cache in a single bulk 
+     * command (i.e. MGET/MSET/DEL).
+     */
+    public static final int DEFAULT_REDIS_BATCH_SIZE = 1000;
+    
+    /**
+     * Property that can be set to override the number of keys sent to the 
+     * cache in a single bulk command.
+     */
+    public static final String REDIS_BATCH_SIZE_PROPERTY = "redis.batch_size";
+    
+    /**
+     * The default COUNT hint supplied with each SCAN command.
+     */
+    public static final int DEFAULT_REDIS_SCAN_COUNT = 1000;
+    
+    /**
+     * Property that can be set to override the COUNT hint supplied with 
+     * each SCAN command.
+     */
+    public static final String REDIS_SCAN_COUNT_PROPERTY = "redis.scan_count";
+    
+    /**
+     * Property identifying how records are laid out in the cache.  Valid 
+     * values are "keyspace" (default) and "hash".  
+     * @see mil.nga.types.StorageType
+     */
+    public static final String REDIS_STORAGE_TYPE_PROPERTY = 
+            "redis.storage_type";
+    
+    /**
+     * The default name of the Redis hash holding the records when the 
+     * storage type is "hash".
+     */
+    public static final String DEFAULT_REDIS_HASH_KEY = "rod:products";
+    
+    /**
+     * Property that can be set to override the name of the Redis hash 
+     * holding the records when the storage type is "hash".
+     */
+    public static final String REDIS_HASH_KEY_PROPERTY = "redis.hash_key";
+    
+    /**
+     * Property identifying how record values are encoded before they are 
+     * written to the cache.  Valid values are "json" (default) and 
+     * "deflate".  Values in either format are always readable.
+     * @see mil.nga.types.CodecType
+     */
+    public static final String REDIS_CODEC_PROPERTY = "redis.codec";
+    
+    /**
+     * Suffix appended to the hash name to form the name of the sorted set 
+     * used to order the records.
+     */
+    public static final String REDIS_INDEX_KEY_SUFFIX = ":by-score";
+    
+    /**
+     * Suffix appended to the hash name to form the name of the hash holding
+     * the content digest of each record (hash mode).
+     */
+    public static final String REDIS_DIGEST_KEY_SUFFIX = ":digests";
+    
+    /**
+     * Key of the hash holding the content digest of each record in 
+     * keyspace mode.  This key is never included in the key listing.
+     */
+    public static final String REDIS_DIGEST_KEY = "rod:digests";
+    
+    /**
+     * Property enabling generation mode for cache writers.  In generation 
+     * mode each refresh writes a complete catalog under a new generation 
+     * and then switches readers to it in one step, so readers never see a 
+     * partially updated catalog.  Requires the "hash" storage type.
+     */
+    public static final String CACHE_GENERATIONS_PROPERTY = 
+            "cache.generations";
+    
+    /**
+     * Property defining how many superseded generations are retained (for
+     * readers still pinned to them) before they are reaped.
+     */
+    public static final String CACHE_GENERATIONS_RETAIN_PROPERTY = 
+            "cache.generations.retain";
+    
+    /**
+     * The default number of superseded generations retained.
+     */
+    public static final int DEFAULT_CACHE_GENERATIONS_RETAIN = 1;
+    
+    /**
+     * Property defining how long (in ms) a superseded generation is kept
+     * after it has been retired, so that requests pinned to it just before
+     * the switch can finish reading it.
+     */
+    public static final String CACHE_GENERATIONS_GRACE_PERIOD_PROPERTY = 
+            "cache.generations.grace_period";
+    
+    /**
+     * The default grace period (in ms) before a retired generation is 
+     * reaped.
+     */
+    public static final long DEFAULT_CACHE_GENERATIONS_GRACE_PERIOD = 
+            5L * 60L * 1000L;
+    
+    /**
+     * Suffix appended to the hash name to form the name of the key holding
+     * the current generation number.
+     */
+    public static final String REDIS_GENERATION_KEY_SUFFIX = ":generation";
+    
+    /**
+     * Separator between the hash name and the generation number in the 
+     * name of a generation's hash.
+     */
+    public static final String REDIS_GENERATION_SEPARATOR = ":gen:";
+    
+    /**
+     * Suffix appended to the hash name to form the name of the sorted set 
+     * holding the retired generations, scored by the time (in ms) they 
+     * were retired.
+     */
+    public static final String REDIS_RETIRED_KEY_SUFFIX = ":retired";
+    
+    /**
+     * Key holding the cache version number.  The version is incremented 
+     * each time the cache contents are changed allowing clients holding 
+     * local copies of the data to detect that they are stale.  This key is
+     * never included in the key listing.
+     */
+    public static final String REDIS_VERSION_KEY = "rod:version";
+    
+    /**
+     * The default pub/sub channel on which cache change events are 
+     * published.
+     */
+    public static final String DEFAULT_REDIS_CHANGE_CHANNEL = "rod:changes";
+    
+    /**
+     * Property that can be set to override the pub/sub channel on which 
+     * cache change events are published.
+     */
+    public static final String REDIS_CHANGE_CHANNEL_PROPERTY = 
+            "redis.change_channel";
+    
+    /**
+     * The default maximum number of connections in the Redis pool.
+     */
+    public static final int DEFAULT_REDIS_POOL_MAX_TOTAL = 8;
+    
+    /**
+     * Property that can be set to override the maximum number of 
+     * connections in the Redis pool.  This should be sized relative to the 
+     * number of threads concurrently accessing the cache.
+     */
+    public static final String REDIS_POOL_MAX_TOTAL_PROPERTY = 
+            "redis.pool.max_total";
+    
+    /**
+     * The default maximum number of idle connections in the Redis pool.
+     */
+    public static final int DEFAULT_REDIS_POOL_MAX_IDLE = 8;
+    
+    /**
+     * Property that can be set to override the maximum number of idle 
+     * connections in the Redis pool.
+     */
+    public static final String REDIS_POOL_MAX_IDLE_PROPERTY = 
+            "redis.pool.max_idle";
+    
+    /**
+     * The default minimum number of idle connections in the Redis pool.
+     */
+    public static final int DEFAULT_REDIS_POOL_MIN_IDLE = 0;
+    
+    /**
+     * Property that can be set to override the minimum number of idle 
+     * connections in the Redis pool.
+     */
+    public static final String REDIS_POOL_MIN_IDLE_PROPERTY = 
+            "redis.pool.min_idle";
+    
+    /**
+     * The default maximum time (in ms) to wait for a connection from the 
+     * Redis pool.
+     */
+    public static final long DEFAULT_REDIS_POOL_MAX_WAIT = 5000L;
+    
+    /**
+     * Property that can be set to override the maximum time (in ms) to 
+     * wait for a connection from the Redis pool.  A negative value waits 
+     * indefinitely.
+     */
+    public static final String REDIS_POOL_MAX_WAIT_PROPERTY = 
+            "redis.pool.max_wait";
+    
+    /**
+     * Property that can be set to validate connections (PING) as they are 
+     * borrowed from the pool.
+     */
+    public static final String REDIS_POOL_TEST_ON_BORROW_PROPERTY = 
+            "redis.pool.test_on_borrow";
+    
+    /**
+     * The default connect timeout (in ms).
+     */
+    public static final int DEFAULT_REDIS_CONNECT_TIMEOUT = 2000;
+    
+    /**
+     * Property that can be set to override the connect timeout (in ms).
+     */
+    public static final String REDIS_CONNECT_TIMEOUT_PROPERTY = 
+            "redis.connect_timeout";
+    
+    /**
+     * The default socket read timeout (in ms).
+     */
+    public static final int DEFAULT_REDIS_SOCKET_TIMEOUT = 2000;
+    
+    /**
+     * Property that can be set to override the socket read timeout (in ms).
+     */
+    public static final String REDIS_SOCKET_TIMEOUT_PROPERTY = 
+            "redis.socket_timeout";
+    
+    /**
+     * Prefix used when registering the Redis pool statistics with JMX.
+     */
+    public static final String REDIS_POOL_JMX_PREFIX = "rod-redis-pool";
+    
+    /**
+     * Property identifying how the Redis deployment is organized.  Valid 
+     * values are "standalone" (default), "sentinel" and "cluster".
+     * @see mil.nga.types.TopologyType
+     */
+    public static final String REDIS_TOPOLOGY_PROPERTY = "redis.topology";
+    
+    /**
+     * Property that can be set to route reads to replicas.  In standalone 
+     * mode the replicas are listed in <code>redis.replicas</code>; in 
+     * sentinel mode they are discovered from the sentinels.
+     */
+    public static final String REDIS_READ_FROM_REPLICAS_PROPERTY = 
+            "redis.read_from_replicas";
+    
+    /**
+     * Property listing the read replicas (host:port, comma separated) used
+     * in standalone mode.
+     */
+    public static final String REDIS_REPLICAS_PROPERTY = "redis.replicas";
+    
+    /**
+     * Property listing the sentinels (host:port, comma separated) used in 
+     * sentinel mode.
+     */
+    public static final String REDIS_SENTINELS_PROPERTY = "redis.sentinels";
+    
+    /**
+     * The default name of the master monitored by the sentinels.
+     */
+    public static final String DEFAULT_REDIS_SENTINEL_MASTER = "mymaster";
+    
+    /**
+     * Property that can be set to override the name of the master 
+     * monitored by the sentinels.
+     */
+    public static final String REDIS_SENTINEL_MASTER_PROPERTY = 
+            "redis.sentinel.master";
+    
+    /**
+     * Property listing one or more cluster nodes (host:port, comma 
+     * separated) used to discover the layout in cluster mode.
+     */
+    public static final String REDIS_CLUSTER_NODES_PROPERTY = 
+            "redis.cluster.nodes";
+    
+    /**
+     * The default interval (in ms) at which the sentinel replica set is 
+     * re-discovered.
+     */
+    public static final long DEFAULT_REDIS_TOPOLOGY_REFRESH = 60000L;
+    
+    /**
+     * Property that can be set to override the interval (in ms) at which 
+     * the sentinel replica set is re-discovered.
+     */
+    public static final String REDIS_TOPOLOGY_REFRESH_PROPERTY = 
+            "redis.topology.refresh_interval";
+    
     /**
      * Retrieve a request accelerator record from the cache.
      * 
@@ -40,6 +356,147 @@ public interface CacheManagerI {
      */
     public String get(String key);
     
+    /**
+     * Determine whether the implementation supports generation mode.
+     * 
+     * @return True if generations are supported.
+     */
+    public boolean supportsGenerations();
+    
+    /**
+     * Retrieve the generation readers are currently directed to.
+     * 
+     * @return The current generation, or 0 if generations are not in use.
+     */
+    public long getGeneration();
+    
+    /**
+     * Retrieve the generation readers are currently directed to, as 
+     * recorded by the primary copy of the cache.  Unlike 
+     * <code>getGeneration()</code> this is never answered by a replica 
+     * that may lag the primary.  Writers must use this method before 
+     * deciding which generation to build or drop.
+     * 
+     * @return The current generation, or 0 if generations are not in use.
+     */
+    public long getMasterGeneration();
+    
+    /**
+     * Direct readers to the input generation.  The switch is a single 
+     * atomic write; a reader sees either the old or the new generation.
+     * 
+     * @param generation The generation readers should use.
+     */
+    public void setGeneration(long generation);
+    
+    /**
+     * Obtain a view of the cache bound to the input generation.  All reads
+     * and writes made through the view operate on that generation only.
+     * The view shares the underlying connections and must not be closed.
+     * 
+     * @param generation The generation.  If 0 or less, the cache itself 
+     * is returned.
+     * @return The view.
+     */
+    public CacheManagerI forGeneration(long generation);
+    
+    /**
+     * Obtain a view of the cache bound to the current generation.  Readers
+     * should call this once per request and make every read for that 
+     * request through the returned view, so that all of the data returned
+     * comes from one consistent catalog even if a refresh completes 
+     * part way through.
+     * 
+     * @return The view, or the cache itself if generations are not in use.
+     */
+    public CacheManagerI pin();
+    
+    /**
+     * Delete all of the records, indexes and digests belonging to the 
+     * input generation.  Implementations must not block the cache for 
+     * other clients while doing so.
+     * 
+     * @param generation The generation to delete.
+     * @return True if the generation existed.
+     */
+    public boolean dropGeneration(long generation);
+    
+    /**
+     * Record that readers are no longer directed to the input generation.
+     * The generation is not deleted; it is reaped by 
+     * <code>reapGenerations</code> once the grace period has elapsed.
+     * 
+     * @param generation The superseded generation.
+     */
+    public void retireGeneration(long generation);
+    
+    /**
+     * Delete the generations retired at least <code>gracePeriod</code> ms
+     * ago.  The generation readers are currently directed to is never 
+     * deleted.
+     * 
+     * @param gracePeriod The minimum time (in ms) since retirement.
+     * @return The number of generations deleted.
+     */
+    public int reapGenerations(long gracePeriod);
+    
+    /**
+     * Retrieve the values associated with all of the input keys.  
+     * Implementations should minimize the number of round trips made to the
+     * target cache.
+     * 
+     * @param keys The keys to query for.
+     * @return A Map containing the key/value pairs found in the cache.  Keys 
+     * that do not exist in the cache will not be included in the output Map.
+     * The return value will not be null.
+     */
+    public Map<String, String> getAll(Collection<String> keys);
+    
+    /**
+     * Retrieve every key/value pair stored in the target cache.
+     * 
+     * @return A Map containing all of the key/value pairs in the cache.  The
+     * return value will not be null.
+     */
+    public Map<String, String> getAll();
+    
+    /**
+     * Retrieve the content digest (i.e. the product hash) recorded for 
+     * every record in the cache.  The digests are far smaller than the 
+     * records themselves, so callers can detect changed records without 
+     * reading or de-serializing the cached values.
+     * 
+     * @return A Map of record key to digest.  The return value will not be
+     * null.
+     */
+    public Map<String, String> getDigests();
+    
+    /**
+     * Retrieve the content digests recorded for the input keys.
+     * 
+     * @param keys The keys to query for.
+     * @return A Map of record key to digest.  Keys without a recorded 
+     * digest are not included.  The return value will not be null.
+     */
+    public Map<String, String> getDigests(Collection<String> keys);
+    
+    /**
+     * Record the content digest of each of the input records.  Digests are
+     * removed along with their records by <code>remove</code> and 
+     * <code>removeAll</code>.
+     * 
+     * @param digests Map of record key to digest.
+     */
+    public void putDigests(Map<String, String> digests);
+    
+    /**
+     * Getter method for the maximum number of keys callers should send to 
+     * the cache in a single bulk call.
+     * 
+     * @return The maximum number of keys per bulk call.
+     */
+    public int getBatchSize();
+    
     /**
      * Get a Set containing all of the keys that are currently stored in the 
      * target cache.
@@ -50,6 +507,68 @@ public interface CacheManagerI {
      */
     public Set<String> getKeys();
     
+    /**
+     * Retrieve the keys ordered by descending score (e.g. newest first).  
+     * Implementations that do not maintain a score index return an empty 
+     * List.
+     * 
+     * @return The keys ordered by descending score.  The return value will 
+     * not be null.
+     */
+    public List<String> getKeysByScore();
+    
+    /**
+     * Get a List containing all of the keys that are currently stored in 
+     * the target cache.
+     * 
+     * @return A List containing all of the keys stored in the cache.
+     */
+    public List<String> getKeysAsList();
+    
+    /**
+     * Retrieve the current cache version number.
+     * 
+     * @return The current version number.  0 if the version has never been 
+     * set.
+     */
+    public long getVersion();
+    
+    /**
+     * Increment the cache version number.  Called after the cache contents
+     * have been modified.
+     * 
+     * @return The new version number.
+     */
+    public long incrementVersion();
+    
+    /**
+     * Publish change events to the cache change channel.  Implementations 
+     * should minimize the number of round trips made to the target cache.
+     * 
+     * @param events The events to publish.
+     */
+    public void publish(Collection<CacheChangeEvent> events);
+    
+    /**
+     * Register a listener to be notified of cache change events.
+     * 
+     * @param listener The client to notify.
+     * @return Handle used to cancel the subscription.
+     */
+    public CacheSubscription subscribe(CacheChangeListener listener);
+    
+    /**
+     * Incrementally iterate over the keys in the target cache that match 
+     * the input pattern.  Implementations must not block the target cache 
+     * for the duration of the iteration.
+     * 
+     * @param pattern Glob-style pattern keys must match (e.g. "*").  If 
+     * null or empty all keys are returned.
+     * @return An Iterator over the matching keys.  A key may be returned 
+     * more than once.
+     */
+    public Iterator<String> scan(String pattern);
+    
     /**
      * Store a key/value pair in the target cache.
      * 
@@ -59,10 +578,40 @@ public interface CacheManagerI {
      */
     public void put(String key, String value);
     
+    /**
+     * Store all of the input key/value pairs in the target cache.
+     * 
+     * @param values Map containing the key/value pairs to store.
+     */
+    public void putAll(Map<String, String> values);
+    
+    /**
+     * Store all of the input key/value pairs in the target cache along with
+     * the score used to order each key.
+     * 
+     * @param values Map containing the key/value pairs to store.
+     * @param scores Map containing the score associated with each key (may 
+     * be null).  Keys without a score are not indexed.
+     */
+    public void putAll(Map<String, String> values, Map<String, Double> scores);
+    
     /**
      * Remove a key/value pair from the target cache.
      * 
      * @param key Key to remove. 
      */
     public void remove(String key);
+    
+    /**
+     * Remove all of the input keys from the target cache.
+     * 
+     * @param keys The keys to remove.
+     */
+    public void removeAll(Collection<String> keys);
+    
+    /**
+     * Release the resources held by the cache manager.
+     */
+    @Override
+    public void close();
 }
@@ -0,0 +1,23 @@
+package mil.nga.cache;
+
+/**
+ * Handle returned when a listener subscribes to cache change events.
+ * Closing the handle stops delivery of events to the listener.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface CacheSubscription extends AutoCloseable {
+
+    /**
+     * Determine whether the subscription is still active.
+     *
+     * @return False once the subscription has been closed.
+     */
+    public boolean isActive();
+
+    /**
+     * Stop delivery of change events.
+     */
+    @Override
+    public void close();
+}
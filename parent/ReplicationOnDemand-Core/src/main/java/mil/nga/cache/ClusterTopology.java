@@ -0,0 +1,367 @@
+package mil.nga.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Topology consisting of a sharded Redis Cluster.  The slot layout is read
+ * with CLUSTER SLOTS from any reachable node and a connection pool is kept
+ * for each master.  Each key is routed to the master serving its hash
+ * slot, which allows the <code>RedisCacheManager</code> to pipeline bulk
+ * commands per node rather than issuing one command per key.  The layout
+ * is re-read whenever a slot is found to be unassigned or the cache
+ * manager receives a MOVED redirection (e.g. after resharding or a
+ * failover).
+ *
+ * Reads are always served by the masters.  Replica reads in a cluster
+ * require READONLY to be issued on every replica connection, which the
+ * Jedis pools do not support.  A cluster has no single master, so this
+ * class implements <code>RedisTopology</code> directly rather than
+ * extending the master/replica <code>AbstractRedisTopology</code>.
+ *
+ * Pools connected to masters that leave the cluster are not closed
+ * immediately, because other threads may have looked them up just before
+ * the slot map was replaced.  They are retired, and closed once no
+ * connection is borrowed from them and <code>RETIRE_GRACE_PERIOD</code>
+ * ms have elapsed.
+ *
+ * @author L. Craig Carpenter
+ */
+public class ClusterTopology implements RedisTopology {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            ClusterTopology.class);
+
+    /**
+     * The number of hash slots in a Redis Cluster.
+     */
+    public static final int SLOT_COUNT = 16384;
+
+    /**
+     * Minimum time (in ms) a retired pool is kept open after it has been
+     * removed from the slot map.
+     */
+    public static final long RETIRE_GRACE_PERIOD = 10000L;
+
+    // Settings applied to every pool created
+    private final JedisPoolConfig poolConfig;
+    private final int             connectTimeout;
+    private final int             socketTimeout;
+
+    /**
+     * Nodes used to discover the cluster layout.
+     */
+    private final List<HostAndPort> seeds;
+
+    /**
+     * Pools keyed by master address.  Only modified in refresh().
+     */
+    private volatile Map<HostAndPort, JedisPool> nodes =
+            new HashMap<HostAndPort, JedisPool>();
+
+    /**
+     * The pool serving each hash slot.  Replaced (never modified) in
+     * refresh().
+     */
+    private volatile JedisPool[] slots = new JedisPool[SLOT_COUNT];
+
+    /**
+     * Pools of departed masters waiting to be drained.  Guarded by the
+     * topology lock.
+     */
+    private final List<RetiredPool> retired = new ArrayList<RetiredPool>();
+
+    /**
+     * Constructor.  The cluster layout is read immediately.  If no node can
+     * be reached the error is logged and the layout is read again on first
+     * use.
+     *
+     * @param seeds One or more cluster nodes.
+     * @param poolConfig The configuration applied to every pool.
+     * @param connectTimeout The connect timeout (in ms).
+     * @param socketTimeout The socket read timeout (in ms).
+     */
+    public ClusterTopology(
+            List<HostAndPort> seeds,
+            JedisPoolConfig poolConfig,
+            int connectTimeout,
+            int socketTimeout) {
+        this.poolConfig     = poolConfig;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout  = socketTimeout;
+        this.seeds          = seeds;
+        try {
+            refresh();
+        }
+        catch (JedisConnectionException jce) {
+            LOGGER.error(jce.getMessage());
+        }
+    }
+
+    /**
+     * Calculate the hash slot of a key.
+     *
+     * @param key The key.
+     * @return The hash slot.
+     */
+    public static int getSlot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /**
+     * Retrieve the pool connected to the master serving the input key's
+     * hash slot.
+     *
+     * @param key The key to be accessed.
+     * @return The pool connected to the owning master.
+     * @throws JedisConnectionException Runtime exception thrown if no node
+     * is serving the slot.
+     */
+    @Override
+    public Pool<Jedis> getPool(String key) {
+        int       slot = getSlot(key == null ? "" : key);
+        JedisPool pool = slots[slot];
+        if (pool == null) {
+            refresh();
+            pool = slots[slot];
+            if (pool == null) {
+                throw new JedisConnectionException("No cluster node is "
+                        + "serving slot [ "
+                        + slot
+                        + " ].");
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Reads are served by the master owning the key.
+     *
+     * @param key The key to be accessed.
+     * @return The pool connected to the owning master.
+     */
+    @Override
+    public Pool<Jedis> getReadPool(String key) {
+        return getPool(key);
+    }
+
+    /**
+     * Retrieve the pools connected to every master.
+     *
+     * @return The master pools.
+     */
+    @Override
+    public List<Pool<Jedis>> getMasterPools() {
+        return new ArrayList<Pool<Jedis>>(nodes.values());
+    }
+
+    /**
+     * Retrieve the pools connected to every master.  Retired pools that
+     * have drained are closed first.
+     *
+     * @return The master pools.
+     */
+    @Override
+    public List<Pool<Jedis>> getPools() {
+        reap();
+        return getMasterPools();
+    }
+
+    /**
+     * Getter method for the topology type.
+     *
+     * @return The topology type.
+     */
+    @Override
+    public TopologyType getType() {
+        return TopologyType.CLUSTER;
+    }
+
+    /**
+     * The keyspace is sharded.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    /**
+     * Convert one node entry of the CLUSTER SLOTS reply to an address.  An
+     * empty host means the node that answered the command.
+     */
+    private HostAndPort toNode(List<Object> entry, HostAndPort source) {
+        String host = SafeEncoder.encode((byte[])entry.get(0));
+        int    port = ((Long)entry.get(1)).intValue();
+        if (host.isEmpty()) {
+            host = source.getHost();
+        }
+        return new HostAndPort(host, port);
+    }
+
+    /**
+     * Re-read the slot layout from the first reachable node (known masters
+     * first, then the seeds).  Pools for masters that are still present are
+     * reused; pools for masters that left the cluster are retired once the
+     * new slot map is in place, and closed after they have drained.
+     *
+     * @throws JedisConnectionException Runtime exception thrown if no node
+     * could be reached.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void refresh() {
+
+        reap();
+        Set<HostAndPort> candidates = new LinkedHashSet<HostAndPort>();
+        candidates.addAll(nodes.keySet());
+        candidates.addAll(seeds);
+
+        for (HostAndPort candidate : candidates) {
+            List<Object> layout = null;
+            try (Jedis jedis = new Jedis(
+                    candidate.getHost(),
+                    candidate.getPort(),
+                    connectTimeout,
+                    socketTimeout)) {
+                layout = jedis.clusterSlots();
+            }
+            catch (Exception e) {
+                LOGGER.warn("Unable to read the cluster layout from [ "
+                        + candidate
+                        + " ].  Error message => [ "
+                        + e.getMessage()
+                        + " ].");
+                continue;
+            }
+
+            Map<HostAndPort, JedisPool> current  = nodes;
+            Map<HostAndPort, JedisPool> newNodes =
+                    new HashMap<HostAndPort, JedisPool>();
+            JedisPool[] newSlots = new JedisPool[SLOT_COUNT];
+
+            for (Object range : layout) {
+                List<Object> fields = (List<Object>)range;
+                int start = ((Long)fields.get(0)).intValue();
+                int end   = ((Long)fields.get(1)).intValue();
+                HostAndPort master = toNode(
+                        (List<Object>)fields.get(2), candidate);
+                JedisPool pool = newNodes.get(master);
+                if (pool == null) {
+                    pool = current.get(master);
+                    if (pool == null) {
+                        pool = AbstractRedisTopology.createPool(
+                                master,
+                                poolConfig,
+                                connectTimeout,
+                                socketTimeout);
+                    }
+                    newNodes.put(master, pool);
+                }
+                for (int slot=start; slot<=end; slot++) {
+                    newSlots[slot] = pool;
+                }
+            }
+
+            slots = newSlots;
+            nodes = newNodes;
+            for (Map.Entry<HostAndPort, JedisPool> entry :
+                    current.entrySet()) {
+                if (!newNodes.containsKey(entry.getKey())) {
+                    LOGGER.info("Cluster node [ "
+                            + entry.getKey()
+                            + " ] is no longer a master.");
+                    retired.add(new RetiredPool(
+                            entry.getKey(), entry.getValue()));
+                }
+            }
+            LOGGER.info("Cluster layout read from [ "
+                    + candidate
+                    + " ].  Masters => [ "
+                    + newNodes.keySet()
+                    + " ].");
+            return;
+        }
+        throw new JedisConnectionException("Unable to read the cluster "
+                + "layout from any of the nodes [ "
+                + candidates
+                + " ].");
+    }
+
+    /**
+     * Close the retired pools that no longer have any borrowed connection
+     * and have been out of the slot map for at least
+     * <code>RETIRE_GRACE_PERIOD</code> ms.
+     */
+    private synchronized void reap() {
+        long now = System.currentTimeMillis();
+        Iterator<RetiredPool> iter = retired.iterator();
+        while (iter.hasNext()) {
+            RetiredPool entry = iter.next();
+            if (((now - entry.since) >= RETIRE_GRACE_PERIOD) &&
+                    (entry.pool.getNumActive() <= 0)) {
+                LOGGER.info("Closing the drained pool for former cluster "
+                        + "node [ "
+                        + entry.node
+                        + " ].");
+                entry.pool.destroy();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Close the pools connected to every master, including any retired
+     * pools that have not drained yet.
+     */
+    @Override
+    public synchronized void close() {
+        for (JedisPool pool : nodes.values()) {
+            pool.destroy();
+        }
+        for (RetiredPool entry : retired) {
+            entry.pool.destroy();
+        }
+        retired.clear();
+        nodes = new HashMap<HostAndPort, JedisPool>();
+        slots = new JedisPool[SLOT_COUNT];
+    }
+
+    /**
+     * A pool removed from the slot map, and the time it was removed.
+     */
+    private static final class RetiredPool {
+
+        private final HostAndPort node;
+        private final JedisPool   pool;
+        private final long        since;
+
+        private RetiredPool(HostAndPort node, JedisPool pool) {
+            this.node  = node;
+            this.pool  = pool;
+            this.since = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package mil.nga.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.CodecType;
+
+/**
+ * Codec compressing the UTF-8 JSON with raw Deflate (no zlib header or 
+ * checksum) behind the <code>FORMAT_DEFLATE</code> header byte.  The 
+ * cached RoDProduct records repeat the same field names and URL prefixes
+ * and carry a large, mostly empty, notes column, so they compress well.  
+ * The Deflater/Inflater are created per call and released immediately 
+ * because they hold native memory that would otherwise outlive an 
+ * application redeploy.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class DeflateValueCodec implements ValueCodec {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            DeflateValueCodec.class);
+    
+    /**
+     * Size of the working buffer used while (de)compressing.
+     */
+    private static final int BUFFER_SIZE = 4096;
+    
+    /**
+     * The compression level (0-9).
+     */
+    private final int level;
+    
+    /**
+     * Default constructor using the default compression level.
+     */
+    public DeflateValueCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param level The compression level (0-9, or -1 for the default).
+     */
+    public DeflateValueCodec(int level) {
+        this.level = level;
+    }
+    
+    /**
+     * Compress the value.
+     * 
+     * @param value The JSON value.
+     * @return The header byte followed by the compressed UTF-8 bytes, or 
+     * null if the input is null.
+     */
+    @Override
+    public byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[]   input    = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = 
+                    new ByteArrayOutputStream((input.length / 4) + 16);
+            output.write(FORMAT_DEFLATE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Decompress a value written by <code>encode</code>.
+     * 
+     * @param value The header byte followed by the compressed bytes.
+     * @return The JSON value, or null if the input is null or corrupt.
+     */
+    @Override
+    public String decode(byte[] value) {
+        if ((value == null) || (value.length == 0)) {
+            return null;
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(value, 1, value.length - 1);
+            ByteArrayOutputStream output = 
+                    new ByteArrayOutputStream(value.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if ((count == 0) && 
+                        (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                output.write(buffer, 0, count);
+            }
+            if (!inflater.finished()) {
+                LOGGER.error("Truncated Deflate value encountered.  Value "
+                        + "length [ "
+                        + value.length
+                        + " ].");
+                return null;
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+        catch (DataFormatException dfe) {
+            LOGGER.error("Unable to decompress cache value.  Error "
+                    + "message => [ "
+                    + dfe.getMessage()
+                    + " ].");
+            return null;
+        }
+        finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Getter method for the codec type.
+     * 
+     * @return The codec type.
+     */
+    @Override
+    public CodecType getType() {
+        return CodecType.DEFLATE;
+    }
+}
@@ -0,0 +1,53 @@
+package mil.nga.cache;
+
+import java.nio.charset.StandardCharsets;
+
+import mil.nga.types.CodecType;
+
+/**
+ * Codec storing the plain UTF-8 JSON without a format header.  This is 
+ * the original cache format and is readable by all previous releases, so 
+ * it remains the default.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class JSONValueCodec implements ValueCodec {
+
+    /**
+     * Encode the value as UTF-8.
+     * 
+     * @param value The JSON value.
+     * @return The UTF-8 bytes, or null if the input is null.
+     */
+    @Override
+    public byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Decode UTF-8 bytes.
+     * 
+     * @param value The UTF-8 bytes.
+     * @return The JSON value, or null if the input is null.
+     */
+    @Override
+    public String decode(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Getter method for the codec type.
+     * 
+     * @return The codec type.
+     */
+    @Override
+    public CodecType getType() {
+        return CodecType.JSON;
+    }
+}
@@ -0,0 +1,1018 @@
+package mil.nga.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+
+/**
+ * <code>CacheManagerI</code> implementation holding the records in the
+ * local JVM.  It follows the semantics of the <code>RedisCacheManager</code>
+ * (null/empty keys and values are rejected, scans are weakly consistent
+ * and never block writers, keys are ordered by descending score) so that
+ * the code built on the cache can be tested and benchmarked without a
+ * Redis server.
+ *
+ * Change events are delivered to subscribers in the same JVM only, on the
+ * publishing thread.  The cache is therefore only shared between the
+ * batch job and the web tier if both run in one JVM, or through the
+ * optional snapshot file: if <code>cache.snapshot_file</code> is set the
+ * cache is loaded (memory-mapped) from that file on startup and saved to
+ * it on close and, optionally, every <code>cache.snapshot_interval</code>
+ * ms, allowing a single-node deployment to restart warm.
+ *
+ * @author L. Craig Carpenter
+ */
+public class MemoryCacheManager implements CacheManagerI {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            MemoryCacheManager.class);
+
+    /**
+     * Identifies a snapshot file ("RODC").
+     */
+    private static final int SNAPSHOT_MAGIC = 0x524F4443;
+
+    /**
+     * Snapshot file layout version.  Format 2 adds the content digest of
+     * each record; format 1 snapshots are still read, without digests.
+     */
+    private static final int SNAPSHOT_FORMAT = 2;
+
+    /**
+     * Orders keys by descending score then, as Redis ZREVRANGE does, by
+     * descending key.
+     */
+    private static final Comparator<Map.Entry<String, Double>> BY_SCORE =
+            new Comparator<Map.Entry<String, Double>>() {
+        @Override
+        public int compare(
+                Map.Entry<String, Double> a,
+                Map.Entry<String, Double> b) {
+            int value = Double.compare(b.getValue(), a.getValue());
+            if (value == 0) {
+                value = b.getKey().compareTo(a.getKey());
+            }
+            return value;
+        }
+    };
+
+    // The cache contents
+    private final ConcurrentHashMap<String, String> values =
+            new ConcurrentHashMap<String, String>();
+    private final ConcurrentHashMap<String, Double> scores =
+            new ConcurrentHashMap<String, Double>();
+    private final ConcurrentHashMap<String, String> digests =
+            new ConcurrentHashMap<String, String>();
+    private final AtomicLong version = new AtomicLong(0L);
+
+    /**
+     * The registered change listeners.
+     */
+    private final List<MemoryCacheSubscription> subscriptions =
+            new CopyOnWriteArrayList<MemoryCacheSubscription>();
+
+    /**
+     * The snapshot file.  Null if the cache is not persisted.
+     */
+    private final Path snapshotFile;
+
+    /**
+     * Thread used to save the cache periodically.  Null if the cache is
+     * only saved on close.
+     */
+    private ScheduledExecutorService snapshotService = null;
+
+    /**
+     * The maximum number of keys callers should send in a single bulk
+     * call.
+     */
+    private int batchSize = DEFAULT_REDIS_BATCH_SIZE;
+
+    /**
+     * Default constructor used by the singleton.  Reads the snapshot
+     * settings from the system properties.
+     */
+    private MemoryCacheManager() {
+        this(getSnapshotFile(), getSnapshotInterval());
+        try {
+            setBatchSize(Integer.parseInt(PropertyLoader.getInstance()
+                    .getProperty(REDIS_BATCH_SIZE_PROPERTY)));
+        }
+        catch (Exception e) {
+            setBatchSize(DEFAULT_REDIS_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Constructor.  If a snapshot file is supplied and exists the cache is
+     * loaded from it.
+     *
+     * @param snapshotFile The snapshot file (may be null).
+     * @param snapshotInterval How often (in ms) the cache is saved.  If
+     * not positive the cache is only saved on close.
+     */
+    public MemoryCacheManager(String snapshotFile, long snapshotInterval) {
+        if ((snapshotFile != null) && (!snapshotFile.trim().isEmpty())) {
+            this.snapshotFile = Paths.get(snapshotFile.trim());
+            load();
+            if (snapshotInterval > 0) {
+                snapshotService = Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(
+                                        r, "rod-cache-snapshot");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                snapshotService.scheduleWithFixedDelay(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                save();
+                            }
+                        },
+                        snapshotInterval,
+                        snapshotInterval,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        else {
+            this.snapshotFile = null;
+        }
+        LOGGER.info("In-memory cache started with [ "
+                + values.size()
+                + " ] records.  Snapshot file [ "
+                + this.snapshotFile
+                + " ].");
+    }
+
+    /**
+     * Read the snapshot file name from the system properties.
+     *
+     * @return The snapshot file name, or null if not set.
+     */
+    private static String getSnapshotFile() {
+        try {
+            return PropertyLoader.getInstance().getProperty(
+                    CACHE_SNAPSHOT_FILE_PROPERTY);
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the snapshot interval from the system properties.
+     *
+     * @return The snapshot interval (in ms), or 0 if not set.
+     */
+    private static long getSnapshotInterval() {
+        try {
+            return Long.parseLong(PropertyLoader.getInstance().getProperty(
+                    CACHE_SNAPSHOT_INTERVAL_PROPERTY));
+        }
+        catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Accessor method for the singleton instance of the
+     * MemoryCacheManager class.
+     *
+     * @return The singleton instance of the MemoryCacheManager.
+     */
+    public static MemoryCacheManager getInstance() {
+        return MemoryCacheManagerHolder.getSingleton();
+    }
+
+    /**
+     * Retrieve a single record from the cache.
+     *
+     * @param key Key to query for.
+     * @return The associated value, or null if not found.
+     */
+    @Override
+    public String get(String key) {
+        if ((key != null) && (!key.isEmpty())) {
+            return values.get(key);
+        }
+        return null;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @return False.
+     */
+    @Override
+    public boolean supportsGenerations() {
+        return false;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @return 0.
+     */
+    @Override
+    public long getGeneration() {
+        return 0L;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @return 0.
+     */
+    @Override
+    public long getMasterGeneration() {
+        return 0L;
+    }
+
+    /**
+     * The in-memory cache does not support generations.  The request is
+     * logged and ignored.
+     *
+     * @param generation The generation.
+     */
+    @Override
+    public void setGeneration(long generation) {
+        LOGGER.warn("The in-memory cache does not support generations.  "
+                + "Request to switch to generation [ "
+                + generation
+                + " ] ignored.");
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @param generation The generation.
+     * @return This cache.
+     */
+    @Override
+    public CacheManagerI forGeneration(long generation) {
+        return this;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @return This cache.
+     */
+    @Override
+    public CacheManagerI pin() {
+        return this;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @param generation The generation.
+     * @return False.
+     */
+    @Override
+    public boolean dropGeneration(long generation) {
+        return false;
+    }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @param generation The generation.
+     */
+    @Override
+    public void retireGeneration(long generation) { }
+
+    /**
+     * The in-memory cache does not support generations.
+     *
+     * @param gracePeriod The minimum time since retirement.
+     * @return 0.
+     */
+    @Override
+    public int reapGenerations(long gracePeriod) {
+        return 0;
+    }
+
+    /**
+     * Retrieve the values associated with all of the input keys.
+     *
+     * @param keys The keys to query for.
+     * @return A Map containing the key/value pairs found in the cache.
+     */
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> found = new HashMap<String, String>();
+        if ((keys != null) && (keys.size() > 0)) {
+            for (String key : keys) {
+                String value = get(key);
+                if (value != null) {
+                    found.put(key, value);
+                }
+            }
+        }
+        else {
+            LOGGER.warn("The input key list is null or empty.  Return data "
+                    + "will be empty.");
+        }
+        return found;
+    }
+
+    /**
+     * Retrieve every key/value pair in the cache.
+     *
+     * @return A copy of the cache contents.
+     */
+    @Override
+    public Map<String, String> getAll() {
+        return new HashMap<String, String>(values);
+    }
+
+    /**
+     * Retrieve the content digest of every record.
+     *
+     * @return A copy of the digests.
+     */
+    @Override
+    public Map<String, String> getDigests() {
+        return new HashMap<String, String>(digests);
+    }
+
+    /**
+     * Retrieve the content digests of the input keys.
+     *
+     * @param keys The keys to query for.
+     * @return A Map of record key to digest.
+     */
+    @Override
+    public Map<String, String> getDigests(Collection<String> keys) {
+        Map<String, String> found = new HashMap<String, String>();
+        if (keys != null) {
+            for (String key : keys) {
+                String digest = (key == null ? null : digests.get(key));
+                if (digest != null) {
+                    found.put(key, digest);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Record the content digests of the input records.
+     *
+     * @param values Map of record key to digest.
+     */
+    @Override
+    public void putDigests(Map<String, String> values) {
+        if (values != null) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if ((entry.getKey() != null) &&
+                        (entry.getValue() != null) &&
+                        (!entry.getValue().isEmpty())) {
+                    digests.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter method for the maximum number of keys callers should send in
+     * a single bulk call.
+     *
+     * @return The maximum number of keys per bulk call.
+     */
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get a Set containing all of the keys in the cache.
+     *
+     * @return A copy of the key set.
+     */
+    @Override
+    public Set<String> getKeys() {
+        return new HashSet<String>(values.keySet());
+    }
+
+    /**
+     * Get a List containing all of the keys in the cache.
+     *
+     * @return A List of the keys.
+     */
+    @Override
+    public List<String> getKeysAsList() {
+        return new ArrayList<String>(values.keySet());
+    }
+
+    /**
+     * Retrieve the keys ordered by descending score.  Keys stored without
+     * a score are not included.
+     *
+     * @return The keys ordered by descending score.  May be empty, but will
+     * not be null.
+     */
+    @Override
+    public List<String> getKeysByScore() {
+        List<Map.Entry<String, Double>> entries =
+                new ArrayList<Map.Entry<String, Double>>(scores.entrySet());
+        Collections.sort(entries, BY_SCORE);
+        List<String> keys = new ArrayList<String>(entries.size());
+        for (Map.Entry<String, Double> entry : entries) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Retrieve the current cache version number.
+     *
+     * @return The current version number.
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Increment the cache version number.
+     *
+     * @return The new version number.
+     */
+    @Override
+    public long incrementVersion() {
+        return version.incrementAndGet();
+    }
+
+    /**
+     * Deliver change events to the listeners registered in this JVM.
+     * Listener failures are logged so that one listener cannot prevent
+     * delivery to the others.
+     *
+     * @param events The events to publish.
+     */
+    @Override
+    public void publish(Collection<CacheChangeEvent> events) {
+        if ((events != null) && (events.size() > 0)) {
+            for (CacheChangeEvent event : events) {
+                if ((event != null) &&
+                        (event.getOperation() != null) &&
+                        (event.getKey() != null)) {
+                    for (MemoryCacheSubscription subscription :
+                            subscriptions) {
+                        subscription.deliver(event);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Register a listener to be notified of cache change events published
+     * in this JVM.
+     *
+     * @param listener The client to notify.
+     * @return Handle used to cancel the subscription, or null if the
+     * listener is null.
+     */
+    @Override
+    public CacheSubscription subscribe(CacheChangeListener listener) {
+        MemoryCacheSubscription subscription = null;
+        if (listener != null) {
+            subscription = new MemoryCacheSubscription(listener);
+            subscriptions.add(subscription);
+        }
+        else {
+            LOGGER.error("The input listener is null.  No subscription "
+                    + "will be created.");
+        }
+        return subscription;
+    }
+
+    /**
+     * Iterate over the keys matching the input glob-style pattern.  The
+     * iteration reflects the state of the cache at some point at or since
+     * its creation and never blocks writers.
+     *
+     * @param pattern Glob-style pattern keys must match (e.g. "*").  If
+     * null or empty all keys are returned.
+     * @return An Iterator over the matching keys.
+     */
+    @Override
+    public Iterator<String> scan(String pattern) {
+        if ((pattern == null) ||
+                (pattern.isEmpty()) ||
+                (pattern.equals("*"))) {
+            return Collections.unmodifiableSet(values.keySet()).iterator();
+        }
+        return new MatchingIterator(
+                values.keySet().iterator(),
+                globToRegex(pattern));
+    }
+
+    /**
+     * Store a key/value pair in the cache.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    @Override
+    public void put(String key, String value) {
+        if ((key != null) && (!key.isEmpty())) {
+            if ((value != null) && (!value.isEmpty())) {
+                values.put(key, value);
+            }
+            else {
+                LOGGER.error("The input value is null or empty.  It will not "
+                        + "be stored in the cache.");
+            }
+        }
+        else {
+            LOGGER.error("The input key is null or empty.  It will not "
+                    + "be used to identify a record in the cache.");
+        }
+    }
+
+    /**
+     * Store all of the input key/value pairs in the cache.
+     *
+     * @param values Map containing the key/value pairs to store.
+     */
+    @Override
+    public void putAll(Map<String, String> values) {
+        putAll(values, null);
+    }
+
+    /**
+     * Store all of the input key/value pairs in the cache along with the
+     * score used to order each key.
+     *
+     * @param values Map containing the key/value pairs to store.
+     * @param scores Map containing the score associated with each key (may
+     * be null).  Keys without a score are not indexed.
+     */
+    @Override
+    public void putAll(Map<String, String> values, Map<String, Double> scores) {
+        if ((values != null) && (values.size() > 0)) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if ((entry.getKey() != null) &&
+                        (!entry.getKey().isEmpty()) &&
+                        (entry.getValue() != null) &&
+                        (!entry.getValue().isEmpty())) {
+                    this.values.put(entry.getKey(), entry.getValue());
+                    if (scores != null) {
+                        Double score = scores.get(entry.getKey());
+                        if (score != null) {
+                            this.scores.put(entry.getKey(), score);
+                        }
+                    }
+                }
+                else {
+                    LOGGER.error("The input key or value is null or "
+                            + "empty.  It will not be stored in the "
+                            + "cache.");
+                }
+            }
+        }
+        else {
+            LOGGER.warn("The input Map is null or empty.  Nothing will be "
+                    + "stored in the cache.");
+        }
+    }
+
+    /**
+     * Remove a key/value pair from the cache.
+     *
+     * @param key Key to remove.
+     */
+    @Override
+    public void remove(String key) {
+        if ((key != null) && (!key.isEmpty())) {
+            values.remove(key);
+            scores.remove(key);
+            digests.remove(key);
+        }
+        else {
+            LOGGER.error("The input value is null or empty.  No attempt will "
+                    + "be made to remove the key.");
+        }
+    }
+
+    /**
+     * Remove all of the input keys from the cache.
+     *
+     * @param keys The keys to remove.
+     */
+    @Override
+    public void removeAll(Collection<String> keys) {
+        if ((keys != null) && (keys.size() > 0)) {
+            for (String key : keys) {
+                if (key != null) {
+                    values.remove(key);
+                    scores.remove(key);
+                    digests.remove(key);
+                }
+            }
+        }
+        else {
+            LOGGER.error("The input key list is null or empty.  No attempt "
+                    + "will be made to remove the keys.");
+        }
+    }
+
+    /**
+     * Setter method for the maximum number of keys callers should send in
+     * a single bulk call.  Values less than 1 are replaced with the
+     * default.
+     *
+     * @param value The maximum number of keys per bulk call.
+     */
+    public void setBatchSize(int value) {
+        if (value < 1) {
+            batchSize = DEFAULT_REDIS_BATCH_SIZE;
+        }
+        else {
+            batchSize = value;
+        }
+    }
+
+    /**
+     * Save the cache to the snapshot file (if configured).  The cache
+     * remains usable after it is closed.
+     */
+    @Override
+    public void close() {
+        if (snapshotService != null) {
+            snapshotService.shutdownNow();
+            snapshotService = null;
+        }
+        save();
+    }
+
+    /**
+     * Save the cache contents to the snapshot file.  The snapshot is
+     * written to a temporary file which then atomically replaces the
+     * previous snapshot, so a crash while saving never leaves a partial
+     * snapshot behind.  Writers are not blocked; records modified while
+     * the snapshot is taken may or may not be included.
+     */
+    public synchronized void save() {
+        if (snapshotFile != null) {
+            long start = System.currentTimeMillis();
+            List<Map.Entry<String, String>> entries =
+                    new ArrayList<Map.Entry<String, String>>(
+                            values.entrySet());
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Path temp   = null;
+            try {
+                temp = Files.createTempFile(
+                        parent,
+                        snapshotFile.getFileName().toString(),
+                        ".tmp");
+                try (OutputStream os = Files.newOutputStream(temp);
+                        DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(os, 65536))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_FORMAT);
+                    out.writeLong(version.get());
+                    out.writeInt(entries.size());
+                    for (Map.Entry<String, String> entry : entries) {
+                        write(out, entry.getKey());
+                        write(out, entry.getValue());
+                        Double score = scores.get(entry.getKey());
+                        out.writeBoolean(score != null);
+                        if (score != null) {
+                            out.writeDouble(score);
+                        }
+                        String digest = digests.get(entry.getKey());
+                        out.writeBoolean(digest != null);
+                        if (digest != null) {
+                            write(out, digest);
+                        }
+                    }
+                }
+                Files.move(
+                        temp,
+                        snapshotFile,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Saved [ "
+                            + entries.size()
+                            + " ] records to snapshot file [ "
+                            + snapshotFile
+                            + " ] in [ "
+                            + (System.currentTimeMillis() - start)
+                            + " ] ms.");
+                }
+            }
+            catch (IOException ioe) {
+                LOGGER.error("Unable to save the cache to snapshot file [ "
+                        + snapshotFile
+                        + " ].  Error message => [ "
+                        + ioe.getMessage()
+                        + " ].");
+                if (temp != null) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    }
+                    catch (IOException e) { }
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the cache contents from the snapshot file.  The file is
+     * memory-mapped so the records are decoded directly from the page
+     * cache.  A missing, truncated or unrecognized file is logged and
+     * the cache starts empty.
+     */
+    private void load() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            LOGGER.info("Snapshot file [ "
+                    + snapshotFile
+                    + " ] does not exist.  Starting with an empty cache.");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(
+                snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic  = buffer.getInt();
+            int format = buffer.getInt();
+            if ((magic != SNAPSHOT_MAGIC) ||
+                    (format < 1) || (format > SNAPSHOT_FORMAT)) {
+                LOGGER.error("File [ "
+                        + snapshotFile
+                        + " ] is not a recognized cache snapshot.  Starting "
+                        + "with an empty cache.");
+                return;
+            }
+            long savedVersion = buffer.getLong();
+            int  count        = buffer.getInt();
+            Map<String, String> loaded = new HashMap<String, String>(
+                    (int)(count / 0.75f) + 1);
+            Map<String, Double> loadedScores = new HashMap<String, Double>();
+            Map<String, String> loadedDigests = new HashMap<String, String>();
+            for (int i=0; i<count; i++) {
+                String key   = read(buffer);
+                String value = read(buffer);
+                loaded.put(key, value);
+                if (buffer.get() != 0) {
+                    loadedScores.put(key, buffer.getDouble());
+                }
+                if ((format >= 2) && (buffer.get() != 0)) {
+                    loadedDigests.put(key, read(buffer));
+                }
+            }
+            values.putAll(loaded);
+            scores.putAll(loadedScores);
+            digests.putAll(loadedDigests);
+            version.set(savedVersion);
+            LOGGER.info("Loaded [ "
+                    + count
+                    + " ] records (version [ "
+                    + savedVersion
+                    + " ]) from snapshot file [ "
+                    + snapshotFile
+                    + " ] in [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.");
+        }
+        catch (IOException | BufferUnderflowException e) {
+            LOGGER.error("Unable to load the cache from snapshot file [ "
+                    + snapshotFile
+                    + " ].  Starting with an empty cache.  Error message "
+                    + "=> [ "
+                    + e.getMessage()
+                    + " ].");
+        }
+    }
+
+    /**
+     * Write a length-prefixed UTF-8 String.
+     */
+    private static void write(DataOutputStream out, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a length-prefixed UTF-8 String.
+     */
+    private static String read(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if ((length < 0) || (length > buffer.remaining())) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Convert a Redis glob-style pattern (<code>*</code>, <code>?</code>,
+     * <code>[...]</code> and <code>\</code> escapes) to a regular
+     * expression.
+     *
+     * @param glob The glob-style pattern.
+     * @return The equivalent compiled regular expression.
+     */
+    public static Pattern globToRegex(String glob) {
+        StringBuilder sb      = new StringBuilder(glob.length() + 8);
+        boolean       inClass = false;
+        for (int i=0; i<glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    sb.append(c);
+                }
+                else if ((c == '\\') && (i + 1 < glob.length())) {
+                    sb.append('\\').append(glob.charAt(++i));
+                }
+                else if ((c == '^') && (sb.charAt(sb.length() - 1) == '[')) {
+                    sb.append('^');
+                }
+                else if ((c == '-') || Character.isLetterOrDigit(c)) {
+                    sb.append(c);
+                }
+                else {
+                    sb.append('\\').append(c);
+                }
+            }
+            else if (c == '*') {
+                sb.append(".*");
+            }
+            else if (c == '?') {
+                sb.append('.');
+            }
+            else if ((c == '[') && (glob.indexOf(']', i + 1) > i + 1)) {
+                inClass = true;
+                sb.append('[');
+            }
+            else if ((c == '\\') && (i + 1 < glob.length())) {
+                sb.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            }
+            else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(sb.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * Iterator returning only the keys matching a pattern.
+     */
+    private static class MatchingIterator implements Iterator<String> {
+
+        private final Iterator<String> keys;
+        private final Pattern          pattern;
+        private String                 next = null;
+
+        MatchingIterator(Iterator<String> keys, Pattern pattern) {
+            this.keys    = keys;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((next == null) && (keys.hasNext())) {
+                String key = keys.next();
+                if (pattern.matcher(key).matches()) {
+                    next = key;
+                }
+            }
+            return (next != null);
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String value = next;
+            next = null;
+            return value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Subscription to the change events published in this JVM.
+     */
+    private class MemoryCacheSubscription implements CacheSubscription {
+
+        private final CacheChangeListener listener;
+        private volatile boolean          active = true;
+
+        MemoryCacheSubscription(CacheChangeListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Forward an event to the listener.
+         */
+        void deliver(CacheChangeEvent event) {
+            if (active) {
+                try {
+                    listener.onChange(event);
+                }
+                catch (RuntimeException re) {
+                    LOGGER.error("Unexpected exception raised by cache change "
+                            + "listener.  Error message => [ "
+                            + re.getMessage()
+                            + " ].");
+                }
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void close() {
+            active = false;
+            subscriptions.remove(this);
+        }
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class MemoryCacheManagerHolder {
+
+        /**
+         * Reference to the Singleton instance of the MemoryCacheManager
+         */
+        private static final MemoryCacheManager _instance =
+                new MemoryCacheManager();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * MemoryCacheManager.
+         *
+         * @return The Singleton instance of the MemoryCacheManager.
+         */
+        public static MemoryCacheManager getSingleton() {
+            return _instance;
+        }
+    }
+}
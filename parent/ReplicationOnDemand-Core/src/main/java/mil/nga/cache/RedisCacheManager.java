@@ -1,22 +1,61 @@
 package mil.nga.cache;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import mil.nga.PropertyLoader;
+import mil.nga.types.CodecType;
+import mil.nga.types.StorageType;
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
 
 /**
  * Very simple class implementing the Java-based interface to the Redis cache
  * running on the local node.  This class assumes that the cache is bound to 
  * the local interface and running on the default port (6379).
  * 
+ * Records may be stored either as top-level string keys (the default 
+ * <code>keyspace</code> storage type) or as fields of a single dedicated 
+ * Redis hash (the <code>hash</code> storage type).  In hash mode a 
+ * companion sorted set is maintained allowing clients to list keys ordered 
+ * by a caller-supplied score (e.g. file date), and other keys residing in 
+ * the same Redis database can never pollute the key listing.
+ * 
+ * The layout of the Redis deployment is delegated to a 
+ * <code>RedisTopology</code>: a single server (optionally with read 
+ * replicas), a Sentinel-managed master with replicas, or a Redis Cluster.
+ * Bulk operations are grouped by owning node and, in a cluster, by hash 
+ * slot so that they are still pipelined when the keys span shards.  A 
+ * MOVED redirection causes the slot layout to be re-read and the command 
+ * to be retried once.  An ASK redirection (slot being migrated) causes 
+ * the affected bulk command to fall back to single-key commands, each of 
+ * which follows the redirection to the importing node.
+ * 
+ * Values are written as bytes produced by the configured 
+ * <code>ValueCodec</code> (plain JSON by default).  Values are read in 
+ * any supported format, identified by their first byte.
+ * 
  * @author L. Craig Carpenter
  */
 public class RedisCacheManager 
@@ -29,14 +68,72 @@ public class RedisCacheManager
             RedisCacheManager.class);
     
     /**
-     * Private connection pool 
+     * The layout of the Redis deployment.  Supplies the connection pool 
+     * owning each key.
      */
-    private JedisPool pool;
+    private RedisTopology topology;
     
     // Private internal members used if the target redis server is not local
     private String host = null;
     private int    port = DEFAULT_REDIS_PORT;
     
+    /**
+     * The maximum number of keys sent in a single MGET/MSET/DEL command.
+     */
+    private int batchSize = DEFAULT_REDIS_BATCH_SIZE;
+    
+    /**
+     * The COUNT hint supplied with each SCAN command.
+     */
+    private int scanCount = DEFAULT_REDIS_SCAN_COUNT;
+    
+    /**
+     * How records are laid out in the cache.
+     */
+    private StorageType storageType = StorageType.KEYSPACE;
+    
+    /**
+     * Name of the Redis hash holding the records when in hash mode.
+     */
+    private String hashKey = DEFAULT_REDIS_HASH_KEY;
+    
+    /**
+     * Pub/sub channel on which cache change events are published.
+     */
+    private String changeChannel = DEFAULT_REDIS_CHANGE_CHANNEL;
+    
+    /**
+     * Codec used to encode values written to the cache.
+     */
+    private ValueCodec codec = 
+            ValueCodecFactory.getInstance().getCodec(CodecType.JSON);
+    
+    /**
+     * The connection pool configuration.
+     */
+    private JedisPoolConfig poolConfig;
+    
+    // Connect and socket read timeouts (in ms)
+    private int connectTimeout = DEFAULT_REDIS_CONNECT_TIMEOUT;
+    private int socketTimeout  = DEFAULT_REDIS_SOCKET_TIMEOUT;
+    
+    /**
+     * The cache from which a generation view was created.  Null for the 
+     * singleton instance.
+     */
+    private RedisCacheManager parent = null;
+    
+    /**
+     * The generation a view is bound to (0 for the singleton instance).
+     */
+    private long generation = 0L;
+    
+    /**
+     * The most recently requested generation view.  Reused so that readers
+     * pinning once per request do not allocate a new view each time.
+     */
+    private volatile RedisCacheManager pinned = null;
+    
     /**
      * Default constructor used to set up the Redis connection pool.
      */
@@ -55,8 +152,289 @@ public class RedisCacheManager
         catch (Exception e) {
             setPort(DEFAULT_REDIS_PORT);
         }
+        try {
+            setBatchSize(Integer.parseInt(
+                    pLoader.getProperty(REDIS_BATCH_SIZE_PROPERTY)));
+        }
+        catch (Exception e) {
+            setBatchSize(DEFAULT_REDIS_BATCH_SIZE);
+        }
+        try {
+            setScanCount(Integer.parseInt(
+                    pLoader.getProperty(REDIS_SCAN_COUNT_PROPERTY)));
+        }
+        catch (Exception e) {
+            setScanCount(DEFAULT_REDIS_SCAN_COUNT);
+        }
+        try {
+            setStorageType(StorageType.fromString(
+                    pLoader.getProperty(REDIS_STORAGE_TYPE_PROPERTY)));
+        }
+        catch (Exception e) {
+            setStorageType(StorageType.KEYSPACE);
+        }
+        try {
+            setHashKey(pLoader.getProperty(REDIS_HASH_KEY_PROPERTY));
+        }
+        catch (Exception e) {
+            setHashKey(DEFAULT_REDIS_HASH_KEY);
+        }
+        try {
+            setChangeChannel(pLoader.getProperty(
+                    REDIS_CHANGE_CHANNEL_PROPERTY));
+        }
+        catch (Exception e) {
+            setChangeChannel(DEFAULT_REDIS_CHANGE_CHANNEL);
+        }
+        try {
+            setCodec(CodecType.fromString(
+                    pLoader.getProperty(REDIS_CODEC_PROPERTY)));
+        }
+        catch (Exception e) {
+            setCodec(CodecType.JSON);
+        }
+        try {
+            connectTimeout = Integer.parseInt(
+                    pLoader.getProperty(REDIS_CONNECT_TIMEOUT_PROPERTY));
+        }
+        catch (Exception e) {
+            connectTimeout = DEFAULT_REDIS_CONNECT_TIMEOUT;
+        }
+        try {
+            socketTimeout = Integer.parseInt(
+                    pLoader.getProperty(REDIS_SOCKET_TIMEOUT_PROPERTY));
+        }
+        catch (Exception e) {
+            socketTimeout = DEFAULT_REDIS_SOCKET_TIMEOUT;
+        }
+        LOGGER.info("Cache storage type [ "
+                + getStorageType().getText()
+                + " ], value codec [ "
+                + getCodec().getType().getText()
+                + " ].");
+        
+        poolConfig = getPoolConfig(pLoader);
+        topology   = createTopology(pLoader);
+    }
+    
+    /**
+     * Constructor used to create a view bound to a single generation.  The 
+     * view shares the connection pools and configuration of the parent 
+     * and stores its records in a hash named after the generation.
+     * 
+     * @param parent The singleton instance.
+     * @param generation The generation.
+     */
+    private RedisCacheManager(RedisCacheManager parent, long generation) {
+        this.parent         = parent;
+        this.generation     = generation;
+        this.topology       = parent.topology;
+        this.host           = parent.host;
+        this.port           = parent.port;
+        this.batchSize      = parent.batchSize;
+        this.scanCount      = parent.scanCount;
+        this.storageType    = StorageType.HASH;
+        this.hashKey        = parent.getHashKey() 
+                + REDIS_GENERATION_SEPARATOR 
+                + generation;
+        this.changeChannel  = parent.changeChannel;
+        this.codec          = parent.codec;
+        this.poolConfig     = parent.poolConfig;
+        this.connectTimeout = parent.connectTimeout;
+        this.socketTimeout  = parent.socketTimeout;
+    }
+    
+    /**
+     * Constructor used to attach a cache to an existing topology rather 
+     * than the one described by the system properties.  Used by the 
+     * integration tests, which start their own Redis servers.
+     * 
+     * @param topology The layout of the Redis deployment.
+     * @param poolConfig The configuration applied to the topology pools.
+     */
+    RedisCacheManager(RedisTopology topology, JedisPoolConfig poolConfig) {
+        this.topology   = topology;
+        this.poolConfig = poolConfig;
+    }
+    
+    /**
+     * Build the topology identified by the system properties.  If the 
+     * topology type is not supplied, or the nodes required by the 
+     * requested topology are not supplied, the standalone topology 
+     * (<code>redis.host</code>/<code>redis.port</code>) is used.
+     * 
+     * @param pLoader Handle to the system properties.
+     * @return The Redis topology.
+     */
+    private RedisTopology createTopology(PropertyLoader pLoader) {
+        
+        TopologyType type             = TopologyType.STANDALONE;
+        boolean      readFromReplicas = false;
+        long         refreshInterval  = DEFAULT_REDIS_TOPOLOGY_REFRESH;
+        String       masterName       = DEFAULT_REDIS_SENTINEL_MASTER;
+        String       replicas         = null;
+        String       sentinels        = null;
+        String       clusterNodes     = null;
+        
+        try {
+            type = TopologyType.fromString(
+                    pLoader.getProperty(REDIS_TOPOLOGY_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            readFromReplicas = Boolean.parseBoolean(
+                    pLoader.getProperty(REDIS_READ_FROM_REPLICAS_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            refreshInterval = Long.parseLong(
+                    pLoader.getProperty(REDIS_TOPOLOGY_REFRESH_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            masterName = pLoader.getProperty(REDIS_SENTINEL_MASTER_PROPERTY);
+        }
+        catch (Exception e) { }
+        try {
+            replicas = pLoader.getProperty(REDIS_REPLICAS_PROPERTY);
+        }
+        catch (Exception e) { }
+        try {
+            sentinels = pLoader.getProperty(REDIS_SENTINELS_PROPERTY);
+        }
+        catch (Exception e) { }
+        try {
+            clusterNodes = pLoader.getProperty(REDIS_CLUSTER_NODES_PROPERTY);
+        }
+        catch (Exception e) { }
+        
+        List<HostAndPort> sentinelList = 
+                AbstractRedisTopology.parseNodes(sentinels);
+        List<HostAndPort> clusterList  = 
+                AbstractRedisTopology.parseNodes(clusterNodes);
+        
+        if ((type == TopologyType.SENTINEL) && (sentinelList.isEmpty())) {
+            LOGGER.error("Sentinel topology requested but property [ "
+                    + REDIS_SENTINELS_PROPERTY
+                    + " ] is not set.  Using the standalone topology.");
+            type = TopologyType.STANDALONE;
+        }
+        if ((type == TopologyType.CLUSTER) && (clusterList.isEmpty())) {
+            LOGGER.error("Cluster topology requested but property [ "
+                    + REDIS_CLUSTER_NODES_PROPERTY
+                    + " ] is not set.  Using the standalone topology.");
+            type = TopologyType.STANDALONE;
+        }
+        if ((masterName == null) || (masterName.trim().isEmpty())) {
+            masterName = DEFAULT_REDIS_SENTINEL_MASTER;
+        }
+        
+        LOGGER.info("Cache topology [ "
+                + type.getText()
+                + " ], read from replicas [ "
+                + readFromReplicas
+                + " ].");
+        
+        RedisTopology value = null;
+        switch (type) {
+        case SENTINEL:
+            value = new SentinelTopology(
+                    masterName.trim(), 
+                    sentinelList, 
+                    readFromReplicas, 
+                    refreshInterval, 
+                    poolConfig, 
+                    connectTimeout, 
+                    socketTimeout);
+            break;
+        case CLUSTER:
+            value = new ClusterTopology(
+                    clusterList, 
+                    poolConfig, 
+                    connectTimeout, 
+                    socketTimeout);
+            break;
+        default:
+            value = new StandaloneTopology(
+                    new HostAndPort(getHost(), getPort()), 
+                    (readFromReplicas ? 
+                            AbstractRedisTopology.parseNodes(replicas) : 
+                            new ArrayList<HostAndPort>()), 
+                    poolConfig, 
+                    connectTimeout, 
+                    socketTimeout);
+            break;
+        }
+        return value;
+    }
+    
+    /**
+     * Build the connection pool configuration from the system properties.
+     * Any property that is missing or cannot be parsed is replaced with 
+     * the default.  The pool statistics are registered with JMX under the 
+     * <code>rod-redis-pool</code> prefix.
+     * 
+     * @param pLoader Handle to the system properties.
+     * @return The connection pool configuration.
+     */
+    private JedisPoolConfig getPoolConfig(PropertyLoader pLoader) {
+        
+        JedisPoolConfig config = new JedisPoolConfig();
+        
+        try {
+            config.setMaxTotal(Integer.parseInt(
+                    pLoader.getProperty(REDIS_POOL_MAX_TOTAL_PROPERTY)));
+        }
+        catch (Exception e) {
+            config.setMaxTotal(DEFAULT_REDIS_POOL_MAX_TOTAL);
+        }
+        try {
+            config.setMaxIdle(Integer.parseInt(
+                    pLoader.getProperty(REDIS_POOL_MAX_IDLE_PROPERTY)));
+        }
+        catch (Exception e) {
+            config.setMaxIdle(DEFAULT_REDIS_POOL_MAX_IDLE);
+        }
+        try {
+            config.setMinIdle(Integer.parseInt(
+                    pLoader.getProperty(REDIS_POOL_MIN_IDLE_PROPERTY)));
+        }
+        catch (Exception e) {
+            config.setMinIdle(DEFAULT_REDIS_POOL_MIN_IDLE);
+        }
+        try {
+            config.setMaxWaitMillis(Long.parseLong(
+                    pLoader.getProperty(REDIS_POOL_MAX_WAIT_PROPERTY)));
+        }
+        catch (Exception e) {
+            config.setMaxWaitMillis(DEFAULT_REDIS_POOL_MAX_WAIT);
+        }
+        try {
+            config.setTestOnBorrow(Boolean.parseBoolean(
+                    pLoader.getProperty(REDIS_POOL_TEST_ON_BORROW_PROPERTY)));
+        }
+        catch (Exception e) {
+            config.setTestOnBorrow(false);
+        }
+        config.setJmxEnabled(true);
+        config.setJmxNamePrefix(REDIS_POOL_JMX_PREFIX);
         
-        pool = new JedisPool(new JedisPoolConfig(), getHost(), getPort());
+        LOGGER.info("Redis pool configured with max total [ "
+                + config.getMaxTotal()
+                + " ], max idle [ "
+                + config.getMaxIdle()
+                + " ], min idle [ "
+                + config.getMinIdle()
+                + " ], max wait [ "
+                + config.getMaxWaitMillis()
+                + " ] ms, test on borrow [ "
+                + config.getTestOnBorrow()
+                + " ], connect timeout [ "
+                + connectTimeout
+                + " ] ms, socket timeout [ "
+                + socketTimeout
+                + " ] ms.");
+        return config;
     }
 
     /**
@@ -71,9 +449,7 @@ public class RedisCacheManager
     public String get(String key) {
         String value = null;
         if ((key != null) && (!key.isEmpty())) {
-            try (Jedis jedis = pool.getResource()) {
-                value = jedis.get(key);
-            }
+            value = read(key);
         }
         else {
             LOGGER.warn("The input key is null or empty.  It will not "
@@ -83,157 +459,1662 @@ public class RedisCacheManager
     }
 
     /**
-     * Getter method for the Redis cache host name.
+     * Retrieve the values associated with all of the input keys.  The keys 
+     * are split into chunks of <code>batchSize</code> and each chunk is 
+     * issued as a single MGET (HMGET in hash mode).  All of the commands 
+     * destined for the same node are sent through a single pipeline so the 
+     * entire request requires one round trip per node.  In a cluster the 
+     * chunks are additionally split by hash slot.
      * 
-     * @return The host name of the server running the target Redis cache.
+     * @param keys The keys to query for.
+     * @return A Map containing the key/value pairs found in the cache.  Keys 
+     * that do not exist in the cache will not be included in the output Map.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
      */
-    public String getHost() {
-        return host;
+    public Map<String, String> getAll(Collection<String> keys) {
+        try {
+            return readAll(keys);
+        }
+        catch (JedisMovedDataException jmde) {
+            handleRedirection(jmde);
+        }
+        catch (JedisAskDataException jade) {
+            handleMigration(jade);
+            return readEach(keys);
+        }
+        try {
+            return readAll(keys);
+        }
+        catch (JedisAskDataException jade) {
+            handleMigration(jade);
+            return readEach(keys);
+        }
     }
     
     /**
-     * Get a Set containing all of the keys that are currently stored in the 
-     * target cache.
-     *   
-     * @return A Set containing all of the keys stored in the Redis cache.
-     * @throws JedisConnectionException Runtime exception thrown if a 
-     * connection cannot be made to the local Redis cache. 
+     * Retrieve the values associated with the input keys one key at a 
+     * time.  Used while a slot is being migrated, when multi-key commands 
+     * may be refused.
+     * 
+     * @param keys The keys to query for.
+     * @return A Map containing the key/value pairs found in the cache.
      */
-    public Set<String> getKeys() {
-        Set<String> keySet = null;
-        try (Jedis jedis = pool.getResource()) {
-            keySet = jedis.keys("*");
+    private Map<String, String> readEach(Collection<String> keys) {
+        Map<String, String> values = new HashMap<String, String>();
+        if (keys != null) {
+            for (String key : keys) {
+                if ((key != null) && (!key.isEmpty())) {
+                    String value = read(key);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+            }
         }
-        return keySet;
+        return values;
     }
     
     /**
-     * Get a List containing all of the keys that are currently stored in the 
-     * target cache.  This was added because I got tired of converting the Set 
-     * to a list throughout the code.
-     *   
-     * @return A List containing all of the keys stored in the Redis cache.
+     * Implementation of <code>getAll(Collection)</code>.
+     * 
+     * @param keys The keys to query for.
+     * @return A Map containing the key/value pairs found in the cache.
+     */
+    private Map<String, String> readAll(Collection<String> keys) {
+        
+        long                         start     = System.currentTimeMillis();
+        Map<String, String>          values    = new HashMap<String, String>();
+        Map<Pool<Jedis>, List<List<String>>> groups = 
+                getChunksByNode(keys, true);
+        List<List<String>>           chunks    = new ArrayList<List<String>>();
+        List<Response<List<byte[]>>> responses = 
+                new ArrayList<Response<List<byte[]>>>();
+        
+        if (groups.size() > 0) {
+            for (Map.Entry<Pool<Jedis>, List<List<String>>> group : 
+                    groups.entrySet()) {
+                try (Jedis jedis = group.getKey().getResource()) {
+                    Pipeline pipeline = jedis.pipelined();
+                    for (List<String> chunk : group.getValue()) {
+                        byte[][] array = encodeKeys(chunk);
+                        chunks.add(chunk);
+                        if (getStorageType() == StorageType.HASH) {
+                            responses.add(pipeline.hmget(
+                                    SafeEncoder.encode(getHashKey()), 
+                                    array));
+                        }
+                        else {
+                            responses.add(pipeline.mget(array));
+                        }
+                    }
+                    sync(pipeline);
+                }
+            }
+            for (int i=0; i<chunks.size(); i++) {
+                List<String> chunk  = chunks.get(i);
+                List<byte[]> result = responses.get(i).get();
+                for (int j=0; j<chunk.size(); j++) {
+                    String value = decode(result.get(j));
+                    if (value != null) {
+                        values.put(chunk.get(j), value);
+                    }
+                }
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Retrieved [ "
+                        + values.size()
+                        + " ] values in [ "
+                        + chunks.size()
+                        + " ] batches from [ "
+                        + groups.size()
+                        + " ] nodes in [ "
+                        + (System.currentTimeMillis() - start)
+                        + " ] ms.");
+            }
+        }
+        else {
+            LOGGER.warn("The input key list is null or empty.  Return data "
+                    + "will be empty.");
+        }
+        return values;
+    }
+    
+    /**
+     * Retrieve every key/value pair in the cache.  In hash mode this is a 
+     * single HGETALL.  In keyspace mode the keys are first collected via 
+     * SCAN then retrieved with pipelined MGETs.
+     * 
+     * @return A Map containing all key/value pairs in the cache.
      * @throws JedisConnectionException Runtime exception thrown if a 
      * connection cannot be made to the local Redis cache. 
      */
-    public List<String> getKeysAsList() {
-    	List<String> keyList = null;
-        Set<String>  keySet  = null;
-        try (Jedis jedis = pool.getResource()) {
-            keySet = jedis.keys("*");
-        }
-        if ((keySet == null) || (keySet.size() == 0)) { 
-        	keyList = new ArrayList<String>();
+    public Map<String, String> getAll() {
+        Map<String, String> values = null;
+        if (getStorageType() == StorageType.HASH) {
+            try (Jedis jedis = topology.getReadPool(getHashKey())
+                    .getResource()) {
+                Map<byte[], byte[]> raw = jedis.hgetAll(
+                        SafeEncoder.encode(getHashKey()));
+                values = new HashMap<String, String>(
+                        (int)(raw.size() / 0.75f) + 1);
+                for (Map.Entry<byte[], byte[]> entry : raw.entrySet()) {
+                    String value = decode(entry.getValue());
+                    if (value != null) {
+                        values.put(
+                                SafeEncoder.encode(entry.getKey()), 
+                                value);
+                    }
+                }
+            }
         }
         else {
-        	keyList = new ArrayList<String>(keySet);
+            values = getAll(getKeys());
+        }
+        if (values == null) {
+            values = new HashMap<String, String>();
         }
-        return keyList;
+        return values;
     }
     
     /**
-     * Getter method for the Redis cache port.
+     * Getter method for the name of the hash holding the record digests.  
+     * In hash mode it is derived from the hash name (and, in a cluster, 
+     * assigned the same slot as the hash).  In keyspace mode it is the 
+     * fixed <code>rod:digests</code> key.
      * 
-     * @return The port on which the Redis cache is listening.
+     * @return The name of the digest hash.
      */
-    public int getPort() {
-        return port;
+    public String getDigestKey() {
+        if (getStorageType() == StorageType.HASH) {
+            if (topology.isClustered()) {
+                return "{" + getHashKey() + "}" + REDIS_DIGEST_KEY_SUFFIX;
+            }
+            return getHashKey() + REDIS_DIGEST_KEY_SUFFIX;
+        }
+        return REDIS_DIGEST_KEY;
     }
     
     /**
-     * Accessor method for the singleton instance of the 
-     * RedisCacheManager class.
+     * Retrieve the content digest of every record with a single HGETALL.
      * 
-     * @return The singleton instance of the RedisCacheManager.
-     * class.
+     * @return A Map of record key to digest.  May be empty, but will not 
+     * be null.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
      */
-    public static RedisCacheManager getInstance() {
-        return RedisCacheManagerHolder.getSingleton();
-    } 
+    public Map<String, String> getDigests() {
+        Map<String, String> digests = null;
+        try (Jedis jedis = topology.getPool(getDigestKey()).getResource()) {
+            digests = jedis.hgetAll(getDigestKey());
+        }
+        if (digests == null) {
+            digests = new HashMap<String, String>();
+        }
+        return digests;
+    }
     
     /**
-     * Store a key/value pair in the target cache.
+     * Retrieve the content digests of the input keys.  The keys are split 
+     * into chunks of <code>batchSize</code> and each chunk is issued as a 
+     * single HMGET through one pipeline.
      * 
-     * @param key Key to query for. 
-     * @param value The value associated with the input key.  This method
-     * returns null of unable to retrieve the key from the cache.
+     * @param keys The keys to query for.
+     * @return A Map of record key to digest.  May be empty, but will not 
+     * be null.
      * @throws JedisConnectionException Runtime exception thrown if a 
      * connection cannot be made to the local Redis cache. 
      */
-    public void put(String key, String value) {
-        if ((key != null) && (!key.isEmpty())) {
-            if ((value != null) && (!value.isEmpty())) {
-                try (Jedis jedis = pool.getResource()) {
-                    jedis.set(key, value);
+    public Map<String, String> getDigests(Collection<String> keys) {
+        Map<String, String> digests = new HashMap<String, String>();
+        if ((keys != null) && (keys.size() > 0)) {
+            List<List<String>>           chunks    = getChunks(keys);
+            List<Response<List<String>>> responses = 
+                    new ArrayList<Response<List<String>>>();
+            try (Jedis jedis = topology.getPool(getDigestKey())
+                    .getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (List<String> chunk : chunks) {
+                    responses.add(pipeline.hmget(
+                            getDigestKey(), 
+                            chunk.toArray(new String[chunk.size()])));
                 }
+                sync(pipeline);
             }
-            else {
-                LOGGER.error("The input value is null or empty.  It will not "
-                        + "be stored in the cache.");
+            for (int i=0; i<chunks.size(); i++) {
+                List<String> chunk  = chunks.get(i);
+                List<String> result = responses.get(i).get();
+                for (int j=0; j<chunk.size(); j++) {
+                    if (result.get(j) != null) {
+                        digests.put(chunk.get(j), result.get(j));
+                    }
+                }
             }
         }
-        else {
-            LOGGER.error("The input key is null or empty.  It will not "
-                    + "be used to identify a record in the cache.");
-        }
+        return digests;
     }
- 
+    
     /**
-     * Remove a key/value pair from the target cache.
+     * Record the content digests of the input records.  The digests are 
+     * written in chunks of <code>batchSize</code> through one pipeline.
      * 
-     * @param key Key to remove. 
+     * @param digests Map of record key to digest.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
      */
-    public void remove(String key) {
-        if ((key != null) && (!key.isEmpty())) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Removing key [ "
-                        + key
-                        + " ].");
+    public void putDigests(Map<String, String> digests) {
+        if ((digests != null) && (digests.size() > 0)) {
+            List<String> keys = new ArrayList<String>();
+            for (Map.Entry<String, String> entry : digests.entrySet()) {
+                if ((entry.getKey() != null) && 
+                        (entry.getValue() != null) && 
+                        (!entry.getValue().isEmpty())) {
+                    keys.add(entry.getKey());
+                }
             }
-            try (Jedis jedis = pool.getResource()) {
-                jedis.del(key);
+            try (Jedis jedis = topology.getPool(getDigestKey())
+                    .getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (List<String> chunk : getChunks(keys)) {
+                    Map<String, String> fields = 
+                            new HashMap<String, String>();
+                    for (String key : chunk) {
+                        fields.put(key, digests.get(key));
+                    }
+                    pipeline.hmset(getDigestKey(), fields);
+                }
+                sync(pipeline);
             }
         }
-        else {
-            LOGGER.error("The input value is null or empty.  No attempt will "
-                    + "be made to remove the key.");
-        }
     }
     
     /**
-     * Close the Jedis connection pool.
+     * Retrieve the singleton instance from which generation names are 
+     * derived.
+     * 
+     * @return The parent of a view, or this instance.
      */
-    @Override
-    public void close() {
-        if (pool != null) {
-            LOGGER.info("Closing the Jedis connection pool.");
-            pool.destroy();
-        }
+    private RedisCacheManager getBase() {
+        return (parent == null ? this : parent);
     }
     
     /**
-     * Getter method for the host name on which the Redis cache is running.
+     * Getter method for the name of the key holding the current generation
+     * number.
      * 
-     * @param value The host on which the Redis cache is running.
+     * @return The name of the generation pointer key.
      */
-    public void setHost(String value) {
-        if ((value == null) || (value.isEmpty())) { 
-            host = DEFAULT_REDIS_HOST;
-        }
-        host = value;
+    public String getGenerationKey() {
+        return getBase().getHashKey() + REDIS_GENERATION_KEY_SUFFIX;
     }
     
     /**
-     * Getter method for the Redis cache port.
+     * Generations are supported in hash mode only.
      * 
-     * @param value The port on which the Redis cache is listening.
+     * @return True if the storage type is "hash".
      */
-    public void setPort(int value) {
-        port = value;
+    public boolean supportsGenerations() {
+        return (getBase().getStorageType() == StorageType.HASH);
     }
     
     /**
-     * Static inner class used to construct the Singleton object.  This class
+     * Retrieve the generation readers are currently directed to.  The 
+     * pointer is read from the same pool as the records so that a replica
+     * never directs a reader to a generation it has not yet received.
+     * 
+     * @return The current generation, or 0 if generations are not in use.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public long getGeneration() {
+        return readGeneration(topology.getReadPool(getGenerationKey()));
+    }
+    
+    /**
+     * Retrieve the generation readers are currently directed to from the 
+     * master.  A lagging replica could otherwise report the previous 
+     * generation, leading the writer to rebuild (and first drop) the live
+     * one.
+     * 
+     * @return The current generation, or 0 if generations are not in use.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public long getMasterGeneration() {
+        return readGeneration(topology.getPool(getGenerationKey()));
+    }
+    
+    /**
+     * Read the generation pointer through the input pool.
+     * 
+     * @param pool The pool to read from.
+     * @return The current generation, or 0 if generations are not in use.
+     */
+    private long readGeneration(Pool<Jedis> pool) {
+        long value = 0L;
+        if (supportsGenerations()) {
+            try (Jedis jedis = pool.getResource()) {
+                String pointer = jedis.get(getGenerationKey());
+                if (pointer != null) {
+                    value = Long.parseLong(pointer);
+                }
+            }
+            catch (NumberFormatException nfe) {
+                LOGGER.warn("Unable to parse the cache generation.  Error "
+                        + "message => [ "
+                        + nfe.getMessage()
+                        + " ].");
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Direct readers to the input generation with a single SET.
+     * 
+     * @param value The generation readers should use.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void setGeneration(long value) {
+        if (supportsGenerations()) {
+            try (Jedis jedis = topology.getPool(getGenerationKey())
+                    .getResource()) {
+                jedis.set(getGenerationKey(), Long.toString(value));
+            }
+            LOGGER.info("Cache generation set to [ "
+                    + value
+                    + " ].");
+        }
+        else {
+            LOGGER.warn("Generations require the hash storage type.  "
+                    + "Request to switch to generation [ "
+                    + value
+                    + " ] ignored.");
+        }
+    }
+    
+    /**
+     * Obtain a view of the cache bound to the input generation.
+     * 
+     * @param value The generation.
+     * @return The view, or the singleton instance if the generation is 0 
+     * or less or generations are not supported.
+     */
+    public CacheManagerI forGeneration(long value) {
+        RedisCacheManager base = getBase();
+        if ((value <= 0) || (!supportsGenerations())) {
+            return base;
+        }
+        RedisCacheManager view = base.pinned;
+        if ((view == null) || (view.generation != value)) {
+            view = new RedisCacheManager(base, value);
+            base.pinned = view;
+        }
+        return view;
+    }
+    
+    /**
+     * Obtain a view of the cache bound to the current generation.  Costs a
+     * single GET.
+     * 
+     * @return The view, or the singleton instance if generations are not 
+     * in use.
+     */
+    public CacheManagerI pin() {
+        return forGeneration(getGeneration());
+    }
+    
+    /**
+     * Delete the records, index and digests of the input generation.  The
+     * hashes are emptied with HSCAN/HDEL and the index with 
+     * ZREMRANGEBYRANK, <code>batchSize</code> entries at a time, so other 
+     * clients are never blocked behind a single large DEL.
+     * 
+     * @param value The generation to delete.
+     * @return True if the generation existed.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public boolean dropGeneration(long value) {
+        boolean existed = false;
+        if ((value > 0) && (supportsGenerations())) {
+            RedisCacheManager view = new RedisCacheManager(getBase(), value);
+            try (Jedis jedis = topology.getPool(view.getHashKey())
+                    .getResource()) {
+                existed = jedis.exists(view.getHashKey()) || 
+                        jedis.exists(view.getIndexKey()) || 
+                        jedis.exists(view.getDigestKey());
+                if (existed) {
+                    long start = System.currentTimeMillis();
+                    drainHash(jedis, view.getHashKey());
+                    drainHash(jedis, view.getDigestKey());
+                    while (jedis.zremrangeByRank(
+                            view.getIndexKey(), 0, getBatchSize() - 1) > 0) { }
+                    jedis.del(
+                            view.getHashKey(), 
+                            view.getIndexKey(), 
+                            view.getDigestKey());
+                    LOGGER.info("Cache generation [ "
+                            + value
+                            + " ] removed in [ "
+                            + (System.currentTimeMillis() - start)
+                            + " ] ms.");
+                }
+            }
+        }
+        return existed;
+    }
+    
+    /**
+     * Getter method for the name of the sorted set holding the retired 
+     * generations.
+     * 
+     * @return The name of the retired generation set.
+     */
+    public String getRetiredKey() {
+        return getBase().getHashKey() + REDIS_RETIRED_KEY_SUFFIX;
+    }
+    
+    /**
+     * Record the input generation as retired (ZADD scored by the current 
+     * time) so that it is reaped once the grace period has elapsed.
+     * 
+     * @param value The superseded generation.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void retireGeneration(long value) {
+        if ((value > 0) && (supportsGenerations())) {
+            try (Jedis jedis = topology.getPool(getRetiredKey())
+                    .getResource()) {
+                jedis.zadd(
+                        getRetiredKey(), 
+                        System.currentTimeMillis(), 
+                        Long.toString(value));
+            }
+            LOGGER.info("Cache generation [ "
+                    + value
+                    + " ] retired.");
+        }
+    }
+    
+    /**
+     * Delete the generations retired at least <code>gracePeriod</code> ms 
+     * ago (ZRANGEBYSCORE), and remove them from the retired set.  The live
+     * generation, read from the master, is never deleted.
+     * 
+     * @param gracePeriod The minimum time (in ms) since retirement.
+     * @return The number of generations deleted.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public int reapGenerations(long gracePeriod) {
+        int count = 0;
+        if (supportsGenerations()) {
+            Set<String> expired = null;
+            try (Jedis jedis = topology.getPool(getRetiredKey())
+                    .getResource()) {
+                expired = jedis.zrangeByScore(
+                        getRetiredKey(), 
+                        0, 
+                        System.currentTimeMillis() - Math.max(0, gracePeriod));
+            }
+            if ((expired != null) && (expired.size() > 0)) {
+                long live = getMasterGeneration();
+                for (String member : expired) {
+                    try {
+                        long value = Long.parseLong(member);
+                        if ((value != live) && (dropGeneration(value))) {
+                            count++;
+                        }
+                    }
+                    catch (NumberFormatException nfe) {
+                        LOGGER.warn("Ignoring malformed retired generation [ "
+                                + member
+                                + " ].");
+                    }
+                    try (Jedis jedis = topology.getPool(getRetiredKey())
+                            .getResource()) {
+                        jedis.zrem(getRetiredKey(), member);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Remove every field of a hash, <code>batchSize</code> fields at a 
+     * time.
+     * 
+     * @param jedis Connection to the node holding the hash.
+     * @param key The hash.
+     */
+    private void drainHash(Jedis jedis, String key) {
+        ScanParams params = new ScanParams().count(getBatchSize());
+        String     cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<Map.Entry<String, String>> result = 
+                    jedis.hscan(key, cursor, params);
+            List<Map.Entry<String, String>> entries = result.getResult();
+            if (entries.size() > 0) {
+                String[] fields = new String[entries.size()];
+                for (int i=0; i<entries.size(); i++) {
+                    fields[i] = entries.get(i).getKey();
+                }
+                jedis.hdel(key, fields);
+            }
+            cursor = result.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+    
+    /**
+     * Getter method for the maximum number of keys sent to the cache in a 
+     * single bulk command.
+     * 
+     * @return The maximum number of keys per bulk command.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Getter method for the codec used to encode values written to the 
+     * cache.
+     * 
+     * @return The value codec.
+     */
+    public ValueCodec getCodec() {
+        return codec;
+    }
+    
+    /**
+     * Getter method for the pub/sub channel on which cache change events 
+     * are published.
+     * 
+     * @return The change channel name.
+     */
+    public String getChangeChannel() {
+        return changeChannel;
+    }
+    
+    /**
+     * Split the input keys into chunks of at most <code>batchSize</code> 
+     * elements.  Null or empty keys are discarded.
+     * 
+     * @param keys The keys to split.
+     * @return A list of key chunks.  May be empty, but will not be null.
+     */
+    private List<List<String>> getChunks(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        if (keys != null) {
+            List<String> chunk = new ArrayList<String>(getBatchSize());
+            for (String key : keys) {
+                if ((key != null) && (!key.isEmpty())) {
+                    chunk.add(key);
+                    if (chunk.size() >= getBatchSize()) {
+                        chunks.add(chunk);
+                        chunk = new ArrayList<String>(getBatchSize());
+                    }
+                }
+            }
+            if (chunk.size() > 0) {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+    
+    /**
+     * Split the input keys into chunks that may each be sent as a single 
+     * multi-key command, grouped by the node that must receive them.  In 
+     * hash mode every key is a field of the same Redis hash so all chunks
+     * go to the node owning the hash.  Otherwise, if the keyspace is 
+     * sharded, keys are first grouped by hash slot (multi-key commands are
+     * rejected if their keys span slots) and each slot is routed to the 
+     * node serving it.
+     * 
+     * @param keys The keys to split.
+     * @param read True if the commands are reads (and may therefore be 
+     * routed to a replica).
+     * @return The key chunks grouped by node.  May be empty, but will not 
+     * be null.
+     */
+    private Map<Pool<Jedis>, List<List<String>>> getChunksByNode(
+            Collection<String> keys, 
+            boolean read) {
+        
+        Map<Pool<Jedis>, List<List<String>>> groups = 
+                new LinkedHashMap<Pool<Jedis>, List<List<String>>>();
+        
+        if ((getStorageType() == StorageType.HASH) || 
+                (!topology.isClustered())) {
+            List<List<String>> chunks = getChunks(keys);
+            if (chunks.size() > 0) {
+                String target = getHashKey();
+                groups.put(
+                        (read ? 
+                                topology.getReadPool(target) : 
+                                topology.getPool(target)), 
+                        chunks);
+            }
+        }
+        else if (keys != null) {
+            Map<Integer, List<String>> slots = 
+                    new HashMap<Integer, List<String>>();
+            for (String key : keys) {
+                if ((key != null) && (!key.isEmpty())) {
+                    Integer      slot    = ClusterTopology.getSlot(key);
+                    List<String> members = slots.get(slot);
+                    if (members == null) {
+                        members = new ArrayList<String>();
+                        slots.put(slot, members);
+                    }
+                    members.add(key);
+                }
+            }
+            for (List<String> members : slots.values()) {
+                Pool<Jedis> pool = (read ? 
+                        topology.getReadPool(members.get(0)) : 
+                        topology.getPool(members.get(0)));
+                List<List<String>> chunks = groups.get(pool);
+                if (chunks == null) {
+                    chunks = new ArrayList<List<String>>();
+                    groups.put(pool, chunks);
+                }
+                chunks.addAll(getChunks(members));
+            }
+        }
+        return groups;
+    }
+    
+    /**
+     * Getter method for the name of the Redis hash holding the records when 
+     * in hash mode.
+     * 
+     * @return The name of the Redis hash.
+     */
+    public String getHashKey() {
+        return hashKey;
+    }
+    
+    /**
+     * Getter method for the Redis cache host name.
+     * 
+     * @return The host name of the server running the target Redis cache.
+     */
+    public String getHost() {
+        return host;
+    }
+    
+    /**
+     * Get a Set containing all of the keys that are currently stored in the 
+     * target cache.  The keys are retrieved incrementally via SCAN so the 
+     * Redis server remains responsive to other clients while the key set 
+     * is built.
+     *   
+     * @return A Set containing all of the keys stored in the Redis cache.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public Set<String> getKeys() {
+        long             start  = System.currentTimeMillis();
+        Set<String>      keySet = new HashSet<String>();
+        Iterator<String> iter   = scan("*");
+        while (iter.hasNext()) {
+            keySet.add(iter.next());
+        }
+        keySet.remove(REDIS_VERSION_KEY);
+        keySet.remove(REDIS_DIGEST_KEY);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Scanned [ "
+                    + keySet.size()
+                    + " ] keys in [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.");
+        }
+        return keySet;
+    }
+    
+    /**
+     * Getter method for the name of the sorted set used to order the keys 
+     * in hash mode.  It is derived from the hash name.  In a cluster the 
+     * hash name is wrapped in a hash tag so that the index is assigned the
+     * same slot (and therefore the same node) as the hash itself.
+     * 
+     * @return The name of the sorted set index.
+     */
+    public String getIndexKey() {
+        if (topology.isClustered()) {
+            return "{" + getHashKey() + "}" + REDIS_INDEX_KEY_SUFFIX;
+        }
+        return getHashKey() + REDIS_INDEX_KEY_SUFFIX;
+    }
+    
+    /**
+     * Retrieve the keys ordered by descending score (e.g. newest file date 
+     * first) with a single ZREVRANGE.  The index is only maintained in hash
+     * mode; in keyspace mode the returned List is empty and callers must
+     * order the records themselves.
+     * 
+     * @return The keys ordered by descending score.  May be empty, but will
+     * not be null.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public List<String> getKeysByScore() {
+        List<String> keys = new ArrayList<String>();
+        if (getStorageType() == StorageType.HASH) {
+            try (Jedis jedis = topology.getReadPool(getIndexKey())
+                    .getResource()) {
+                Set<String> ordered = jedis.zrevrange(getIndexKey(), 0, -1);
+                if (ordered != null) {
+                    keys.addAll(ordered);
+                }
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Get a List containing all of the keys that are currently stored in the 
+     * target cache.  This was added because I got tired of converting the Set 
+     * to a list throughout the code.
+     *   
+     * @return A List containing all of the keys stored in the Redis cache.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public List<String> getKeysAsList() {
+        return new ArrayList<String>(getKeys());
+    }
+    
+    /**
+     * Getter method for the COUNT hint supplied with each SCAN command.
+     * 
+     * @return The SCAN COUNT hint.
+     */
+    public int getScanCount() {
+        return scanCount;
+    }
+    
+    /**
+     * Getter method for the cache storage type.
+     * 
+     * @return The cache storage type.
+     */
+    public StorageType getStorageType() {
+        return storageType;
+    }
+    
+    /**
+     * Retrieve the current cache version number.
+     * 
+     * @return The current version number.  0 if the version has never been 
+     * set, or cannot be parsed.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public long getVersion() {
+        long version = 0L;
+        try (Jedis jedis = topology.getPool(REDIS_VERSION_KEY).getResource()) {
+            String value = jedis.get(REDIS_VERSION_KEY);
+            if (value != null) {
+                version = Long.parseLong(value);
+            }
+        }
+        catch (NumberFormatException nfe) {
+            LOGGER.warn("Unable to parse the cache version.  Error "
+                    + "message => [ "
+                    + nfe.getMessage()
+                    + " ].");
+        }
+        return version;
+    }
+    
+    /**
+     * Increment the cache version number (INCR).
+     * 
+     * @return The new version number.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public long incrementVersion() {
+        long version = 0L;
+        try (Jedis jedis = topology.getPool(REDIS_VERSION_KEY).getResource()) {
+            version = jedis.incr(REDIS_VERSION_KEY);
+        }
+        LOGGER.info("Cache version incremented to [ "
+                + version
+                + " ].");
+        return version;
+    }
+    
+    /**
+     * Getter method for the Redis cache port.
+     * 
+     * @return The port on which the Redis cache is listening.
+     */
+    public int getPort() {
+        return port;
+    }
+    
+    /**
+     * Take a snapshot of the connection pool statistics.  The same 
+     * statistics are also available via JMX.
+     * 
+     * @return The current connection pool statistics.
+     */
+    public RedisPoolStatistics getPoolStatistics() {
+        
+        List<Pool<Jedis>> pools      = topology.getPools();
+        int               numActive  = 0;
+        int               numIdle    = 0;
+        int               numWaiters = 0;
+        long              meanWait   = 0L;
+        long              maxWait    = 0L;
+        
+        for (Pool<Jedis> pool : pools) {
+            numActive  += pool.getNumActive();
+            numIdle    += pool.getNumIdle();
+            numWaiters += pool.getNumWaiters();
+            meanWait   += pool.getMeanBorrowWaitTimeMillis();
+            maxWait     = Math.max(maxWait, pool.getMaxBorrowWaitTimeMillis());
+        }
+        if (pools.size() > 0) {
+            meanWait = meanWait / pools.size();
+        }
+        return new RedisPoolStatistics(
+                poolConfig.getMaxTotal() * pools.size(),
+                numActive,
+                numIdle,
+                numWaiters,
+                meanWait,
+                maxWait);
+    }
+    
+    /**
+     * Getter method for the layout of the Redis deployment.
+     * 
+     * @return The Redis topology.
+     */
+    public RedisTopology getTopology() {
+        return topology;
+    }
+    
+    /**
+     * Accessor method for the singleton instance of the 
+     * RedisCacheManager class.
+     * 
+     * @return The singleton instance of the RedisCacheManager.
+     * class.
+     */
+    public static RedisCacheManager getInstance() {
+        return RedisCacheManagerHolder.getSingleton();
+    } 
+    
+    /**
+     * Publish change events to the cache change channel.  All of the 
+     * PUBLISH commands are sent through a single pipeline.
+     * 
+     * @param events The events to publish.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void publish(Collection<CacheChangeEvent> events) {
+        long start = System.currentTimeMillis();
+        int  count = 0;
+        if ((events != null) && (events.size() > 0)) {
+            try (Jedis jedis = topology.getPool(getChangeChannel())
+                    .getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (CacheChangeEvent event : events) {
+                    if ((event != null) && 
+                            (event.getOperation() != null) && 
+                            (event.getKey() != null)) {
+                        pipeline.publish(
+                                getChangeChannel(), 
+                                event.toMessage());
+                        count++;
+                    }
+                }
+                sync(pipeline);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Published [ "
+                        + count
+                        + " ] change events to channel [ "
+                        + getChangeChannel()
+                        + " ] in [ "
+                        + (System.currentTimeMillis() - start)
+                        + " ] ms.");
+            }
+        }
+    }
+    
+    /**
+     * Incrementally iterate over the keys in the target cache that match 
+     * the input pattern using SCAN (HSCAN in hash mode).  Unlike KEYS, SCAN
+     * does not block the Redis server for the duration of the keyspace 
+     * walk.
+     * 
+     * @param pattern Glob-style pattern keys must match (e.g. "*").  If 
+     * null or empty all keys are returned.
+     * @return An Iterator over the matching keys.  A key may be returned 
+     * more than once.
+     */
+    public Iterator<String> scan(String pattern) {
+        if (getStorageType() == StorageType.HASH) {
+            return new RedisKeyIterator(
+                    topology.getReadPool(getHashKey()), 
+                    getHashKey(), 
+                    pattern, 
+                    getScanCount());
+        }
+        return new RedisKeyIterator(
+                topology.getMasterPools(), pattern, getScanCount());
+    }
+    
+    /**
+     * Store a key/value pair in the target cache.
+     * 
+     * @param key Key to query for. 
+     * @param value The value associated with the input key.  This method
+     * returns null of unable to retrieve the key from the cache.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void put(String key, String value) {
+        if ((key != null) && (!key.isEmpty())) {
+            if ((value != null) && (!value.isEmpty())) {
+                final byte[] field   = SafeEncoder.encode(key);
+                final byte[] encoded = codec.encode(value);
+                execute(getTarget(key), false, new KeyCommand<Object>() {
+                    @Override
+                    public Object execute(Jedis jedis) {
+                        if (getStorageType() == StorageType.HASH) {
+                            return jedis.hset(
+                                    SafeEncoder.encode(getHashKey()), 
+                                    field, 
+                                    encoded);
+                        }
+                        return jedis.set(field, encoded);
+                    }
+                });
+            }
+            else {
+                LOGGER.error("The input value is null or empty.  It will not "
+                        + "be stored in the cache.");
+            }
+        }
+        else {
+            LOGGER.error("The input key is null or empty.  It will not "
+                    + "be used to identify a record in the cache.");
+        }
+    }
+ 
+    /**
+     * Store all of the input key/value pairs in the target cache.  The pairs 
+     * are split into chunks of <code>batchSize</code> and each chunk is 
+     * issued as a single MSET (HMSET in hash mode) through one pipeline.  
+     * Entries with a null or empty key or value are skipped.
+     * 
+     * @param values Map containing the key/value pairs to store.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void putAll(Map<String, String> values) {
+        putAll(values, null);
+    }
+    
+    /**
+     * Store all of the input key/value pairs in the target cache along with
+     * the score used to order each key.  In hash mode the scores are added
+     * to the sorted set index in the same pipeline as the values.  In 
+     * keyspace mode the scores are ignored.
+     * 
+     * @param values Map containing the key/value pairs to store.
+     * @param scores Map containing the score associated with each key (may 
+     * be null).  Keys without a score are not indexed.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void putAll(Map<String, String> values, Map<String, Double> scores) {
+        
+        long start   = System.currentTimeMillis();
+        int  count   = 0;
+        int  batches = 0;
+        
+        if ((values != null) && (values.size() > 0)) {
+            Map<String, String> valid = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if ((entry.getKey() != null) && 
+                        (!entry.getKey().isEmpty()) && 
+                        (entry.getValue() != null) && 
+                        (!entry.getValue().isEmpty())) {
+                    valid.put(entry.getKey(), entry.getValue());
+                }
+                else {
+                    LOGGER.error("The input key or value is null or "
+                            + "empty.  It will not be stored in the "
+                            + "cache.");
+                }
+            }
+            count = valid.size();
+            try {
+                batches = writeAll(valid, scores);
+            }
+            catch (JedisMovedDataException jmde) {
+                handleRedirection(jmde);
+                try {
+                    batches = writeAll(valid, scores);
+                }
+                catch (JedisAskDataException jade) {
+                    handleMigration(jade);
+                    batches = writeEach(valid, scores);
+                }
+            }
+            catch (JedisAskDataException jade) {
+                handleMigration(jade);
+                batches = writeEach(valid, scores);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Stored [ "
+                        + count
+                        + " ] values in [ "
+                        + batches
+                        + " ] batches in [ "
+                        + (System.currentTimeMillis() - start)
+                        + " ] ms.");
+            }
+        }
+        else {
+            LOGGER.warn("The input Map is null or empty.  Nothing will be "
+                    + "stored in the cache.");
+        }
+    }
+    
+    /**
+     * Implementation of <code>putAll(Map, Map)</code>.  Commands destined 
+     * for the same node are sent through one pipeline.
+     * 
+     * @param values Map containing the validated key/value pairs to store.
+     * @param scores Map containing the score associated with each key (may 
+     * be null).
+     * @return The number of bulk commands issued.
+     */
+    private int writeAll(Map<String, String> values, Map<String, Double> scores) {
+        int batches = 0;
+        for (Map.Entry<Pool<Jedis>, List<List<String>>> group : 
+                getChunksByNode(values.keySet(), false).entrySet()) {
+            try (Jedis jedis = group.getKey().getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (List<String> keys : group.getValue()) {
+                    Map<String, String> chunk = 
+                            new LinkedHashMap<String, String>();
+                    for (String key : keys) {
+                        chunk.put(key, values.get(key));
+                    }
+                    write(pipeline, chunk, scores);
+                    batches++;
+                }
+                sync(pipeline);
+            }
+        }
+        return batches;
+    }
+    
+    /**
+     * Store the input key/value pairs (and, in hash mode, their scores) one
+     * key at a time.  Used while a slot is being migrated, when multi-key 
+     * commands may be refused.
+     * 
+     * @param values Map containing the validated key/value pairs to store.
+     * @param scores Map containing the score associated with each key (may 
+     * be null).
+     * @return The number of commands issued.
+     */
+    private int writeEach(
+            Map<String, String> values, 
+            Map<String, Double> scores) {
+        int commands = 0;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            final String key = entry.getKey();
+            put(key, entry.getValue());
+            commands++;
+            if ((getStorageType() == StorageType.HASH) && (scores != null)) {
+                final Double score = scores.get(key);
+                if (score != null) {
+                    execute(getIndexKey(), false, new KeyCommand<Object>() {
+                        @Override
+                        public Object execute(Jedis jedis) {
+                            return jedis.zadd(getIndexKey(), score, key);
+                        }
+                    });
+                    commands++;
+                }
+            }
+        }
+        return commands;
+    }
+    
+    /**
+     * Remove a key/value pair from the target cache.
+     * 
+     * @param key Key to remove. 
+     */
+    public void remove(String key) {
+        if ((key != null) && (!key.isEmpty())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Removing key [ "
+                        + key
+                        + " ].");
+            }
+            final String member = key;
+            if (getStorageType() == StorageType.HASH) {
+                execute(getHashKey(), false, new KeyCommand<Object>() {
+                    @Override
+                    public Object execute(Jedis jedis) {
+                        return jedis.hdel(getHashKey(), member);
+                    }
+                });
+                execute(getIndexKey(), false, new KeyCommand<Object>() {
+                    @Override
+                    public Object execute(Jedis jedis) {
+                        return jedis.zrem(getIndexKey(), member);
+                    }
+                });
+            }
+            else {
+                execute(key, false, new KeyCommand<Object>() {
+                    @Override
+                    public Object execute(Jedis jedis) {
+                        return jedis.del(member);
+                    }
+                });
+            }
+            execute(getDigestKey(), false, new KeyCommand<Object>() {
+                @Override
+                public Object execute(Jedis jedis) {
+                    return jedis.hdel(getDigestKey(), member);
+                }
+            });
+        }
+        else {
+            LOGGER.error("The input value is null or empty.  No attempt will "
+                    + "be made to remove the key.");
+        }
+    }
+    
+    /**
+     * Remove all of the input keys from the target cache.  The keys are 
+     * split into chunks of <code>batchSize</code> and each chunk is issued 
+     * as a single DEL (HDEL/ZREM in hash mode) through one pipeline per 
+     * node.  The digests of the keys are removed as well.
+     * 
+     * @param keys The keys to remove.
+     * @throws JedisConnectionException Runtime exception thrown if a 
+     * connection cannot be made to the local Redis cache. 
+     */
+    public void removeAll(Collection<String> keys) {
+        if ((keys != null) && (keys.size() > 0)) {
+            try {
+                deleteAll(keys);
+            }
+            catch (JedisMovedDataException jmde) {
+                handleRedirection(jmde);
+                try {
+                    deleteAll(keys);
+                }
+                catch (JedisAskDataException jade) {
+                    handleMigration(jade);
+                    deleteEach(keys);
+                }
+            }
+            catch (JedisAskDataException jade) {
+                handleMigration(jade);
+                deleteEach(keys);
+            }
+        }
+        else {
+            LOGGER.error("The input key list is null or empty.  No attempt "
+                    + "will be made to remove the keys.");
+        }
+    }
+    
+    /**
+     * Implementation of <code>removeAll(Collection)</code>.
+     * 
+     * @param keys The keys to remove.
+     */
+    private void deleteAll(Collection<String> keys) {
+        for (Map.Entry<Pool<Jedis>, List<List<String>>> group : 
+                getChunksByNode(keys, false).entrySet()) {
+            try (Jedis jedis = group.getKey().getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (List<String> chunk : group.getValue()) {
+                    String[] array = chunk.toArray(new String[chunk.size()]);
+                    if (getStorageType() == StorageType.HASH) {
+                        pipeline.hdel(getHashKey(), array);
+                        pipeline.zrem(getIndexKey(), array);
+                    }
+                    else {
+                        pipeline.del(array);
+                    }
+                }
+                sync(pipeline);
+            }
+        }
+        try (Jedis jedis = topology.getPool(getDigestKey()).getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (List<String> chunk : getChunks(keys)) {
+                pipeline.hdel(
+                        getDigestKey(), 
+                        chunk.toArray(new String[chunk.size()]));
+            }
+            sync(pipeline);
+        }
+    }
+    
+    /**
+     * Remove the input keys (and their digests) one key at a time.  Used 
+     * while a slot is being migrated, when multi-key commands may be 
+     * refused.
+     * 
+     * @param keys The keys to remove.
+     */
+    private void deleteEach(Collection<String> keys) {
+        for (String key : keys) {
+            if ((key != null) && (!key.isEmpty())) {
+                remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Register a listener to be notified of cache change events.  Events 
+     * are delivered on a dedicated daemon thread which holds one 
+     * connection from the pool for the life of the subscription.
+     * 
+     * @param listener The client to notify.
+     * @return Handle used to cancel the subscription, or null if the 
+     * listener is null.
+     */
+    public CacheSubscription subscribe(CacheChangeListener listener) {
+        CacheSubscription subscription = null;
+        if (listener != null) {
+            subscription = new RedisCacheSubscription(
+                    topology.getPool(getChangeChannel()), 
+                    getChangeChannel(), 
+                    listener);
+        }
+        else {
+            LOGGER.error("The input listener is null.  No subscription "
+                    + "will be created.");
+        }
+        return subscription;
+    }
+    
+    /**
+     * Close the Jedis connection pools.
+     */
+    @Override
+    public void close() {
+        if (parent != null) {
+            // Generation views share the pools of the singleton.
+            return;
+        }
+        if (topology != null) {
+            LOGGER.info(getPoolStatistics().toString());
+            LOGGER.info("Closing the Jedis connection pools.");
+            topology.close();
+        }
+    }
+    
+    /**
+     * Setter method for the maximum number of keys sent to the cache in a 
+     * single bulk command.  Values less than 1 are replaced with the 
+     * default.
+     * 
+     * @param value The maximum number of keys per bulk command.
+     */
+    public void setBatchSize(int value) {
+        if (value < 1) {
+            batchSize = DEFAULT_REDIS_BATCH_SIZE;
+        }
+        else {
+            batchSize = value;
+        }
+    }
+    
+    /**
+     * Setter method for the COUNT hint supplied with each SCAN command.  
+     * Values less than 1 are replaced with the default.
+     * 
+     * @param value The SCAN COUNT hint.
+     */
+    public void setScanCount(int value) {
+        if (value < 1) {
+            scanCount = DEFAULT_REDIS_SCAN_COUNT;
+        }
+        else {
+            scanCount = value;
+        }
+    }
+    
+    /**
+     * Setter method for the codec used to encode values written to the 
+     * cache.
+     * 
+     * @param value The codec type.  If null the JSON codec is used.
+     */
+    public void setCodec(CodecType value) {
+        codec = ValueCodecFactory.getInstance().getCodec(value);
+    }
+    
+    /**
+     * Setter method for the pub/sub channel on which cache change events 
+     * are published.
+     * 
+     * @param value The change channel name.
+     */
+    public void setChangeChannel(String value) {
+        if ((value == null) || (value.trim().isEmpty())) {
+            changeChannel = DEFAULT_REDIS_CHANGE_CHANNEL;
+        }
+        else {
+            changeChannel = value.trim();
+        }
+    }
+    
+    /**
+     * Setter method for the name of the Redis hash holding the records when
+     * in hash mode.
+     * 
+     * @param value The name of the Redis hash.
+     */
+    public void setHashKey(String value) {
+        if ((value == null) || (value.trim().isEmpty())) {
+            hashKey = DEFAULT_REDIS_HASH_KEY;
+        }
+        else {
+            hashKey = value.trim();
+        }
+    }
+    
+    /**
+     * Getter method for the host name on which the Redis cache is running.
+     * 
+     * @param value The host on which the Redis cache is running.
+     */
+    public void setHost(String value) {
+        if ((value == null) || (value.isEmpty())) { 
+            host = DEFAULT_REDIS_HOST;
+        }
+        host = value;
+    }
+    
+    /**
+     * Getter method for the Redis cache port.
+     * 
+     * @param value The port on which the Redis cache is listening.
+     */
+    public void setPort(int value) {
+        port = value;
+    }
+    
+    /**
+     * Setter method for the cache storage type.
+     * 
+     * @param value The cache storage type.
+     */
+    public void setStorageType(StorageType value) {
+        if (value == null) {
+            storageType = StorageType.KEYSPACE;
+        }
+        else {
+            storageType = value;
+        }
+    }
+    
+    /**
+     * Retrieve a single value from the node owning the input key.
+     * 
+     * @param key Key to query for.
+     * @return The associated value, or null if not found.
+     */
+    private String read(String key) {
+        final byte[] field = SafeEncoder.encode(key);
+        return decode(execute(getTarget(key), true, new KeyCommand<byte[]>() {
+            @Override
+            public byte[] execute(Jedis jedis) {
+                if (getStorageType() == StorageType.HASH) {
+                    return jedis.hget(
+                            SafeEncoder.encode(getHashKey()), 
+                            field);
+                }
+                return jedis.get(field);
+            }
+        }));
+    }
+    
+    /**
+     * Issue a single-key command against the node owning the key, 
+     * following any cluster redirection.  After a MOVED redirection the 
+     * slot layout is re-read and the command retried once.  After an ASK 
+     * redirection the command is sent to the importing node, preceded by 
+     * ASKING.
+     * 
+     * @param key The Redis key the command accesses.
+     * @param read True if the command is a read (and may therefore be 
+     * routed to a replica).
+     * @param command The command to issue.
+     * @return The result of the command.
+     */
+    private <T> T execute(String key, boolean read, KeyCommand<T> command) {
+        try {
+            return executeOn(key, read, command);
+        }
+        catch (JedisMovedDataException jmde) {
+            handleRedirection(jmde);
+        }
+        catch (JedisAskDataException jade) {
+            return ask(jade, command);
+        }
+        try {
+            return executeOn(key, read, command);
+        }
+        catch (JedisAskDataException jade) {
+            return ask(jade, command);
+        }
+    }
+    
+    /**
+     * Issue a single-key command against the pool the topology assigns to 
+     * the key.
+     * 
+     * @param key The Redis key the command accesses.
+     * @param read True if the command is a read.
+     * @param command The command to issue.
+     * @return The result of the command.
+     */
+    private <T> T executeOn(String key, boolean read, KeyCommand<T> command) {
+        Pool<Jedis> pool = (read ? 
+                topology.getReadPool(key) : 
+                topology.getPool(key));
+        try (Jedis jedis = pool.getResource()) {
+            return command.execute(jedis);
+        }
+    }
+    
+    /**
+     * Follow an ASK redirection: issue ASKING and then the command on the 
+     * node importing the slot.  The slot layout is not changed because 
+     * the slot still belongs to the migrating node.
+     * 
+     * @param jade The redirection.
+     * @param command The command to issue.
+     * @return The result of the command.
+     */
+    private <T> T ask(JedisAskDataException jade, KeyCommand<T> command) {
+        HostAndPort node = jade.getTargetNode();
+        try (Jedis jedis = new Jedis(
+                node.getHost(), 
+                node.getPort(), 
+                connectTimeout, 
+                socketTimeout)) {
+            jedis.asking();
+            return command.execute(jedis);
+        }
+    }
+    
+    /**
+     * Decode a value read from the cache, whatever codec wrote it.
+     * 
+     * @param value The bytes read from the cache (may be null).
+     * @return The JSON value, or null if not found or not decodable.
+     */
+    private String decode(byte[] value) {
+        return ValueCodecFactory.getInstance().decode(value);
+    }
+    
+    /**
+     * Convert a chunk of record keys to the binary form required by the 
+     * binary Jedis commands.
+     * 
+     * @param keys The record keys.
+     * @return The UTF-8 encoded keys.
+     */
+    private byte[][] encodeKeys(List<String> keys) {
+        byte[][] array = new byte[keys.size()][];
+        for (int i=0; i<keys.size(); i++) {
+            array[i] = SafeEncoder.encode(keys.get(i));
+        }
+        return array;
+    }
+    
+    /**
+     * Determine the Redis key that physically holds the input record key.  
+     * In hash mode every record is a field of the same hash.
+     * 
+     * @param key The record key.
+     * @return The Redis key used to route the command.
+     */
+    private String getTarget(String key) {
+        if (getStorageType() == StorageType.HASH) {
+            return getHashKey();
+        }
+        return key;
+    }
+    
+    /**
+     * Flush the pipeline and surface any redirection returned by the 
+     * cluster.  <code>Pipeline.sync()</code> silently discards command 
+     * errors, which would cause writes to a resharded slot to be lost.
+     * 
+     * @param pipeline The pipeline to flush.
+     * @throws JedisRedirectionException Thrown if any command was 
+     * redirected to another node.
+     */
+    private void sync(Pipeline pipeline) {
+        for (Object result : pipeline.syncAndReturnAll()) {
+            if (result instanceof JedisRedirectionException) {
+                throw (JedisRedirectionException)result;
+            }
+        }
+    }
+    
+    /**
+     * Log a redirection returned by the cluster and re-read the slot 
+     * layout so that the failed command may be retried once.
+     * 
+     * @param jre The redirection.
+     */
+    private void handleRedirection(JedisRedirectionException jre) {
+        LOGGER.warn("Cluster redirection received.  Refreshing the "
+                + "topology and retrying.  Error message => [ "
+                + jre.getMessage()
+                + " ].");
+        topology.refresh();
+    }
+    
+    /**
+     * Log an ASK redirection returned by the cluster.  The slot is being 
+     * migrated, so the failed bulk command is reissued as single-key 
+     * commands.
+     * 
+     * @param jade The redirection.
+     */
+    private void handleMigration(JedisAskDataException jade) {
+        LOGGER.warn("Slot [ "
+                + jade.getSlot()
+                + " ] is migrating to [ "
+                + jade.getTargetNode()
+                + " ].  Falling back to single-key commands.");
+    }
+    
+    /**
+     * Queue the commands required to store one chunk of key/value pairs 
+     * (and, in hash mode, their scores) on the input pipeline.
+     * 
+     * @param pipeline The pipeline on which the commands are queued.
+     * @param chunk The key/value pairs to store.
+     * @param scores The scores associated with each key (may be null).
+     */
+    private void write(
+            Pipeline pipeline, 
+            Map<String, String> chunk, 
+            Map<String, Double> scores) {
+        if (getStorageType() == StorageType.HASH) {
+            Map<byte[], byte[]> fields = new HashMap<byte[], byte[]>(
+                    (int)(chunk.size() / 0.75f) + 1);
+            for (Map.Entry<String, String> entry : chunk.entrySet()) {
+                fields.put(
+                        SafeEncoder.encode(entry.getKey()), 
+                        codec.encode(entry.getValue()));
+            }
+            pipeline.hmset(SafeEncoder.encode(getHashKey()), fields);
+            if (scores != null) {
+                Map<String, Double> members = new HashMap<String, Double>();
+                for (String key : chunk.keySet()) {
+                    Double score = scores.get(key);
+                    if (score != null) {
+                        members.put(key, score);
+                    }
+                }
+                if (members.size() > 0) {
+                    pipeline.zadd(getIndexKey(), members);
+                }
+            }
+        }
+        else {
+            byte[][] keysvals = new byte[2 * chunk.size()][];
+            int      index    = 0;
+            for (Map.Entry<String, String> entry : chunk.entrySet()) {
+                keysvals[index++] = SafeEncoder.encode(entry.getKey());
+                keysvals[index++] = codec.encode(entry.getValue());
+            }
+            pipeline.mset(keysvals);
+        }
+    }
+    
+    /**
+     * A command accessing a single Redis key.
+     */
+    private interface KeyCommand<T> {
+        
+        /**
+         * Issue the command.
+         * 
+         * @param jedis Connection to the node owning the key.
+         * @return The result of the command.
+         */
+        T execute(Jedis jedis);
+    }
+    
+    /**
+     * Static inner class used to construct the Singleton object.  This class
      * exploits the fact that classes are not loaded until they are referenced
      * therefore enforcing thread safety without the performance hit imposed
      * by the <code>synchronized</code> keyword.
@@ -245,7 +2126,8 @@ public class RedisCacheManager
         /**
          * Reference to the Singleton instance of the RedisCacheManager.
          */
-        private static RedisCacheManager _instance = null;
+        private static final RedisCacheManager _instance = 
+                new RedisCacheManager();
     
         /**
          * Accessor method for the singleton instance of the 
@@ -254,9 +2136,6 @@ public class RedisCacheManager
          * @return The Singleton instance of the RedisCacheManager.
          */
         public static RedisCacheManager getSingleton() {
-            if (_instance == null) {
-                _instance = new RedisCacheManager();
-            }
             return _instance;
         }
         
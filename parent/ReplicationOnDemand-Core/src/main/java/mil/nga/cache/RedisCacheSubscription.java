@@ -0,0 +1,157 @@
+package mil.nga.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.Pool;
+
+/**
+ * Subscription to the Redis cache change channel.  SUBSCRIBE blocks the
+ * connection on which it is issued so events are received on a dedicated
+ * daemon thread holding a single connection borrowed from the pool.  If
+ * the connection is lost the thread waits and re-subscribes until the
+ * subscription is closed.  Events published while the connection is down
+ * are lost (pub/sub is fire-and-forget), so listeners requiring complete
+ * consistency should also track the cache version.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RedisCacheSubscription implements CacheSubscription, Runnable {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            RedisCacheSubscription.class);
+
+    /**
+     * Time (in ms) to wait before attempting to re-subscribe after the
+     * connection is lost.
+     */
+    private static final long RECONNECT_DELAY = 5000L;
+
+    // Private internal members
+    private final Pool<Jedis>         pool;
+    private final String              channel;
+    private final CacheChangeListener listener;
+    private final Thread              thread;
+
+    /**
+     * The currently active subscriber.
+     */
+    private volatile JedisPubSub subscriber = null;
+
+    /**
+     * Set to false when the subscription is closed.
+     */
+    private volatile boolean active = true;
+
+    /**
+     * Constructor.  Starts the subscriber thread.
+     *
+     * @param pool The connection pool used to access the cache.
+     * @param channel The channel on which change events are published.
+     * @param listener The client to notify.
+     */
+    public RedisCacheSubscription(
+            Pool<Jedis> pool,
+            String channel,
+            CacheChangeListener listener) {
+        this.pool     = pool;
+        this.channel  = channel;
+        this.listener = listener;
+        thread = new Thread(this, "rod-cache-subscriber");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Subscribe to the change channel, re-subscribing after connection
+     * failures until closed.
+     */
+    @Override
+    public void run() {
+        LOGGER.info("Subscribing to cache change channel [ "
+                + channel
+                + " ].");
+        while (active) {
+            try (Jedis jedis = pool.getResource()) {
+                subscriber = new ChangeSubscriber();
+                if (active) {
+                    // Blocks until unsubscribed or the connection fails.
+                    jedis.subscribe(subscriber, channel);
+                }
+            }
+            catch (JedisConnectionException jce) {
+                if (active) {
+                    LOGGER.warn("Lost connection to cache change channel [ "
+                            + channel
+                            + " ].  Error message => [ "
+                            + jce.getMessage()
+                            + " ].  Retrying in [ "
+                            + RECONNECT_DELAY
+                            + " ] ms.");
+                    try {
+                        Thread.sleep(RECONNECT_DELAY);
+                    }
+                    catch (InterruptedException ie) {
+                        active = false;
+                    }
+                }
+            }
+        }
+        LOGGER.info("Subscription to cache change channel [ "
+                + channel
+                + " ] closed.");
+    }
+
+    /**
+     * Determine whether the subscription is still active.
+     *
+     * @return False once the subscription has been closed.
+     */
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Unsubscribe from the change channel and stop the subscriber thread.
+     */
+    @Override
+    public void close() {
+        active = false;
+        JedisPubSub current = subscriber;
+        if ((current != null) && (current.isSubscribed())) {
+            current.unsubscribe();
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * Decodes messages received on the change channel and forwards them to
+     * the listener.  Listener failures are logged so that a single bad
+     * event does not terminate the subscription.
+     */
+    private class ChangeSubscriber extends JedisPubSub {
+
+        @Override
+        public void onMessage(String channel, String message) {
+            CacheChangeEvent event = CacheChangeEvent.fromMessage(message);
+            if (event != null) {
+                try {
+                    listener.onChange(event);
+                }
+                catch (RuntimeException re) {
+                    LOGGER.error("Unexpected exception raised by cache change "
+                            + "listener.  Error message => [ "
+                            + re.getMessage()
+                            + " ].");
+                }
+            }
+        }
+    }
+}
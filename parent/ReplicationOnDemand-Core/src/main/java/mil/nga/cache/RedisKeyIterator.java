@@ -0,0 +1,204 @@
+package mil.nga.cache;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.util.Pool;
+
+/**
+ * Iterator over the keys stored in a Redis cache.  The keys are retrieved
+ * incrementally with the SCAN command rather than with KEYS so the Redis
+ * server is never blocked walking the entire keyspace.  If a hash key is 
+ * supplied the fields of that hash are iterated with HSCAN instead.  A
+ * connection is only borrowed from the pool for the duration of each SCAN
+ * call so the iterator may be held (and consumed slowly) without tying up
+ * a connection.  If the keyspace is sharded across several nodes each node
+ * is scanned in turn.
+ *
+ * Note: SCAN guarantees that every key present for the full duration of
+ * the iteration is returned, but a key may be returned more than once.
+ * Callers requiring unique keys should collect the output in a Set.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RedisKeyIterator implements Iterator<String> {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            RedisKeyIterator.class);
+
+    /**
+     * Connection pools (one per node) from which connections are borrowed 
+     * for each SCAN.
+     */
+    private final List<Pool<Jedis>> pools;
+    
+    /**
+     * Index of the node currently being scanned.
+     */
+    private int node = 0;
+
+    /**
+     * The parameters (MATCH/COUNT) supplied with each SCAN.
+     */
+    private final ScanParams params;
+
+    /**
+     * If non-null, the Redis hash whose fields are iterated.
+     */
+    private final String hashKey;
+
+    /**
+     * Keys returned by the last SCAN that have not yet been consumed.
+     */
+    private final Deque<String> buffer = new ArrayDeque<String>();
+
+    /**
+     * The cursor returned by the last SCAN.
+     */
+    private String cursor = ScanParams.SCAN_POINTER_START;
+
+    /**
+     * Set to true when the last node returns the terminating cursor.
+     */
+    private boolean complete = false;
+
+    /**
+     * Constructor.
+     *
+     * @param pool The connection pool used to access the cache.
+     * @param pattern The MATCH pattern (e.g. "*").  If null or empty all
+     * keys are returned.
+     * @param count The COUNT hint supplied to each SCAN call.
+     */
+    public RedisKeyIterator(Pool<Jedis> pool, String pattern, int count) {
+        this(pool, null, pattern, count);
+    }
+    
+    /**
+     * Constructor used to iterate over a keyspace sharded across several 
+     * nodes.
+     *
+     * @param pools The connection pools used to access each node.
+     * @param pattern The MATCH pattern (e.g. "*").  If null or empty all
+     * keys are returned.
+     * @param count The COUNT hint supplied to each SCAN call.
+     */
+    public RedisKeyIterator(
+            List<Pool<Jedis>> pools, 
+            String pattern, 
+            int count) {
+        this(pools, null, pattern, count);
+    }
+
+    /**
+     * Constructor used to iterate over the fields of a single Redis hash.
+     *
+     * @param pool The connection pool used to access the cache.
+     * @param hashKey The Redis hash whose fields are iterated.  If null the
+     * top-level keyspace is iterated.
+     * @param pattern The MATCH pattern (e.g. "*").  If null or empty all
+     * keys are returned.
+     * @param count The COUNT hint supplied to each SCAN call.
+     */
+    public RedisKeyIterator(
+            Pool<Jedis> pool, 
+            String hashKey, 
+            String pattern, 
+            int count) {
+        this(Collections.singletonList(pool), hashKey, pattern, count);
+    }
+    
+    /**
+     * Private constructor used by all of the public constructors.
+     */
+    private RedisKeyIterator(
+            List<Pool<Jedis>> pools, 
+            String hashKey, 
+            String pattern, 
+            int count) {
+        this.pools   = pools;
+        this.hashKey = hashKey;
+        complete     = pools.isEmpty();
+        params = new ScanParams();
+        if ((pattern != null) && (!pattern.isEmpty())) {
+            params.match(pattern);
+        }
+        params.count(count);
+    }
+
+    /**
+     * Issue SCAN commands until either at least one key has been buffered
+     * or the server signals the end of the iteration.
+     *
+     * @throws JedisConnectionException Runtime exception thrown if a
+     * connection cannot be made to the local Redis cache.
+     */
+    private void fill() {
+        while (buffer.isEmpty() && !complete) {
+            try (Jedis jedis = pools.get(node).getResource()) {
+                if (hashKey == null) {
+                    ScanResult<String> result = jedis.scan(cursor, params);
+                    buffer.addAll(result.getResult());
+                    cursor = result.getStringCursor();
+                }
+                else {
+                    ScanResult<Map.Entry<String, String>> result = 
+                            jedis.hscan(hashKey, cursor, params);
+                    for (Map.Entry<String, String> entry : 
+                            result.getResult()) {
+                        buffer.add(entry.getKey());
+                    }
+                    cursor = result.getStringCursor();
+                }
+            }
+            if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+                node++;
+                if (node >= pools.size()) {
+                    complete = true;
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("SCAN iteration complete.");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine whether there are more keys available.
+     *
+     * @return True if at least one more key is available.
+     */
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !buffer.isEmpty();
+    }
+
+    /**
+     * Retrieve the next key.
+     *
+     * @return The next key in the cache.
+     * @throws NoSuchElementException Thrown if the iteration is complete.
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("SCAN iteration is complete.");
+        }
+        return buffer.poll();
+    }
+}
@@ -0,0 +1,126 @@
+package mil.nga.cache;
+
+import java.io.Serializable;
+
+/**
+ * Simple immutable snapshot of the Redis connection pool statistics.  Used
+ * to size the pool relative to the number of application server threads
+ * issuing cache requests.  A non-zero number of waiters, or a borrow wait
+ * time approaching the configured maximum, indicates the pool is too
+ * small.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RedisPoolStatistics implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = 4152267736718839911L;
+
+    // Private internal members
+    private final int  maxTotal;
+    private final int  numActive;
+    private final int  numIdle;
+    private final int  numWaiters;
+    private final long meanBorrowWaitTime;
+    private final long maxBorrowWaitTime;
+
+    /**
+     * Constructor.
+     *
+     * @param maxTotal The maximum number of connections in the pool.
+     * @param numActive The number of connections currently borrowed.
+     * @param numIdle The number of idle connections.
+     * @param numWaiters The number of threads blocked waiting for a
+     * connection.
+     * @param meanBorrowWaitTime The mean time (in ms) spent waiting for a
+     * connection over recent borrows.
+     * @param maxBorrowWaitTime The maximum time (in ms) spent waiting for a
+     * connection.
+     */
+    public RedisPoolStatistics(
+            int  maxTotal,
+            int  numActive,
+            int  numIdle,
+            int  numWaiters,
+            long meanBorrowWaitTime,
+            long maxBorrowWaitTime) {
+        this.maxTotal           = maxTotal;
+        this.numActive          = numActive;
+        this.numIdle            = numIdle;
+        this.numWaiters         = numWaiters;
+        this.meanBorrowWaitTime = meanBorrowWaitTime;
+        this.maxBorrowWaitTime  = maxBorrowWaitTime;
+    }
+
+    /**
+     * Getter method for the maximum time spent waiting for a connection.
+     * @return The maximum borrow wait time in milliseconds.
+     */
+    public long getMaxBorrowWaitTime() {
+        return maxBorrowWaitTime;
+    }
+
+    /**
+     * Getter method for the maximum number of connections in the pool.
+     * @return The maximum number of connections.
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Getter method for the mean time spent waiting for a connection.
+     * @return The mean borrow wait time in milliseconds.
+     */
+    public long getMeanBorrowWaitTime() {
+        return meanBorrowWaitTime;
+    }
+
+    /**
+     * Getter method for the number of connections currently borrowed.
+     * @return The number of active connections.
+     */
+    public int getNumActive() {
+        return numActive;
+    }
+
+    /**
+     * Getter method for the number of idle connections.
+     * @return The number of idle connections.
+     */
+    public int getNumIdle() {
+        return numIdle;
+    }
+
+    /**
+     * Getter method for the number of threads waiting for a connection.
+     * @return The number of waiters.
+     */
+    public int getNumWaiters() {
+        return numWaiters;
+    }
+
+    /**
+     * Convert to a human-readable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Redis pool: max total => [ ");
+        sb.append(getMaxTotal());
+        sb.append(" ], active => [ ");
+        sb.append(getNumActive());
+        sb.append(" ], idle => [ ");
+        sb.append(getNumIdle());
+        sb.append(" ], waiters => [ ");
+        sb.append(getNumWaiters());
+        sb.append(" ], mean borrow wait => [ ");
+        sb.append(getMeanBorrowWaitTime());
+        sb.append(" ] ms, max borrow wait => [ ");
+        sb.append(getMaxBorrowWaitTime());
+        sb.append(" ] ms.");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package mil.nga.cache;
+
+import java.util.List;
+
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.Jedis;
+import redis.clients.util.Pool;
+
+/**
+ * Interface implemented by the classes that know how the Redis deployment
+ * backing the cache is laid out.  The <code>RedisCacheManager</code> asks
+ * the topology which connection pool owns a given key, and is therefore
+ * independent of whether it is talking to a single server, a
+ * Sentinel-managed master/replica set, or a sharded Redis Cluster.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface RedisTopology extends AutoCloseable {
+
+    /**
+     * Getter method for the topology type.
+     *
+     * @return The topology type.
+     */
+    public TopologyType getType();
+
+    /**
+     * Determine whether keys are sharded across several nodes.  If true,
+     * multi-key commands (MGET/MSET/DEL) may only be issued for keys
+     * residing in the same hash slot.
+     *
+     * @return True if the keyspace is sharded.
+     */
+    public boolean isClustered();
+
+    /**
+     * Retrieve the pool connected to the master owning the input key.  All
+     * writes must be issued through this pool.
+     *
+     * @param key The key to be accessed (ignored if not clustered).
+     * @return The pool connected to the owning master.
+     * @throws JedisConnectionException Runtime exception thrown if no node
+     * owning the key is known.
+     */
+    public Pool<Jedis> getPool(String key);
+
+    /**
+     * Retrieve the pool from which the input key should be read.  This is a
+     * read replica if replica reads are configured, otherwise the master.
+     * Data read from a replica may lag the master slightly.
+     *
+     * @param key The key to be accessed (ignored if not clustered).
+     * @return The pool to read from.
+     */
+    public Pool<Jedis> getReadPool(String key);
+
+    /**
+     * Retrieve the pools connected to every master node.  Used to walk the
+     * entire keyspace (SCAN) when it is sharded.
+     *
+     * @return The master pools.
+     */
+    public List<Pool<Jedis>> getMasterPools();
+
+    /**
+     * Retrieve every pool (masters and replicas).  Used to aggregate the
+     * connection pool statistics.
+     *
+     * @return All pools.
+     */
+    public List<Pool<Jedis>> getPools();
+
+    /**
+     * Re-discover the layout of the deployment (e.g. after a cluster
+     * redirection).  Implementations with a fixed layout do nothing.
+     */
+    public void refresh();
+
+    /**
+     * Close all of the connection pools.
+     */
+    @Override
+    public void close();
+}
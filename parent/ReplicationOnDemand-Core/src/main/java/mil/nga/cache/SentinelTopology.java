@@ -0,0 +1,299 @@
+package mil.nga.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Pool;
+
+/**
+ * Topology consisting of a master and its replicas monitored by Redis
+ * Sentinel.  Writes always go to the current master; the Jedis sentinel
+ * pool follows failovers automatically.  If replica reads are enabled the
+ * healthy replicas are discovered from the sentinels and re-discovered
+ * periodically so that reads follow failovers too.
+ *
+ * If no sentinel can be reached when the topology is built the error is
+ * logged and the connection is attempted again on first use (at most once
+ * every <code>RECONNECT_INTERVAL</code> ms), so a sentinel outage at
+ * start up does not prevent the cache manager from loading.
+ *
+ * @author L. Craig Carpenter
+ */
+public class SentinelTopology extends AbstractRedisTopology {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            SentinelTopology.class);
+
+    /**
+     * Replica flags indicating the replica should not be read from.
+     */
+    private static final String[] UNHEALTHY_FLAGS =
+            { "s_down", "o_down", "disconnected" };
+
+    /**
+     * Minimum time (in ms) between attempts to connect to the master while
+     * the sentinels are unreachable.
+     */
+    public static final long RECONNECT_INTERVAL = 5000L;
+
+    // Private internal members
+    private final String            masterName;
+    private final List<HostAndPort> sentinels;
+    private final Set<String>       addresses;
+    private final boolean           readFromReplicas;
+    private final long              refreshInterval;
+
+    /**
+     * Pool connected to the current master.  Null until the sentinels have
+     * been reached.
+     */
+    private volatile JedisSentinelPool master;
+
+    /**
+     * Time (in ms) of the last attempt to connect to the master.
+     */
+    private long lastAttempt = 0L;
+
+    /**
+     * Time (in ms) the replicas were last discovered.
+     */
+    private final AtomicLong lastRefresh = new AtomicLong(0);
+
+    /**
+     * Constructor.  The master is located immediately.  If no sentinel can
+     * be reached the error is logged and the master is located again on
+     * first use.
+     *
+     * @param masterName The name of the master monitored by the sentinels.
+     * @param sentinels The sentinels.
+     * @param readFromReplicas True if reads should be routed to replicas.
+     * @param refreshInterval How often (in ms) the replicas are
+     * re-discovered.
+     * @param poolConfig The configuration applied to every pool.
+     * @param connectTimeout The connect timeout (in ms).
+     * @param socketTimeout The socket read timeout (in ms).
+     */
+    public SentinelTopology(
+            String masterName,
+            List<HostAndPort> sentinels,
+            boolean readFromReplicas,
+            long refreshInterval,
+            JedisPoolConfig poolConfig,
+            int connectTimeout,
+            int socketTimeout) {
+
+        super(poolConfig, connectTimeout, socketTimeout);
+        this.masterName       = masterName;
+        this.sentinels        = sentinels;
+        this.readFromReplicas = readFromReplicas;
+        this.refreshInterval  = refreshInterval;
+
+        addresses = new LinkedHashSet<String>();
+        for (HostAndPort sentinel : sentinels) {
+            addresses.add(sentinel.toString());
+        }
+        try {
+            connect();
+        }
+        catch (JedisConnectionException jce) {
+            LOGGER.error(jce.getMessage());
+        }
+        refresh();
+    }
+
+    /**
+     * Create the pool connected to the current master if it does not
+     * exist yet.
+     *
+     * @return The master pool.
+     * @throws JedisConnectionException Runtime exception thrown if no
+     * sentinel could be reached, or if the previous attempt failed less
+     * than <code>RECONNECT_INTERVAL</code> ms ago.
+     */
+    private synchronized JedisSentinelPool connect() {
+        if (master == null) {
+            long now = System.currentTimeMillis();
+            if ((now - lastAttempt) < RECONNECT_INTERVAL) {
+                throw new JedisConnectionException("Master [ "
+                        + masterName
+                        + " ] is unavailable.  No sentinel could be "
+                        + "reached.");
+            }
+            lastAttempt = now;
+            try {
+                master = new JedisSentinelPool(
+                        masterName,
+                        addresses,
+                        poolConfig,
+                        connectTimeout,
+                        socketTimeout,
+                        null,
+                        Protocol.DEFAULT_DATABASE);
+            }
+            catch (JedisException je) {
+                throw new JedisConnectionException("Unable to locate master [ "
+                        + masterName
+                        + " ] via sentinels [ "
+                        + sentinels
+                        + " ].  Error message => [ "
+                        + je.getMessage()
+                        + " ].", je);
+            }
+            LOGGER.info("Connected to master [ "
+                    + masterName
+                    + " ] at [ "
+                    + master.getCurrentHostMaster()
+                    + " ] via sentinels [ "
+                    + sentinels
+                    + " ].");
+        }
+        return master;
+    }
+
+    /**
+     * Retrieve the pool connected to the current master, connecting first
+     * if necessary.
+     *
+     * @return The master pool.
+     * @throws JedisConnectionException Runtime exception thrown if the
+     * master could not be located.
+     */
+    @Override
+    protected Pool<Jedis> getMaster() {
+        JedisSentinelPool pool = master;
+        if (pool == null) {
+            pool = connect();
+        }
+        return pool;
+    }
+
+    /**
+     * Retrieve the master and replica pools.  No connection is attempted
+     * if the master has not been located yet.
+     *
+     * @return All pools (empty if the master has not been located).
+     */
+    @Override
+    public List<Pool<Jedis>> getPools() {
+        if (master == null) {
+            return Collections.<Pool<Jedis>>emptyList();
+        }
+        return super.getPools();
+    }
+
+    /**
+     * Re-discover the replicas if the refresh interval has elapsed, then
+     * route the read.
+     *
+     * @param key Ignored.
+     * @return A replica pool, or the master pool.
+     */
+    @Override
+    public Pool<Jedis> getReadPool(String key) {
+        long now  = System.currentTimeMillis();
+        long last = lastRefresh.get();
+        if (readFromReplicas &&
+                ((now - last) >= refreshInterval) &&
+                lastRefresh.compareAndSet(last, now)) {
+            refresh();
+        }
+        return super.getReadPool(key);
+    }
+
+    /**
+     * Getter method for the topology type.
+     *
+     * @return The topology type.
+     */
+    @Override
+    public TopologyType getType() {
+        return TopologyType.SENTINEL;
+    }
+
+    /**
+     * Determine whether a replica reported by a sentinel is healthy.
+     *
+     * @param replica The replica properties reported by SENTINEL SLAVES.
+     * @return True if reads may be routed to the replica.
+     */
+    private boolean isHealthy(Map<String, String> replica) {
+        String flags = replica.get("flags");
+        if (flags != null) {
+            for (String flag : UNHEALTHY_FLAGS) {
+                if (flags.contains(flag)) {
+                    return false;
+                }
+            }
+        }
+        return "ok".equals(replica.get("master-link-status"));
+    }
+
+    /**
+     * Ask the sentinels for the healthy replicas of the master.  The first
+     * sentinel that answers is used.  If no sentinel answers the current
+     * replica set is retained.
+     */
+    @Override
+    public void refresh() {
+        if (readFromReplicas) {
+            for (HostAndPort sentinel : sentinels) {
+                try (Jedis jedis = new Jedis(
+                        sentinel.getHost(),
+                        sentinel.getPort(),
+                        connectTimeout,
+                        socketTimeout)) {
+                    List<HostAndPort> replicas = new ArrayList<HostAndPort>();
+                    for (Map<String, String> replica :
+                            jedis.sentinelSlaves(masterName)) {
+                        if (isHealthy(replica)) {
+                            replicas.add(new HostAndPort(
+                                    replica.get("ip"),
+                                    Integer.parseInt(replica.get("port"))));
+                        }
+                    }
+                    setReplicas(replicas);
+                    lastRefresh.set(System.currentTimeMillis());
+                    return;
+                }
+                catch (Exception e) {
+                    LOGGER.warn("Unable to retrieve replicas from sentinel [ "
+                            + sentinel
+                            + " ].  Error message => [ "
+                            + e.getMessage()
+                            + " ].");
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the master and replica pools.
+     */
+    @Override
+    public synchronized void close() {
+        super.close();
+        if (master != null) {
+            master.destroy();
+            master = null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package mil.nga.cache;
+
+import java.util.List;
+
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.util.Pool;
+
+/**
+ * Topology consisting of a single Redis server, optionally with a
+ * statically configured list of read replicas.  This is the original
+ * deployment model.
+ *
+ * @author L. Craig Carpenter
+ */
+public class StandaloneTopology extends AbstractRedisTopology {
+
+    /**
+     * Pool connected to the Redis server.
+     */
+    private final JedisPool master;
+
+    /**
+     * Constructor.
+     *
+     * @param master The Redis server.
+     * @param replicas Read replicas of the Redis server (may be empty).
+     * @param poolConfig The configuration applied to every pool.
+     * @param connectTimeout The connect timeout (in ms).
+     * @param socketTimeout The socket read timeout (in ms).
+     */
+    public StandaloneTopology(
+            HostAndPort master,
+            List<HostAndPort> replicas,
+            JedisPoolConfig poolConfig,
+            int connectTimeout,
+            int socketTimeout) {
+        super(poolConfig, connectTimeout, socketTimeout);
+        this.master = createPool(master);
+        setReplicas(replicas);
+    }
+
+    /**
+     * Retrieve the pool connected to the Redis server.
+     *
+     * @return The master pool.
+     */
+    @Override
+    protected Pool<Jedis> getMaster() {
+        return master;
+    }
+
+    /**
+     * Getter method for the topology type.
+     *
+     * @return The topology type.
+     */
+    @Override
+    public TopologyType getType() {
+        return TopologyType.STANDALONE;
+    }
+
+    /**
+     * Close the master and replica pools.
+     */
+    @Override
+    public void close() {
+        super.close();
+        master.destroy();
+    }
+}
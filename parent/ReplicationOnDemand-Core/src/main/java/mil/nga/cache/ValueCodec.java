@@ -0,0 +1,53 @@
+package mil.nga.cache;
+
+import mil.nga.types.CodecType;
+
+/**
+ * Interface implemented by the classes that convert record values between
+ * the JSON String used by the application and the bytes stored in the 
+ * cache.  
+ * 
+ * Encoded values begin with a one-byte format identifier so that the 
+ * reader can always determine how a value was written.  Legacy values 
+ * (plain JSON) carry no header; they are recognized because no JSON 
+ * document begins with a byte below <code>0x09</code> (TAB).  Every 
+ * format identifier must therefore fall below that value.
+ * 
+ * @author L. Craig Carpenter
+ */
+public interface ValueCodec {
+
+    /**
+     * Format identifier of values compressed with raw Deflate.
+     */
+    public static final byte FORMAT_DEFLATE = 0x01;
+    
+    /**
+     * Values at or above this byte are the first character of a plain 
+     * JSON document.
+     */
+    public static final byte FORMAT_LIMIT = 0x09;
+    
+    /**
+     * Encode a JSON value for storage in the cache.
+     * 
+     * @param value The JSON value.
+     * @return The encoded bytes, or null if the input is null.
+     */
+    public byte[] encode(String value);
+    
+    /**
+     * Decode a value written by this codec.
+     * 
+     * @param value The bytes read from the cache.
+     * @return The JSON value, or null if the input is null.
+     */
+    public String decode(byte[] value);
+    
+    /**
+     * Getter method for the codec type.
+     * 
+     * @return The codec type.
+     */
+    public CodecType getType();
+}
@@ -0,0 +1,115 @@
+package mil.nga.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.types.CodecType;
+
+/**
+ * Factory supplying the value codecs and decoding values of any format.  
+ * The format of a stored value is identified by its first byte, so values
+ * written by any codec (including legacy plain JSON) can be read no matter
+ * which codec is configured for writing.  This allows the write codec to 
+ * be changed without first flushing the cache.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class ValueCodecFactory {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            ValueCodecFactory.class);
+    
+    /**
+     * The codecs keyed by type.  The codecs are stateless.
+     */
+    private final Map<CodecType, ValueCodec> codecs = 
+            new EnumMap<CodecType, ValueCodec>(CodecType.class);
+    
+    /**
+     * Hidden constructor enforcing the Singleton design pattern.
+     */
+    private ValueCodecFactory() {
+        codecs.put(CodecType.JSON, new JSONValueCodec());
+        codecs.put(CodecType.DEFLATE, new DeflateValueCodec());
+    }
+    
+    /**
+     * Accessor method for the singleton instance of the 
+     * ValueCodecFactory class.
+     * 
+     * @return The singleton instance of the ValueCodecFactory.
+     */
+    public static ValueCodecFactory getInstance() {
+        return ValueCodecFactoryHolder.getSingleton();
+    }
+    
+    /**
+     * Retrieve the codec associated with the input type.
+     * 
+     * @param type The codec type.  If null the JSON codec is returned.
+     * @return The codec.
+     */
+    public ValueCodec getCodec(CodecType type) {
+        if (type == null) {
+            return codecs.get(CodecType.JSON);
+        }
+        return codecs.get(type);
+    }
+    
+    /**
+     * Decode a value read from the cache, selecting the codec from the 
+     * value's format byte.
+     * 
+     * @param value The bytes read from the cache.
+     * @return The JSON value, or null if the input is null or the format 
+     * is not recognized.
+     */
+    public String decode(byte[] value) {
+        if ((value == null) || (value.length == 0)) {
+            return null;
+        }
+        if (value[0] >= ValueCodec.FORMAT_LIMIT) {
+            return codecs.get(CodecType.JSON).decode(value);
+        }
+        else if (value[0] == ValueCodec.FORMAT_DEFLATE) {
+            return codecs.get(CodecType.DEFLATE).decode(value);
+        }
+        LOGGER.error("Unrecognized cache value format [ "
+                + value[0]
+                + " ].  The value will be ignored.");
+        return null;
+    }
+    
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     * 
+     * @author L. Craig Carpenter
+     */
+    public static class ValueCodecFactoryHolder {
+        
+        /**
+         * Reference to the Singleton instance of the ValueCodecFactory
+         */
+        private static final ValueCodecFactory _instance = 
+                new ValueCodecFactory();
+        
+        /**
+         * Accessor method for the singleton instance of the 
+         * ValueCodecFactory.
+         * 
+         * @return The Singleton instance of the ValueCodecFactory.
+         */
+        public static ValueCodecFactory getSingleton() {
+            return _instance;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported cache operation is encountered.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownCacheOperationException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = 7713528440163290581L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownCacheOperationException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported cache implementation is requested.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownCacheTypeException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = -2389917405630278145L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownCacheTypeException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported cache value codec is requested.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownCodecTypeException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = 4283118637152204519L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownCodecTypeException(String msg) {
+        super(msg);
+    }
+}
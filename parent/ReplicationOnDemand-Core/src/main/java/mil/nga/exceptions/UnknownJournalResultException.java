@@ -0,0 +1,23 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported progress journal result is 
+ * encountered.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownJournalResultException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = -2306817446513077412L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownJournalResultException(String msg) {
+        super(msg);
+    }
+}
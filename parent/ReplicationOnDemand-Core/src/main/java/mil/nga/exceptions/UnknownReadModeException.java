@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported file read mode is requested.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownReadModeException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = -2381946620815307342L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownReadModeException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported cache storage type is requested.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownStorageTypeException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = -2876460931287385427L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownStorageTypeException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,22 @@
+package mil.nga.exceptions;
+
+/**
+ * Exception raised when an unsupported Redis topology type is requested.
+ * 
+ * @author L. Craig Carpenter
+ */
+public class UnknownTopologyTypeException extends Exception {
+
+    /**
+	 * Eclipse-generated serialVersionUID
+	 */
+	private static final long serialVersionUID = -6620584417052183318L;
+
+	/** 
+     * Default constructor requiring a message String.
+     * @param msg Information identifying why the exception was raised.
+     */
+    public UnknownTopologyTypeException(String msg) {
+        super(msg);
+    }
+}
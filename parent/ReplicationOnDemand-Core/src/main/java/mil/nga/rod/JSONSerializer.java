@@ -49,6 +49,22 @@ public class JSONSerializer {
         dateFormatter.setTimeZone(TimeZone.getTimeZone("GMT"));
     }
     
+    /**
+     * Mapper shared by all callers.  Constructing an ObjectMapper is far 
+     * more expensive than the (de)serialization itself.  A configured 
+     * ObjectMapper is thread-safe and Jackson clones the DateFormat for 
+     * each call, so a single instance can be shared.
+     */
+    private final ObjectMapper mapper;
+    
+    /**
+     * Hidden constructor enforcing the Singleton design pattern.
+     */
+    private JSONSerializer() {
+        mapper = new ObjectMapper();
+        mapper.setDateFormat(dateFormatter);
+    }
+    
     /**
      * Accessor method for the singleton instance of the 
      * JSONSerializer class.
@@ -75,8 +91,6 @@ public class JSONSerializer {
         try {
             if (json != null) {
                 
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.setDateFormat(dateFormatter);
                 deserialized = mapper.readValue(
                         json, 
                         QueryRequestAccelerator.class);
@@ -125,8 +139,6 @@ public class JSONSerializer {
         try {
             if (json != null) {
                 
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.setDateFormat(dateFormatter);
                 deserialized = mapper.readValue(
                         json, 
                         RoDProduct.class);
@@ -174,8 +186,6 @@ public class JSONSerializer {
         try {
             if (json != null) {
                 
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.setDateFormat(dateFormatter);
                 CollectionType outputType = mapper.getTypeFactory()
                         .constructCollectionType(List.class, String.class);
                 deserialized = mapper.readValue(json, outputType);
@@ -221,8 +231,6 @@ public class JSONSerializer {
         
         if (obj != null) {
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.setDateFormat(dateFormatter);
                 json = mapper.writeValueAsString(obj);
             }
             catch (JsonProcessingException jpe) {
@@ -1,10 +1,14 @@
 package mil.nga.rod.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.text.SimpleDateFormat;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 
@@ -14,6 +18,12 @@ import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
  * that due to the size of the target ISO files, computing file hashes 
  * could take as long as 5 seconds per file.  It doesn't take many files 
  * before we start running into timeouts. 
+ * 
+ * When a tree hash is configured the record also carries the digest of 
+ * each fixed-size chunk of the file.  The chunk digests are not written to
+ * the accelerator table; they are kept in the <code>HashCache</code> with 
+ * the other hashes of the file.  These fields are omitted from the JSON 
+ * when not populated.
  *  
  * @author L. Craig Carpenter
  */
@@ -51,6 +61,9 @@ public class QueryRequestAccelerator
     private final String   hash;
     //private final HashType hashType;
     private final long     size;
+    private final String       chunkHashType;
+    private final long         chunkSize;
+    private final List<String> chunkHashes;
     
     /**
      * Constructor used to set all of the required internal members.
@@ -62,6 +75,9 @@ public class QueryRequestAccelerator
         this.fileDate = builder.fileDate;
         this.hash     = builder.hash;
         this.size     = builder.size;
+        this.chunkHashType = builder.chunkHashType;
+        this.chunkSize     = builder.chunkSize;
+        this.chunkHashes   = builder.chunkHashes;
     }
     
     /**
@@ -88,6 +104,35 @@ public class QueryRequestAccelerator
         return hash;
     }
     
+    /**
+     * Getter method for the type of the chunk digests (e.g. md5-tree).
+     * @return The chunk hash type, or null if chunk digests were not 
+     * computed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public String getChunkHashType() {
+        return chunkHashType;
+    }
+    
+    /**
+     * Getter method for the size of each chunk covered by a chunk digest.
+     * @return The chunk size in bytes (0 if chunk digests were not 
+     * computed).
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public long getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Getter method for the chunk digests in file order.
+     * @return The chunk digests (empty if not computed).
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<String> getChunkHashes() {
+        return chunkHashes;
+    }
+    
     /**
      * Convenience method exposing the NRN.
      * @return The NRN for the product.
@@ -152,6 +197,9 @@ public class QueryRequestAccelerator
         private Date    fileDate;
         private String  hash;
         private long    size;
+        private String       chunkHashType;
+        private long         chunkSize;
+        private List<String> chunkHashes = Collections.emptyList();
         
         /**
          * Method used to actually construct the
@@ -197,6 +245,36 @@ public class QueryRequestAccelerator
             return this;
         }
         
+        /**
+         * Setter method for the type of the chunk digests.
+         * @param value The chunk hash type (e.g. md5-tree).
+         */
+        public QueryRequestAcceleratorBuilder chunkHashType(String value) {
+            chunkHashType = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the size of each chunk.
+         * @param value The chunk size in bytes.
+         */
+        public QueryRequestAcceleratorBuilder chunkSize(long value) {
+            chunkSize = value;
+            return this;
+        }
+        
+        /**
+         * Setter method for the chunk digests.
+         * @param value The chunk digests in file order.
+         */
+        public QueryRequestAcceleratorBuilder chunkHashes(List<String> value) {
+            if (value != null) {
+                chunkHashes = Collections.unmodifiableList(
+                        new ArrayList<String>(value));
+            }
+            return this;
+        }
+        
         /**
          * Setter method for the HYPERLINK_URL attribute.
          * @param value The HYPERLINK_URL attribute.
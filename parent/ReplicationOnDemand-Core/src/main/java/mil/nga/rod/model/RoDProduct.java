@@ -899,6 +899,47 @@ public class RoDProduct implements Serializable {
     		return this;
     	}
     	
+    	/**
+    	 * Populate every internal member from an existing 
+    	 * <code>RoDProduct</code> object.  Used to build a modified copy 
+    	 * of a record (e.g. with a newly computed hash).
+    	 * @param value A populated <code>RoDProduct</code> object.
+    	 * @return Reference to the builder object.
+    	 */
+    	public RoDProductBuilder rodProduct(RoDProduct value) {
+    		if (value != null) {
+    			aorCodes(value.getAorCodes());
+    			classification(value.getClassification());
+    	        classificationDescription(value.getClassificationDescription());
+    	        countryNames(value.getCountryNames());
+    	        edition(value.getEdition());
+    	        fileDate(value.getFileDate());
+    	        iso3CharCodes(value.getIso3CharCodes());
+    	        loadDate(value.getLoadDate()); 
+    	        mediaName(value.getMediaName());
+    	        notes(value.getNotes());
+    	        nrn(value.getNRN());
+    	        nsn(value.getNSN());
+    	        path(value.getPath());
+    	        productType(value.getProductType());
+    	        releasability(value.getReleasability());
+    	        releasabilityDescription(value.getReleasabilityDescription());
+    	        size(value.getSize());
+    	        url(value.getURL());
+    	        cdName(value.getCdName());
+    	        artworkPath(value.getArtworkPath());
+    	        artworkSize(value.getArtworkSize());
+    	        thumbnailImageUrl(value.getThumbnailImageUrl());
+    	        thumbnailImagePath(value.getThumbnailImagePath());
+    	        smallImageUrl(value.getSmallImageUrl());
+    	        smallImagePath(value.getSmallImagePath());
+    	        sourceImagePath(value.getSourceImagePath());
+    	        sourceImageUrl(value.getSourceImageUrl());
+    	        hash(value.getHash());
+    		}
+    		return this;
+    	}
+    	
     	/**
     	 * Populate the relevant internal members from an input 
     	 * <code>Product</code> object.
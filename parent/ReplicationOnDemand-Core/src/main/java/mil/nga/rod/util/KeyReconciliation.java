@@ -0,0 +1,82 @@
+package mil.nga.rod.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of reconciling the keys held by a source of record (e.g. the
+ * data store) against the keys held by a copy of it (e.g. the cache).
+ * Every distinct key appears in exactly one of the three lists.
+ *
+ * @author L. Craig Carpenter
+ * @see ProductUtils#reconcile(java.util.Collection, java.util.Collection)
+ */
+public class KeyReconciliation {
+
+    // Private internal members
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> common;
+
+    /**
+     * Constructor.
+     *
+     * @param added Keys in the source but not the target.
+     * @param removed Keys in the target but not the source.
+     * @param common Keys in both.
+     */
+    public KeyReconciliation(
+            List<String> added,
+            List<String> removed,
+            List<String> common) {
+        this.added   = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.common  = Collections.unmodifiableList(common);
+    }
+
+    /**
+     * Getter method for the keys that are in the source but not the
+     * target (i.e. must be added to the target).
+     *
+     * @return The keys to add.
+     */
+    public List<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * Getter method for the keys that are in both the source and the
+     * target (i.e. must be checked for changes).
+     *
+     * @return The keys in common.
+     */
+    public List<String> getCommon() {
+        return common;
+    }
+
+    /**
+     * Getter method for the keys that are in the target but not the
+     * source (i.e. must be removed from the target).
+     *
+     * @return The keys to remove.
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("KeyReconciliation : Added => [ ");
+        sb.append(added.size());
+        sb.append(" ], Removed => [ ");
+        sb.append(removed.size());
+        sb.append(" ], Common => [ ");
+        sb.append(common.size());
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
@@ -1,7 +1,9 @@
 package mil.nga.rod.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -41,18 +43,26 @@ public class ProductUtils {
     
 	/**
 	 * Construct a list containing A defference B (i.e. the elements in list
-	 * A that are not in list B.)
+	 * A that are not in list B.)  B is loaded into a hash set so the cost is
+	 * linear in the size of the two lists.
 	 * @param A A list of String objects.
 	 * @param B A list of String objects.
 	 * @return A list containing the Strings that are in A but not B.
 	 */
 	public List<String> defference(List<String> A, List<String> B) {
 		long start = System.currentTimeMillis();
-		List<String> defference = new LinkedList<String>();
+		List<String> defference = new ArrayList<String>();
 		if ((A != null) && (!A.isEmpty())) {
-			defference.addAll(A);
 			if ((B!= null) && (!B.isEmpty())) {
-				defference.removeAll(B);
+				Set<String> exclude = new HashSet<String>(B);
+				for (String obj : A) {
+					if (!exclude.contains(obj)) {
+						defference.add(obj);
+					}
+				}
+			}
+			else {
+				defference.addAll(A);
 			}
 		}
 		if (LOGGER.isDebugEnabled()) {
@@ -64,17 +74,19 @@ public class ProductUtils {
 	}
 	
 	/**
-	 * Calculate the intersection of two String lists.  
+	 * Calculate the intersection of two String lists.  B is loaded into a 
+	 * hash set so the cost is linear in the size of the two lists.
 	 * @param A A list of String objects.
 	 * @param B A list of String objects.
 	 * @return A list containing the Strings that are in both lists.
 	 */
 	public List<String> intersection(List<String> A, List<String> B) {
 		long start = System.currentTimeMillis();
-		List<String> intersection = new LinkedList<String>();
+		List<String> intersection = new ArrayList<String>();
 		if ((A != null) && (B != null) && (A.size() > 0) && (B.size() > 0)) {
+			Set<String> include = new HashSet<String>(B);
 			for (String obj : A) {
-				if (B.contains(obj)) {
+				if (include.contains(obj)) {
 					intersection.add(obj);
 				}
 			}
@@ -87,6 +99,59 @@ public class ProductUtils {
 		return intersection;
 	}
 	
+	/**
+	 * Classify every key as added (in the source only), removed (in the 
+	 * target only) or common (in both).  This replaces calling 
+	 * <code>defference</code> twice and <code>intersection</code> once over 
+	 * the same two lists.  The source keys are hashed once, then a single 
+	 * pass over the target classifies the removed and common keys; 
+	 * whatever source keys remain unmatched are the added keys.  Duplicate
+	 * keys are reported once.
+	 * 
+	 * @param source The keys held by the source of record (e.g. the data 
+	 * store).  May be null.
+	 * @param target The keys held by the copy (e.g. the cache).  May be 
+	 * null.
+	 * @return The classified keys.  Will not be null.
+	 */
+	public KeyReconciliation reconcile(
+			Collection<String> source, 
+			Collection<String> target) {
+		
+		long         start   = System.currentTimeMillis();
+		List<String> removed = new ArrayList<String>();
+		List<String> common  = new ArrayList<String>();
+		Set<String>  pending = new LinkedHashSet<String>();
+		
+		if (source != null) {
+			pending.addAll(source);
+		}
+		if (target != null) {
+			Set<String> seen = new HashSet<String>(
+					(int)(target.size() / 0.75f) + 1);
+			for (String key : target) {
+				if (pending.remove(key)) {
+					common.add(key);
+					seen.add(key);
+				}
+				else if (seen.add(key)) {
+					removed.add(key);
+				}
+			}
+		}
+		KeyReconciliation result = new KeyReconciliation(
+				new ArrayList<String>(pending), 
+				removed, 
+				common);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(result.toString()
+					+ "  Calculated in [ "
+					+ (System.currentTimeMillis() - start)
+					+ " ] ms.");
+		}
+		return result;
+	}
+	
 	/**
 	 * Method used to construct the primary key in the key/value pair that 
 	 * is stored in the cache.  The key is a concatentation of the NRN and NSN
@@ -284,16 +349,14 @@ public class ProductUtils {
         /**
          * Reference to the Singleton instance of the ProductUtils.
          */
-        private static ProductUtils _instance = null;
+        private static final ProductUtils _instance = 
+                new ProductUtils();
     
         /**
          * Accessor method for the singleton instance of the 
          * ProductUtils.
          */
         public static ProductUtils getSingleton() {
-            if (_instance == null) {
-                _instance = new ProductUtils();
-            }
             return _instance;
         }
     }
@@ -0,0 +1,66 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownCacheOperationException;
+
+/**
+ * Enumeration type identifying the kind of change made to a cache record.
+ * Used when publishing cache change events.  <code>GENERATION</code> 
+ * announces that readers have been switched to a new cache generation; 
+ * the key of such an event is the new generation number.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum CacheOperation {
+    ADD("add"),
+    UPDATE("update"),
+    REMOVE("remove"),
+    GENERATION("generation");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private CacheOperation(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate CacheOperation enum value.
+     * @throws UnknownCacheOperationException Thrown if the caller submitted 
+     * a String that did not match one of the existing CacheOperations. 
+     */
+    public static CacheOperation fromString(String text) 
+            throws UnknownCacheOperationException {
+        if (text != null) {
+            for (CacheOperation type : CacheOperation.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownCacheOperationException("Unknown cache operation "
+                + "requested!  Cache operation requested [ " 
+                + text
+                + " ].");
+    }
+}
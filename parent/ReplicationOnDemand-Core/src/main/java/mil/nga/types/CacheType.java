@@ -0,0 +1,66 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownCacheTypeException;
+
+/**
+ * Enumeration type identifying which <code>CacheManagerI</code> 
+ * implementation backs the cache.  <code>REDIS</code> uses the shared 
+ * Redis deployment (the original implementation).  <code>MEMORY</code> 
+ * keeps the records in the local JVM, optionally persisted to a snapshot 
+ * file, and is intended for tests and single-node deployments without 
+ * Redis.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum CacheType {
+    REDIS("redis"),
+    MEMORY("memory");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private CacheType(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate CacheType enum value.
+     * @throws UnknownCacheTypeException Thrown if the caller submitted a 
+     * String that did not match one of the existing CacheTypes. 
+     */
+    public static CacheType fromString(String text) 
+            throws UnknownCacheTypeException {
+        if (text != null) {
+            for (CacheType type : CacheType.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownCacheTypeException("Unknown cache type "
+                + "requested!  Cache type requested [ " 
+                + text
+                + " ].");
+    }
+}
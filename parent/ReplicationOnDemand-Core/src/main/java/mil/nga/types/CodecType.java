@@ -0,0 +1,65 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownCodecTypeException;
+
+/**
+ * Enumeration type identifying how record values are encoded before they 
+ * are written to the backing Redis cache.  <code>JSON</code> stores the 
+ * plain UTF-8 JSON (the original format).  <code>DEFLATE</code> stores the
+ * JSON compressed with Deflate behind a one-byte format header.  Values in 
+ * any format can be read regardless of which codec is used for writing.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum CodecType {
+    JSON("json"),
+    DEFLATE("deflate");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private CodecType(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate CodecType enum value.
+     * @throws UnknownCodecTypeException Thrown if the caller submitted a 
+     * String that did not match one of the existing CodecTypes. 
+     */
+    public static CodecType fromString(String text) 
+            throws UnknownCodecTypeException {
+        if (text != null) {
+            for (CodecType type : CodecType.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownCodecTypeException("Unknown codec type "
+                + "requested!  Codec type requested [ " 
+                + text
+                + " ].");
+    }
+}
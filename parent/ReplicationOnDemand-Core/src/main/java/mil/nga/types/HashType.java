@@ -5,27 +5,67 @@ import mil.nga.exceptions.UnknownHashTypeException;
 /**
  * Enumeration type identifying what type of file hashes are supported.
  * 
+ * The tree types split the file into fixed-size chunks, hash each chunk 
+ * independently (in parallel), and hash the concatenated chunk digests to
+ * produce the root digest.  The chunk digests allow a client to verify, 
+ * and resume, a partial download one chunk at a time.
+ * 
  * @author L. Craig Carpenter
  */
 public enum HashType {
-    MD5("md5"),
-    SHA1("sha1"),
-    SHA256("sha256"),
-    SHA384("sha384"),
-    SHA512("sha512");
+    MD5("md5", "MD5", false),
+    SHA1("sha1", "SHA-1", false),
+    SHA256("sha256", "SHA-256", false),
+    SHA384("sha384", "SHA-384", false),
+    SHA512("sha512", "SHA-512", false),
+    MD5_TREE("md5-tree", "MD5", true),
+    SHA256_TREE("sha256-tree", "SHA-256", true);
     
     /**
      * The text field.
      */
     private final String text;
     
+    /**
+     * The JCA name of the digest algorithm.
+     */
+    private final String algorithm;
+    
+    /**
+     * True if the hash is computed over fixed-size chunks.
+     */
+    private final boolean tree;
+    
     /**
      * Default constructor.
      * 
      * @param text Text associated with the enumeration value.
+     * @param algorithm The <code>MessageDigest</code> algorithm name.
+     * @param tree True for the chunked tree hash types.
+     */
+    private HashType(String text, String algorithm, boolean tree) {
+        this.text      = text;
+        this.algorithm = algorithm;
+        this.tree      = tree;
+    }
+    
+    /**
+     * Determine whether the hash type is computed over fixed-size chunks.
+     * 
+     * @return True for the tree hash types.
+     */
+    public boolean isTree() {
+        return this.tree;
+    }
+    
+    /**
+     * Getter method for the name used to obtain a 
+     * <code>MessageDigest</code> for the hash type.
+     * 
+     * @return The JCA algorithm name (e.g. "SHA-256").
      */
-    private HashType(String text) {
-        this.text = text;
+    public String getAlgorithm() {
+        return this.algorithm;
     }
     
     /**
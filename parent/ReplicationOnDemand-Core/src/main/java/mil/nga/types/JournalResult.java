@@ -0,0 +1,64 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownJournalResultException;
+
+/**
+ * Enumeration type identifying the outcome recorded in the progress 
+ * journal for a key that has been completely processed.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum JournalResult {
+    ADDED("added"),
+    UPDATED("updated"),
+    UNCHANGED("unchanged"),
+    REMOVED("removed");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private JournalResult(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate JournalResult enum value.
+     * @throws UnknownJournalResultException Thrown if the caller submitted 
+     * a String that did not match one of the existing JournalResults. 
+     */
+    public static JournalResult fromString(String text) 
+            throws UnknownJournalResultException {
+        if (text != null) {
+            for (JournalResult type : JournalResult.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownJournalResultException("Unknown journal result "
+                + "requested!  Journal result requested [ " 
+                + text
+                + " ].");
+    }
+}
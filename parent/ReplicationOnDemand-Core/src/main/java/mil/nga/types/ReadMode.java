@@ -0,0 +1,67 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownReadModeException;
+
+/**
+ * Enumeration type identifying how files are read when they are hashed.
+ * <code>STREAM</code> reads through an <code>InputStream</code> into a 
+ * heap array (the original behavior).  <code>CHANNEL</code> reads from a 
+ * <code>FileChannel</code> into a direct buffer, avoiding the intermediate
+ * copy made by the JDK for heap buffers.  <code>MMAP</code> maps the file 
+ * into memory one segment at a time.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum ReadMode {
+    STREAM("stream"),
+    CHANNEL("channel"),
+    MMAP("mmap");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private ReadMode(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate ReadMode enum value.
+     * @throws UnknownReadModeException Thrown if the caller submitted a 
+     * String that did not match one of the existing ReadModes. 
+     */
+    public static ReadMode fromString(String text) 
+            throws UnknownReadModeException {
+        if (text != null) {
+            for (ReadMode mode : ReadMode.values()) {
+                if (text.trim().equalsIgnoreCase(mode.getText())) {
+                    return mode;
+                }
+            }
+        }
+        throw new UnknownReadModeException("Unknown read mode "
+                + "requested!  Read mode requested [ " 
+                + text
+                + " ].");
+    }
+}
@@ -0,0 +1,65 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownStorageTypeException;
+
+/**
+ * Enumeration type identifying how records are laid out in the backing 
+ * Redis cache.  <code>KEYSPACE</code> stores each record as a top-level 
+ * string key (the original layout).  <code>HASH</code> stores all records
+ * as fields of a single dedicated Redis hash with a companion sorted-set 
+ * index.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum StorageType {
+    KEYSPACE("keyspace"),
+    HASH("hash");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private StorageType(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate StorageType enum value.
+     * @throws UnknownStorageTypeException Thrown if the caller submitted a 
+     * String that did not match one of the existing StorageTypes. 
+     */
+    public static StorageType fromString(String text) 
+            throws UnknownStorageTypeException {
+        if (text != null) {
+            for (StorageType type : StorageType.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownStorageTypeException("Unknown storage type "
+                + "requested!  Storage type requested [ " 
+                + text
+                + " ].");
+    }
+}
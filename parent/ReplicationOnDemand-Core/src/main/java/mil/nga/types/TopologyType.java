@@ -0,0 +1,66 @@
+package mil.nga.types;
+
+import mil.nga.exceptions.UnknownTopologyTypeException;
+
+/**
+ * Enumeration type identifying how the Redis deployment backing the cache 
+ * is organized.  <code>STANDALONE</code> is a single server (optionally 
+ * with statically configured read replicas), <code>SENTINEL</code> is a 
+ * Sentinel-managed master with replicas, and <code>CLUSTER</code> is a 
+ * sharded Redis Cluster.
+ * 
+ * @author L. Craig Carpenter
+ */
+public enum TopologyType {
+    STANDALONE("standalone"),
+    SENTINEL("sentinel"),
+    CLUSTER("cluster");
+    
+    /**
+     * The text field.
+     */
+    private final String text;
+    
+    /**
+     * Default constructor.
+     * 
+     * @param text Text associated with the enumeration value.
+     */
+    private TopologyType(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * Getter method for the text associated with the enumeration value.
+     * 
+     * @return The text associated with the instanced enumeration type.
+     */
+    public String getText() {
+        return this.text;
+    }
+    
+    /**
+     * Convert an input String to it's associated enumeration type.  There
+     * is no default type, if an unknown value is supplied an exception is
+     * raised.
+     * 
+     * @param text Input text information
+     * @return The appropriate TopologyType enum value.
+     * @throws UnknownTopologyTypeException Thrown if the caller submitted 
+     * a String that did not match one of the existing TopologyTypes. 
+     */
+    public static TopologyType fromString(String text) 
+            throws UnknownTopologyTypeException {
+        if (text != null) {
+            for (TopologyType type : TopologyType.values()) {
+                if (text.trim().equalsIgnoreCase(type.getText())) {
+                    return type;
+                }
+            }
+        }
+        throw new UnknownTopologyTypeException("Unknown topology type "
+                + "requested!  Topology type requested [ " 
+                + text
+                + " ].");
+    }
+}
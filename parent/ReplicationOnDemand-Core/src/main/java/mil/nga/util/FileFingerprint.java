@@ -0,0 +1,267 @@
+package mil.nga.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Cheap identity of an on-disk file used to decide whether the file must
+ * be re-hashed.  The fingerprint consists of the file size, the last
+ * modified time, the file system file key (the inode on POSIX systems, if
+ * available), and optionally an MD5 hash of the first and last N bytes of
+ * the file.
+ *
+ * Two fingerprints match if every component populated in both is equal.
+ * A file key or partial hash that is only populated in one of the two
+ * fingerprints is ignored, so fingerprints remain comparable when the
+ * partial hash is enabled or disabled between runs.
+ *
+ * @author L. Craig Carpenter
+ */
+public class FileFingerprint {
+
+    /**
+     * Separator used in the String form of the fingerprint.
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Size of the buffer used when reading the partial hash regions.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Private internal members
+    private final long   size;
+    private final long   lastModified;
+    private final String fileKey;
+    private final String partialHash;
+
+    /**
+     * Constructor.  Separator and white space characters in the file key
+     * are replaced so that the String form can be parsed.
+     *
+     * @param size The file size in bytes.
+     * @param lastModified The last modified time in milliseconds.
+     * @param fileKey The file system file key (may be null).
+     * @param partialHash The partial hash (may be null).
+     */
+    public FileFingerprint(
+            long size,
+            long lastModified,
+            String fileKey,
+            String partialHash) {
+        this.size         = size;
+        this.lastModified = lastModified;
+        this.fileKey      = empty(fileKey) ? 
+                null : fileKey.replaceAll("[|\\s]", "_");
+        this.partialHash  = empty(partialHash) ? null : partialHash;
+    }
+
+    /**
+     * Calculate the fingerprint of an on-disk file.
+     *
+     * @param file The file.
+     * @param partialBytes The number of bytes at the start and end of the
+     * file to include in the partial hash.  If zero or negative the partial
+     * hash is not calculated.
+     * @return The fingerprint.
+     * @throws IOException Thrown if the file attributes or content cannot
+     * be read.
+     */
+    public static FileFingerprint of(Path file, long partialBytes)
+            throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(
+                file, BasicFileAttributes.class);
+        Object key = attrs.fileKey();
+        return new FileFingerprint(
+                attrs.size(),
+                attrs.lastModifiedTime().toMillis(),
+                (key == null ? null : key.toString()),
+                (partialBytes > 0 ?
+                        getPartialHash(file, attrs.size(), partialBytes) :
+                        null));
+    }
+
+    /**
+     * Calculate an MD5 hash over the first and last <code>partialBytes</code>
+     * of the file.  If the file is smaller than twice that amount the whole
+     * file is hashed.
+     *
+     * @param file The file.
+     * @param size The file size.
+     * @param partialBytes The number of bytes to read at each end.
+     * @return The hex encoded hash.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    private static String getPartialHash(Path file, long size, long partialBytes)
+            throws IOException {
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            if (size <= (2 * partialBytes)) {
+                update(digest, channel, buffer, 0, size);
+            }
+            else {
+                update(digest, channel, buffer, 0, partialBytes);
+                update(digest, channel, buffer, size - partialBytes, partialBytes);
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Add a region of the file to the digest.
+     *
+     * @param digest The digest.
+     * @param channel The open file.
+     * @param buffer Scratch buffer.
+     * @param position Start of the region.
+     * @param length Length of the region.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    private static void update(
+            MessageDigest digest,
+            FileChannel channel,
+            ByteBuffer buffer,
+            long position,
+            long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            buffer.clear();
+            if (remaining < buffer.capacity()) {
+                buffer.limit((int)remaining);
+            }
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position  += count;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Parse a fingerprint from the format produced by
+     * {@link #toString()}.
+     *
+     * @param value The String form of the fingerprint.
+     * @return The fingerprint, or null if the value cannot be parsed.
+     */
+    public static FileFingerprint fromString(String value) {
+        FileFingerprint fingerprint = null;
+        if ((value != null) && (!value.isEmpty())) {
+            String[] fields = value.split("\\" + SEPARATOR, -1);
+            if (fields.length == 4) {
+                try {
+                    fingerprint = new FileFingerprint(
+                            Long.parseLong(fields[0]),
+                            Long.parseLong(fields[1]),
+                            fields[2],
+                            fields[3]);
+                }
+                catch (NumberFormatException nfe) { }
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Determine whether this fingerprint identifies the same file content
+     * as another.
+     *
+     * @param other The fingerprint to compare against.
+     * @return True if every component populated in both fingerprints
+     * matches.
+     */
+    public boolean matches(FileFingerprint other) {
+        if (other == null) {
+            return false;
+        }
+        if ((size != other.size) || (lastModified != other.lastModified)) {
+            return false;
+        }
+        if ((fileKey != null) && (other.fileKey != null) &&
+                (!fileKey.equals(other.fileKey))) {
+            return false;
+        }
+        if ((partialHash != null) && (other.partialHash != null) &&
+                (!partialHash.equals(other.partialHash))) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Getter method for the file size.
+     *
+     * @return The file size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Getter method for the last modified time.
+     *
+     * @return The last modified time in milliseconds.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Getter method for the file system file key.
+     *
+     * @return The file key, or null if not available.
+     */
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    /**
+     * Getter method for the partial hash.
+     *
+     * @return The partial hash, or null if not calculated.
+     */
+    public String getPartialHash() {
+        return partialHash;
+    }
+
+    /**
+     * Test for a null or empty String.
+     *
+     * @param value The String to test.
+     * @return True if the value is null or empty.
+     */
+    private static boolean empty(String value) {
+        return ((value == null) || (value.isEmpty()));
+    }
+
+    /**
+     * Convert to the String form used for storage.  The file key and partial
+     * hash are empty if not populated.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(size);
+        sb.append(SEPARATOR);
+        sb.append(lastModified);
+        sb.append(SEPARATOR);
+        sb.append(fileKey == null ? "" : fileKey);
+        sb.append(SEPARATOR);
+        sb.append(partialHash == null ? "" : partialHash);
+        return sb.toString();
+    }
+}
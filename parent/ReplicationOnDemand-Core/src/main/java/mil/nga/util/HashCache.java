@@ -0,0 +1,801 @@
+package mil.nga.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.types.HashType;
+
+/**
+ * Persistent cache of file hashes keyed by file path and
+ * <code>FileFingerprint</code> (size, last modified time and inode).  A
+ * cached hash is returned only while the fingerprint of the file still
+ * matches the fingerprint recorded with it, so an unchanged file is never
+ * hashed twice.
+ *
+ * Hashes are stored in an append-only log with one line per file and hash
+ * type.  The log is indexed in memory when the cache is created; later
+ * lines replace earlier ones.  The log may be shared by several processes
+ * (e.g. the synchronization job and the application server).  Appends are
+ * made under an exclusive file lock, and a lookup that misses the index
+ * first reads any lines appended by other processes since the log was
+ * last read.  The log is compacted when it is opened if it holds more
+ * than twice as many lines as live entries.
+ *
+ * A hash is only recorded if the file was not modified while it was read
+ * and was last modified at least {@link #MIN_FILE_AGE} ms earlier, so a
+ * rewrite within the resolution of the file system time stamp cannot leave
+ * a stale hash behind.  If <code>rod.hash.cache.partial_hash_mb</code> is
+ * set, the fingerprint also includes a hash of the first and last N MB of
+ * the file, so that a same-size rewrite that preserves the modification
+ * time is detected too.  Losing the log is harmless; files are simply
+ * hashed again.
+ *
+ * @author L. Craig Carpenter
+ */
+public class HashCache {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            HashCache.class);
+
+    /**
+     * Property enabling the hash cache.
+     */
+    public static final String HASH_CACHE_ENABLED_PROPERTY =
+            "rod.hash.cache.enabled";
+
+    /**
+     * Property defining the location of the hash cache log.  Processes
+     * that should share hashes must use the same file.
+     */
+    public static final String HASH_CACHE_FILE_PROPERTY =
+            "rod.hash.cache.file";
+
+    /**
+     * Property defining the number of megabytes at the start and end of
+     * each file included in the fingerprint's partial hash.  Zero disables
+     * the partial hash.
+     */
+    public static final String HASH_CACHE_PARTIAL_HASH_MB_PROPERTY =
+            "rod.hash.cache.partial_hash_mb";
+
+    /**
+     * Default hash cache log file name (stored in the system temporary
+     * directory).
+     */
+    public static final String DEFAULT_HASH_CACHE_FILE = "rod-hash-cache.log";
+
+    /**
+     * Default partial hash size in megabytes (disabled).
+     */
+    public static final long DEFAULT_PARTIAL_HASH_MB = 0;
+
+    /**
+     * Minimum age (in milliseconds) of a file before its hash is recorded.
+     */
+    public static final long MIN_FILE_AGE = 2000;
+
+    /**
+     * The log is not compacted until it holds at least this many lines.
+     */
+    private static final int MIN_COMPACT_LINES = 1000;
+
+    /**
+     * Field separator.
+     */
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * Separator between the chunk digests of a tree hash.
+     */
+    private static final String CHUNK_SEPARATOR = ",";
+
+    // Private internal members
+    private final Path                 path;
+    private final boolean              enabled;
+    private final long                 partialBytes;
+    private final Map<String, Entry>   entries =
+            new ConcurrentHashMap<String, Entry>();
+    private final AtomicLong           hits    = new AtomicLong(0);
+    private final AtomicLong           misses  = new AtomicLong(0);
+    private long                       offset  = 0;
+    private Object                     logKey  = null;
+    private int                        lines   = 0;
+
+    /**
+     * Default constructor obtaining the log location from the system
+     * properties.
+     */
+    private HashCache() {
+        this(getLogPath(),
+                isEnabledProperty(),
+                getPartialHashMB() * 1024L * 1024L);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param path The location of the log.
+     * @param enabled False to create a cache that never stores or returns
+     * hashes.
+     */
+    public HashCache(Path path, boolean enabled) {
+        this(path, enabled, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param path The location of the log.
+     * @param enabled False to create a cache that never stores or returns
+     * hashes.
+     * @param partialBytes Number of bytes at the start and end of each file
+     * included in the fingerprint's partial hash (zero to disable).
+     */
+    public HashCache(Path path, boolean enabled, long partialBytes) {
+        this.path         = path;
+        this.enabled      = enabled;
+        this.partialBytes = Math.max(0, partialBytes);
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Accessor method for the singleton instance of the HashCache class.
+     *
+     * @return The singleton instance of the HashCache.
+     */
+    public static HashCache getInstance() {
+        return HashCacheHolder.getSingleton();
+    }
+
+    /**
+     * Retrieve the log location from the system properties.
+     *
+     * @return The log location.
+     */
+    private static Path getLogPath() {
+        String file = null;
+        try {
+            file = PropertyLoader.getInstance().getProperty(
+                    HASH_CACHE_FILE_PROPERTY);
+        }
+        catch (Exception e) { }
+        if ((file == null) || (file.trim().isEmpty())) {
+            return Paths.get(
+                    System.getProperty("java.io.tmpdir"),
+                    DEFAULT_HASH_CACHE_FILE);
+        }
+        return Paths.get(file.trim());
+    }
+
+    /**
+     * Retrieve the enabled flag from the system properties.
+     *
+     * @return True unless the cache has been disabled.
+     */
+    private static boolean isEnabledProperty() {
+        boolean value = true;
+        try {
+            String prop = PropertyLoader.getInstance().getProperty(
+                    HASH_CACHE_ENABLED_PROPERTY);
+            if ((prop != null) && (!prop.trim().isEmpty())) {
+                value = Boolean.parseBoolean(prop.trim());
+            }
+        }
+        catch (Exception e) { }
+        return value;
+    }
+
+    /**
+     * Retrieve the partial hash size from the system properties.
+     *
+     * @return The partial hash size in megabytes.
+     */
+    private static long getPartialHashMB() {
+        long mb = DEFAULT_PARTIAL_HASH_MB;
+        try {
+            mb = Long.parseLong(PropertyLoader.getInstance().getProperty(
+                    HASH_CACHE_PARTIAL_HASH_MB_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        return mb;
+    }
+
+    /**
+     * Getter method for the enabled flag.
+     *
+     * @return True if hashes are stored and returned.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calculate the fingerprint used to validate cached hashes.
+     *
+     * @param file The file.
+     * @return The current fingerprint.
+     * @throws IOException Thrown if the file attributes or the partial
+     * hash regions cannot be read.
+     */
+    public FileFingerprint fingerprint(Path file) throws IOException {
+        return FileFingerprint.of(file, partialBytes);
+    }
+
+    /**
+     * Build the key under which the hashes of a file are stored.
+     *
+     * @param file The file.
+     * @return The normalized absolute path.
+     */
+    private static String getKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Retrieve a cached hash.
+     *
+     * @param file The file.
+     * @param fingerprint The current fingerprint of the file.
+     * @param type The hash type.
+     * @return The cached hash, or null if there is no hash for the current
+     * version of the file.
+     */
+    public String get(Path file, FileFingerprint fingerprint, HashType type) {
+        String hash = null;
+        if (enabled && (file != null) && (fingerprint != null) &&
+                (type != null)) {
+            String key = getKey(file);
+            Entry entry = lookup(key, fingerprint);
+            if ((entry == null) || (!entry.hashes.containsKey(type))) {
+                refresh();
+                entry = lookup(key, fingerprint);
+            }
+            if (entry != null) {
+                hash = entry.hashes.get(type);
+            }
+            count(hash != null);
+        }
+        return hash;
+    }
+
+    /**
+     * Retrieve the fingerprint recorded with the most recent hashes of a
+     * file.  Callers compare it against the current fingerprint to tell a
+     * file that changed since it was last hashed from one that has never
+     * been hashed.
+     *
+     * @param file The file.
+     * @return The recorded fingerprint, or null if the file has never been
+     * hashed (or the cache is disabled).
+     */
+    public FileFingerprint getFingerprint(Path file) {
+        FileFingerprint fingerprint = null;
+        if (enabled && (file != null)) {
+            String key = getKey(file);
+            if (!entries.containsKey(key)) {
+                refresh();
+            }
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                fingerprint = entry.fingerprint;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Retrieve a cached tree hash.
+     *
+     * @param file The file.
+     * @param fingerprint The current fingerprint of the file.
+     * @param type The tree hash type.
+     * @param chunkSize The required chunk size.
+     * @return The cached tree hash, or null if there is no tree hash with
+     * the requested chunk size for the current version of the file.
+     */
+    public TreeHash getTree(
+            Path file,
+            FileFingerprint fingerprint,
+            HashType type,
+            long chunkSize) {
+        TreeHash tree = null;
+        if (enabled && (file != null) && (fingerprint != null) &&
+                (type != null)) {
+            String key = getKey(file);
+            Entry entry = lookup(key, fingerprint);
+            if ((entry == null) || (getTree(entry, type, chunkSize) == null)) {
+                refresh();
+                entry = lookup(key, fingerprint);
+            }
+            if (entry != null) {
+                tree = getTree(entry, type, chunkSize);
+            }
+            count(tree != null);
+        }
+        return tree;
+    }
+
+    /**
+     * Retrieve a tree hash with the required chunk size from an entry.
+     *
+     * @param entry The entry.
+     * @param type The tree hash type.
+     * @param chunkSize The required chunk size.
+     * @return The tree hash, or null if there is none.
+     */
+    private static TreeHash getTree(Entry entry, HashType type, long chunkSize) {
+        TreeHash tree = entry.trees.get(type);
+        return ((tree != null) && (tree.getChunkSize() == chunkSize) ?
+                tree : null);
+    }
+
+    /**
+     * Retrieve the entry for a key if its fingerprint matches.
+     *
+     * @param key The file key.
+     * @param fingerprint The current fingerprint of the file.
+     * @return The entry, or null if there is none or it is out of date.
+     */
+    private Entry lookup(String key, FileFingerprint fingerprint) {
+        Entry entry = entries.get(key);
+        return ((entry != null) && entry.fingerprint.matches(fingerprint) ?
+                entry : null);
+    }
+
+    /**
+     * Record a lookup in the statistics.
+     *
+     * @param hit True if the lookup was answered from the cache.
+     */
+    private void count(boolean hit) {
+        if (hit) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record the hashes computed for a file.  Nothing is recorded if the
+     * file changed since <code>fingerprint</code> was taken or was modified
+     * too recently to be trusted.
+     *
+     * @param file The file.
+     * @param fingerprint The fingerprint of the file taken before it was
+     * read.
+     * @param hashes The computed hashes (tree types are ignored).
+     * @param trees The computed tree hashes (may be null).
+     */
+    public void put(
+            Path file,
+            FileFingerprint fingerprint,
+            Map<HashType, String> hashes,
+            Map<HashType, TreeHash> trees) {
+
+        if ((!enabled) || (file == null) || (fingerprint == null)) {
+            return;
+        }
+        String key = getKey(file);
+        if (key.contains(SEPARATOR) || key.contains("\n") ||
+                key.contains("\r")) {
+            return;
+        }
+        try {
+            if ((!fingerprint.matches(fingerprint(file))) ||
+                    (fingerprint.getLastModified() >
+                        (System.currentTimeMillis() - MIN_FILE_AGE))) {
+                return;
+            }
+        }
+        catch (IOException ioe) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (hashes != null) {
+            for (Map.Entry<HashType, String> hash : hashes.entrySet()) {
+                if ((!hash.getKey().isTree()) && (hash.getValue() != null)) {
+                    append(sb, key, fingerprint, hash.getKey(),
+                            hash.getValue(), 0, null);
+                }
+            }
+        }
+        if (trees != null) {
+            for (TreeHash tree : trees.values()) {
+                append(sb, key, fingerprint, tree.getType(), tree.getRoot(),
+                        tree.getChunkSize(), tree.getChunks());
+            }
+        }
+        if (sb.length() > 0) {
+            write(sb.toString());
+            index(sb.toString());
+        }
+    }
+
+    /**
+     * Append a log line.
+     *
+     * @param sb The buffer.
+     * @param key The file key.
+     * @param fingerprint The file fingerprint.
+     * @param type The hash type.
+     * @param hash The hash (the root digest for tree types).
+     * @param chunkSize The tree hash chunk size (zero for other types).
+     * @param chunks The tree hash chunk digests (null for other types).
+     */
+    private static void append(
+            StringBuilder sb,
+            String key,
+            FileFingerprint fingerprint,
+            HashType type,
+            String hash,
+            long chunkSize,
+            List<String> chunks) {
+        sb.append(key);
+        sb.append(SEPARATOR);
+        sb.append(fingerprint.toString());
+        sb.append(SEPARATOR);
+        sb.append(type.getText());
+        sb.append(SEPARATOR);
+        sb.append(hash);
+        sb.append(SEPARATOR);
+        sb.append(chunkSize);
+        sb.append(SEPARATOR);
+        if (chunks != null) {
+            for (int i=0; i<chunks.size(); i++) {
+                if (i > 0) {
+                    sb.append(CHUNK_SEPARATOR);
+                }
+                sb.append(chunks.get(i));
+            }
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Append lines to the log under an exclusive lock.  The file is
+     * opened for each write so that an append is never made to a log that
+     * another process has compacted and replaced.
+     *
+     * @param text The lines to append.
+     */
+    private synchronized void write(String text) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+                 FileLock lock = channel.lock()) {
+                ByteBuffer buffer = ByteBuffer.wrap(
+                        text.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unable to append to the hash cache [ "
+                    + path.toString()
+                    + " ].  Error message => [ "
+                    + ioe.getMessage()
+                    + " ].");
+        }
+    }
+
+    /**
+     * Load the log and compact it if required.
+     */
+    private synchronized void load() {
+        refresh();
+        if ((lines >= MIN_COMPACT_LINES) && (lines > (2 * size()))) {
+            compact();
+        }
+        LOGGER.info("Loaded [ "
+                + size()
+                + " ] file hashes from [ "
+                + path.toString()
+                + " ].");
+    }
+
+    /**
+     * Read any lines appended to the log since it was last read.  If the
+     * log was replaced (i.e. compacted by another process) it is re-read
+     * from the start.  A trailing partial line is left for the next read.
+     */
+    private synchronized void refresh() {
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            BasicFileAttributes attrs = Files.readAttributes(
+                    path, BasicFileAttributes.class);
+            Object key = attrs.fileKey();
+            if ((attrs.size() < offset) ||
+                    ((key != null) && (!key.equals(logKey)))) {
+                offset = 0;
+                lines  = 0;
+            }
+            logKey = key;
+            if (attrs.size() == offset) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.READ)) {
+                channel.position(offset);
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(
+                                Channels.newInputStream(channel),
+                                StandardCharsets.UTF_8));
+                StringBuilder sb = new StringBuilder();
+                int c;
+                while ((c = reader.read()) != -1) {
+                    sb.append((char)c);
+                    if (c == '\n') {
+                        String line = sb.toString();
+                        index(line);
+                        offset += line.getBytes(StandardCharsets.UTF_8).length;
+                        lines++;
+                        sb.setLength(0);
+                    }
+                }
+            }
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unable to read the hash cache [ "
+                    + path.toString()
+                    + " ].  Error message => [ "
+                    + ioe.getMessage()
+                    + " ].");
+        }
+    }
+
+    /**
+     * Add log lines to the in-memory index.  Lines that cannot be parsed
+     * are ignored.
+     *
+     * @param text One or more log lines.
+     */
+    private synchronized void index(String text) {
+        for (String line : text.split("\n")) {
+            String[] fields = line.split(SEPARATOR, -1);
+            if (fields.length != 6) {
+                continue;
+            }
+            FileFingerprint fingerprint = FileFingerprint.fromString(fields[1]);
+            if ((fingerprint == null) || (fields[3].isEmpty())) {
+                continue;
+            }
+            try {
+                HashType type = HashType.fromString(fields[2]);
+                Entry entry = entries.get(fields[0]);
+                if ((entry == null) ||
+                        (!entry.fingerprint.matches(fingerprint))) {
+                    entry = new Entry(fingerprint);
+                    entries.put(fields[0], entry);
+                }
+                if (type.isTree()) {
+                    List<String> chunks = (fields[5].isEmpty() ?
+                            new ArrayList<String>() :
+                            Arrays.asList(fields[5].split(CHUNK_SEPARATOR)));
+                    entry.trees.put(type, new TreeHash(
+                            type,
+                            Long.parseLong(fields[4]),
+                            fields[3],
+                            chunks));
+                }
+                else {
+                    entry.hashes.put(type, fields[3]);
+                }
+            }
+            catch (Exception e) { }
+        }
+    }
+
+    /**
+     * Rewrite the log with only the live entries.  The new log is written
+     * to a temporary file and moved into place while holding the lock on
+     * the old log.
+     */
+    private synchronized void compact() {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            // Pick up anything appended before the lock was obtained.
+            refresh();
+            int count = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(
+                    tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    StringBuilder sb = new StringBuilder();
+                    Entry value = entry.getValue();
+                    for (Map.Entry<HashType, String> hash :
+                            value.hashes.entrySet()) {
+                        append(sb, entry.getKey(), value.fingerprint,
+                                hash.getKey(), hash.getValue(), 0, null);
+                        count++;
+                    }
+                    for (TreeHash tree : value.trees.values()) {
+                        append(sb, entry.getKey(), value.fingerprint,
+                                tree.getType(), tree.getRoot(),
+                                tree.getChunkSize(), tree.getChunks());
+                        count++;
+                    }
+                    writer.write(sb.toString());
+                }
+            }
+            Files.move(tmp, path,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Compacted the hash cache [ "
+                    + path.toString()
+                    + " ] from [ "
+                    + lines
+                    + " ] to [ "
+                    + count
+                    + " ] lines.");
+            offset = Files.size(path);
+            logKey = Files.readAttributes(
+                    path, BasicFileAttributes.class).fileKey();
+            lines  = count;
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unable to compact the hash cache [ "
+                    + path.toString()
+                    + " ].  Error message => [ "
+                    + ioe.getMessage()
+                    + " ].");
+            try {
+                Files.deleteIfExists(tmp);
+            }
+            catch (IOException e) { }
+        }
+    }
+
+    /**
+     * Getter method for the number of live hashes.
+     *
+     * @return The number of hashes held for the current version of each
+     * file.
+     */
+    public int size() {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            count += entry.hashes.size() + entry.trees.size();
+        }
+        return count;
+    }
+
+    /**
+     * Getter method for the number of lookups answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Getter method for the number of lookups that required the file to
+     * be hashed.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Calculate the fraction of lookups answered from the cache.
+     *
+     * @return The hit rate in the range [0, 1] (zero if there have been no
+     * lookups).
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total == 0 ? 0.0 : ((double)h / (double)total));
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("HashCache : File => [ ");
+        sb.append(path.toString());
+        sb.append(" ], Enabled => [ ");
+        sb.append(enabled);
+        sb.append(" ], Partial hash bytes => [ ");
+        sb.append(partialBytes);
+        sb.append(" ], Hashes => [ ");
+        sb.append(size());
+        sb.append(" ], Hits => [ ");
+        sb.append(getHits());
+        sb.append(" ], Misses => [ ");
+        sb.append(getMisses());
+        sb.append(" ], Hit rate => [ ");
+        sb.append(String.format("%.1f", getHitRate() * 100.0));
+        sb.append(" ]%.");
+        return sb.toString();
+    }
+
+    /**
+     * The hashes recorded for one version of a file.
+     */
+    private static class Entry {
+
+        private final FileFingerprint fingerprint;
+        private final Map<HashType, String> hashes =
+                new ConcurrentHashMap<HashType, String>();
+        private final Map<HashType, TreeHash> trees =
+                new ConcurrentHashMap<HashType, TreeHash>();
+
+        /**
+         * Constructor.
+         *
+         * @param fingerprint The fingerprint of the file version.
+         */
+        private Entry(FileFingerprint fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This
+     * class exploits the fact that classes are not loaded until they are
+     * referenced therefore enforcing thread safety without the performance
+     * hit imposed by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class HashCacheHolder {
+
+        /**
+         * Reference to the Singleton instance of the HashCache.
+         */
+        private static final HashCache _instance = new HashCache();
+
+        /**
+         * Accessor method for the singleton instance of the HashCache.
+         *
+         * @return The Singleton instance of the HashCache.
+         */
+        public static HashCache getSingleton() {
+            return _instance;
+        }
+    }
+}
@@ -2,28 +2,82 @@ package mil.nga.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import mil.nga.PropertyLoader;
 import mil.nga.types.HashType;
+import mil.nga.types.ReadMode;
 
 /**
- * This class is used to generate a hash for the input file.  It contains a 
+ * This class is used to generate a hash for the input file.  It contains a
  * a couple of different versions of method <code>getHash</code>.  The class
- * will support the generation of any hash types defined in the 
- * <code>HashTypes</code> enumeration type. 
- * 
- * Note: This class has a dependency on the commons codec library because we 
- * ran into issues when converting the output hashes to Base64 using the JDK 
+ * will support the generation of any hash types defined in the
+ * <code>HashTypes</code> enumeration type.
+ *
+ * Several hash types may be requested at once through
+ * <code>getHashes</code>.  The file is read a single time and each buffer
+ * is passed to every requested <code>MessageDigest</code>, so producing
+ * (for example) both an MD5 and a SHA-256 hash of a multi-GB ISO costs one
+ * pass over the disk rather than two.
+ *
+ * Files are read according to the configured <code>ReadMode</code>.  The 
+ * default reads a <code>FileChannel</code> into a large direct buffer, 
+ * which avoids the small buffers and the extra heap copy of the original 
+ * <code>InputStream</code> path.  When the sequential read hint is 
+ * enabled the next buffer (or mapped segment) is read on a background 
+ * thread while the current one is digested.  The JDK does not expose 
+ * <code>posix_fadvise</code>, so this application-level read-ahead is used
+ * in its place.
+ *
+ * The tree hash types (see <code>HashType.isTree()</code>) are computed 
+ * over fixed-size chunks on a shared fork-join pool, so hashing time 
+ * scales with the number of cores.  When tree and non-tree types are 
+ * requested together the tree hash runs on the pool while the calling 
+ * thread makes the single sequential pass for the other types.
+ *
+ * Generators created with the default constructor consult the shared
+ * <code>HashCache</code> before reading a file and record the hashes they
+ * compute, so an unchanged file is hashed only once across runs and 
+ * processes.
+ *
+ * Note: This class has a dependency on the commons codec library because we
+ * ran into issues when converting the output hashes to Base64 using the JDK
  * classes (specifically, leading 0s were being dropped).
- * 
- * This class was adapted from the HashGenerator EJB removing the bean 
+ *
+ * This class was adapted from the HashGenerator EJB removing the bean
  * annotations and changing it to use the NIO library.
- * 
+ *
  * @author L. Craig Carpenter
  */
 public class HashGenerator {
@@ -33,24 +87,200 @@ public class HashGenerator {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(
             HashGenerator.class);
-    
+
+    /**
+     * Property defining how files are read (stream, channel or mmap).
+     */
+    public static final String HASH_READ_MODE_PROPERTY = "rod.hash.read_mode";
+
+    /**
+     * Property defining the size (in bytes) of the read buffer, or of each
+     * mapped segment in mmap mode.
+     */
+    public static final String HASH_BUFFER_SIZE_PROPERTY =
+            "rod.hash.buffer_size";
+
+    /**
+     * Property enabling the sequential read-ahead.
+     */
+    public static final String HASH_SEQUENTIAL_HINT_PROPERTY =
+            "rod.hash.sequential_hint";
+
+    /**
+     * Property defining the tree hash type recorded with each accelerator
+     * record (e.g. md5-tree).  Unset disables the tree hash.
+     */
+    public static final String HASH_TREE_TYPE_PROPERTY = "rod.hash.tree_type";
+
+    /**
+     * Property defining the tree hash chunk size in bytes.
+     */
+    public static final String HASH_TREE_CHUNK_SIZE_PROPERTY =
+            "rod.hash.tree_chunk_size";
+
+    /**
+     * Property defining the number of threads computing tree hash chunks.
+     * Defaults to the number of available processors.
+     */
+    public static final String HASH_TREE_PARALLELISM_PROPERTY =
+            "rod.hash.tree_parallelism";
+
+    /**
+     * Default tree hash chunk size (64 MB).
+     */
+    public static final long DEFAULT_TREE_CHUNK_SIZE = 64L * 1024L * 1024L;
+
+    /**
+     * Default read mode.
+     */
+    public static final ReadMode DEFAULT_READ_MODE = ReadMode.CHANNEL;
+
+    /**
+     * Default size of the buffer used to read the input file (1 MB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    // Private internal members
+    private ReadMode readMode       = DEFAULT_READ_MODE;
+    private int      bufferSize     = DEFAULT_BUFFER_SIZE;
+    private boolean  sequentialHint = false;
+    private long     treeChunkSize  = DEFAULT_TREE_CHUNK_SIZE;
+    private HashType treeType       = null;
+    private HashCache cache         = null;
+    private RateLimiter limiter     = null;
+
+    /**
+     * Default constructor loading the read configuration from the system
+     * properties.
+     */
+    public HashGenerator() {
+        PropertyLoader pLoader = PropertyLoader.getInstance();
+        try {
+            readMode = ReadMode.fromString(
+                    pLoader.getProperty(HASH_READ_MODE_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            bufferSize = Integer.parseInt(
+                    pLoader.getProperty(HASH_BUFFER_SIZE_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        try {
+            sequentialHint = Boolean.parseBoolean(
+                    pLoader.getProperty(HASH_SEQUENTIAL_HINT_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        try {
+            treeChunkSize = Long.parseLong(
+                    pLoader.getProperty(HASH_TREE_CHUNK_SIZE_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        try {
+            String type = pLoader.getProperty(HASH_TREE_TYPE_PROPERTY);
+            if ((type != null) && (!type.trim().isEmpty())) {
+                treeType = HashType.fromString(type);
+                if (!treeType.isTree()) {
+                    LOGGER.warn("Hash type [ "
+                            + treeType.getText()
+                            + " ] is not a tree hash type.  Tree hashes "
+                            + "disabled.");
+                    treeType = null;
+                }
+            }
+        }
+        catch (Exception e) { }
+        bufferSize    = Math.max(4096, bufferSize);
+        treeChunkSize = Math.max(bufferSize, treeChunkSize);
+        if (HashCache.getInstance().isEnabled()) {
+            cache = HashCache.getInstance();
+        }
+    }
+
+    /**
+     * Constructor allowing the read configuration to be supplied directly.
+     * The hash cache is not used unless set through 
+     * <code>setHashCache</code>.
+     *
+     * @param readMode How files are read.
+     * @param bufferSize Size of the read buffer (or mapped segment) in
+     * bytes.
+     * @param sequentialHint True to read ahead on a background thread.
+     */
+    public HashGenerator(ReadMode readMode, int bufferSize, boolean sequentialHint) {
+        this(readMode, bufferSize, sequentialHint, DEFAULT_TREE_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor allowing the read configuration and tree hash chunk size
+     * to be supplied directly.
+     *
+     * @param readMode How files are read.
+     * @param bufferSize Size of the read buffer (or mapped segment) in
+     * bytes.
+     * @param sequentialHint True to read ahead on a background thread.
+     * @param treeChunkSize Size of each tree hash chunk in bytes.
+     */
+    public HashGenerator(
+            ReadMode readMode,
+            int bufferSize,
+            boolean sequentialHint,
+            long treeChunkSize) {
+        this.readMode       = (readMode == null ? DEFAULT_READ_MODE : readMode);
+        this.bufferSize     = Math.max(4096, bufferSize);
+        this.sequentialHint = sequentialHint;
+        this.treeChunkSize  = Math.max(this.bufferSize, treeChunkSize);
+    }
+
+    /**
+     * Setter method for the cache consulted before a file is read.
+     *
+     * @param cache The hash cache, or null to always read the file.
+     */
+    public void setHashCache(HashCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Setter method for the limiter applied to every buffer read.  A 
+     * limiter shared by several generators caps their combined read rate.
+     *
+     * @param limiter The rate limiter, or null to read at full speed.
+     */
+    public void setRateLimiter(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
     /**
-     * Default constructor.
+     * Getter method for the tree hash type configured by the
+     * <code>rod.hash.tree_type</code> property.
+     *
+     * @return The tree hash type, or null if tree hashes are disabled.
      */
-    public HashGenerator() { }
-    
+    public HashType getTreeType() {
+        return treeType;
+    }
+
+    /**
+     * Getter method for the read mode.
+     *
+     * @return How files are read.
+     */
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
     /**
-     * Compute a hash of the input file.  For available hash types see 
+     * Compute a hash of the input file.  For available hash types see
      * @see mil.nga.types.HashType.
-     * 
+     *
      * @param filename The full path for the file we want the hash computed.
      * @param type The hash type to generate.
      * @return The computed hash value.
      */
     public String getHash(String filename, HashType type) {
-        
+
         String hash = null;
-        
+
         if ((filename != null) && (!filename.isEmpty())) {
             Path p = Paths.get(filename);
             hash = getHash(p, type);
@@ -59,236 +289,769 @@ public class HashGenerator {
             LOGGER.error("The input file name is null or empty.  The returned "
                     + "hash will be null.");
         }
-        
+
         return hash;
     }
-    
+
     /**
-     * Compute a hash of the input file.  For available hash types see 
+     * Compute a hash of the input file.  For available hash types see
      * @see mil.nga.types.HashType.
-     * 
+     *
      * @param p Path object of file we want the hash computed.
      * @param type The hash type to generate.
      * @return The computed hash value.
      */
     public String getHash(Path p, HashType type) {
-        
         String hash = null;
-        
-        if ((p != null) && (Files.exists(p))) {
-            long startTime = System.currentTimeMillis();
-            switch (type) {
-                case MD5 : 
-                    hash = getMD5Hash(p);
-                    break;
-                case SHA1:
-                    hash = getSHA1Hash(p);
-                    break;
-                case SHA256:
-                    hash = getSHA256Hash(p);
-                    break;
-                case SHA384:
-                    hash = getSHA384Hash(p);                        
-                    break;
-                case SHA512:
-                    hash = getSHA512Hash(p);                        
-                    break;
-                default:
-                    LOGGER.error("Client requested hash type [ "
-                            + type.getText()
-                            + " ] which is not yet implemented.");
-            }
-            
-            long elapsedTime = System.currentTimeMillis() - startTime;
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(
-                       "Hash type [ "
-                        + type.getText()
-                        + " ] for file [ "
-                        + p.toString()
-                        + " ] created in [ "
-                        + Long.toString(elapsedTime)
-                        + " ] ms.");
-            }
-            
+        if (type != null) {
+            hash = getHashes(p, EnumSet.of(type)).get(type);
         }
         else {
-            LOGGER.error("The input file is null or does not exist.  Unable "
-                    + "to generate the file hash." );
+            LOGGER.error("The input hash type is null.  The returned hash "
+                    + "will be null.");
         }
-        
         return hash;
     }
-    
+
     /**
-     * Calculate the MD5 hash using the Apache Commons Codec classes.  
-     * 
-     * @param file The file we need the hash for.
-     * @return The calculated MD5 hash.
+     * Compute several hashes of the input file from a single read.
+     *
+     * @param filename The full path for the file we want the hashes
+     * computed.
+     * @param types The hash types to generate.
+     * @return Map of hash type to computed hash value.  Empty if the file
+     * could not be read, but will not be null.
      */
-    private String getMD5Hash(Path file) {
+    public Map<HashType, String> getHashes(String filename, Set<HashType> types) {
 
-        InputStream is   = null;
-        String      hash = null;
+        Map<HashType, String> hashes = new EnumMap<HashType, String>(
+                HashType.class);
 
-        try {
-            is = Files.newInputStream(file);
-            hash = org.apache.commons.codec.digest.DigestUtils.md5Hex(is);
+        if ((filename != null) && (!filename.isEmpty())) {
+            hashes = getHashes(Paths.get(filename), types);
         }
-        catch (IOException ioe) {
-            LOGGER.error(
-                 "Unexpected IOException encountered while generating "
-                 + "the [ " 
-                 + HashType.MD5.getText() 
-                 + " ] hash for file [ "
-                 + file.toString()
-                 + " ].  Exception message => [ "
-                 + ioe.getMessage()
-                 + " ].  Method will return a null hash.");
-        }
-        finally {
-            if (is != null) {
-                    try { is.close(); } catch (Exception e) {}
-            }
+        else {
+            LOGGER.error("The input file name is null or empty.  The returned "
+                    + "hashes will be empty.");
         }
-        return hash;
+        return hashes;
     }
-    
+
     /**
-     * Calculate the SHA-1 hash using the Apache Commons Codec classes.
-     * Note: SHA-1 hash generation seems to take about twice as long as MD5 
-     * hash generation.
-     * 
-     * @param file The file we need the hash for.
-     * @return The calculated SHA1 hash.
+     * Compute several hashes of the input file from a single read.  Each
+     * buffer read from the file is passed to the <code>MessageDigest</code>
+     * of every requested hash type.
+     *
+     * @param p Path object of file we want the hashes computed.
+     * @param types The hash types to generate.
+     * @return Map of hash type to computed hash value.  Empty if the file
+     * could not be read, but will not be null.
      */
-    private String getSHA1Hash(Path file) {
+    public Map<HashType, String> getHashes(Path p, Set<HashType> types) {
+        return getHashes(p, types, null);
+    }
+
+    /**
+     * Compute several hashes of the input file.  Hashes held in the hash
+     * cache for the current version of the file are returned without
+     * reading it.  The remaining non-tree hashes are computed from a single 
+     * read on the calling thread while the tree hashes (if any) are 
+     * computed on the fork-join pool, and are then added to the cache.
+     *
+     * @param p Path object of file we want the hashes computed.
+     * @param types The hash types to generate.
+     * @param trees Map in which the full result of each tree hash (i.e.
+     * including the chunk digests) is placed.  May be null.
+     * @return Map of hash type to computed hash value (the root digest for
+     * the tree types).  Empty if the file could not be read, but will not
+     * be null.
+     */
+    public Map<HashType, String> getHashes(
+            final Path p,
+            Set<HashType> types,
+            Map<HashType, TreeHash> trees) {
+
+        Map<HashType, String> hashes = new EnumMap<HashType, String>(
+                HashType.class);
+
+        if ((types == null) || (types.isEmpty())) {
+            LOGGER.error("No hash types requested.  The returned hashes will "
+                    + "be empty.");
+            return hashes;
+        }
+        if ((p == null) || (!Files.exists(p))) {
+            LOGGER.error("The input file is null or does not exist.  Unable "
+                    + "to generate the file hash." );
+            return hashes;
+        }
 
-        InputStream is   = null;
-        String      hash = null;
+        if (cache == null) {
+            return computeHashes(p, types, trees);
+        }
 
+        FileFingerprint fingerprint = null;
         try {
-            is = Files.newInputStream(file);
-            hash = org.apache.commons.codec.digest.DigestUtils.sha1Hex(is);
+            fingerprint = cache.fingerprint(p);
         }
         catch (IOException ioe) {
-             LOGGER.error(
-                     "Unexpected IOException encountered while generating "
-                     + "the [ " 
-                     + HashType.SHA1.getText() 
-                     + " ] hash for file [ "
-                     + file.toString()
-                     + " ].  Exception message => [ "
-                     + ioe.getMessage()
-                     + " ].  Method will return a null hash.");
-        }
-        finally {
-            if (is != null) {
-                    try { is.close(); } catch (Exception e) {}
+            return computeHashes(p, types, trees);
+        }
+        Set<HashType> remaining = EnumSet.noneOf(HashType.class);
+        for (HashType type : types) {
+            if (type == null) {
+                continue;
+            }
+            if (type.isTree()) {
+                TreeHash tree = cache.getTree(
+                        p, fingerprint, type, treeChunkSize);
+                if (tree != null) {
+                    hashes.put(type, tree.getRoot());
+                    if (trees != null) {
+                        trees.put(type, tree);
+                    }
+                    continue;
+                }
+            }
+            else {
+                String hash = cache.get(p, fingerprint, type);
+                if (hash != null) {
+                    hashes.put(type, hash);
+                    continue;
+                }
             }
+            remaining.add(type);
         }
-        return hash;
+
+        if (!remaining.isEmpty()) {
+            Map<HashType, TreeHash> computed = 
+                    new EnumMap<HashType, TreeHash>(HashType.class);
+            Map<HashType, String>   values   = 
+                    computeHashes(p, remaining, computed);
+            cache.put(p, fingerprint, values, computed);
+            hashes.putAll(values);
+            if (trees != null) {
+                trees.putAll(computed);
+            }
+        }
+        return hashes;
     }
 
     /**
-     * Calculate the SHA-256 hash using the Apache Commons Codec classes.
-     * 
-     * @param file The file we need the hash for.
-     * @return The calculated SHA256 hash.
+     * Compute several hashes of the input file without consulting the 
+     * hash cache.
+     *
+     * @param p Path object of file we want the hashes computed.
+     * @param types The hash types to generate.
+     * @param trees Map in which the full result of each tree hash is 
+     * placed.  May be null.
+     * @return Map of hash type to computed hash value.
      */
-    private String getSHA256Hash(Path file) {
+    private Map<HashType, String> computeHashes(
+            final Path p,
+            Set<HashType> types,
+            Map<HashType, TreeHash> trees) {
 
-        InputStream is   = null;
-        String      hash = null;
+        Map<HashType, String> hashes = new EnumMap<HashType, String>(
+                HashType.class);
+        long startTime = System.currentTimeMillis();
+        final Set<HashType> treeTypes = EnumSet.noneOf(HashType.class);
+        for (HashType type : types) {
+            if ((type != null) && type.isTree()) {
+                treeTypes.add(type);
+            }
+        }
+        Future<Map<HashType, TreeHash>> pending = null;
+        if (!treeTypes.isEmpty()) {
+            pending = TreePoolHolder.getPool().submit(
+                    new Callable<Map<HashType, TreeHash>>() {
+                        @Override
+                        public Map<HashType, TreeHash> call() {
+                            return getTreeHashes(p, treeTypes);
+                        }
+                    });
+        }
 
+        Map<HashType, MessageDigest> digests = getDigests(types);
+        if (!digests.isEmpty()) {
+            readHashes(p, digests, hashes);
+        }
+
+        if (pending != null) {
+            try {
+                for (TreeHash tree : pending.get().values()) {
+                    hashes.put(tree.getType(), tree.getRoot());
+                    if (trees != null) {
+                        trees.put(tree.getType(), tree);
+                    }
+                }
+            }
+            catch (InterruptedException ie) {
+                pending.cancel(true);
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException ee) {
+                LOGGER.error("Unexpected error computing the tree hashes "
+                        + "for file [ "
+                        + p.toString()
+                        + " ].  Error message => [ "
+                        + ee.getCause()
+                        + " ].");
+            }
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                   "Hash types [ "
+                    + types
+                    + " ] for file [ "
+                    + p.toString()
+                    + " ] created in [ "
+                    + Long.toString(System.currentTimeMillis() - startTime)
+                    + " ] ms.");
+        }
+        return hashes;
+    }
+
+    /**
+     * Compute the non-tree hashes in a single sequential read.
+     *
+     * @param p The file.
+     * @param digests The digest of each requested hash type.
+     * @param hashes Map in which the hex-encoded hashes are placed.
+     */
+    private void readHashes(
+            Path p,
+            Map<HashType, MessageDigest> digests,
+            Map<HashType, String> hashes) {
         try {
-            is = Files.newInputStream(file);
-            hash = org.apache.commons.codec.digest.DigestUtils.sha256Hex(is);
+            switch (readMode) {
+                case STREAM:
+                    readStream(p, digests.values());
+                    break;
+                case MMAP:
+                    readMapped(p, digests.values());
+                    break;
+                default:
+                    readChannel(p, digests.values());
+            }
+            for (Map.Entry<HashType, MessageDigest> entry : digests.entrySet()) {
+                hashes.put(
+                        entry.getKey(),
+                        Hex.encodeHexString(entry.getValue().digest()));
+            }
         }
         catch (IOException ioe) {
             LOGGER.error(
-                "Unexpected IOException encountered while generating "
-                + "the [ " 
-                + HashType.SHA256.getText() 
-                + " ] hash for file [ "
-                + file.toString()
-                + " ].  Exception message => [ "
-                + ioe.getMessage()
-                + " ].  Method will return a null hash.");
-        }
-        finally {
-            if (is != null) {
-                    try { is.close(); } catch (Exception e) {}
+                    "Unexpected IOException encountered while generating "
+                    + "the [ "
+                    + digests.keySet()
+                    + " ] hashes for file [ "
+                    + p.toString()
+                    + " ].  Exception message => [ "
+                    + ioe.getMessage()
+                    + " ].  Method will return empty hashes.");
+        }
+    }
+
+    /**
+     * Compute a tree hash of the input file.
+     *
+     * @param p Path object of file we want the hash computed.
+     * @param type The tree hash type to generate.
+     * @return The tree hash, or null if the file could not be read or the
+     * type is not a tree hash type.
+     */
+    public TreeHash getTreeHash(Path p, HashType type) {
+        TreeHash tree = null;
+        if ((type != null) && type.isTree()) {
+            tree = getTreeHashes(p, EnumSet.of(type)).get(type);
+        }
+        else {
+            LOGGER.error("Hash type [ "
+                    + type
+                    + " ] is not a tree hash type.  The returned hash will "
+                    + "be null.");
+        }
+        return tree;
+    }
+
+    /**
+     * Compute one or more tree hashes of the input file.  Each chunk is
+     * read once, with positional reads, and passed to the digest of every
+     * requested type.  The chunks are processed in parallel on the
+     * fork-join pool.
+     *
+     * @param p Path object of file we want the hashes computed.
+     * @param types The tree hash types to generate.  Non-tree types are
+     * ignored.
+     * @return Map of hash type to tree hash.  Empty if the file could not
+     * be read, but will not be null.
+     */
+    public Map<HashType, TreeHash> getTreeHashes(Path p, Set<HashType> types) {
+
+        Map<HashType, TreeHash> trees = new EnumMap<HashType, TreeHash>(
+                HashType.class);
+        List<HashType> list = new ArrayList<HashType>();
+        for (HashType type : getDigests(types, true).keySet()) {
+            list.add(type);
+        }
+        if (list.isEmpty() || (p == null) || (!Files.exists(p))) {
+            return trees;
+        }
+
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(
+                p, StandardOpenOption.READ)) {
+            long       size   = channel.size();
+            int        count  = (int)((size + treeChunkSize - 1) / treeChunkSize);
+            byte[][][] leaves = new byte[count][][];
+            if (count > 0) {
+                TreePoolHolder.getPool().invoke(
+                        new ChunkTask(channel, list, leaves, size, 0, count));
+            }
+            for (int t=0; t<list.size(); t++) {
+                MessageDigest root   = MessageDigest.getInstance(
+                        list.get(t).getAlgorithm());
+                List<String>  chunks = new ArrayList<String>(count);
+                for (int i=0; i<count; i++) {
+                    root.update(leaves[i][t]);
+                    chunks.add(Hex.encodeHexString(leaves[i][t]));
+                }
+                trees.put(list.get(t), new TreeHash(
+                        list.get(t),
+                        treeChunkSize,
+                        Hex.encodeHexString(root.digest()),
+                        chunks));
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Tree hashes [ "
+                        + list
+                        + " ] of [ "
+                        + count
+                        + " ] chunks for file [ "
+                        + p.toString()
+                        + " ] created in [ "
+                        + (System.currentTimeMillis() - start)
+                        + " ] ms.");
             }
         }
-        return hash;
+        catch (IOException | UncheckedIOException | NoSuchAlgorithmException e) {
+            LOGGER.error("Unexpected exception encountered while generating "
+                    + "the [ "
+                    + list
+                    + " ] tree hashes for file [ "
+                    + p.toString()
+                    + " ].  Exception message => [ "
+                    + e.getMessage()
+                    + " ].  Method will return empty hashes.");
+            trees.clear();
+        }
+        return trees;
     }
-    
+
+    /**
+     * Feed the file to the digests through an <code>InputStream</code>.
+     *
+     * @param p The file.
+     * @param digests The digests to update.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    private void readStream(Path p, Collection<MessageDigest> digests)
+            throws IOException {
+        try (InputStream is = Files.newInputStream(p)) {
+            byte[] buffer = new byte[bufferSize];
+            int    read;
+            while ((read = is.read(buffer)) != -1) {
+                if (limiter != null) {
+                    limiter.acquire(read);
+                }
+                for (MessageDigest digest : digests) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+    }
+
     /**
-     * Calculate the SHA-384 hash using the Apache Commons Codec classes.
-     * 
-     * @param file The file we need the hash for.
-     * @return The calculated SHA384 hash.
+     * Feed the file to the digests through a <code>FileChannel</code> and
+     * direct buffers.  With the sequential hint enabled two buffers are
+     * used; the next one is filled on a background thread while the
+     * current one is digested.
+     *
+     * @param p The file.
+     * @param digests The digests to update.
+     * @throws IOException Thrown if the file cannot be read.
      */
-    private String getSHA384Hash(Path file) {
+    private void readChannel(Path p, Collection<MessageDigest> digests)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                p, StandardOpenOption.READ)) {
+            int        size    = (int)Math.max(1,
+                    Math.min(bufferSize, channel.size()));
+            ByteBuffer current = ByteBuffer.allocateDirect(size);
+            ByteBuffer next    = null;
+            if (sequentialHint && (channel.size() > size)) {
+                next = ByteBuffer.allocateDirect(size);
+            }
+            int read = fill(channel, current);
+            while (read > 0) {
+                Future<Integer> ahead = null;
+                if (next != null) {
+                    ahead = fillAsync(channel, next);
+                }
+                update(current, digests);
+                if (ahead != null) {
+                    read = await(ahead);
+                    ByteBuffer digested = current;
+                    current = next;
+                    next    = digested;
+                }
+                else {
+                    read = fill(channel, current);
+                }
+            }
+        }
+    }
 
-        InputStream is   = null;
-        String      hash = null;
+    /**
+     * Feed the file to the digests one memory-mapped segment at a time.
+     * With the sequential hint enabled the next segment is loaded into
+     * memory on a background thread while the current one is digested.
+     *
+     * @param p The file.
+     * @param digests The digests to update.
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    private void readMapped(Path p, Collection<MessageDigest> digests)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                p, StandardOpenOption.READ)) {
+            long             size    = channel.size();
+            MappedByteBuffer current = null;
+            if (size > 0) {
+                current = channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        0,
+                        Math.min(bufferSize, size));
+            }
+            for (long position = 0; position < size; position += bufferSize) {
+                MappedByteBuffer next  = null;
+                Future<Integer>  ahead = null;
+                if ((position + bufferSize) < size) {
+                    next = channel.map(
+                            FileChannel.MapMode.READ_ONLY,
+                            position + bufferSize,
+                            Math.min(bufferSize, size - position - bufferSize));
+                    if (sequentialHint) {
+                        ahead = loadAsync(next);
+                    }
+                }
+                update(current, digests);
+                if (ahead != null) {
+                    await(ahead);
+                }
+                current = next;
+            }
+        }
+    }
 
+    /**
+     * Pass the contents of a buffer to every digest, first waiting on the
+     * rate limiter (if any).
+     *
+     * @param buffer The buffer (position 0, limit at the end of the data).
+     * @param digests The digests to update.
+     */
+    private void update(ByteBuffer buffer, Collection<MessageDigest> digests) {
+        if (limiter != null) {
+            limiter.acquire(buffer.limit());
+        }
+        for (MessageDigest digest : digests) {
+            buffer.rewind();
+            digest.update(buffer);
+        }
+    }
+
+    /**
+     * Fill the buffer from the channel.
+     *
+     * @param channel The file.
+     * @param buffer The buffer to fill.
+     * @return The number of bytes read (0 at the end of the file).
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    private static int fill(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && (channel.read(buffer) != -1)) { }
+        buffer.flip();
+        return buffer.limit();
+    }
+
+    /**
+     * Fill the buffer from the channel on the read-ahead thread.
+     *
+     * @param channel The file.
+     * @param buffer The buffer to fill.
+     * @return The pending number of bytes read.
+     */
+    private static Future<Integer> fillAsync(
+            final FileChannel channel,
+            final ByteBuffer buffer) {
+        return ReadAheadHolder.getExecutor().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                return fill(channel, buffer);
+            }
+        });
+    }
+
+    /**
+     * Load a mapped segment into memory on the read-ahead thread.
+     *
+     * @param segment The mapped segment.
+     * @return Pending completion of the load.
+     */
+    private static Future<Integer> loadAsync(final MappedByteBuffer segment) {
+        return ReadAheadHolder.getExecutor().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                segment.load();
+                return segment.limit();
+            }
+        });
+    }
+
+    /**
+     * Wait for a read-ahead to complete.
+     *
+     * @param ahead The pending read.
+     * @return The result of the read.
+     * @throws IOException Thrown if the read failed or the caller was
+     * interrupted.
+     */
+    private static int await(Future<Integer> ahead) throws IOException {
         try {
-            is = Files.newInputStream(file);
-            hash = org.apache.commons.codec.digest.DigestUtils.sha384Hex(is);
+            return ahead.get();
         }
-        catch (IOException ioe) {
-            LOGGER.error(
-                "Unexpected IOException encountered while generating "
-                + "the [ " 
-                + HashType.SHA384.getText() 
-                + " ] hash for file [ "
-                + file.toString()
-                + " ].  Exception message => [ "
-                + ioe.getMessage()
-                + " ].  Method will return a null hash.");
-        }
-        finally {
-            if (is != null) {
-                    try { is.close(); } catch (Exception e) {}
+        catch (InterruptedException ie) {
+            ahead.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading "
+                    + "ahead.");
+        }
+        catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException)ee.getCause();
             }
+            throw new IOException(ee.getCause());
         }
-        return hash;
     }
-    
+
+    /**
+     * Obtain a new <code>MessageDigest</code> for each requested hash type.
+     * Hash types that are not supported by the JVM are logged and skipped.
+     *
+     * @param types The hash types requested.
+     * @return Map of hash type to digest, in enumeration order.
+     */
+    private Map<HashType, MessageDigest> getDigests(Set<HashType> types) {
+        return getDigests(types, false);
+    }
+
+    /**
+     * Obtain a new <code>MessageDigest</code> for each requested hash type
+     * of the requested kind (tree or non-tree).
+     *
+     * @param types The hash types requested.
+     * @param tree True to select the tree hash types, false for the others.
+     * @return Map of hash type to digest, in enumeration order.
+     */
+    private Map<HashType, MessageDigest> getDigests(
+            Set<HashType> types,
+            boolean tree) {
+        Map<HashType, MessageDigest> digests =
+                new EnumMap<HashType, MessageDigest>(HashType.class);
+        for (HashType type : types) {
+            if ((type != null) && (type.isTree() == tree)) {
+                try {
+                    digests.put(
+                            type,
+                            MessageDigest.getInstance(type.getAlgorithm()));
+                }
+                catch (NoSuchAlgorithmException nsae) {
+                    LOGGER.error("Client requested hash type [ "
+                            + type.getText()
+                            + " ] which is not supported.  Error message => [ "
+                            + nsae.getMessage()
+                            + " ].");
+                }
+            }
+        }
+        return digests;
+    }
+
     /**
-     * Calculate the SHA-512 hash using the Apache Commons Codec classes.
-     * 
-     * @param file The file we need the hash for.
-     * @return The calculated SHA512 hash.
+     * Fork-join task hashing a range of chunks.  Ranges are split in half 
+     * until a single chunk remains, which is read with positional reads 
+     * (safe to issue concurrently on one channel) and passed to a digest 
+     * of each requested type.
      */
-    private String getSHA512Hash(Path file) {
+    private class ChunkTask extends RecursiveAction {
 
-        InputStream is   = null;
-        String      hash = null;
+        /**
+         * Eclipse-generated serialVersionUID
+         */
+        private static final long serialVersionUID = -4318702941776211083L;
 
-        try {
-            is = Files.newInputStream(file);
-            hash = org.apache.commons.codec.digest.DigestUtils.sha512Hex(is);
+        // Private internal members
+        private final FileChannel    channel;
+        private final List<HashType> types;
+        private final byte[][][]     leaves;
+        private final long           size;
+        private final int            from;
+        private final int            to;
+
+        /**
+         * Constructor.
+         *
+         * @param channel The file.
+         * @param types The tree hash types.
+         * @param leaves Array receiving the digests of each chunk, indexed
+         * by chunk then type.
+         * @param size The file size.
+         * @param from First chunk (inclusive).
+         * @param to Last chunk (exclusive).
+         */
+        ChunkTask(
+                FileChannel channel,
+                List<HashType> types,
+                byte[][][] leaves,
+                long size,
+                int from,
+                int to) {
+            this.channel = channel;
+            this.types   = types;
+            this.leaves  = leaves;
+            this.size    = size;
+            this.from    = from;
+            this.to      = to;
         }
-        catch (IOException ioe) {
-            LOGGER.error(
-                "Unexpected IOException encountered while generating "
-                + "the [ " 
-                + HashType.SHA512.getText() 
-                + " ] hash for file [ "
-                + file.toString()
-                + " ].  Exception message => [ "
-                + ioe.getMessage()
-                + " ].  Method will return a null hash.");
-        }
-        finally {
-            if (is != null) {
-                    try { is.close(); } catch (Exception e) {}
+
+        @Override
+        protected void compute() {
+            if ((to - from) > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ChunkTask(channel, types, leaves, size, from, middle),
+                        new ChunkTask(channel, types, leaves, size, middle, to));
+                return;
+            }
+            try {
+                MessageDigest[] digests = new MessageDigest[types.size()];
+                for (int t=0; t<digests.length; t++) {
+                    digests[t] = MessageDigest.getInstance(
+                            types.get(t).getAlgorithm());
+                }
+                long       position = from * treeChunkSize;
+                long       end      = Math.min(size, position + treeChunkSize);
+                ByteBuffer buffer   = ByteBuffer.allocateDirect(
+                        (int)Math.min(bufferSize, end - position));
+                while (position < end) {
+                    buffer.clear();
+                    buffer.limit((int)Math.min(buffer.capacity(), end - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("File truncated while hashing "
+                                + "at offset [ "
+                                + position
+                                + " ].");
+                    }
+                    buffer.flip();
+                    update(buffer, Arrays.asList(digests));
+                    position += read;
+                }
+                leaves[from] = new byte[digests.length][];
+                for (int t=0; t<digests.length; t++) {
+                    leaves[from][t] = digests[t].digest();
+                }
+            }
+            catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            catch (NoSuchAlgorithmException nsae) {
+                throw new IllegalStateException(nsae);
             }
         }
-        return hash;
+    }
+
+    /**
+     * Static inner class used to construct the fork-join pool computing
+     * tree hash chunks on first use.  The pool is sized by the
+     * <code>rod.hash.tree_parallelism</code> property.
+     */
+    private static class TreePoolHolder {
+
+        /**
+         * Pool shared by every <code>HashGenerator</code>.
+         */
+        private static final ForkJoinPool pool = new ForkJoinPool(
+                getParallelism());
+
+        /**
+         * Retrieve the pool size from the system properties.
+         *
+         * @return The number of threads computing tree hash chunks.
+         */
+        private static int getParallelism() {
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            try {
+                parallelism = Integer.parseInt(PropertyLoader.getInstance()
+                        .getProperty(HASH_TREE_PARALLELISM_PROPERTY).trim());
+            }
+            catch (Exception e) { }
+            return Math.max(1, parallelism);
+        }
+
+        /**
+         * Accessor method for the tree hash pool.
+         *
+         * @return The tree hash pool.
+         */
+        public static ForkJoinPool getPool() {
+            return pool;
+        }
+    }
+
+    /**
+     * Static inner class used to construct the pool of read-ahead threads
+     * on first use.  The threads are daemon threads and exit when idle.
+     */
+    private static class ReadAheadHolder {
+
+        /**
+         * Pool shared by every <code>HashGenerator</code>.
+         */
+        private static final ExecutorService executor =
+                Executors.newCachedThreadPool(new ThreadFactory() {
+                    private final AtomicInteger counter = new AtomicInteger(0);
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(
+                                r,
+                                "rod-hash-read-ahead-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        /**
+         * Accessor method for the read-ahead pool.
+         *
+         * @return The read-ahead pool.
+         */
+        public static ExecutorService getExecutor() {
+            return executor;
+        }
     }
 }
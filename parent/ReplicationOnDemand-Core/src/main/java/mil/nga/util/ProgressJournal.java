@@ -0,0 +1,428 @@
+package mil.nga.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.types.JournalResult;
+
+/**
+ * Durable, append-only record of the keys a long running job has finished
+ * processing.  Each completed key is written to a local text file as a
+ * single line:
+ *
+ * <pre>
+ * &lt;result&gt; TAB &lt;key&gt; TAB &lt;epoch millis&gt;
+ * </pre>
+ *
+ * The first line of the file is a header containing the job name and the
+ * time the journal was started.  Because the file is plain text, partial
+ * progress can be followed while the job runs (e.g. <code>tail -f</code>
+ * or <code>wc -l</code>).
+ *
+ * If a job dies part way through, the next run loads the journal and uses
+ * {@link #filter(List, JournalResult...)} to skip the keys that were
+ * already finished.  When the job completes normally it calls
+ * {@link #complete()}, which removes the journal so the next run starts
+ * from scratch.  A journal older than <code>rod.journal.max_age</code>
+ * milliseconds is considered stale and discarded.
+ *
+ * @author L. Craig Carpenter
+ */
+public class ProgressJournal implements AutoCloseable {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            ProgressJournal.class);
+
+    /**
+     * Property defining the directory in which journals are stored.
+     */
+    public static final String JOURNAL_DIR_PROPERTY = "rod.journal.dir";
+
+    /**
+     * Property defining the age (in milliseconds) after which an
+     * unfinished journal is discarded rather than resumed.
+     */
+    public static final String JOURNAL_MAX_AGE_PROPERTY = "rod.journal.max_age";
+
+    /**
+     * Default maximum journal age (24 hours).
+     */
+    public static final long DEFAULT_JOURNAL_MAX_AGE = 24L * 60L * 60L * 1000L;
+
+    /**
+     * File extension applied to journal files.
+     */
+    public static final String JOURNAL_EXTENSION = ".journal";
+
+    /**
+     * Number of records between progress log messages.
+     */
+    public static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Prefix identifying the header line.
+     */
+    private static final String HEADER_PREFIX = "#";
+
+    /**
+     * Field separator.
+     */
+    private static final String SEPARATOR = "\t";
+
+    // Private internal members
+    private final Path                       path;
+    private final Map<String, JournalResult> completed =
+            new HashMap<String, JournalResult>();
+    private BufferedWriter                   writer    = null;
+    private long                             recorded  = 0;
+
+    /**
+     * Constructor opening the journal for the named job in the directory
+     * identified by the <code>rod.journal.dir</code> property (the system
+     * temporary directory by default).
+     *
+     * @param name The job name (used as the journal file name).
+     * @throws IOException Thrown if the journal cannot be opened.
+     */
+    public ProgressJournal(String name) throws IOException {
+        this(name, getJournalDir(), getMaxAge());
+    }
+
+    /**
+     * Constructor opening the journal for the named job.
+     *
+     * @param name The job name (used as the journal file name).
+     * @param dir The directory in which the journal is stored.
+     * @param maxAge Age (in milliseconds) after which an unfinished journal
+     * is discarded.
+     * @throws IOException Thrown if the journal cannot be opened.
+     */
+    public ProgressJournal(String name, String dir, long maxAge)
+            throws IOException {
+        path = Paths.get(dir, name + JOURNAL_EXTENSION);
+        if (Files.exists(path)) {
+            if (load(maxAge)) {
+                LOGGER.info("Resuming from journal [ "
+                        + path.toString()
+                        + " ].  [ "
+                        + completed.size()
+                        + " ] keys were completed by a previous run.");
+            }
+            else {
+                LOGGER.info("Discarding stale or unreadable journal [ "
+                        + path.toString()
+                        + " ].");
+                Files.delete(path);
+            }
+        }
+        open(name);
+    }
+
+    /**
+     * Retrieve the journal directory from the system properties.
+     *
+     * @return The journal directory.
+     */
+    private static String getJournalDir() {
+        String dir = null;
+        try {
+            dir = PropertyLoader.getInstance().getProperty(JOURNAL_DIR_PROPERTY);
+        }
+        catch (Exception e) { }
+        if ((dir == null) || (dir.trim().isEmpty())) {
+            dir = System.getProperty("java.io.tmpdir");
+        }
+        return dir.trim();
+    }
+
+    /**
+     * Retrieve the maximum journal age from the system properties.
+     *
+     * @return The maximum journal age in milliseconds.
+     */
+    private static long getMaxAge() {
+        long maxAge = DEFAULT_JOURNAL_MAX_AGE;
+        try {
+            maxAge = Long.parseLong(PropertyLoader.getInstance()
+                    .getProperty(JOURNAL_MAX_AGE_PROPERTY));
+        }
+        catch (Exception e) { }
+        return maxAge;
+    }
+
+    /**
+     * Load the completed keys from an existing journal.  Lines that cannot
+     * be parsed (e.g. a line torn by a crash) are ignored.
+     *
+     * @param maxAge Age after which the journal is considered stale.
+     * @return True if the journal was loaded, false if it is stale or the
+     * header is missing.
+     * @throws IOException Thrown if the journal cannot be read.
+     */
+    private boolean load(long maxAge) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(
+                path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if ((header == null) || (!header.startsWith(HEADER_PREFIX))) {
+                return false;
+            }
+            try {
+                String[] fields = header.substring(HEADER_PREFIX.length())
+                        .trim().split(SEPARATOR);
+                long started = Long.parseLong(fields[fields.length - 1]);
+                if ((System.currentTimeMillis() - started) > maxAge) {
+                    return false;
+                }
+            }
+            catch (NumberFormatException nfe) {
+                return false;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR);
+                if (fields.length >= 2) {
+                    try {
+                        completed.put(
+                                fields[1],
+                                JournalResult.fromString(fields[0]));
+                    }
+                    catch (Exception e) {
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug("Ignoring journal line [ "
+                                    + line
+                                    + " ].");
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open the journal for appending, writing the header if it is new.
+     *
+     * @param name The job name.
+     * @throws IOException Thrown if the journal cannot be opened.
+     */
+    private void open(String name) throws IOException {
+        boolean exists = Files.exists(path);
+        boolean torn   = false;
+        if (exists) {
+            // If the previous run died mid-line, terminate the partial line
+            // so it is not merged with the next record.
+            try (RandomAccessFile file = new RandomAccessFile(
+                    path.toFile(), "r")) {
+                if (file.length() > 0) {
+                    file.seek(file.length() - 1);
+                    torn = (file.read() != '\n');
+                }
+            }
+        }
+        writer = Files.newBufferedWriter(
+                path,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        if (!exists) {
+            writer.write(HEADER_PREFIX + " " + name + SEPARATOR
+                    + System.currentTimeMillis());
+            writer.newLine();
+            writer.flush();
+        }
+        else if (torn) {
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Getter method for the path to the journal file.
+     *
+     * @return The journal path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Getter method for the number of keys completed by a previous run.
+     *
+     * @return The number of keys loaded from an existing journal.
+     */
+    public int getResumedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Getter method for the number of keys recorded by this run.
+     *
+     * @return The number of keys recorded.
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * Determine the result recorded for a key by a previous run.
+     *
+     * @param key The key to look up.
+     * @return The recorded result, or null if the key was not completed.
+     */
+    public JournalResult getResult(String key) {
+        return completed.get(key);
+    }
+
+    /**
+     * Remove keys that a previous run already completed with one of the
+     * supplied results.
+     *
+     * @param keys The candidate keys.
+     * @param results The results that indicate a key is finished.
+     * @return The keys that still need to be processed.
+     */
+    public List<String> filter(List<String> keys, JournalResult... results) {
+        List<String> remaining = keys;
+        if ((keys != null) && (!completed.isEmpty())) {
+            Set<JournalResult> finished = EnumSet.noneOf(JournalResult.class);
+            finished.addAll(Arrays.asList(results));
+            remaining = new ArrayList<String>(keys.size());
+            for (String key : keys) {
+                JournalResult result = completed.get(key);
+                if ((result == null) || (!finished.contains(result))) {
+                    remaining.add(key);
+                }
+            }
+            if (remaining.size() < keys.size()) {
+                LOGGER.info("Skipping [ "
+                        + (keys.size() - remaining.size())
+                        + " ] keys completed by a previous run.");
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Record a single completed key.  The record is flushed before the
+     * method returns.
+     *
+     * @param key The completed key.
+     * @param result The result of processing the key.
+     */
+    public void record(String key, JournalResult result) {
+        recordAll(Arrays.asList(key), result);
+    }
+
+    /**
+     * Record a group of keys completed with the same result.  The records
+     * are flushed once, after the group is written.
+     *
+     * @param keys The completed keys.
+     * @param result The result of processing the keys.
+     */
+    public synchronized void recordAll(
+            Collection<String> keys,
+            JournalResult result) {
+        if ((writer != null) && (keys != null) && (!keys.isEmpty())) {
+            try {
+                long now = System.currentTimeMillis();
+                for (String key : keys) {
+                    writer.write(result.getText());
+                    writer.write(SEPARATOR);
+                    writer.write(key);
+                    writer.write(SEPARATOR);
+                    writer.write(Long.toString(now));
+                    writer.newLine();
+                    recorded++;
+                    if ((recorded % PROGRESS_INTERVAL) == 0) {
+                        LOGGER.info("Progress journal [ "
+                                + path.getFileName()
+                                + " ] has recorded [ "
+                                + recorded
+                                + " ] keys.");
+                    }
+                }
+                writer.flush();
+            }
+            catch (IOException ioe) {
+                LOGGER.error("Unable to write to journal [ "
+                        + path.toString()
+                        + " ].  Progress will not be resumable.  Error "
+                        + "message => [ "
+                        + ioe.getMessage()
+                        + " ].");
+            }
+        }
+    }
+
+    /**
+     * Mark the job as finished.  The journal is closed and removed so the
+     * next run starts from scratch.
+     */
+    public synchronized void complete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ioe) {
+            LOGGER.warn("Unable to remove completed journal [ "
+                    + path.toString()
+                    + " ].  Error message => [ "
+                    + ioe.getMessage()
+                    + " ].");
+        }
+    }
+
+    /**
+     * Close the journal.  The file is left in place so an interrupted run
+     * can be resumed.
+     */
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            }
+            catch (IOException ioe) { }
+            writer = null;
+        }
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ProgressJournal : Path => [ ");
+        sb.append(path.toString());
+        sb.append(" ], Resumed => [ ");
+        sb.append(getResumedCount());
+        sb.append(" ], Recorded => [ ");
+        sb.append(getRecordedCount());
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
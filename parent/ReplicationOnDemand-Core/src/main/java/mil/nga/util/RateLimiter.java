@@ -0,0 +1,85 @@
+package mil.nga.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple limiter capping the rate (in bytes per second) at which data is
+ * consumed by all of the threads sharing an instance.  Each call to
+ * {@link #acquire(long)} reserves the next slot of time large enough for
+ * the requested number of bytes and sleeps until the slot begins, so
+ * callers are spaced out evenly rather than bursting and then stalling.
+ *
+ * Used to stop background hashing from saturating the disks that also
+ * serve downloads.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RateLimiter {
+
+    // Private internal members
+    private final long bytesPerSecond;
+    private long       nextFree = System.nanoTime();
+
+    /**
+     * Constructor.
+     *
+     * @param bytesPerSecond The maximum rate in bytes per second.  Must be
+     * positive.
+     */
+    public RateLimiter(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("The rate must be positive.  "
+                    + "Rate supplied [ "
+                    + bytesPerSecond
+                    + " ].");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Getter method for the configured rate.
+     *
+     * @return The maximum rate in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Block until the requested number of bytes may be consumed.  If the
+     * calling thread is interrupted the method returns early with the
+     * interrupt flag set.
+     *
+     * @param bytes The number of bytes about to be (or just) consumed.
+     */
+    public void acquire(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextFree < now) {
+                nextFree = now;
+            }
+            wait      = nextFree - now;
+            nextFree += (long)(bytes * (1000000000.0 / bytesPerSecond));
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        return "RateLimiter : Bytes per second => [ " + bytesPerSecond + " ].";
+    }
+}
@@ -0,0 +1,101 @@
+package mil.nga.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.types.HashType;
+
+/**
+ * Result of a chunked tree hash.  The file is split into chunks of
+ * <code>chunkSize</code> bytes (the final chunk may be shorter), each
+ * chunk is hashed independently, and the root is the hash of the 
+ * concatenated raw chunk digests.  An empty file has no chunks and its 
+ * root is the hash of no data.
+ *
+ * @author L. Craig Carpenter
+ */
+public class TreeHash implements Serializable {
+
+    /**
+     * Eclipse-generated serialVersionUID
+     */
+    private static final long serialVersionUID = 6029187732905163781L;
+
+    // Private internal members
+    private final HashType     type;
+    private final long         chunkSize;
+    private final String       root;
+    private final List<String> chunks;
+
+    /**
+     * Constructor.
+     *
+     * @param type The tree hash type.
+     * @param chunkSize The chunk size in bytes.
+     * @param root The hex-encoded root digest.
+     * @param chunks The hex-encoded chunk digests in file order.
+     */
+    public TreeHash(
+            HashType type,
+            long chunkSize,
+            String root,
+            List<String> chunks) {
+        this.type      = type;
+        this.chunkSize = chunkSize;
+        this.root      = root;
+        this.chunks    = Collections.unmodifiableList(
+                new ArrayList<String>(chunks));
+    }
+
+    /**
+     * Getter method for the tree hash type.
+     * @return The tree hash type.
+     */
+    public HashType getType() {
+        return type;
+    }
+
+    /**
+     * Getter method for the chunk size.
+     * @return The chunk size in bytes.
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Getter method for the root digest.
+     * @return The hex-encoded root digest.
+     */
+    public String getRoot() {
+        return root;
+    }
+
+    /**
+     * Getter method for the chunk digests.
+     * @return The hex-encoded chunk digests in file order.
+     */
+    public List<String> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("TreeHash : Type => [ ");
+        sb.append(type == null ? "null" : type.getText());
+        sb.append(" ], Chunk size => [ ");
+        sb.append(chunkSize);
+        sb.append(" ], Chunks => [ ");
+        sb.append(chunks.size());
+        sb.append(" ], Root => [ ");
+        sb.append(root);
+        sb.append(" ].");
+        return sb.toString();
+    }
+}
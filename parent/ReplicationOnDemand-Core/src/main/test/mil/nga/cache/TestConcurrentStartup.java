@@ -0,0 +1,92 @@
+package mil.nga.cache;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Races 64 threads against the first call to the RedisCacheManager
+ * accessor and verifies that exactly one instance (and therefore exactly
+ * one Redis connection pool) is created.  Constructing the pool does not 
+ * open a connection so no Redis server is required.  Singletons held in a
+ * <code>static final</code> holder field cannot race and are not tested; 
+ * the JDBC factories are covered by 
+ * <code>mil.nga.rod.jdbc.TestConcurrentFactoryStartup</code>.
+ */
+public class TestConcurrentStartup {
+
+    private static final int THREADS = 64;
+
+    /**
+     * Release all threads at once against the supplied accessor and
+     * collect the distinct (by identity) objects returned.
+     */
+    private <T> Set<T> race(final Callable<T> accessor) throws Exception {
+
+        final CountDownLatch ready = new CountDownLatch(THREADS);
+        final CountDownLatch go    = new CountDownLatch(1);
+        ExecutorService      exec  = Executors.newFixedThreadPool(THREADS);
+        List<Future<T>>      results = new ArrayList<Future<T>>();
+
+        try {
+            for (int i=0; i<THREADS; i++) {
+                results.add(exec.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        ready.countDown();
+                        go.await();
+                        return accessor.call();
+                    }
+                }));
+            }
+            ready.await();
+            go.countDown();
+
+            Set<T> distinct = Collections.newSetFromMap(
+                    new IdentityHashMap<T, Boolean>());
+            for (Future<T> result : results) {
+                distinct.add(result.get());
+            }
+            return distinct;
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRedisCacheManagerStartup() throws Exception {
+
+        Set<RedisCacheManager> managers = race(
+                new Callable<RedisCacheManager>() {
+                    @Override
+                    public RedisCacheManager call() {
+                        return RedisCacheManager.getInstance();
+                    }
+                });
+        assertEquals(1, managers.size());
+
+        // Exactly one set of connection pools.
+        Set<Object> topologies = Collections.newSetFromMap(
+                new IdentityHashMap<Object, Boolean>());
+        for (RedisCacheManager manager : managers) {
+            topologies.add(manager.getTopology());
+        }
+        assertEquals(1, topologies.size());
+
+        // Startup alone must not open any connections.
+        RedisPoolStatistics stats =
+                RedisCacheManager.getInstance().getPoolStatistics();
+        assertEquals(0, stats.getNumActive());
+    }
+}
@@ -0,0 +1,177 @@
+package mil.nga.cache;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.types.CacheOperation;
+
+public class TestMemoryCacheManager {
+
+    private static Set<String> drain(Iterator<String> iter) {
+        Set<String> keys = new HashSet<String>();
+        while (iter.hasNext()) {
+            keys.add(iter.next());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testGetPutRemove() {
+        MemoryCacheManager cache = new MemoryCacheManager(null, 0);
+        cache.put("a", "1");
+        cache.put("b", "");
+        cache.put(null, "2");
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get(null));
+        assertEquals(1, cache.getKeys().size());
+
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("b", "2");
+        values.put("c", "3");
+        values.put("", "4");
+        cache.putAll(values);
+        Map<String, String> found = cache.getAll(Arrays.asList("a", "b", "x"));
+        assertEquals(2, found.size());
+        assertEquals("2", found.get("b"));
+        assertEquals(3, cache.getAll().size());
+
+        cache.removeAll(Arrays.asList("a", "b"));
+        cache.remove("c");
+        assertTrue(cache.getAll().isEmpty());
+    }
+
+    @Test
+    public void testKeysByScore() {
+        MemoryCacheManager  cache  = new MemoryCacheManager(null, 0);
+        Map<String, String> values = new HashMap<String, String>();
+        Map<String, Double> scores = new HashMap<String, Double>();
+        values.put("old", "1");
+        values.put("new", "2");
+        values.put("tie", "3");
+        values.put("none", "4");
+        scores.put("old", 1.0);
+        scores.put("new", 3.0);
+        scores.put("tie", 1.0);
+        cache.putAll(values, scores);
+        assertEquals(Arrays.asList("new", "tie", "old"), cache.getKeysByScore());
+        cache.remove("new");
+        assertEquals(Arrays.asList("tie", "old"), cache.getKeysByScore());
+    }
+
+    @Test
+    public void testDigests() {
+        MemoryCacheManager  cache   = new MemoryCacheManager(null, 0);
+        Map<String, String> digests = new HashMap<String, String>();
+        digests.put("a", "hash-a");
+        digests.put("b", "hash-b");
+        digests.put("c", "");
+        cache.putDigests(digests);
+        assertEquals(2, cache.getDigests().size());
+        Map<String, String> found = cache.getDigests(Arrays.asList("a", "x"));
+        assertEquals(1, found.size());
+        assertEquals("hash-a", found.get("a"));
+
+        // Digests are removed along with their records.
+        cache.remove("a");
+        cache.removeAll(Arrays.asList("b"));
+        assertTrue(cache.getDigests().isEmpty());
+    }
+
+    @Test
+    public void testScan() {
+        MemoryCacheManager cache = new MemoryCacheManager(null, 0);
+        cache.put("rod:1", "a");
+        cache.put("rod:2", "b");
+        cache.put("rod:10", "c");
+        cache.put("other", "d");
+        assertEquals(4, drain(cache.scan(null)).size());
+        assertEquals(4, drain(cache.scan("*")).size());
+        assertEquals(
+                new HashSet<String>(Arrays.asList("rod:1", "rod:2", "rod:10")),
+                drain(cache.scan("rod:*")));
+        assertEquals(
+                new HashSet<String>(Arrays.asList("rod:1", "rod:2")),
+                drain(cache.scan("rod:?")));
+        assertEquals(
+                new HashSet<String>(Arrays.asList("rod:2")),
+                drain(cache.scan("rod:[2-9]")));
+        assertTrue(MemoryCacheManager.globToRegex("a.b\\*")
+                .matcher("a.b*").matches());
+        assertFalse(MemoryCacheManager.globToRegex("a.b")
+                .matcher("axb").matches());
+    }
+
+    @Test
+    public void testPublishSubscribe() {
+        MemoryCacheManager           cache    = new MemoryCacheManager(null, 0);
+        final List<CacheChangeEvent> received = new ArrayList<CacheChangeEvent>();
+        CacheSubscription subscription = cache.subscribe(
+                new CacheChangeListener() {
+                    @Override
+                    public void onChange(CacheChangeEvent event) {
+                        received.add(event);
+                    }
+                });
+        cache.publish(Arrays.asList(
+                new CacheChangeEvent(CacheOperation.ADD, "a", "h")));
+        assertEquals(1, received.size());
+        assertEquals("a", received.get(0).getKey());
+        subscription.close();
+        assertFalse(subscription.isActive());
+        cache.publish(Arrays.asList(
+                new CacheChangeEvent(CacheOperation.REMOVE, "a", null)));
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        File file = File.createTempFile("rod-cache", ".snapshot");
+        Files.delete(file.toPath());
+        try {
+            MemoryCacheManager cache = new MemoryCacheManager(
+                    file.getAbsolutePath(), 0);
+            Map<String, String> values = new HashMap<String, String>();
+            Map<String, Double> scores = new HashMap<String, Double>();
+            Map<String, String> digests = new HashMap<String, String>();
+            for (int i=0; i<1000; i++) {
+                values.put("key" + i, "{\"value\":\"caf\u00e9 " + i + "\"}");
+                scores.put("key" + i, (double)i);
+                if ((i % 2) == 0) {
+                    digests.put("key" + i, "digest" + i);
+                }
+            }
+            cache.putAll(values, scores);
+            cache.putDigests(digests);
+            cache.incrementVersion();
+            cache.incrementVersion();
+            cache.close();
+
+            MemoryCacheManager restored = new MemoryCacheManager(
+                    file.getAbsolutePath(), 0);
+            assertEquals(values, restored.getAll());
+            assertEquals(2L, restored.getVersion());
+            assertEquals("key999", restored.getKeysByScore().get(0));
+            assertEquals(digests, restored.getDigests());
+
+            // A corrupt snapshot is ignored.
+            Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+            assertTrue(new MemoryCacheManager(file.getAbsolutePath(), 0)
+                    .getAll().isEmpty());
+        }
+        finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package mil.nga.cache;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.types.TopologyType;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.Pool;
+
+/**
+ * Integration test running the topologies against redis-server processes
+ * started on free local ports: a standalone master with a replica, a
+ * Sentinel-monitored master with a replica, and a three-master Redis
+ * Cluster.  Checks replica read routing, slot-aware pipelined
+ * MGET/MSET/DEL across shards, and the handling of MOVED and ASK
+ * redirections while slots are resharded.
+ *
+ * The redis-server binary is located through the <code>REDIS_SERVER</code>
+ * environment variable, then the <code>PATH</code>.  The tests are skipped
+ * if it cannot be found.
+ */
+public class TestRedisTopologyIntegration {
+
+    private static final String HOST        = "127.0.0.1";
+    private static final String MASTER_NAME = "rod-it";
+    private static final int    TIMEOUT     = 2000;
+    private static final long   WAIT        = 60000L;
+    private static final int    KEYS        = 1000;
+
+    private static String redisServer;
+
+    private final List<Process> processes = new ArrayList<Process>();
+    private final List<AutoCloseable> closeables =
+            new ArrayList<AutoCloseable>();
+
+    @BeforeClass
+    public static void findRedisServer() {
+        String configured = System.getenv("REDIS_SERVER");
+        if ((configured != null) && (new File(configured).canExecute())) {
+            redisServer = configured;
+        }
+        else {
+            String path = System.getenv("PATH");
+            if (path != null) {
+                for (String dir : path.split(File.pathSeparator)) {
+                    File candidate = new File(dir, "redis-server");
+                    if (candidate.canExecute()) {
+                        redisServer = candidate.getAbsolutePath();
+                        break;
+                    }
+                }
+            }
+        }
+        Assume.assumeTrue("redis-server not found.", redisServer != null);
+    }
+
+    @After
+    public void stopServers() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        for (Process process : processes) {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Server management
+    // ------------------------------------------------------------------
+
+    /**
+     * Find a free port whose cluster bus port (port + 10000) is free too.
+     */
+    private static int freePort() throws IOException {
+        while (true) {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            if (port + 10000 < 65536) {
+                try (ServerSocket bus = new ServerSocket(port + 10000)) {
+                    return port;
+                }
+                catch (IOException e) { }
+            }
+        }
+    }
+
+    /**
+     * Start a redis-server on the input port and wait until it answers
+     * PING.
+     */
+    private HostAndPort start(int port, String... args) throws Exception {
+        Path dir = Files.createTempDirectory("rod-redis-" + port);
+        dir.toFile().deleteOnExit();
+        List<String> command = new ArrayList<String>();
+        command.add(redisServer);
+        command.addAll(Arrays.asList(args));
+        command.addAll(Arrays.asList(
+                "--port", Integer.toString(port),
+                "--bind", HOST,
+                "--dir", dir.toString(),
+                "--save", "",
+                "--appendonly", "no"));
+        processes.add(new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("redis.log").toFile())
+                .start());
+        HostAndPort node = new HostAndPort(HOST, port);
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (true) {
+            try (Jedis jedis = connect(node)) {
+                if ("PONG".equals(jedis.ping())) {
+                    return node;
+                }
+            }
+            catch (Exception e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private HostAndPort startReplica(HostAndPort master) throws Exception {
+        HostAndPort replica = start(freePort(),
+                "--slaveof", master.getHost(),
+                Integer.toString(master.getPort()));
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (!info(replica).contains("master_link_status:up")) {
+            assertTrue("Replica did not sync.",
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(100);
+        }
+        return replica;
+    }
+
+    private static Jedis connect(HostAndPort node) {
+        return new Jedis(node.getHost(), node.getPort(), TIMEOUT, TIMEOUT);
+    }
+
+    private static String info(HostAndPort node) {
+        try (Jedis jedis = connect(node)) {
+            return jedis.info("replication");
+        }
+    }
+
+    private static String role(Pool<Jedis> pool) {
+        try (Jedis jedis = pool.getResource()) {
+            return (jedis.info("replication").contains("role:master") ?
+                    "master" : "slave");
+        }
+    }
+
+    private static int port(Pool<Jedis> pool) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.getClient().getPort();
+        }
+    }
+
+    private <T extends AutoCloseable> T track(T closeable) {
+        closeables.add(0, closeable);
+        return closeable;
+    }
+
+    private static Map<String, String> values(String prefix) {
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        for (int i=0; i<KEYS; i++) {
+            values.put(prefix + i, "{\"id\":" + i + "}");
+        }
+        return values;
+    }
+
+    // ------------------------------------------------------------------
+    // Cluster management
+    // ------------------------------------------------------------------
+
+    private static String nodeId(HostAndPort node) {
+        try (Jedis jedis = connect(node)) {
+            for (String line : jedis.clusterNodes().split("\n")) {
+                if (line.contains("myself")) {
+                    return line.split(" ")[0];
+                }
+            }
+        }
+        throw new IllegalStateException("No node id for " + node);
+    }
+
+    /**
+     * Start three masters, split the slots evenly between them and wait
+     * until every node reports the cluster as healthy.
+     */
+    private List<HostAndPort> startCluster() throws Exception {
+        List<HostAndPort> nodes = new ArrayList<HostAndPort>();
+        for (int i=0; i<3; i++) {
+            nodes.add(start(freePort(),
+                    "--cluster-enabled", "yes",
+                    "--cluster-config-file", "nodes.conf",
+                    "--cluster-node-timeout", "5000"));
+        }
+        for (int i=0; i<nodes.size(); i++) {
+            int   first = i * ClusterTopology.SLOT_COUNT / nodes.size();
+            int   last  = (i + 1) * ClusterTopology.SLOT_COUNT / nodes.size();
+            int[] slots = new int[last - first];
+            for (int slot=first; slot<last; slot++) {
+                slots[slot - first] = slot;
+            }
+            try (Jedis jedis = connect(nodes.get(i))) {
+                jedis.clusterAddSlots(slots);
+            }
+        }
+        try (Jedis jedis = connect(nodes.get(0))) {
+            for (int i=1; i<nodes.size(); i++) {
+                jedis.clusterMeet(HOST, nodes.get(i).getPort());
+            }
+        }
+        long deadline = System.currentTimeMillis() + WAIT;
+        for (HostAndPort node : nodes) {
+            while (true) {
+                try (Jedis jedis = connect(node)) {
+                    if (jedis.clusterInfo().contains("cluster_state:ok") &&
+                            (jedis.clusterSlots().size() == nodes.size())) {
+                        break;
+                    }
+                }
+                assertTrue("Cluster did not form.",
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(100);
+            }
+        }
+        return nodes;
+    }
+
+    private static HostAndPort owner(List<HostAndPort> nodes, String key) {
+        for (HostAndPort node : nodes) {
+            try (Jedis jedis = connect(node)) {
+                if (jedis.exists(key)) {
+                    return node;
+                }
+            }
+            catch (JedisRedirectionException jre) {
+                // The slot is served by another node.
+            }
+        }
+        throw new IllegalStateException("No node holds " + key);
+    }
+
+    private static HostAndPort other(
+            List<HostAndPort> nodes,
+            HostAndPort node) {
+        return nodes.get((nodes.indexOf(node) + 1) % nodes.size());
+    }
+
+    /**
+     * Mark a slot as migrating from the source to the target and move the
+     * input keys.  Keys left behind are answered with ASK.
+     */
+    private static void beginMigration(
+            HostAndPort source,
+            HostAndPort target,
+            int slot,
+            List<String> keys) {
+        try (Jedis src = connect(source); Jedis dst = connect(target)) {
+            dst.clusterSetSlotImporting(slot, nodeId(source));
+            src.clusterSetSlotMigrating(slot, nodeId(target));
+            for (String key : keys) {
+                src.migrate(HOST, target.getPort(), key, 0, TIMEOUT);
+            }
+        }
+    }
+
+    /**
+     * Move the remaining keys of a slot and assign it to the target on
+     * every node.  Clients using the old layout are answered with MOVED.
+     */
+    private static void finishMigration(
+            List<HostAndPort> nodes,
+            HostAndPort source,
+            HostAndPort target,
+            int slot) {
+        try (Jedis src = connect(source)) {
+            for (String key : src.clusterGetKeysInSlot(slot, KEYS)) {
+                src.migrate(HOST, target.getPort(), key, 0, TIMEOUT);
+            }
+        }
+        String targetId = nodeId(target);
+        for (HostAndPort node : nodes) {
+            try (Jedis jedis = connect(node)) {
+                jedis.clusterSetSlotNode(slot, targetId);
+            }
+        }
+    }
+
+    private static void migrate(
+            List<HostAndPort> nodes,
+            HostAndPort source,
+            HostAndPort target,
+            int slot) {
+        beginMigration(source, target, slot, Collections.<String>emptyList());
+        finishMigration(nodes, source, target, slot);
+    }
+
+    private RedisCacheManager cluster(List<HostAndPort> nodes) {
+        JedisPoolConfig config   = new JedisPoolConfig();
+        ClusterTopology topology = track(new ClusterTopology(
+                nodes.subList(0, 1), config, TIMEOUT, TIMEOUT));
+        return track(new RedisCacheManager(topology, config));
+    }
+
+    // ------------------------------------------------------------------
+    // Tests
+    // ------------------------------------------------------------------
+
+    @Test
+    public void testStandaloneReplicaReads() throws Exception {
+        HostAndPort master  = start(freePort());
+        HostAndPort replica = startReplica(master);
+
+        JedisPoolConfig    config   = new JedisPoolConfig();
+        StandaloneTopology topology = track(new StandaloneTopology(
+                master, Collections.singletonList(replica),
+                config, TIMEOUT, TIMEOUT));
+        RedisCacheManager cache = track(
+                new RedisCacheManager(topology, config));
+
+        assertEquals(TopologyType.STANDALONE, topology.getType());
+        assertEquals("master", role(topology.getPool("a")));
+        for (int i=0; i<4; i++) {
+            assertEquals("slave", role(topology.getReadPool("a")));
+        }
+        assertEquals(2, topology.getPools().size());
+
+        cache.put("a", "{\"id\":1}");
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (cache.get("a") == null) {
+            assertTrue("Write did not replicate.",
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+        assertEquals("{\"id\":1}", cache.get("a"));
+    }
+
+    @Test
+    public void testSentinelReplicaReads() throws Exception {
+        HostAndPort master  = start(freePort());
+        HostAndPort replica = startReplica(master);
+
+        int  sentinelPort = freePort();
+        Path config = Files.createTempFile("rod-sentinel", ".conf");
+        config.toFile().deleteOnExit();
+        Files.write(config, Arrays.asList(
+                "sentinel monitor " + MASTER_NAME + " " + HOST + " "
+                        + master.getPort() + " 1",
+                "sentinel down-after-milliseconds " + MASTER_NAME + " 5000"),
+                StandardCharsets.UTF_8);
+        HostAndPort sentinel = start(sentinelPort,
+                config.toString(), "--sentinel");
+
+        // Sentinels learn about replicas from the master's INFO output,
+        // which they poll every 10 seconds.
+        SentinelTopology topology = track(new SentinelTopology(
+                MASTER_NAME, Collections.singletonList(sentinel),
+                true, 0L, new JedisPoolConfig(), TIMEOUT, TIMEOUT));
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (topology.getPools().size() < 2) {
+            assertTrue("Sentinel did not report the replica.",
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(500);
+            topology.refresh();
+        }
+
+        assertEquals(master.getPort(), port(topology.getPool("a")));
+        assertEquals("master", role(topology.getPool("a")));
+        for (int i=0; i<4; i++) {
+            Pool<Jedis> pool = topology.getReadPool("a");
+            assertEquals("slave", role(pool));
+            assertEquals(replica.getPort(), port(pool));
+        }
+    }
+
+    @Test
+    public void testClusterPipelinedBulkOperations() throws Exception {
+        List<HostAndPort> nodes = startCluster();
+        RedisCacheManager cache = cluster(nodes);
+        Map<String, String> values = values("rod-it-");
+
+        assertTrue(cache.getTopology().isClustered());
+        assertEquals(3, cache.getTopology().getMasterPools().size());
+
+        cache.putAll(values);
+
+        // The keys span every shard.
+        long total = 0;
+        for (HostAndPort node : nodes) {
+            try (Jedis jedis = connect(node)) {
+                long size = jedis.dbSize();
+                assertTrue(size > 0);
+                total += size;
+            }
+        }
+        assertEquals(KEYS, total);
+
+        assertEquals(values, cache.getAll(values.keySet()));
+        assertEquals(values.get("rod-it-7"), cache.get("rod-it-7"));
+
+        cache.removeAll(values.keySet());
+        for (HostAndPort node : nodes) {
+            try (Jedis jedis = connect(node)) {
+                assertEquals(0L, jedis.dbSize().longValue());
+            }
+        }
+        assertTrue(cache.getAll(values.keySet()).isEmpty());
+    }
+
+    @Test
+    public void testClusterMovedRedirection() throws Exception {
+        List<HostAndPort> nodes = startCluster();
+        RedisCacheManager cache = cluster(nodes);
+        Map<String, String> values = values("rod-it-");
+        cache.putAll(values);
+
+        // Bulk read after a reshard.
+        String      first  = "rod-it-1";
+        HostAndPort source = owner(nodes, first);
+        HostAndPort target = other(nodes, source);
+        migrate(nodes, source, target, ClusterTopology.getSlot(first));
+        assertEquals(values, cache.getAll(values.keySet()));
+        assertEquals(target.getPort(),
+                port(cache.getTopology().getPool(first)));
+
+        // Single-key read after a reshard.
+        String second = "rod-it-2";
+        source = owner(nodes, second);
+        target = other(nodes, source);
+        migrate(nodes, source, target, ClusterTopology.getSlot(second));
+        assertEquals(values.get(second), cache.get(second));
+        assertEquals(target.getPort(),
+                port(cache.getTopology().getPool(second)));
+
+        // Bulk write after a reshard.
+        String third = "rod-it-3";
+        source = owner(nodes, third);
+        target = other(nodes, source);
+        migrate(nodes, source, target, ClusterTopology.getSlot(third));
+        Map<String, String> updates = new LinkedHashMap<String, String>(values);
+        updates.put(third, "{\"id\":-3}");
+        cache.putAll(updates);
+        try (Jedis jedis = connect(target)) {
+            assertEquals("{\"id\":-3}", jedis.get(third));
+        }
+
+        // Bulk delete after a reshard.
+        String fourth = "rod-it-4";
+        source = owner(nodes, fourth);
+        target = other(nodes, source);
+        migrate(nodes, source, target, ClusterTopology.getSlot(fourth));
+        cache.removeAll(values.keySet());
+        assertTrue(cache.getAll(values.keySet()).isEmpty());
+    }
+
+    @Test
+    public void testClusterAskRedirection() throws Exception {
+        List<HostAndPort> nodes = startCluster();
+        RedisCacheManager cache = cluster(nodes);
+        Map<String, String> values = values("rod-it-");
+        cache.putAll(values);
+
+        String      key    = "rod-it-5";
+        int         slot   = ClusterTopology.getSlot(key);
+        HostAndPort source = owner(nodes, key);
+        HostAndPort target = other(nodes, source);
+        beginMigration(source, target, slot, Collections.singletonList(key));
+
+        // The key has moved but the slot still belongs to the source.
+        assertEquals(values.get(key), cache.get(key));
+        assertEquals(values, cache.getAll(values.keySet()));
+
+        // A new key in the migrating slot is created on the target.
+        String added = "{" + key + "}-added";
+        assertEquals(slot, ClusterTopology.getSlot(added));
+        cache.putAll(Collections.singletonMap(added, "{\"id\":-5}"));
+        try (Jedis jedis = connect(target)) {
+            jedis.asking();
+            assertEquals("{\"id\":-5}", jedis.get(added));
+        }
+        assertEquals(source.getPort(),
+                port(cache.getTopology().getPool(key)));
+
+        // Deleting a moved key follows the redirection too.
+        cache.removeAll(Collections.singletonList(key));
+        try (Jedis jedis = connect(target)) {
+            jedis.asking();
+            assertFalse(jedis.exists(key));
+        }
+
+        finishMigration(nodes, source, target, slot);
+        assertNull(cache.get(key));
+        assertEquals("{\"id\":-5}", cache.get(added));
+    }
+}
@@ -0,0 +1,53 @@
+package mil.nga.cache;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import mil.nga.types.CodecType;
+
+public class TestValueCodec {
+
+    private static final String JSON = "{\"key\":\"ABC12345DEF\","
+            + "\"url\":\"https://some.url/path/to/file.pdf\","
+            + "\"notes\":\"caf\u00e9 caf\u00e9 caf\u00e9 caf\u00e9 caf\u00e9\"}";
+    
+    @Test
+    public void testRoundTrip() {
+        ValueCodecFactory factory = ValueCodecFactory.getInstance();
+        for (CodecType type : CodecType.values()) {
+            ValueCodec codec = factory.getCodec(type);
+            assertEquals(type, codec.getType());
+            byte[] encoded = codec.encode(JSON);
+            assertEquals(JSON, codec.decode(encoded));
+            assertEquals(JSON, factory.decode(encoded));
+            assertNull(codec.encode(null));
+            assertNull(codec.decode(null));
+        }
+    }
+    
+    @Test
+    public void testFormatHeader() {
+        byte[] deflated = ValueCodecFactory.getInstance()
+                .getCodec(CodecType.DEFLATE)
+                .encode(JSON);
+        assertEquals(ValueCodec.FORMAT_DEFLATE, deflated[0]);
+        assertTrue(deflated.length < JSON.length());
+    }
+    
+    @Test
+    public void testLegacyValue() {
+        // Values written before the codec was introduced are plain JSON.
+        byte[] legacy = JSON.getBytes(StandardCharsets.UTF_8);
+        assertEquals(JSON, ValueCodecFactory.getInstance().decode(legacy));
+    }
+    
+    @Test
+    public void testCorruptValue() {
+        byte[] corrupt = new byte[] { ValueCodec.FORMAT_DEFLATE, 1, 2, 3 };
+        assertNull(ValueCodecFactory.getInstance().decode(corrupt));
+        assertNull(ValueCodecFactory.getInstance().decode(new byte[] { 7 }));
+        assertNull(ValueCodecFactory.getInstance().decode(new byte[0]));
+    }
+}
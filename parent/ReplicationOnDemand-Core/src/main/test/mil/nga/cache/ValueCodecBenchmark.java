@@ -0,0 +1,156 @@
+package mil.nga.cache;
+
+import mil.nga.rod.JSONSerializer;
+import mil.nga.rod.model.Artwork;
+import mil.nga.rod.model.ArtworkRow;
+import mil.nga.rod.model.Product;
+import mil.nga.rod.model.QueryRequestAccelerator;
+import mil.nga.rod.model.RoDProduct;
+import mil.nga.rod.model.TestProduct;
+import mil.nga.rod.model.TestQueryRequestAccelerator;
+import mil.nga.rod.model.TestRoDProduct;
+import mil.nga.types.CodecType;
+
+/**
+ * Simple benchmark reporting the stored size and the encode/decode cost of
+ * a cached RoDProduct for each value codec.  Two records are measured: 
+ * one with short notes and one with the notes column filled to its 4000 
+ * character limit.  Each measurement is preceded by a warm-up pass so 
+ * that the JIT has compiled the code under test.
+ * 
+ * Usage: java mil.nga.cache.ValueCodecBenchmark [iterations]
+ */
+public class ValueCodecBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 200000;
+    
+    /**
+     * Sink preventing the JIT from eliminating the measured work.
+     */
+    private static long sink = 0;
+    
+    private static RoDProduct buildProduct(String notes) {
+        Product product = new Product.ProductBuilder()
+                .aorCode(TestProduct.AOR_CODE)
+                .classification(TestProduct.CLASSIFICATION)
+                .classificationDescription(TestProduct.CLASSIFICATION_DESCRIPTION)
+                .countryName(TestProduct.COUNTRY_NAME)
+                .edition(TestProduct.EDITION)
+                .fileDate(TestProduct.FILE_DATE)
+                .iso3Char(TestProduct.ISO3CHR)
+                .loadDate(TestProduct.LOAD_DATE)
+                .mediaName(TestProduct.MEDIA_NAME)
+                .notes(notes)
+                .nsn(TestProduct.NSN)
+                .nrn(TestProduct.NRN)
+                .path(TestProduct.PATH)
+                .productType(TestProduct.PRODUCT_TYPE)
+                .releasability(TestProduct.RELEASABILITY)
+                .releasabilityDescription(TestProduct.RELEASABILITY_DESCRIPTION)
+                .size(TestProduct.SIZE)
+                .url(TestProduct.URL)
+                .build();
+        QueryRequestAccelerator accelerator = 
+                new QueryRequestAccelerator.QueryRequestAcceleratorBuilder()
+                .product(product)
+                .size(TestQueryRequestAccelerator.SIZE)
+                .fileDate(TestQueryRequestAccelerator.CURRENT_DATE)
+                .hash(TestQueryRequestAccelerator.HASH)
+                .build();
+        ArtworkRow row = new ArtworkRow.ArtworkBuilder()
+                .nsn(TestProduct.NSN)
+                .nrn(TestProduct.NRN)
+                .path(TestRoDProduct.ARTWORK_PATH)
+                .size(TestRoDProduct.ARTWORK_SIZE)
+                .cdName(TestRoDProduct.CD_NAME)
+                .build();
+        Artwork artwork = new Artwork.ArtworkBuilder()
+                .artworkRow(row)
+                .smallImagePath(TestRoDProduct.PATH_TO_SMALL_IMAGE)
+                .smallImageUrl(TestRoDProduct.URL_TO_SMALL_IMAGE)
+                .sourceImagePath(TestRoDProduct.PATH_TO_SOURCE_IMAGE)
+                .sourceImageUrl(TestRoDProduct.URL_TO_SOURCE_IMAGE)
+                .thumbnailImagePath(TestRoDProduct.PATH_TO_THUMBNAIL_IMAGE)
+                .thumbnailImageUrl(TestRoDProduct.URL_TO_THUMBNAIL_IMAGE)
+                .build();
+        return new RoDProduct.RoDProductBuilder()
+                .product(product)
+                .queryRequestAccelerator(accelerator)
+                .artwork(artwork)
+                .build();
+    }
+    
+    private static String buildNotes(int length) {
+        String        text = "Revised edition incorporating updated "
+                + "navigational data and corrected place names. ";
+        StringBuilder sb   = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(text);
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+    
+    private static long encode(ValueCodec codec, String json, int iterations) {
+        long start = System.nanoTime();
+        for (int i=0; i<iterations; i++) {
+            sink += codec.encode(json).length;
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+    
+    private static long decode(byte[] value, int iterations) {
+        ValueCodecFactory factory = ValueCodecFactory.getInstance();
+        long              start   = System.nanoTime();
+        for (int i=0; i<iterations; i++) {
+            sink += factory.decode(value).length();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+    
+    private static void run(String label, RoDProduct product, int iterations) {
+        JSONSerializer serializer = JSONSerializer.getInstance();
+        String         json       = serializer.serialize(product);
+        
+        // Warm up and measure the serializer for reference.
+        for (int pass=0; pass<2; pass++) {
+            long start = System.nanoTime();
+            for (int i=0; i<iterations / 10; i++) {
+                sink += serializer.deserializeToRoDProduct(
+                        serializer.serialize(product)).getSize();
+            }
+            if (pass == 1) {
+                System.out.println(String.format(
+                        "%-14s %-8s %27s %10d ns/op (serialize+deserialize)", 
+                        label, 
+                        "jackson", 
+                        "",
+                        (System.nanoTime() - start) / (iterations / 10)));
+            }
+        }
+        for (CodecType type : CodecType.values()) {
+            ValueCodec codec   = ValueCodecFactory.getInstance().getCodec(type);
+            byte[]     encoded = codec.encode(json);
+            encode(codec, json, iterations);
+            decode(encoded, iterations);
+            System.out.println(String.format(
+                    "%-14s %-8s %6d bytes (%5.1f%%) %10d ns/op encode %8d ns/op decode", 
+                    label, 
+                    type.getText(), 
+                    encoded.length,
+                    (100.0 * encoded.length) / json.length(),
+                    encode(codec, json, iterations),
+                    decode(encoded, iterations)));
+        }
+    }
+    
+    public static void main(String[] args) {
+        int iterations = DEFAULT_ITERATIONS;
+        if (args.length > 0) {
+            iterations = Integer.parseInt(args[0]);
+        }
+        run("short notes", buildProduct(TestProduct.NOTES), iterations);
+        run("4000ch notes", buildProduct(buildNotes(4000)), iterations / 10);
+        System.out.println("(sink " + sink + ")");
+    }
+}
@@ -0,0 +1,97 @@
+package mil.nga.rod.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simple benchmark comparing the original list-based key reconciliation 
+ * (two <code>LinkedList.removeAll</code> calls plus a 
+ * <code>List.contains</code> intersection) with the single-pass hashed 
+ * <code>ProductUtils.reconcile</code> from 10k to 5M keys.  Each side holds 
+ * n keys; 1% are added and 1% removed.  The list-based version is 
+ * quadratic, so it is only run up to 50k keys.  
+ * 
+ * Run with a large heap, e.g. -Xmx4g.
+ * 
+ * Usage: java mil.nga.rod.util.ReconciliationBenchmark
+ */
+public class ReconciliationBenchmark {
+
+    private static final int[] SIZES = 
+            { 10000, 50000, 100000, 500000, 1000000, 5000000 };
+    
+    private static final int LIST_LIMIT = 50000;
+    
+    private static final int REPEAT = 3;
+    
+    private static long sink = 0;
+    
+    private static String key(int i) {
+        return "NSN" + (100000000 + i) + "+NRN" + (900000000 - i);
+    }
+    
+    private static long listBased(List<String> datastore, List<String> cache) {
+        long start = System.nanoTime();
+        List<String> remove = new LinkedList<String>(cache);
+        remove.removeAll(datastore);
+        List<String> add = new LinkedList<String>(datastore);
+        add.removeAll(cache);
+        List<String> common = new LinkedList<String>();
+        for (String key : datastore) {
+            if (cache.contains(key)) {
+                common.add(key);
+            }
+        }
+        sink += remove.size() + add.size() + common.size();
+        return System.nanoTime() - start;
+    }
+    
+    private static long hashed(List<String> datastore, List<String> cache) {
+        long start = System.nanoTime();
+        KeyReconciliation plan = ProductUtils.getInstance()
+                .reconcile(datastore, cache);
+        sink += plan.getAdded().size() 
+                + plan.getRemoved().size() 
+                + plan.getCommon().size();
+        return System.nanoTime() - start;
+    }
+    
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        System.out.println(String.format("%10s %14s %14s", 
+                "keys", "list (ms)", "hashed (ms)"));
+        for (int size : SIZES) {
+            int          delta     = size / 100;
+            List<String> datastore = new ArrayList<String>(size);
+            List<String> cache     = new ArrayList<String>(size);
+            for (int i=0; i<size; i++) {
+                // New strings so that equals() is exercised, as it is for 
+                // keys read from the database and the cache.
+                datastore.add(new String(key(i + delta)));
+                cache.add(new String(key(i)));
+            }
+            Collections.shuffle(datastore, random);
+            Collections.shuffle(cache, random);
+            
+            long list = -1;
+            long hash = Long.MAX_VALUE;
+            for (int r=0; r<REPEAT; r++) {
+                hash = Math.min(hash, hashed(datastore, cache));
+            }
+            if (size <= LIST_LIMIT) {
+                list = Long.MAX_VALUE;
+                for (int r=0; r<REPEAT; r++) {
+                    list = Math.min(list, listBased(datastore, cache));
+                }
+            }
+            System.out.println(String.format("%10d %14s %14.1f", 
+                    size, 
+                    (list < 0 ? "-" : String.format("%.1f", list / 1e6)), 
+                    hash / 1e6));
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+}
@@ -0,0 +1,48 @@
+package mil.nga.rod.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class TestProductUtils {
+
+    private static final List<String> DATASTORE = 
+            Arrays.asList("a", "b", "c", "d", "d");
+    private static final List<String> CACHE = 
+            Arrays.asList("c", "d", "e", "f", "f");
+    
+    @Test
+    public void testReconcile() {
+        KeyReconciliation plan = ProductUtils.getInstance()
+                .reconcile(DATASTORE, CACHE);
+        assertEquals(Arrays.asList("a", "b"), plan.getAdded());
+        assertEquals(Arrays.asList("e", "f"), plan.getRemoved());
+        assertEquals(Arrays.asList("c", "d"), plan.getCommon());
+    }
+    
+    @Test
+    public void testReconcileEmpty() {
+        KeyReconciliation plan = ProductUtils.getInstance()
+                .reconcile(null, CACHE);
+        assertTrue(plan.getAdded().isEmpty());
+        assertTrue(plan.getCommon().isEmpty());
+        assertEquals(new HashSet<String>(CACHE), 
+                new HashSet<String>(plan.getRemoved()));
+        plan = ProductUtils.getInstance().reconcile(DATASTORE, null);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), plan.getAdded());
+        assertTrue(plan.getRemoved().isEmpty());
+    }
+    
+    @Test
+    public void testDefferenceAndIntersection() {
+        ProductUtils utils = ProductUtils.getInstance();
+        assertEquals(Arrays.asList("a", "b"), utils.defference(DATASTORE, CACHE));
+        assertEquals(Arrays.asList("e", "f", "f"), utils.defference(CACHE, DATASTORE));
+        assertEquals(Arrays.asList("c", "d", "d"), utils.intersection(DATASTORE, CACHE));
+        assertEquals(DATASTORE, utils.defference(DATASTORE, null));
+        assertTrue(utils.intersection(DATASTORE, null).isEmpty());
+    }
+}
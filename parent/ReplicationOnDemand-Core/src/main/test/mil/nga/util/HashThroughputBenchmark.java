@@ -0,0 +1,151 @@
+package mil.nga.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import mil.nga.types.HashType;
+import mil.nga.types.ReadMode;
+
+/**
+ * Simple throughput harness comparing the original commons-codec 
+ * <code>InputStream</code> path with each <code>HashGenerator</code> read 
+ * mode, and with the parallel MD5 tree hash.  Random files of the requested sizes (default 1, 2, 4 and 8 GB) 
+ * are generated in the target directory, hashed with MD5 by each path, and
+ * deleted.  Results are reported in MB/s.  Each configuration is run 
+ * twice and the second (warm JIT) run is reported.
+ * 
+ * Unless <code>-drop</code> is given (and the process is allowed to write 
+ * <code>/proc/sys/vm/drop_caches</code>) files smaller than the free 
+ * memory will be served from the page cache and the results reflect CPU 
+ * cost rather than storage throughput.
+ * 
+ * Usage: java mil.nga.util.HashThroughputBenchmark [-dir path] [-drop] 
+ *            [sizeMB ...]
+ */
+public class HashThroughputBenchmark {
+
+    private static final long[] DEFAULT_SIZES_MB = { 1024, 2048, 4096, 8192 };
+    
+    private static final int MB = 1024 * 1024;
+    
+    private static boolean drop = false;
+    
+    private static long sink = 0;
+    
+    private static Path generate(Path dir, long sizeMB) throws IOException {
+        Path   file   = Files.createTempFile(dir, "rod-hash-bench", ".iso");
+        byte[] buffer = new byte[MB];
+        Random random = new Random(sizeMB);
+        try (OutputStream os = Files.newOutputStream(file)) {
+            for (long i=0; i<sizeMB; i++) {
+                random.nextBytes(buffer);
+                os.write(buffer);
+            }
+        }
+        return file;
+    }
+    
+    private static void dropCaches() {
+        if (drop) {
+            try {
+                new ProcessBuilder("sync").inheritIO().start().waitFor();
+                Files.write(Paths.get("/proc/sys/vm/drop_caches"), "1".getBytes());
+            }
+            catch (Exception e) {
+                System.err.println("Unable to drop the page cache: " + e.getMessage());
+                drop = false;
+            }
+        }
+    }
+    
+    private static double baseline(Path file) throws IOException {
+        dropCaches();
+        long start = System.nanoTime();
+        try (InputStream is = Files.newInputStream(file)) {
+            sink += DigestUtils.md5Hex(is).length();
+        }
+        return rate(file, start);
+    }
+    
+    private static double measure(Path file, HashGenerator generator, HashType type) 
+            throws IOException {
+        dropCaches();
+        long start = System.nanoTime();
+        sink += generator.getHash(file, type).length();
+        return rate(file, start);
+    }
+    
+    private static double rate(Path file, long start) throws IOException {
+        return (Files.size(file) / (double)MB) 
+                / ((System.nanoTime() - start) / 1e9);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Path       dir   = Paths.get(System.getProperty("java.io.tmpdir"));
+        List<Long> sizes = new ArrayList<Long>();
+        for (int i=0; i<args.length; i++) {
+            if (args[i].equals("-dir")) {
+                dir = Paths.get(args[++i]);
+            }
+            else if (args[i].equals("-drop")) {
+                drop = true;
+            }
+            else {
+                sizes.add(Long.parseLong(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (long size : DEFAULT_SIZES_MB) {
+                sizes.add(size);
+            }
+        }
+        
+        String[]        labels     = { 
+                "stream  1MB", 
+                "channel 1MB", 
+                "channel 1MB read-ahead", 
+                "channel 8MB", 
+                "mmap    64MB", 
+                "mmap    64MB read-ahead",
+                "md5-tree 64MB chunks" };
+        HashGenerator[] generators = {
+                new HashGenerator(ReadMode.STREAM,  MB,      false),
+                new HashGenerator(ReadMode.CHANNEL, MB,      false),
+                new HashGenerator(ReadMode.CHANNEL, MB,      true),
+                new HashGenerator(ReadMode.CHANNEL, 8 * MB,  false),
+                new HashGenerator(ReadMode.MMAP,    64 * MB, false),
+                new HashGenerator(ReadMode.MMAP,    64 * MB, true),
+                new HashGenerator(ReadMode.CHANNEL, MB,      false) };
+        
+        for (long size : sizes) {
+            Path file = generate(dir, size);
+            try {
+                baseline(file);
+                System.out.println(String.format(
+                        "%6d MB  %-24s %8.1f MB/s", 
+                        size, "commons-codec stream", baseline(file)));
+                for (int i=0; i<generators.length; i++) {
+                    HashType type = (i == generators.length - 1 ? 
+                            HashType.MD5_TREE : HashType.MD5);
+                    measure(file, generators[i], type);
+                    System.out.println(String.format(
+                            "%6d MB  %-24s %8.1f MB/s", 
+                            size, labels[i], measure(file, generators[i], type)));
+                }
+            }
+            finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+}
@@ -0,0 +1,64 @@
+package mil.nga.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class TestFileFingerprint {
+
+    private static final int LENGTH = 10000;
+    
+    private Path newFile(byte fill) throws Exception {
+        Path file = Files.createTempFile("rod-fingerprint", ".iso");
+        file.toFile().deleteOnExit();
+        byte[] data = new byte[LENGTH];
+        java.util.Arrays.fill(data, fill);
+        Files.write(file, data);
+        return file;
+    }
+    
+    @Test
+    public void testMatches() throws Exception {
+        Path file = newFile((byte)1);
+        FileFingerprint before = FileFingerprint.of(file, 100);
+        assertTrue(before.matches(FileFingerprint.of(file, 100)));
+        assertTrue(before.matches(FileFingerprint.of(file, 0)));
+        assertEquals(LENGTH, before.getSize());
+        assertNotNull(before.getPartialHash());
+        
+        // Same size, same modification time, different content at the end.
+        FileTime mtime = Files.getLastModifiedTime(file);
+        byte[] data = Files.readAllBytes(file);
+        data[LENGTH - 1] = 2;
+        Files.write(file, data);
+        Files.setLastModifiedTime(file, mtime);
+        assertFalse(before.matches(FileFingerprint.of(file, 100)));
+        // Without the partial hash the change is not visible.
+        assertTrue(before.matches(FileFingerprint.of(file, 0)));
+        // A change in the middle is outside the partial hash regions.
+        data[LENGTH / 2] = 3;
+        data[LENGTH - 1] = 1;
+        Files.write(file, data);
+        Files.setLastModifiedTime(file, mtime);
+        assertTrue(before.matches(FileFingerprint.of(file, 100)));
+        
+        Files.setLastModifiedTime(file, FileTime.fromMillis(mtime.toMillis() + 1000));
+        assertFalse(before.matches(FileFingerprint.of(file, 0)));
+        assertFalse(before.matches(null));
+    }
+    
+    @Test
+    public void testFromString() throws Exception {
+        FileFingerprint fp = new FileFingerprint(10, 20, "(dev=1|ino=2)", null);
+        FileFingerprint parsed = FileFingerprint.fromString(fp.toString());
+        assertTrue(fp.matches(parsed));
+        assertEquals(fp.getFileKey(), parsed.getFileKey());
+        assertNull(parsed.getPartialHash());
+        assertFalse(fp.matches(new FileFingerprint(10, 20, "other", null)));
+        assertNull(FileFingerprint.fromString("garbage"));
+        assertNull(FileFingerprint.fromString("a|b|c|d"));
+    }
+}
@@ -0,0 +1,121 @@
+package mil.nga.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import mil.nga.types.HashType;
+import mil.nga.types.ReadMode;
+
+public class TestHashCache {
+
+    private static final int LENGTH = 100000;
+
+    private Path newFile(byte fill) throws Exception {
+        Path file = Files.createTempFile("rod-hash-cache", ".iso");
+        file.toFile().deleteOnExit();
+        byte[] data = new byte[LENGTH];
+        java.util.Arrays.fill(data, fill);
+        Files.write(file, data);
+        // Files modified within MIN_FILE_AGE are not cached.
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+                System.currentTimeMillis() - 60000));
+        return file;
+    }
+
+    private Path newLog() throws Exception {
+        Path log = Files.createTempFile("rod-hash-cache", ".log");
+        log.toFile().deleteOnExit();
+        Files.delete(log);
+        return log;
+    }
+
+    @Test
+    public void testHitAndInvalidation() throws Exception {
+        Path file = newFile((byte)1);
+        Path log  = newLog();
+        HashCache cache = new HashCache(log, true);
+        HashGenerator generator = new HashGenerator(
+                ReadMode.CHANNEL, 4096, false, 8192);
+        generator.setHashCache(cache);
+
+        String md5 = DigestUtils.md5Hex(Files.readAllBytes(file));
+        assertEquals(md5, generator.getHash(file, HashType.MD5));
+        assertEquals(0, cache.getHits());
+        assertEquals(md5, generator.getHash(file, HashType.MD5));
+        assertEquals(1, cache.getHits());
+
+        // A second process sharing the log sees the hash and the tree.
+        Map<HashType, TreeHash> trees =
+                new EnumMap<HashType, TreeHash>(HashType.class);
+        generator.getHashes(file, EnumSet.of(HashType.MD5_TREE), trees);
+        HashCache other = new HashCache(log, true);
+        FileFingerprint fp = other.fingerprint(file);
+        assertEquals(md5, other.get(file, fp, HashType.MD5));
+        TreeHash tree = other.getTree(file, fp, HashType.MD5_TREE, 8192);
+        assertEquals(trees.get(HashType.MD5_TREE).getChunks(), tree.getChunks());
+        assertNull(other.getTree(file, fp, HashType.MD5_TREE, 4096));
+
+        // Rewriting the file changes the modification time.
+        byte[] data = Files.readAllBytes(file);
+        data[0] = 2;
+        Files.write(file, data);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+                System.currentTimeMillis() - 30000));
+        assertEquals(DigestUtils.md5Hex(data),
+                generator.getHash(file, HashType.MD5));
+        assertEquals(0.25, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Path file = newFile((byte)1);
+        Path log  = newLog();
+        HashCache cache = new HashCache(log, true, 100);
+        assertNull(cache.getFingerprint(file));
+        HashGenerator generator = new HashGenerator(
+                ReadMode.CHANNEL, 4096, false);
+        generator.setHashCache(cache);
+        String md5 = generator.getHash(file, HashType.MD5);
+
+        // A second process sees the fingerprint recorded with the hash.
+        HashCache other = new HashCache(log, true, 100);
+        FileFingerprint recorded = other.getFingerprint(file);
+        assertNotNull(recorded.getPartialHash());
+        assertTrue(recorded.matches(other.fingerprint(file)));
+        assertEquals(md5, other.get(file, other.fingerprint(file), HashType.MD5));
+
+        // Same size and modification time, different content at the end.
+        FileTime mtime = Files.getLastModifiedTime(file);
+        byte[] data = Files.readAllBytes(file);
+        data[LENGTH - 1] = 2;
+        Files.write(file, data);
+        Files.setLastModifiedTime(file, mtime);
+        assertFalse(recorded.matches(other.fingerprint(file)));
+        assertNull(other.get(file, other.fingerprint(file), HashType.MD5));
+        assertNotNull(other.getFingerprint(file));
+    }
+
+    @Test
+    public void testRecentFileNotCached() throws Exception {
+        Path file = newFile((byte)1);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+                System.currentTimeMillis()));
+        HashCache cache = new HashCache(newLog(), true);
+        HashGenerator generator = new HashGenerator(
+                ReadMode.CHANNEL, 4096, false);
+        generator.setHashCache(cache);
+        generator.getHash(file, HashType.SHA256);
+        generator.getHash(file, HashType.SHA256);
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,115 @@
+package mil.nga.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import mil.nga.types.HashType;
+import mil.nga.types.ReadMode;
+
+public class TestHashGenerator {
+
+    // Not a multiple of the buffer size so the final partial read is used.
+    private static final int LENGTH = HashGenerator.DEFAULT_BUFFER_SIZE + 17;
+    
+    private Path newFile() throws Exception {
+        Path file = Files.createTempFile("rod-hash", ".iso");
+        file.toFile().deleteOnExit();
+        byte[] data = new byte[LENGTH];
+        new Random(42).nextBytes(data);
+        Files.write(file, data);
+        return file;
+    }
+    
+    @Test
+    public void testGetHashes() throws Exception {
+        Path   file = newFile();
+        byte[] data = Files.readAllBytes(file);
+        Map<HashType, String> hashes = new HashGenerator().getHashes(
+                file, EnumSet.allOf(HashType.class));
+        assertEquals(HashType.values().length, hashes.size());
+        assertEquals(DigestUtils.md5Hex(data),    hashes.get(HashType.MD5));
+        assertEquals(DigestUtils.sha1Hex(data),   hashes.get(HashType.SHA1));
+        assertEquals(DigestUtils.sha256Hex(data), hashes.get(HashType.SHA256));
+        assertEquals(DigestUtils.sha384Hex(data), hashes.get(HashType.SHA384));
+        assertEquals(DigestUtils.sha512Hex(data), hashes.get(HashType.SHA512));
+        // The file is smaller than the default chunk size.
+        assertEquals(DigestUtils.md5Hex(DigestUtils.md5(data)), 
+                hashes.get(HashType.MD5_TREE));
+        assertEquals(DigestUtils.md5Hex(data), 
+                new HashGenerator().getHash(file, HashType.MD5));
+    }
+    
+    @Test
+    public void testReadModes() throws Exception {
+        Path   file     = newFile();
+        String expected = DigestUtils.sha256Hex(Files.readAllBytes(file));
+        for (ReadMode mode : ReadMode.values()) {
+            // Buffer smaller than the file so several reads are needed.
+            assertEquals(mode.getText(), expected, new HashGenerator(
+                    mode, 100000, false).getHash(file, HashType.SHA256));
+            assertEquals(mode.getText(), expected, new HashGenerator(
+                    mode, 100000, true).getHash(file, HashType.SHA256));
+        }
+        Path empty = Files.createTempFile("rod-hash", ".iso");
+        empty.toFile().deleteOnExit();
+        for (ReadMode mode : ReadMode.values()) {
+            assertEquals(DigestUtils.md5Hex(new byte[0]), new HashGenerator(
+                    mode, 100000, true).getHash(empty, HashType.MD5));
+        }
+    }
+    
+    @Test
+    public void testTreeHash() throws Exception {
+        Path   file      = newFile();
+        byte[] data      = Files.readAllBytes(file);
+        int    chunkSize = 100000;
+        ByteArrayOutputStream leaves = new ByteArrayOutputStream();
+        int    count     = 0;
+        for (int i=0; i<data.length; i+=chunkSize) {
+            leaves.write(DigestUtils.sha256(Arrays.copyOfRange(
+                    data, i, Math.min(data.length, i + chunkSize))));
+            count++;
+        }
+        TreeHash tree = new HashGenerator(
+                ReadMode.CHANNEL, 4096, false, chunkSize)
+                .getTreeHash(file, HashType.SHA256_TREE);
+        assertEquals(count, tree.getChunks().size());
+        assertEquals(chunkSize, tree.getChunkSize());
+        assertEquals(DigestUtils.sha256Hex(Arrays.copyOfRange(
+                data, chunkSize, 2 * chunkSize)), tree.getChunks().get(1));
+        assertEquals(DigestUtils.sha256Hex(leaves.toByteArray()), tree.getRoot());
+        assertNull(new HashGenerator().getTreeHash(file, HashType.MD5));
+    }
+    
+    @Test
+    public void testRateLimiter() throws Exception {
+        Path file = newFile();
+        String expected = DigestUtils.md5Hex(Files.readAllBytes(file));
+        // Roughly 1 MB at 4 MB/s; the first buffer is not delayed.
+        HashGenerator generator = new HashGenerator(
+                ReadMode.CHANNEL, 64 * 1024, false);
+        generator.setRateLimiter(new RateLimiter(4L * 1024L * 1024L));
+        long start = System.currentTimeMillis();
+        assertEquals(expected, generator.getHash(file, HashType.MD5));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+    
+    @Test
+    public void testMissingFile() throws Exception {
+        Path file = newFile();
+        Files.delete(file);
+        assertTrue(new HashGenerator().getHashes(
+                file, EnumSet.of(HashType.MD5)).isEmpty());
+        assertNull(new HashGenerator().getHash(file, HashType.MD5));
+    }
+}
@@ -0,0 +1,74 @@
+package mil.nga.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.types.JournalResult;
+
+public class TestProgressJournal {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+    
+    private File newDir() throws Exception {
+        File dir = Files.createTempDirectory("rod-journal").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+    
+    @Test
+    public void testResume() throws Exception {
+        File dir = newDir();
+        ProgressJournal journal = new ProgressJournal(
+                "test", dir.getAbsolutePath(), HOUR);
+        assertEquals(0, journal.getResumedCount());
+        journal.record("a", JournalResult.ADDED);
+        journal.recordAll(Arrays.asList("b", "c"), JournalResult.UNCHANGED);
+        journal.record("d", JournalResult.REMOVED);
+        assertEquals(4, journal.getRecordedCount());
+        journal.close();
+        
+        // Simulate a crash in the middle of writing a record.
+        Files.write(journal.getPath(), 
+                "updated\te".getBytes(StandardCharsets.UTF_8), 
+                StandardOpenOption.APPEND);
+        
+        journal = new ProgressJournal("test", dir.getAbsolutePath(), HOUR);
+        assertEquals(5, journal.getResumedCount());
+        assertEquals(JournalResult.ADDED, journal.getResult("a"));
+        List<String> keys = Arrays.asList("a", "b", "d", "x");
+        assertEquals(Arrays.asList("b", "d", "x"), 
+                journal.filter(keys, JournalResult.ADDED));
+        assertEquals(Arrays.asList("d", "x"), 
+                journal.filter(keys, 
+                        JournalResult.ADDED, JournalResult.UNCHANGED));
+        journal.record("f", JournalResult.ADDED);
+        journal.close();
+        
+        journal = new ProgressJournal("test", dir.getAbsolutePath(), HOUR);
+        assertEquals(JournalResult.ADDED, journal.getResult("f"));
+        journal.complete();
+        assertFalse(Files.exists(journal.getPath()));
+    }
+    
+    @Test
+    public void testStaleJournalDiscarded() throws Exception {
+        File dir = newDir();
+        ProgressJournal journal = new ProgressJournal(
+                "stale", dir.getAbsolutePath(), HOUR);
+        journal.record("a", JournalResult.ADDED);
+        journal.close();
+        Thread.sleep(5);
+        journal = new ProgressJournal("stale", dir.getAbsolutePath(), 1);
+        assertEquals(0, journal.getResumedCount());
+        assertEquals(Arrays.asList("a"), 
+                journal.filter(Arrays.asList("a"), JournalResult.ADDED));
+        journal.complete();
+    }
+}
@@ -214,7 +214,8 @@ public class AcceleratorRecordFactory {
         /**
          * Reference to the Singleton instance of the AcceleratorRecordFactory.
          */
-        private static AcceleratorRecordFactory _instance = null;
+        private static final AcceleratorRecordFactory _instance = 
+                new AcceleratorRecordFactory();
     
         /**
          * Accessor method for the singleton instance of the 
@@ -223,9 +224,6 @@ public class AcceleratorRecordFactory {
          * @return The Singleton instance of the AcceleratorRecordFactory.
          */
         public static AcceleratorRecordFactory getSingleton() {
-            if (_instance == null) {
-                _instance = new AcceleratorRecordFactory();
-            }
             return _instance;
         }
         
@@ -0,0 +1,506 @@
+package mil.nga.rod.accelerator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.NoResultException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.cache.CacheChangeEvent;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
+import mil.nga.rod.JSONSerializer;
+import mil.nga.rod.ejb.RoDProductServiceJPA;
+import mil.nga.rod.model.Product;
+import mil.nga.rod.model.RoDProduct;
+import mil.nga.rod.util.ProductUtils;
+import mil.nga.types.CacheOperation;
+import mil.nga.types.HashType;
+import mil.nga.util.FileFingerprint;
+import mil.nga.util.HashGenerator;
+import mil.nga.util.RateLimiter;
+
+/**
+ * Queue used to hash on-disk files in the background so that product
+ * queries matching files without a pre-computed hash are not held up
+ * while the (multi-GB) files are read.  The queue does not own any
+ * threads.  Files are hashed by at most <code>threads</code> workers,
+ * each of which is a container-managed <code>@Asynchronous</code>
+ * invocation of <code>HashGeneratorService.drainHashQueue()</code>, so
+ * the write-back runs with the container's transaction, security and
+ * naming context.  The workers share a single <code>RateLimiter</code>,
+ * so background hashing cannot saturate the disks serving downloads.  A
+ * file is never queued more than once at a time, and requests are
+ * dropped (not blocked) when the queue is full; the next query for the
+ * file simply submits it again.
+ *
+ * Completed hashes are recorded in the shared <code>HashCache</code> by
+ * <code>HashGenerator</code>, and in a bounded in-memory map checked
+ * before a file is queued (so a file is not hashed again when the hash
+ * cache is disabled).  MD5 hashes are also written back to the
+ * <code>RoDProduct</code> record in the backing data store and in the
+ * cache, and a change event is published so the near caches pick up
+ * the new value.
+ *
+ * @author L. Craig Carpenter
+ */
+public class HashQueue implements HashQueueConstants {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            HashQueue.class);
+
+    // Private internal members
+    private boolean                  enabled     = true;
+    private int                      threads     = DEFAULT_HASH_ASYNC_THREADS;
+    private int                      queueSize   = DEFAULT_HASH_ASYNC_QUEUE_SIZE;
+    private long                     maxMBPerSec = DEFAULT_HASH_ASYNC_MAX_MB_PER_SEC;
+    private final RateLimiter        limiter;
+    private final BlockingQueue<Task> queue;
+    private final AtomicInteger      workers     = new AtomicInteger(0);
+    private final Map<String, Boolean> pending =
+            new ConcurrentHashMap<String, Boolean>();
+    private final AtomicLong         completed   = new AtomicLong(0);
+    private final AtomicLong         failed      = new AtomicLong(0);
+    private final AtomicLong         rejected    = new AtomicLong(0);
+
+    /**
+     * Hashes computed by the workers, keyed by hash type and path, along
+     * with the fingerprint of the file when it was hashed.  Least recently
+     * used entries are discarded beyond <code>COMPLETED_HASH_CAPACITY</code>.
+     * Guarded by its own lock.
+     */
+    private final Map<String, CompletedHash> completedHashes =
+            new LinkedHashMap<String, CompletedHash>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, CompletedHash> eldest) {
+                    return size() > COMPLETED_HASH_CAPACITY;
+                }
+            };
+
+    /**
+     * Default constructor loading the configuration from the system
+     * properties.
+     */
+    private HashQueue() {
+        PropertyLoader pLoader = PropertyLoader.getInstance();
+        try {
+            String value = pLoader.getProperty(HASH_ASYNC_ENABLED_PROPERTY);
+            if ((value != null) && (!value.trim().isEmpty())) {
+                enabled = Boolean.parseBoolean(value.trim());
+            }
+        }
+        catch (Exception e) { }
+        try {
+            threads = Integer.parseInt(
+                    pLoader.getProperty(HASH_ASYNC_THREADS_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        try {
+            queueSize = Integer.parseInt(
+                    pLoader.getProperty(HASH_ASYNC_QUEUE_SIZE_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        try {
+            maxMBPerSec = Long.parseLong(pLoader.getProperty(
+                    HASH_ASYNC_MAX_MB_PER_SEC_PROPERTY).trim());
+        }
+        catch (Exception e) { }
+        threads   = Math.max(1, threads);
+        queueSize = Math.max(1, queueSize);
+
+        limiter  = (maxMBPerSec > 0 ?
+                new RateLimiter(maxMBPerSec * 1024L * 1024L) : null);
+        queue    = new ArrayBlockingQueue<Task>(queueSize);
+
+        LOGGER.info("Background hashing [ "
+                + (enabled ? "enabled" : "disabled")
+                + " ] with [ "
+                + threads
+                + " ] workers, queue size [ "
+                + queueSize
+                + " ], and read limit [ "
+                + (maxMBPerSec > 0 ? maxMBPerSec + " MB/s" : "none")
+                + " ].");
+    }
+
+    /**
+     * Accessor method for the singleton instance of the HashQueue class.
+     *
+     * @return The singleton instance of the HashQueue.
+     */
+    public static HashQueue getInstance() {
+        return HashQueueHolder.getSingleton();
+    }
+
+    /**
+     * Getter method for the enabled flag.
+     *
+     * @return True if files should be hashed in the background.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Determine whether a file is queued or being hashed.
+     *
+     * @param path The on-disk path of the file.
+     * @return True if the hash of the file is pending.
+     */
+    public boolean isPending(String path) {
+        return ((path != null) && pending.containsKey(path));
+    }
+
+    /**
+     * Retrieve a hash previously computed by the workers, provided the
+     * file has not changed since.
+     *
+     * @param path The on-disk path of the file.
+     * @param type The hash type.
+     * @return The hash, or null if the file has not been hashed or has
+     * changed.
+     */
+    public String getCompleted(String path, HashType type) {
+        if ((path == null) || (type == null)) {
+            return null;
+        }
+        CompletedHash entry = null;
+        synchronized (completedHashes) {
+            entry = completedHashes.get(getCompletedKey(path, type));
+        }
+        if (entry != null) {
+            try {
+                if (entry.fingerprint.matches(
+                        FileFingerprint.of(Paths.get(path), 0))) {
+                    return entry.hash;
+                }
+            }
+            catch (IOException ioe) { }
+            synchronized (completedHashes) {
+                completedHashes.remove(getCompletedKey(path, type));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queue a product file to be hashed.  The call returns immediately.
+     * The caller must then call <code>startWorker()</code> and, if it
+     * returns true, start a worker that calls <code>drain()</code>.
+     *
+     * @param prod The product identifying the on-disk file.
+     * @param type The hash type to generate.
+     * @return True if the file is queued (or was already queued), false
+     * if background hashing is disabled or the queue is full.
+     */
+    public boolean submit(Product prod, HashType type) {
+
+        if ((!enabled) || (prod == null) || (type == null) ||
+                (prod.getPath() == null) || (prod.getPath().isEmpty())) {
+            return false;
+        }
+        String path = prod.getPath();
+        if (pending.putIfAbsent(path, Boolean.TRUE) != null) {
+            return true;
+        }
+        if (!queue.offer(new Task(prod, type))) {
+            pending.remove(path);
+            rejected.incrementAndGet();
+            LOGGER.warn("Background hash queue is full.  File [ "
+                    + path
+                    + " ] will be queued again by a later request.");
+            return false;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Queued [ "
+                    + type.getText()
+                    + " ] hash of file [ "
+                    + path
+                    + " ].");
+        }
+        return true;
+    }
+
+    /**
+     * Claim one of the <code>threads</code> worker slots if there is work
+     * queued.
+     *
+     * @return True if the caller must start a worker, which must call
+     * <code>drain()</code> (or <code>releaseWorker()</code> if it cannot
+     * be started).
+     */
+    public boolean startWorker() {
+        while (!queue.isEmpty()) {
+            int current = workers.get();
+            if (current >= threads) {
+                return false;
+            }
+            if (workers.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release a worker slot claimed with <code>startWorker()</code> but
+     * never used.
+     */
+    public void releaseWorker() {
+        workers.decrementAndGet();
+    }
+
+    /**
+     * Worker loop.  Hash queued files until the queue is empty, then
+     * release the worker slot.  Must be called from a container-managed
+     * thread, since MD5 hashes are written back through the input bean.
+     *
+     * @param store Bean used to write an MD5 hash back to the
+     * <code>RoDProduct</code> record (may be null).
+     */
+    public void drain(RoDProductServiceJPA store) {
+        while (true) {
+            Task task = queue.poll();
+            if (task == null) {
+                workers.decrementAndGet();
+                // A file queued while all of the slots were taken would
+                // otherwise wait for the next submission.
+                if (startWorker()) {
+                    continue;
+                }
+                return;
+            }
+            try {
+                hash(task.prod, task.type, store);
+            }
+            finally {
+                pending.remove(task.prod.getPath());
+            }
+        }
+    }
+
+    /**
+     * Hash a product file and write the result back.
+     *
+     * @param prod The product identifying the on-disk file.
+     * @param type The hash type to generate.
+     * @param store Bean used to update the <code>RoDProduct</code> record.
+     */
+    private void hash(Product prod, HashType type, RoDProductServiceJPA store) {
+        long start = System.currentTimeMillis();
+        try {
+            FileFingerprint fingerprint = null;
+            try {
+                fingerprint = FileFingerprint.of(Paths.get(prod.getPath()), 0);
+            }
+            catch (IOException ioe) { }
+            HashGenerator generator = new HashGenerator();
+            generator.setRateLimiter(limiter);
+            String hash = generator.getHash(prod.getPath(), type);
+            if (hash == null) {
+                failed.incrementAndGet();
+                return;
+            }
+            if (fingerprint != null) {
+                synchronized (completedHashes) {
+                    completedHashes.put(
+                            getCompletedKey(prod.getPath(), type),
+                            new CompletedHash(fingerprint, hash));
+                }
+            }
+            // The RoDProduct record holds the MD5 hash only.
+            if ((type == HashType.MD5) && (store != null)) {
+                writeBack(prod, hash, store);
+            }
+            completed.incrementAndGet();
+            LOGGER.info("Background [ "
+                    + type.getText()
+                    + " ] hash of file [ "
+                    + prod.getPath()
+                    + " ] completed in [ "
+                    + (System.currentTimeMillis() - start)
+                    + " ] ms.");
+        }
+        catch (Throwable t) {
+            failed.incrementAndGet();
+            LOGGER.error("Unexpected exception raised while hashing file [ "
+                    + prod.getPath()
+                    + " ] in the background.  Error message => [ "
+                    + t.getMessage()
+                    + " ].", t);
+        }
+    }
+
+    /**
+     * Build the key of the completed hash map.
+     */
+    private static String getCompletedKey(String path, HashType type) {
+        return type.getText() + ":" + path;
+    }
+
+    /**
+     * Store a newly computed MD5 hash in the <code>RoDProduct</code>
+     * record of the backing data store and of the cache.  Products that
+     * do not have a <code>RoDProduct</code> record yet are left for the
+     * synchronization job, which will find the hash in the hash cache.
+     *
+     * @param prod The product identifying the on-disk file.
+     * @param hash The MD5 hash.
+     * @param store Bean used to update the <code>RoDProduct</code> record.
+     */
+    private void writeBack(Product prod, String hash, RoDProductServiceJPA store) {
+        String     key    = ProductUtils.getInstance().getKey(prod);
+        RoDProduct record = null;
+        try {
+            record = store.getProduct(key);
+        }
+        catch (NoResultException nre) { }
+        catch (Exception e) {
+            LOGGER.warn("Unable to retrieve the RoDProduct record with key [ "
+                    + key
+                    + " ].  Hash will not be written back.  Error message "
+                    + "=> [ "
+                    + e.getMessage()
+                    + " ].");
+            return;
+        }
+        if ((record == null) || (hash.equals(record.getHash()))) {
+            return;
+        }
+
+        RoDProduct updated = new RoDProduct.RoDProductBuilder()
+                .rodProduct(record)
+                .hash(hash)
+                .build();
+        try {
+            store.persist(updated);
+        }
+        catch (Exception e) {
+            LOGGER.warn("Unable to update the RoDProduct record with key [ "
+                    + key
+                    + " ].  Error message => [ "
+                    + e.getMessage()
+                    + " ].");
+            return;
+        }
+
+        try {
+            CacheManagerI cache =
+                    CacheManagerFactory.getInstance().getCacheManager().pin();
+            double score = (updated.getFileDate() == null ?
+                    0 : updated.getFileDate().getTime());
+            cache.putAll(
+                    Collections.singletonMap(
+                            key,
+                            JSONSerializer.getInstance().serialize(updated)),
+                    Collections.singletonMap(key, score));
+            cache.putDigests(Collections.singletonMap(key, hash));
+            cache.publish(Collections.singletonList(new CacheChangeEvent(
+                    CacheOperation.UPDATE,
+                    key,
+                    hash)));
+        }
+        catch (RuntimeException re) {
+            LOGGER.warn("Unable to update the cached RoDProduct record with "
+                    + "key [ "
+                    + key
+                    + " ].  The next cache synchronization will update "
+                    + "it.  Error message => [ "
+                    + re.getMessage()
+                    + " ].");
+        }
+    }
+
+    /**
+     * Convert to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("HashQueue : Enabled => [ ");
+        sb.append(enabled);
+        sb.append(" ], Pending => [ ");
+        sb.append(pending.size());
+        sb.append(" ], Workers => [ ");
+        sb.append(workers.get());
+        sb.append(" ], Completed => [ ");
+        sb.append(completed.get());
+        sb.append(" ], Failed => [ ");
+        sb.append(failed.get());
+        sb.append(" ], Rejected => [ ");
+        sb.append(rejected.get());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * A file waiting to be hashed.
+     */
+    private static final class Task {
+
+        private final Product  prod;
+        private final HashType type;
+
+        private Task(Product prod, HashType type) {
+            this.prod = prod;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A hash computed by a worker and the fingerprint of the file it was
+     * computed from.
+     */
+    private static final class CompletedHash {
+
+        private final FileFingerprint fingerprint;
+        private final String          hash;
+
+        private CompletedHash(FileFingerprint fingerprint, String hash) {
+            this.fingerprint = fingerprint;
+            this.hash        = hash;
+        }
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class HashQueueHolder {
+
+        /**
+         * Reference to the Singleton instance of the HashQueue.
+         */
+        private static final HashQueue _instance = new HashQueue();
+
+        /**
+         * Accessor method for the singleton instance of the HashQueue.
+         *
+         * @return The Singleton instance of the HashQueue.
+         */
+        public static HashQueue getSingleton() {
+            return _instance;
+        }
+
+    }
+}
@@ -0,0 +1,68 @@
+package mil.nga.rod.accelerator;
+
+/**
+ * Interface defining the property names and defaults used by the queue
+ * that hashes on-disk files in the background on behalf of product
+ * queries.
+ *
+ * @author L. Craig Carpenter
+ */
+public interface HashQueueConstants {
+
+    /**
+     * Property enabling background hashing.  If disabled, files without a
+     * pre-computed hash are hashed inside the query request.
+     */
+    public static final String HASH_ASYNC_ENABLED_PROPERTY =
+            "rod.hash.async.enabled";
+
+    /**
+     * Property containing the maximum number of files hashed at once.
+     * Each worker occupies one thread of the container's asynchronous
+     * invocation pool while it runs.
+     */
+    public static final String HASH_ASYNC_THREADS_PROPERTY =
+            "rod.hash.async.threads";
+
+    /**
+     * Property containing the maximum number of files waiting to be
+     * hashed.  Requests beyond this are dropped and re-submitted by a
+     * later query.
+     */
+    public static final String HASH_ASYNC_QUEUE_SIZE_PROPERTY =
+            "rod.hash.async.queue_size";
+
+    /**
+     * Property containing the combined read rate (in MB per second) of the
+     * worker threads.  Zero disables the limit.
+     */
+    public static final String HASH_ASYNC_MAX_MB_PER_SEC_PROPERTY =
+            "rod.hash.async.max_mb_per_sec";
+
+    /**
+     * Value returned in place of the hash while the file is queued or
+     * being hashed.
+     */
+    public static final String HASH_PENDING = "pending";
+
+    /**
+     * Maximum number of completed hashes remembered in memory.
+     */
+    public static final int COMPLETED_HASH_CAPACITY = 10000;
+
+    /**
+     * Default number of worker threads.
+     */
+    public static final int DEFAULT_HASH_ASYNC_THREADS = 2;
+
+    /**
+     * Default maximum number of files waiting to be hashed.
+     */
+    public static final int DEFAULT_HASH_ASYNC_QUEUE_SIZE = 500;
+
+    /**
+     * Default combined read rate in MB per second.
+     */
+    public static final long DEFAULT_HASH_ASYNC_MAX_MB_PER_SEC = 100L;
+
+}
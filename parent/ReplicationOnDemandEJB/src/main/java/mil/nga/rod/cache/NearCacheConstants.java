@@ -0,0 +1,48 @@
+package mil.nga.rod.cache;
+
+/**
+ * Interface defining the property names and defaults used by the in-JVM
+ * near cache sitting in front of the Redis cache.
+ * 
+ * @author L. Craig Carpenter
+ */
+public interface NearCacheConstants {
+
+    /**
+     * Property containing the maximum number of entries held in the near 
+     * cache.
+     */
+    public static final String NEAR_CACHE_MAX_SIZE_PROPERTY = 
+            "near_cache.max_size";
+    
+    /**
+     * Property containing the time (in seconds) an entry may reside in the
+     * near cache before it must be re-read from Redis.
+     */
+    public static final String NEAR_CACHE_TTL_PROPERTY = 
+            "near_cache.ttl";
+    
+    /**
+     * Property containing the minimum interval (in milliseconds) between 
+     * checks of the Redis cache version key.
+     */
+    public static final String NEAR_CACHE_VERSION_CHECK_PROPERTY = 
+            "near_cache.version_check_interval";
+    
+    /**
+     * Default maximum number of entries.  The catalog contains roughly 15k
+     * products so the default allows the entire catalog to reside in memory.
+     */
+    public static final int DEFAULT_NEAR_CACHE_MAX_SIZE = 20000;
+    
+    /**
+     * Default entry time-to-live (in seconds).
+     */
+    public static final long DEFAULT_NEAR_CACHE_TTL = 3600L;
+    
+    /**
+     * Default interval between version checks (in milliseconds).
+     */
+    public static final long DEFAULT_NEAR_CACHE_VERSION_CHECK = 10000L;
+    
+}
@@ -0,0 +1,510 @@
+package mil.nga.rod.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.nga.PropertyLoader;
+import mil.nga.cache.CacheChangeEvent;
+import mil.nga.cache.CacheChangeListener;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
+import mil.nga.rod.model.RoDProduct;
+import mil.nga.types.CacheOperation;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * Bounded in-JVM cache of deserialized <code>RoDProduct</code> objects
+ * sitting in front of the Redis cache.  The catalog changes at most a few
+ * times a day so, once warm, product lookups are served without a network
+ * call or a JSON parse.
+ *
+ * Entries are evicted in least-recently-used order once the configured
+ * maximum size is reached, and expire after the configured time-to-live.
+ * The entire near cache is invalidated whenever the Redis cache version
+ * (incremented by the CacheManager sync job) changes.  The version is
+ * checked at most once per configured interval.  In addition, individual
+ * entries are dropped as soon as a change event for the associated key is
+ * received on the cache change channel.
+ *
+ * Every invalidation advances a local stamp.  Callers capture the stamp
+ * (<code>getStamp()</code>) before reading from Redis and pass it to
+ * <code>put</code>, which drops the entry if an invalidation happened in
+ * between, so a value read before the invalidation is never re-inserted
+ * after it.
+ *
+ * Entries are stamped with the cache generation they were read from.  The
+ * current generation is held locally, refreshed by the version check and
+ * by <code>GENERATION</code> change events, and a lookup only returns an 
+ * entry stamped with it.  A lookup therefore never returns a product 
+ * from a generation other than the one a miss would be read from, and a
+ * hit costs no network round trip.
+ *
+ * @author L. Craig Carpenter
+ */
+public class RoDProductNearCache 
+        implements NearCacheConstants, CacheChangeListener {
+
+    /**
+     * Set up the Log4j system for use throughout the class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+            RoDProductNearCache.class);
+
+    /**
+     * The cached products.  Access-ordered so that the eldest entry is the
+     * least recently used.  All access must be synchronized on the map.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Configuration
+    private final int  maxSize;
+    private final long ttl;
+    private final long versionCheckInterval;
+
+    // Statistics
+    private final AtomicLong hits        = new AtomicLong(0);
+    private final AtomicLong misses      = new AtomicLong(0);
+    private final AtomicLong evictions   = new AtomicLong(0);
+    private final AtomicLong expirations = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    /**
+     * Time (in ms) of the last Redis version check.
+     */
+    private final AtomicLong lastVersionCheck = new AtomicLong(0);
+
+    /**
+     * The Redis cache version associated with the current contents.
+     */
+    private volatile long version = -1L;
+
+    /**
+     * The cache generation readers are currently directed to.
+     */
+    private volatile long generation = 0L;
+
+    /**
+     * Advanced on every invalidation.  Only modified while holding the
+     * lock on <code>entries</code>.
+     */
+    private final AtomicLong stamp = new AtomicLong(0);
+
+    /**
+     * Number of entries dropped by <code>put</code> because the near cache
+     * was invalidated while the value was being read.
+     */
+    private final AtomicLong stalePuts = new AtomicLong(0);
+
+    /**
+     * Default constructor loading the configuration from the system
+     * properties.
+     */
+    private RoDProductNearCache() {
+
+        PropertyLoader pLoader = PropertyLoader.getInstance();
+        int  size     = DEFAULT_NEAR_CACHE_MAX_SIZE;
+        long lifetime = DEFAULT_NEAR_CACHE_TTL;
+        long interval = DEFAULT_NEAR_CACHE_VERSION_CHECK;
+
+        try {
+            size = Integer.parseInt(pLoader.getProperty(
+                    NEAR_CACHE_MAX_SIZE_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            lifetime = Long.parseLong(pLoader.getProperty(
+                    NEAR_CACHE_TTL_PROPERTY));
+        }
+        catch (Exception e) { }
+        try {
+            interval = Long.parseLong(pLoader.getProperty(
+                    NEAR_CACHE_VERSION_CHECK_PROPERTY));
+        }
+        catch (Exception e) { }
+
+        maxSize              = (size > 0 ? size : DEFAULT_NEAR_CACHE_MAX_SIZE);
+        ttl                  = 1000L * (lifetime > 0 ?
+                lifetime : DEFAULT_NEAR_CACHE_TTL);
+        versionCheckInterval = (interval >= 0 ?
+                interval : DEFAULT_NEAR_CACHE_VERSION_CHECK);
+
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        LOGGER.info("Near cache configured with max size [ "
+                + maxSize
+                + " ], TTL [ "
+                + ttl
+                + " ] ms, and version check interval [ "
+                + versionCheckInterval
+                + " ] ms.");
+        
+        CacheManagerFactory.getInstance().getCacheManager().subscribe(this);
+    }
+
+    /**
+     * Accessor method for the singleton instance of the
+     * RoDProductNearCache class.
+     *
+     * @return The singleton instance of the RoDProductNearCache.
+     */
+    public static RoDProductNearCache getInstance() {
+        return RoDProductNearCacheHolder.getSingleton();
+    }
+
+    /**
+     * Compare the Redis cache version against the version associated with
+     * the current contents, clearing the near cache if they differ, and 
+     * refresh the current generation.  Only one caller per interval 
+     * performs the (network) check.  If Redis is unreachable the current 
+     * contents are retained until they expire.
+     */
+    private void checkVersion() {
+        long now  = System.currentTimeMillis();
+        long last = lastVersionCheck.get();
+        if (((now - last) >= versionCheckInterval) &&
+                lastVersionCheck.compareAndSet(last, now)) {
+            try {
+                CacheManagerI cache = 
+                        CacheManagerFactory.getInstance().getCacheManager();
+                setGeneration(cache.getGeneration());
+                long current = cache.getVersion();
+                if (current != version) {
+                    if (version >= 0) {
+                        LOGGER.info("Cache version changed from [ "
+                                + version
+                                + " ] to [ "
+                                + current
+                                + " ].  Invalidating the near cache.");
+                    }
+                    invalidateAll();
+                    version = current;
+                }
+            }
+            catch (JedisConnectionException jce) {
+                LOGGER.warn("Unable to retrieve the cache version.  Error "
+                        + "message => [ "
+                        + jce.getMessage()
+                        + " ].");
+            }
+        }
+    }
+
+    /**
+     * Record the cache generation readers are directed to.  Entries read 
+     * from any other generation are no longer returned.
+     *
+     * @param value The current generation.
+     */
+    private void setGeneration(long value) {
+        if (value != generation) {
+            LOGGER.info("Cache generation changed from [ "
+                    + generation
+                    + " ] to [ "
+                    + value
+                    + " ].");
+            generation = value;
+        }
+    }
+
+    /**
+     * Getter method for the cache generation readers are currently 
+     * directed to, as last observed by the version check or a change 
+     * event.  Products missing from the near cache should be read from 
+     * (and put back with) this generation.
+     *
+     * @return The current generation.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Retrieve a product from the near cache.
+     *
+     * @param key The product key.
+     * @return The cached product, or null if the product is not cached, 
+     * the cached entry has expired, or the entry was read from a 
+     * generation other than the current one.
+     */
+    public RoDProduct get(String key) {
+        RoDProduct product = null;
+        if (key != null) {
+            checkVersion();
+            synchronized (entries) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.isExpired(System.currentTimeMillis())) {
+                        entries.remove(key);
+                        expirations.incrementAndGet();
+                    }
+                    else if (entry.generation == getGeneration()) {
+                        product = entry.product;
+                    }
+                }
+            }
+        }
+        if (product != null) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+        }
+        return product;
+    }
+
+    /**
+     * Getter method for the number of entries that expired.
+     * @return The number of expired entries.
+     */
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    /**
+     * Getter method for the number of entries evicted because the near
+     * cache was full.
+     * @return The number of evicted entries.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Getter method for the number of lookups served from the near cache.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Getter method for the number of times the near cache was cleared
+     * due to a change in the Redis cache version.
+     * @return The number of invalidations.
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Getter method for the number of lookups not served from the near
+     * cache.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Calculate the fraction of lookups served from the near cache.
+     *
+     * @return The hit rate in the range [0, 1] (zero if there have been no
+     * lookups).
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total == 0 ? 0.0 : ((double)h / (double)total));
+    }
+
+    /**
+     * Getter method for the number of entries dropped because the near 
+     * cache was invalidated while they were being read.
+     * @return The number of stale puts.
+     */
+    public long getStalePuts() {
+        return stalePuts.get();
+    }
+
+    /**
+     * Retrieve the current near-cache stamp.  Capture it before reading a
+     * value from Redis and pass it to <code>put</code>.
+     * @return The current stamp.
+     */
+    public long getStamp() {
+        return stamp.get();
+    }
+
+    /**
+     * Getter method for the number of entries currently held.
+     * @return The number of entries.
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Remove a single entry from the near cache.
+     * 
+     * @param key The product key.
+     */
+    public void invalidate(String key) {
+        if (key != null) {
+            synchronized (entries) {
+                entries.remove(key);
+                stamp.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Remove all entries from the near cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            stamp.incrementAndGet();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Drop the entry associated with a record that was added, updated, or 
+     * removed by the CacheManager sync job, or record the generation 
+     * readers have been switched to.
+     * 
+     * @param event The change event.
+     */
+    @Override
+    public void onChange(CacheChangeEvent event) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(event.toString());
+        }
+        if (event.getOperation() == CacheOperation.GENERATION) {
+            try {
+                setGeneration(Long.parseLong(event.getKey()));
+            }
+            catch (NumberFormatException nfe) {
+                LOGGER.warn("Malformed generation event [ "
+                        + event.toString()
+                        + " ].");
+            }
+        }
+        else {
+            invalidate(event.getKey());
+        }
+    }
+    
+    /**
+     * Add a product to the near cache.  The product is dropped if the near
+     * cache has been invalidated since the input stamp was captured, since
+     * it may have been read before the change that caused the 
+     * invalidation.
+     *
+     * @param key The product key.
+     * @param product The deserialized product.
+     * @param generation The cache generation the product was read from.
+     * @param readStamp The stamp captured (<code>getStamp()</code>) before
+     * the product was read.
+     */
+    public void put(
+            String key, 
+            RoDProduct product, 
+            long generation, 
+            long readStamp) {
+        if ((key != null) && (product != null)) {
+            Entry entry = new Entry(
+                    product,
+                    generation,
+                    System.currentTimeMillis() + ttl);
+            synchronized (entries) {
+                if (stamp.get() != readStamp) {
+                    stalePuts.incrementAndGet();
+                    return;
+                }
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Convert the near cache statistics to a printable String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("RoDProduct near cache: size => [ ");
+        sb.append(getSize());
+        sb.append(" ], hits => [ ");
+        sb.append(getHits());
+        sb.append(" ], misses => [ ");
+        sb.append(getMisses());
+        sb.append(" ], hit rate => [ ");
+        sb.append(String.format("%.1f", getHitRate() * 100.0));
+        sb.append(" ]%, evictions => [ ");
+        sb.append(getEvictions());
+        sb.append(" ], expirations => [ ");
+        sb.append(getExpirations());
+        sb.append(" ], invalidations => [ ");
+        sb.append(getInvalidations());
+        sb.append(" ], stale puts => [ ");
+        sb.append(getStalePuts());
+        sb.append(" ].");
+        return sb.toString();
+    }
+
+    /**
+     * Simple immutable holder for a cached product, the generation it was
+     * read from, and its expiration time.
+     */
+    private static final class Entry {
+
+        private final RoDProduct product;
+        private final long       generation;
+        private final long       expires;
+
+        private Entry(RoDProduct product, long generation, long expires) {
+            this.product    = product;
+            this.generation = generation;
+            this.expires    = expires;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expires;
+        }
+    }
+
+    /**
+     * Static inner class used to construct the Singleton object.  This class
+     * exploits the fact that classes are not loaded until they are referenced
+     * therefore enforcing thread safety without the performance hit imposed
+     * by the <code>synchronized</code> keyword.
+     *
+     * @author L. Craig Carpenter
+     */
+    public static class RoDProductNearCacheHolder {
+
+        /**
+         * Reference to the Singleton instance of the RoDProductNearCache.
+         */
+        private static final RoDProductNearCache _instance =
+                new RoDProductNearCache();
+
+        /**
+         * Accessor method for the singleton instance of the
+         * RoDProductNearCache.
+         *
+         * @return The Singleton instance of the RoDProductNearCache.
+         */
+        public static RoDProductNearCache getSingleton() {
+            return _instance;
+        }
+    }
+}
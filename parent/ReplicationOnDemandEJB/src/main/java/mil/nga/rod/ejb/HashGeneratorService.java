@@ -6,11 +6,23 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
 
+import javax.annotation.Resource;
+import javax.ejb.Asynchronous;
+import javax.ejb.EJB;
 import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 
+import mil.nga.rod.accelerator.HashQueue;
+import mil.nga.rod.accelerator.HashQueueConstants;
+import mil.nga.rod.model.Product;
 import mil.nga.types.HashType;
+import mil.nga.util.FileFingerprint;
+import mil.nga.util.HashCache;
+import mil.nga.util.HashGenerator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +38,13 @@ import org.slf4j.LoggerFactory;
  * issues when converting the output hashes to Base64 using the JDK classes 
  * (specifically, leading 0s were being dropped).
  * 
+ * Callers serving interactive requests should use 
+ * <code>getHashAsync</code>, which queues files that have not been hashed
+ * to the background <code>HashQueue</code> rather than reading them in 
+ * the request thread.  The queue is drained by asynchronous invocations 
+ * of this bean, so the hashing and write-back run on container-managed
+ * threads.
+ * 
  * @author L. Craig Carpenter
  */
 @Stateless
@@ -43,11 +62,105 @@ public class HashGeneratorService implements Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(
             HashGeneratorService.class);
     
+    /**
+     * Container-injected reference to the bean used to write background
+     * hashes back to the RoDProduct store.
+     */
+    @EJB
+    RoDProductServiceJPA rodProductStore;
+    
+    /**
+     * Container-injected session context used to invoke the asynchronous
+     * queue worker through the container.
+     */
+    @Resource
+    SessionContext context;
+    
     /**
      * Default constructor. 
      */
     public HashGeneratorService() { }
     
+    /**
+     * Retrieve the hash of a product file without reading the file in the
+     * calling thread.  If the hash of the current version of the file is 
+     * in the hash cache, or was computed by the background workers, it is 
+     * returned.  Otherwise the file is queued for background hashing and 
+     * <code>HashQueueConstants.HASH_PENDING</code> is returned.  If 
+     * background hashing is disabled the file is hashed synchronously.
+     * 
+     * @param prod The product identifying the on-disk file.
+     * @param hashType The type of hash to create.
+     * @return The hash value as a hex string, the pending marker, or null 
+     * if the file does not exist.
+     */
+    public String getHashAsync(Product prod, HashType hashType) {
+        
+        if ((prod == null) || (hashType == null)) {
+            LOGGER.error("The required input product or hash type is null.  "
+                    + "The returned hash will be null.");
+            return null;
+        }
+        if (!HashQueue.getInstance().isEnabled()) {
+            return getHash(prod.getPath(), hashType);
+        }
+        if ((prod.getPath() == null) || 
+                (!new File(prod.getPath()).exists())) {
+            LOGGER.error("Input file does not exists.  Input file "
+                    + "specified [ "
+                    + prod.getPath()
+                    + " ].");
+            return null;
+        }
+        
+        HashCache cache = HashCache.getInstance();
+        if (cache.isEnabled() && (!hashType.isTree())) {
+            try {
+                File            file        = new File(prod.getPath());
+                FileFingerprint fingerprint = cache.fingerprint(file.toPath());
+                String          hash        = cache.get(
+                        file.toPath(), 
+                        fingerprint, 
+                        hashType);
+                if (hash != null) {
+                    return hash;
+                }
+            }
+            catch (IOException ioe) { }
+        }
+        
+        HashQueue queue = HashQueue.getInstance();
+        String    hash  = queue.getCompleted(prod.getPath(), hashType);
+        if (hash != null) {
+            return hash;
+        }
+        if (queue.submit(prod, hashType) && queue.startWorker()) {
+            try {
+                context.getBusinessObject(HashGeneratorService.class)
+                        .drainHashQueue();
+            }
+            catch (RuntimeException re) {
+                queue.releaseWorker();
+                LOGGER.error("Unable to start a background hash worker.  "
+                        + "Error message => [ "
+                        + re.getMessage()
+                        + " ].");
+            }
+        }
+        return HashQueueConstants.HASH_PENDING;
+    }
+    
+    /**
+     * Background hash worker.  Hashes the files queued in the 
+     * <code>HashQueue</code> until it is empty.  Must be invoked through 
+     * the container (see <code>getHashAsync</code>) so that it runs 
+     * asynchronously, on a container-managed thread.
+     */
+    @Asynchronous
+    public void drainHashQueue() {
+        HashQueue.getInstance().drain(rodProductStore);
+    }
+    
     /**
      * Construct the hexadecimal-based hash of the input file.  If the input
      * file doesn't exist, or errors are encountered during hash generation the 
@@ -75,24 +188,10 @@ public class HashGeneratorService implements Serializable {
                             + " ].");
                 }
                 
+                // Delegate to HashGenerator so that hashes already held 
+                // in the shared hash cache are not computed again.
                 long startTime = System.currentTimeMillis();
-                switch (hashType) {
-                    case MD5 : 
-                        hash = getMD5Hash(file);
-                        break;
-                    case SHA1:
-                        hash = getSHA1Hash(file);
-                        break;
-                    case SHA256:
-                        hash = getSHA256Hash(file);
-                        break;
-                    case SHA384:
-                        hash = getSHA384Hash(file);                        
-                        break;
-                    case SHA512:
-                        hash = getSHA512Hash(file);                        
-                        break;
-                }
+                hash = new HashGenerator().getHash(file.toPath(), hashType);
                 
                 long elapsedTime = System.currentTimeMillis() - startTime;
                 if (LOGGER.isDebugEnabled()) {
@@ -120,6 +219,23 @@ public class HashGeneratorService implements Serializable {
         return hash;
     }
     
+    /**
+     * Construct several hexadecimal-based hashes of the input file from a 
+     * single read of the file.  Use this rather than repeated calls to 
+     * <code>getHash</code> when more than one hash type is needed.
+     * 
+     * @param inputFile String containing the full path to a file on which
+     * the requested hashes should be applied.
+     * @param hashTypes The types of hash to create.
+     * @return Map of hash type to hash value.  Empty if the file could not
+     * be read.
+     */
+    public Map<HashType, String> getHashes(
+            String inputFile, 
+            Set<HashType> hashTypes) {
+        return new HashGenerator().getHashes(inputFile, hashTypes);
+    }
+    
     /**
      * Generate a SHA-1 hash associated with the input 
      * 
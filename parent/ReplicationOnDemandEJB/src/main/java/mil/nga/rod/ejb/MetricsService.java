@@ -16,8 +16,15 @@ import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
 import javax.sql.DataSource;
 
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
+import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.RedisPoolStatistics;
+import mil.nga.rod.accelerator.HashQueue;
+import mil.nga.rod.cache.RoDProductNearCache;
 import mil.nga.rod.model.DownloadRequest;
 import mil.nga.rod.model.QueryRequest;
+import mil.nga.util.HashCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -292,6 +299,74 @@ public class MetricsService implements Serializable {
 
     }
     
+    /**
+     * Retrieve a snapshot of the Redis connection pool statistics (active, 
+     * idle and waiting connections plus borrow latency).  Used to size the 
+     * pool relative to the application server thread count.
+     * 
+     * @return The current Redis connection pool statistics, or null if 
+     * the cache is not backed by Redis.
+     */
+    public RedisPoolStatistics getCachePoolStatistics() {
+        CacheManagerI cache = 
+                CacheManagerFactory.getInstance().getCacheManager();
+        if (!(cache instanceof RedisCacheManager)) {
+            return null;
+        }
+        RedisPoolStatistics stats = 
+                ((RedisCacheManager)cache).getPoolStatistics();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(stats.toString());
+        }
+        return stats;
+    }
+    
+    /**
+     * Retrieve the statistics of the shared hash cache consulted before an 
+     * on-disk file is hashed.  The hit rate is the fraction of hash 
+     * requests answered without reading the file.
+     * 
+     * @return The hash cache statistics (hits, misses and hit rate) as a 
+     * printable String.
+     */
+    public String getHashCacheStatistics() {
+        HashCache cache = HashCache.getInstance();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(cache.toString());
+        }
+        return cache.toString();
+    }
+    
+    /**
+     * Retrieve the statistics of the background hash queue (files pending,
+     * completed, failed, and rejected because the queue was full).
+     * 
+     * @return The hash queue statistics as a printable String.
+     */
+    public String getHashQueueStatistics() {
+        HashQueue queue = HashQueue.getInstance();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(queue.toString());
+        }
+        return queue.toString();
+    }
+    
+    /**
+     * Retrieve the statistics of the in-process product near cache (hits,
+     * misses, evictions, expirations, invalidations and stale puts).  The
+     * hit rate is the fraction of product lookups answered without a round
+     * trip to Redis.
+     * 
+     * @return The near cache statistics as a printable String.
+     */
+    public String getNearCacheStatistics() {
+        RoDProductNearCache cache = RoDProductNearCache.getInstance();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(cache.toString());
+        }
+        return cache.toString();
+    }
+    
     /**
      * This method will return a list of all 
      * <code>mil.nga.rod.model.DownloadRequest</code> objects currently 
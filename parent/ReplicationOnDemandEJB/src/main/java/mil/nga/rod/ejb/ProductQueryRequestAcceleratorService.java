@@ -13,7 +13,7 @@ import javax.sql.DataSource;
 
 import mil.nga.rod.JSONSerializer;
 import mil.nga.rod.accelerator.AcceleratorRecordFactory;
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.CacheManagerFactory;
 import mil.nga.rod.model.Product;
 import mil.nga.rod.model.QueryRequestAccelerator;
 
@@ -75,7 +75,7 @@ public class ProductQueryRequestAcceleratorService
         QueryRequestAccelerator record = null;
         String key = AcceleratorRecordFactory.getInstance().getKey(product);
          
-        String value = RedisCacheManager.getInstance().get(key);
+        String value = CacheManagerFactory.getInstance().getCacheManager().get(key);
         if ((value == null) || (value.isEmpty())) {
             LOGGER.warn("Input key [ "
                     + key 
@@ -270,7 +270,8 @@ public class ProductQueryService implements Serializable {
                                 .getRecordFromCache(prod);
                         
                         // If the hash was pre-computed, use it here otherwise
-                        // compute the hash on the fly.
+                        // queue the file to be hashed in the background and
+                        // mark the hash as pending.
                         if (accelerator != null) {
                             hash     = accelerator.getHash();
                             fileDate = accelerator.getFileDate();
@@ -279,8 +280,8 @@ public class ProductQueryService implements Serializable {
                         else {
                             fileDate = getActualFileDate(prod.getPath());
                             if (getHashGeneratorService() != null) {
-                                hash = getHashGeneratorService().getHash(
-                                            prod.getPath(), 
+                                hash = getHashGeneratorService().getHashAsync(
+                                            prod, 
                                             HashType.MD5);
                             }
                             else {
@@ -2,7 +2,10 @@ package mil.nga.rod.ejb;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.ejb.LocalBean;
@@ -13,7 +16,9 @@ import org.slf4j.LoggerFactory;
 
 import mil.nga.exceptions.ServiceUnavailableException;
 import mil.nga.rod.JSONSerializer;
-import mil.nga.cache.RedisCacheManager;
+import mil.nga.cache.CacheManagerFactory;
+import mil.nga.cache.CacheManagerI;
+import mil.nga.rod.cache.RoDProductNearCache;
 import mil.nga.rod.interfaces.RoDProductServiceI;
 import mil.nga.rod.model.RoDProduct;
 
@@ -38,6 +43,42 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
     private static final Logger LOG = LoggerFactory.getLogger(
     		RoDProductServiceCache.class);
     
+	/**
+	 * Retrieve the cache implementation selected by the 
+	 * <code>cache.type</code> property.
+	 * 
+	 * @return The cache manager.
+	 */
+	private CacheManagerI getCache() {
+		return CacheManagerFactory.getInstance().getCacheManager();
+	}
+	
+	/**
+	 * Retrieve the cache generation that is current when a request starts.
+	 * Every read made while serving the request goes to the returned view 
+	 * so that the caller never sees a mix of two catalogs, even if the 
+	 * cache manager switches generations mid-request.  If generations are 
+	 * not in use the cache itself is returned.
+	 * 
+	 * @return The cache view for the request.
+	 */
+	private CacheManagerI pin() {
+		return getCache().pin();
+	}
+	
+	/**
+	 * Retrieve the view of the input generation.  Used in place of 
+	 * <code>pin()</code> when the caller also needs the generation number
+	 * itself, e.g. to stamp near cache entries.
+	 * 
+	 * @param generation The generation returned by 
+	 * <code>getGeneration()</code> at the start of the request.
+	 * @return The cache view for the request.
+	 */
+	private CacheManagerI pin(long generation) {
+		return getCache().forGeneration(generation);
+	}
+	
 	/**
 	 * Retrieve a list of primary keys from the target data source.
 	 * 
@@ -50,7 +91,7 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 		
 		long         start      = System.currentTimeMillis();
 		List<String> keys       = null;
-		Set<String>  productSet = RedisCacheManager.getInstance().getKeys();
+		Set<String>  productSet = pin().getKeys();
 		
 		if ((productSet != null) && (productSet.size() > 0)) {
 			keys = new ArrayList<String>(productSet);
@@ -69,7 +110,10 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 	}
 	
 	/**
-	 * Retrieve a single <code>RoDProduct</code> based on the input key.
+	 * Retrieve a single <code>RoDProduct</code> based on the input key.  The 
+	 * in-JVM near cache is consulted first; Redis is only queried on a miss.
+	 * The near cache tracks the current generation locally, so a hit costs
+	 * no network round trip; a miss is read from that same generation.
 	 * @param key The primary key for a specific <code>RoDProduct</code> 
 	 * object.
 	 * @return Single <code>RoDProduct</code> matching the input primary 
@@ -85,14 +129,21 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 		RoDProduct product = null;
 		
 		if ((key != null) && (!key.isEmpty())) {
-			String jsonValue = RedisCacheManager.getInstance().get(key);
-			if ((jsonValue != null) && (!jsonValue.isEmpty())) {
-				product = JSONSerializer.getInstance().deserializeToRoDProduct(jsonValue);
-			}
-			else {
-				LOG.warn("Unable to find RoDProduct with key [ "
-						+ key
-						+ " ] in the cache.");
+			RoDProductNearCache nearCache = RoDProductNearCache.getInstance();
+			product = nearCache.get(key);
+			if (product == null) {
+				long   generation = nearCache.getGeneration();
+				long   stamp      = nearCache.getStamp();
+				String jsonValue  = pin(generation).get(key);
+				if ((jsonValue != null) && (!jsonValue.isEmpty())) {
+					product = JSONSerializer.getInstance().deserializeToRoDProduct(jsonValue);
+					nearCache.put(key, product, generation, stamp);
+				}
+				else {
+					LOG.warn("Unable to find RoDProduct with key [ "
+							+ key
+							+ " ] in the cache.");
+				}
 			}
 		}
 		else {
@@ -111,7 +162,11 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 	}
 	
 	/**
-	 * Simple method to retrieve all products in the target data source.
+	 * Simple method to retrieve all products in the target data source.  
+	 * The full set of key/value pairs is retrieved in a single structured 
+	 * read (HGETALL when the cache is in hash mode).  The deserialized 
+	 * products are used to warm the near cache.
+	 * 
 	 * @return The list of all <code>RoDProduct</code> objects in the target 
 	 * data source.
 	 * @throws ServiceUnavailableException Thrown if we cannot initialize
@@ -119,15 +174,29 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 	 */
 	@Override
 	public List<RoDProduct> getProducts() throws ServiceUnavailableException {
-		long             start    = System.currentTimeMillis();
-		List<RoDProduct> products = new ArrayList<RoDProduct>();
-		List<String>     keys     = getKeys();
+		return getProducts(getCache().getGeneration());
+	}
+	
+	/**
+	 * Retrieve all products from the view of the input generation.
+	 * 
+	 * @param generation The generation pinned by the caller.
+	 * @return The list of all <code>RoDProduct</code> objects in the view.
+	 */
+	private List<RoDProduct> getProducts(long generation) {
+		CacheManagerI       cache     = pin(generation);
+		long                start     = System.currentTimeMillis();
+		List<RoDProduct>    products  = new ArrayList<RoDProduct>();
+		RoDProductNearCache nearCache = RoDProductNearCache.getInstance();
+		long                stamp     = nearCache.getStamp();
+		Map<String, String> values    = cache.getAll();
 		
-		if ((keys != null) && (keys.size() > 0)) { 
-			for (String key : keys) {
-				RoDProduct p = getProduct(key);
+		if ((values != null) && (values.size() > 0)) { 
+			for (Map.Entry<String, String> entry : values.entrySet()) {
+				RoDProduct p = deserialize(entry.getValue());
 				if (p != null) {
 					products.add(p);
+					nearCache.put(entry.getKey(), p, generation, stamp);
 				}
 			}
 		}
@@ -142,4 +211,75 @@ public class RoDProductServiceCache implements RoDProductServiceI, Serializable
 		}
 		return products;
 	}
+	
+	/**
+	 * Retrieve all products ordered by file date, newest first.  If the 
+	 * cache maintains a file date index the ordering comes directly from 
+	 * the index (ZREVRANGE followed by pipelined HMGETs).  Otherwise the 
+	 * full product list is loaded and sorted in memory.
+	 * 
+	 * @return The list of all <code>RoDProduct</code> objects ordered by 
+	 * descending file date.
+	 * @throws ServiceUnavailableException Thrown if we cannot initialize
+	 * the target service.
+	 */
+	public List<RoDProduct> getProductsNewestFirst() 
+			throws ServiceUnavailableException {
+		
+		long             start      = System.currentTimeMillis();
+		List<RoDProduct> products   = new ArrayList<RoDProduct>();
+		long             generation = getCache().getGeneration();
+		CacheManagerI    cache      = pin(generation);
+		List<String>     keys       = cache.getKeysByScore();
+		
+		if ((keys != null) && (keys.size() > 0)) {
+			Map<String, String> values = cache.getAll(keys);
+			for (String key : keys) {
+				RoDProduct p = deserialize(values.get(key));
+				if (p != null) {
+					products.add(p);
+				}
+			}
+		}
+		else {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("File date index is not available.  Sorting the "
+						+ "product list in memory.");
+			}
+			products = getProducts(generation);
+			Collections.sort(products, new Comparator<RoDProduct>() {
+				@Override
+				public int compare(RoDProduct a, RoDProduct b) {
+					long dateA = (a.getFileDate() == null ? 
+							0L : a.getFileDate().getTime());
+					long dateB = (b.getFileDate() == null ? 
+							0L : b.getFileDate().getTime());
+					return Long.compare(dateB, dateA);
+				}
+			});
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Ordered RoDProduct list retrieved from cache in [ "
+					+ (System.currentTimeMillis() - start)
+					+ " ] ms.");
+		}
+		return products;
+	}
+	
+	/**
+	 * Deserialize a cached JSON value into a <code>RoDProduct</code>.
+	 * 
+	 * @param jsonValue The cached value.
+	 * @return The deserialized product, or null if the value is null, empty,
+	 * or could not be deserialized.
+	 */
+	private RoDProduct deserialize(String jsonValue) {
+		RoDProduct product = null;
+		if ((jsonValue != null) && (!jsonValue.isEmpty())) {
+			product = JSONSerializer.getInstance()
+					.deserializeToRoDProduct(jsonValue);
+		}
+		return product;
+	}
 }
@@ -127,7 +127,8 @@ public class ISOFile implements Serializable {
     }
     /**
      * Getter method for the MD5 hash of the target file.
-     * @return The MD5 hash of the target file.
+     * @return The MD5 hash of the target file, or "pending" if the file is
+     * still being hashed in the background.
      */
     @XmlElement(name="hash")
     @JsonProperty(value="hash")